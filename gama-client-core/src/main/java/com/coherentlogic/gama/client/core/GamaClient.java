@@ -0,0 +1,302 @@
+package com.coherentlogic.gama.client.core;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.dispatch.StripedDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.TransportDispatcher;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.transport.AdaptiveConcurrencyTransport;
+import com.coherentlogic.gama.client.core.transport.ResponseBodyMode;
+import com.coherentlogic.gama.client.core.transport.RestTemplateTransport;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * The long-lived entry point for applications which do not use the Spring Boot starter: one client owns the
+ * transport, the buffer and builder pools and the dispatch lanes, and hands out builders which already carry the
+ * protocol version, tracking id and application defaults.
+ *
+ * <pre>
+ * GamaClient client = GamaClient.initialize(GamaClientConfiguration.forTrackingId("UA-12345-1"));
+ *
+ * client.sendAsync(client.newHit().withCID(clientId).withTAsPageView().withDp("/home"));
+ * </pre>
+ *
+ * The builders are pooled; each is used by one thread at a time and is returned to the pool by send, sendAsync or
+ * discard. The client itself is thread-safe: the pools are shared without locking on the send path and asynchronous
+ * hits are spread over the lanes by client id, so hits of one client are sent in order. One client is meant to be
+ * shared by the whole application -- either by holding on to it or through {@link #getInstance()}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class GamaClient implements Closeable {
+
+    private static final AtomicReference<GamaClient> instance = new AtomicReference<GamaClient> ();
+
+    private final Transport transport;
+
+    private final ByteBufferPool byteBufferPool;
+
+    private final QueryBuilderPool queryBuilderPool;
+
+    private final StripedDispatcher stripedDispatcher;
+
+    private final String trackingId;
+
+    private final String applicationName;
+
+    private final String applicationVersion;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a client which posts hits to the configured uri using its own RestTemplate.
+     */
+    public GamaClient(GamaClientConfiguration configuration) {
+        this(configuration, newRestTemplate (configuration));
+    }
+
+    GamaClient(GamaClientConfiguration configuration, RestTemplate restTemplate) {
+        this(configuration, restTemplate, newTransport (configuration, restTemplate));
+    }
+
+    /**
+     * Creates a client which sends hits using the given transport.
+     */
+    public GamaClient(GamaClientConfiguration configuration, Transport transport) {
+        this(configuration, new RestTemplate (), transport);
+    }
+
+    GamaClient(GamaClientConfiguration configuration, RestTemplate restTemplate, Transport transport) {
+
+        Utils.assertNotNull("configuration", configuration);
+        Utils.assertNotNull("restTemplate", restTemplate);
+        Utils.assertNotNull("transport", transport);
+
+        this.transport = transport;
+        this.byteBufferPool = new ByteBufferPool (configuration.getHitSlots(), configuration.getBatchSlots());
+        this.queryBuilderPool = new BoundedQueryBuilderPool (
+            restTemplate,
+            configuration.getUri(),
+            configuration.getQueryBuilderPoolCapacity()
+        );
+        this.stripedDispatcher = new StripedDispatcher (
+            new TransportDispatcher (transport, byteBufferPool),
+            queryBuilderPool,
+            configuration.getLanes(),
+            configuration.getLaneCapacity()
+        );
+        this.trackingId = configuration.getTrackingId();
+        this.applicationName = configuration.getApplicationName();
+        this.applicationVersion = configuration.getApplicationVersion();
+    }
+
+    static RestTemplate newRestTemplate (GamaClientConfiguration configuration) {
+
+        Utils.assertNotNull("configuration", configuration);
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory ();
+
+        requestFactory.setConnectTimeout(configuration.getConnectTimeoutMillis());
+        requestFactory.setReadTimeout(configuration.getReadTimeoutMillis());
+
+        return new RestTemplate (requestFactory);
+    }
+
+    static Transport newTransport (GamaClientConfiguration configuration, RestTemplate restTemplate) {
+
+        Transport result =
+            new RestTemplateTransport (restTemplate, URI.create(configuration.getUri()), ResponseBodyMode.DISCARD);
+
+        return 0 < configuration.getConcurrencyMaxLimit()
+            ? new AdaptiveConcurrencyTransport (
+                result,
+                configuration.getConcurrencyInitialLimit(),
+                configuration.getConcurrencyMinLimit(),
+                configuration.getConcurrencyMaxLimit()
+            )
+            : result;
+    }
+
+    /**
+     * Creates the client returned by {@link #getInstance()}.
+     *
+     * @throws IllegalStateException if a client has already been initialized and not yet closed.
+     */
+    public static GamaClient initialize (GamaClientConfiguration configuration) {
+
+        if (instance.get() != null)
+            throw new IllegalStateException("A client has already been initialized; close it first.");
+
+        GamaClient result = new GamaClient (configuration);
+
+        if (!instance.compareAndSet(null, result)) {
+
+            result.close();
+
+            throw new IllegalStateException("A client has already been initialized; close it first.");
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the client created by {@link #initialize(GamaClientConfiguration)}.
+     *
+     * @throws IllegalStateException if no client has been initialized or the client has been closed.
+     */
+    public static GamaClient getInstance () {
+
+        GamaClient result = instance.get();
+
+        if (result == null)
+            throw new IllegalStateException("No client has been initialized.");
+
+        return result;
+    }
+
+    /**
+     * Returns a builder with the defaults already set; pass it to {@link #send(QueryBuilder)},
+     * {@link #sendAsync(QueryBuilder)} or, when the hit is abandoned, {@link #discard(QueryBuilder)}.
+     */
+    public QueryBuilder newHit () {
+
+        QueryBuilder result = queryBuilderPool.acquire().withV1().withTid(trackingId);
+
+        if (applicationName != null)
+            result.withAn(applicationName);
+
+        if (applicationVersion != null)
+            result.withAv(applicationVersion);
+
+        return result;
+    }
+
+    /**
+     * Sends the hit on the calling thread and returns the builder to the pool; the builder must not be used
+     * afterwards. Hits sent this way bypass the lanes, so they may overtake asynchronous hits of the same client.
+     *
+     * @throws IllegalStateException if this client has been closed.
+     */
+    public void send (QueryBuilder queryBuilder) {
+        try {
+            assertOpen ();
+
+            transport.send(queryBuilder.encodeTo(byteBufferPool));
+        } finally {
+            queryBuilderPool.release(queryBuilder);
+        }
+    }
+
+    /**
+     * Sends the hit on the calling thread; see {@link #send(QueryBuilder)}.
+     *
+     * @throws IllegalStateException if this client has been closed.
+     */
+    public void send (Hit hit) {
+
+        assertOpen ();
+
+        transport.send(hit.asByteBuffer());
+    }
+
+    /**
+     * Queues the hit on the lane of its client and returns the builder to the pool; the builder must not be used
+     * afterwards. Blocks while the lane is full. Failures are logged and counted, see {@link #getFailureCount()}.
+     *
+     * @throws IllegalStateException if this client has been closed.
+     */
+    public void sendAsync (QueryBuilder queryBuilder) {
+        try {
+            stripedDispatcher.dispatch(queryBuilder);
+        } finally {
+            queryBuilderPool.release(queryBuilder);
+        }
+    }
+
+    /**
+     * Queues the hit, without copying it, on the lane of its client; see {@link #sendAsync(QueryBuilder)}.
+     *
+     * @throws IllegalStateException if this client has been closed.
+     */
+    public void sendAsync (Hit hit) {
+        stripedDispatcher.dispatch(hit);
+    }
+
+    /**
+     * Returns the builder to the pool without sending it.
+     */
+    public void discard (QueryBuilder queryBuilder) {
+        queryBuilderPool.release(queryBuilder);
+    }
+
+    /**
+     * Waits until every hit passed to sendAsync before this method was called has been sent.
+     *
+     * @return true if all hits were sent before the timeout elapsed.
+     */
+    public boolean flush (long timeout, TimeUnit unit) {
+        return stripedDispatcher.flush(timeout, unit);
+    }
+
+    /**
+     * Waits, for as long as it takes, until every hit passed to sendAsync before this method was called has been
+     * sent.
+     */
+    public void flush () {
+        flush (Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of asynchronous hits which could not be sent.
+     */
+    public long getFailureCount () {
+        return stripedDispatcher.getFailureCount();
+    }
+
+    public Transport getTransport () {
+        return transport;
+    }
+
+    public ByteBufferPool getByteBufferPool () {
+        return byteBufferPool;
+    }
+
+    public StripedDispatcher getStripedDispatcher () {
+        return stripedDispatcher;
+    }
+
+    public boolean isClosed () {
+        return closed;
+    }
+
+    void assertOpen () {
+        if (closed)
+            throw new IllegalStateException("This client has been closed.");
+    }
+
+    /**
+     * Stops accepting hits, waits for the hits already queued to be sent and, if this is the client returned by
+     * {@link #getInstance()}, clears it so another can be initialized. Closing a client more than once has no effect.
+     */
+    @Override
+    public void close () {
+
+        closed = true;
+
+        stripedDispatcher.close();
+
+        instance.compareAndSet(this, null);
+    }
+}
@@ -0,0 +1,176 @@
+package com.coherentlogic.gama.client.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+
+/**
+ * The settings of a {@link GamaClient}, read from properties such as:
+ *
+ * <pre>
+ * trackingId=UA-12345-1
+ * applicationName=orders
+ * applicationVersion=1.4.2
+ *
+ * # Hits of one client are always sent by the same lane, in order.
+ * lanes=4
+ * laneCapacity=1024
+ *
+ * # Zero leaves the number of requests in flight to the lanes alone.
+ * concurrency.maxLimit=32
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class GamaClientConfiguration {
+
+    public static final String TRACKING_ID = "trackingId",
+        APPLICATION_NAME = "applicationName",
+        APPLICATION_VERSION = "applicationVersion",
+        URI = "uri",
+        LANES = "lanes",
+        LANE_CAPACITY = "laneCapacity",
+        QUERY_BUILDER_POOL_CAPACITY = "queryBuilderPoolCapacity",
+        HIT_SLOTS = "hitSlots",
+        BATCH_SLOTS = "batchSlots",
+        CONNECT_TIMEOUT_MILLIS = "connectTimeoutMillis",
+        READ_TIMEOUT_MILLIS = "readTimeoutMillis",
+        CONCURRENCY_INITIAL_LIMIT = "concurrency.initialLimit",
+        CONCURRENCY_MIN_LIMIT = "concurrency.minLimit",
+        CONCURRENCY_MAX_LIMIT = "concurrency.maxLimit";
+
+    private final Properties properties;
+
+    public GamaClientConfiguration(Properties properties) {
+
+        Utils.assertNotNull("properties", properties);
+
+        this.properties = properties;
+
+        Utils.assertNotNull(TRACKING_ID, getTrackingId ());
+
+        if (getLanes () < 1)
+            throw new IllegalArgumentException("The " + LANES + " must be greater than zero (lanes: " + getLanes ()
+                + ")");
+
+        if (getLaneCapacity () < 1)
+            throw new IllegalArgumentException("The " + LANE_CAPACITY + " must be greater than zero (laneCapacity: "
+                + getLaneCapacity () + ")");
+    }
+
+    /**
+     * Returns a configuration with the given tracking id and every other setting left at its default.
+     */
+    public static GamaClientConfiguration forTrackingId (String trackingId) {
+
+        Utils.assertNotNull("trackingId", trackingId);
+
+        Properties properties = new Properties ();
+
+        properties.setProperty(TRACKING_ID, trackingId);
+
+        return new GamaClientConfiguration (properties);
+    }
+
+    public static GamaClientConfiguration load (Path path) throws IOException {
+
+        Properties properties = new Properties ();
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            properties.load(inputStream);
+        }
+
+        return new GamaClientConfiguration (properties);
+    }
+
+    /**
+     * Returns the tracking id (tid) set on every builder the client hands out.
+     */
+    public String getTrackingId () {
+        return properties.getProperty(TRACKING_ID);
+    }
+
+    /**
+     * Returns the application name (an) set on every builder, or null.
+     */
+    public String getApplicationName () {
+        return properties.getProperty(APPLICATION_NAME);
+    }
+
+    /**
+     * Returns the application version (av) set on every builder, or null.
+     */
+    public String getApplicationVersion () {
+        return properties.getProperty(APPLICATION_VERSION);
+    }
+
+    public String getUri () {
+        return properties.getProperty(URI, QueryBuilder.GOOGLE_ANALYTICS_URL);
+    }
+
+    /**
+     * Returns the number of threads which send asynchronous hits.
+     */
+    public int getLanes () {
+        return (int) getLong (LANES, 2);
+    }
+
+    /**
+     * Returns the number of hits which may wait per lane before sendAsync blocks.
+     */
+    public int getLaneCapacity () {
+        return (int) getLong (LANE_CAPACITY, 1024);
+    }
+
+    /**
+     * Returns the number of idle builders kept for reuse.
+     */
+    public int getQueryBuilderPoolCapacity () {
+        return (int) getLong (QUERY_BUILDER_POOL_CAPACITY, 256);
+    }
+
+    public int getHitSlots () {
+        return (int) getLong (HIT_SLOTS, 256);
+    }
+
+    public int getBatchSlots () {
+        return (int) getLong (BATCH_SLOTS, 16);
+    }
+
+    public int getConnectTimeoutMillis () {
+        return (int) getLong (CONNECT_TIMEOUT_MILLIS, 2000);
+    }
+
+    public int getReadTimeoutMillis () {
+        return (int) getLong (READ_TIMEOUT_MILLIS, 5000);
+    }
+
+    public int getConcurrencyInitialLimit () {
+        return (int) getLong (CONCURRENCY_INITIAL_LIMIT, Math.min(4, getConcurrencyMaxLimit ()));
+    }
+
+    public int getConcurrencyMinLimit () {
+        return (int) getLong (CONCURRENCY_MIN_LIMIT, 1);
+    }
+
+    /**
+     * Returns the greatest number of requests in flight, or zero if the limit is not adapted; see
+     * {@link com.coherentlogic.gama.client.core.transport.AdaptiveConcurrencyTransport}.
+     */
+    public int getConcurrencyMaxLimit () {
+        return (int) getLong (CONCURRENCY_MAX_LIMIT, 0);
+    }
+
+    long getLong (String name, long defaultValue) {
+
+        String result = properties.getProperty(name);
+
+        return result == null ? defaultValue : Long.parseLong(result.trim());
+    }
+}
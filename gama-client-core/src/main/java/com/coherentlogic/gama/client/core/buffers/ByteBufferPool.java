@@ -0,0 +1,136 @@
+package com.coherentlogic.gama.client.core.buffers;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct {@link ByteBuffer}s which are carved out of two slabs: one of {@link #HIT_SLOT_SIZE} byte slots for
+ * individual encoded hits and one of {@link #BATCH_SLOT_SIZE} byte slots for batches. The slabs are allocated once, when
+ * the pool is created, so that encoding, queueing and sending hits reuses the same off-heap memory rather than creating
+ * garbage for each hit.
+ *
+ * When a size class is exhausted a heap buffer is allocated instead; this is counted (see {@link #getMissCount()}) and
+ * the buffer is simply dropped when it is released.
+ *
+ * This class is thread-safe.
+ *
+ * @see PooledByteBuffer
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ByteBufferPool {
+
+    /**
+     * The maximum size of a single hit payload that the Measurement API will accept.
+     */
+    public static final int HIT_SLOT_SIZE = 8 * 1024;
+
+    /**
+     * The maximum size of a batch payload that the Measurement API will accept.
+     */
+    public static final int BATCH_SLOT_SIZE = 16 * 1024;
+
+    private final BlockingQueue<PooledByteBuffer> hitSlots;
+
+    private final BlockingQueue<PooledByteBuffer> batchSlots;
+
+    private final AtomicLong missCount = new AtomicLong ();
+
+    public ByteBufferPool(int hitSlotCount, int batchSlotCount) {
+        this.hitSlots = slice(HIT_SLOT_SIZE, hitSlotCount);
+        this.batchSlots = slice(BATCH_SLOT_SIZE, batchSlotCount);
+    }
+
+    BlockingQueue<PooledByteBuffer> slice (int slotSize, int slotCount) {
+
+        if (slotCount < 0)
+            throw new IllegalArgumentException("The slotCount cannot be negative (slotCount: " + slotCount + ")");
+
+        // A slab is a single buffer, so it cannot hold more than Integer.MAX_VALUE bytes.
+        if (Integer.MAX_VALUE / slotSize < slotCount)
+            throw new IllegalArgumentException("The slotCount is too large for slots of " + slotSize + " bytes; at most "
+                + (Integer.MAX_VALUE / slotSize) + " fit into one slab (slotCount: " + slotCount + ")");
+
+        BlockingQueue<PooledByteBuffer> result = new ArrayBlockingQueue<PooledByteBuffer> (Math.max(1, slotCount));
+
+        if (slotCount == 0)
+            return result;
+
+        ByteBuffer slab = ByteBuffer.allocateDirect(slotSize * slotCount);
+
+        for (int ctr = 0; ctr < slotCount; ctr++) {
+
+            slab.limit((ctr + 1) * slotSize);
+            slab.position(ctr * slotSize);
+
+            result.add(new PooledByteBuffer (this, slab.slice()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a cleared buffer with a capacity of at least the given number of bytes and a reference count of one.
+     *
+     * Requests larger than {@link #BATCH_SLOT_SIZE} are always satisfied with an unpooled heap buffer.
+     */
+    public PooledByteBuffer acquire (int capacity) {
+
+        PooledByteBuffer result = null;
+
+        if (capacity <= HIT_SLOT_SIZE)
+            result = hitSlots.poll();
+
+        if (result == null && capacity <= BATCH_SLOT_SIZE)
+            result = batchSlots.poll();
+
+        if (result == null) {
+
+            missCount.incrementAndGet();
+
+            result = new PooledByteBuffer (null, ByteBuffer.allocate(Math.max(capacity, HIT_SLOT_SIZE)));
+        }
+
+        return result.open();
+    }
+
+    /**
+     * Returns a buffer which can hold a single encoded hit.
+     */
+    public PooledByteBuffer acquireHitBuffer () {
+        return acquire(HIT_SLOT_SIZE);
+    }
+
+    /**
+     * Returns a buffer which can hold an encoded batch of hits.
+     */
+    public PooledByteBuffer acquireBatchBuffer () {
+        return acquire(BATCH_SLOT_SIZE);
+    }
+
+    void recycle (PooledByteBuffer pooledByteBuffer) {
+
+        if (pooledByteBuffer.getByteBuffer().capacity() == HIT_SLOT_SIZE)
+            hitSlots.offer(pooledByteBuffer);
+        else
+            batchSlots.offer(pooledByteBuffer);
+    }
+
+    public int getAvailableHitSlots () {
+        return hitSlots.size();
+    }
+
+    public int getAvailableBatchSlots () {
+        return batchSlots.size();
+    }
+
+    /**
+     * Returns the number of times a buffer had to be allocated on the heap because the pool was exhausted.
+     */
+    public long getMissCount () {
+        return missCount.get();
+    }
+}
@@ -0,0 +1,101 @@
+package com.coherentlogic.gama.client.core.buffers;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reference-counted {@link ByteBuffer} which is handed out by a {@link ByteBufferPool}. The buffer starts with a
+ * reference count of one; each stage which holds on to the buffer (a queue, a batch, the transport) calls
+ * {@link #retain()} and must call {@link #release()} when it is done. When the count drops to zero the buffer is
+ * returned to the pool and must not be used again.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class PooledByteBuffer {
+
+    private final ByteBufferPool byteBufferPool;
+
+    private final ByteBuffer byteBuffer;
+
+    private final AtomicInteger referenceCount = new AtomicInteger ();
+
+    /**
+     * @param byteBufferPool The pool the buffer is returned to or null if the buffer is not pooled.
+     */
+    PooledByteBuffer(ByteBufferPool byteBufferPool, ByteBuffer byteBuffer) {
+        this.byteBufferPool = byteBufferPool;
+        this.byteBuffer = byteBuffer;
+    }
+
+    /**
+     * Called by the pool when the buffer is handed out.
+     */
+    PooledByteBuffer open () {
+
+        byteBuffer.clear();
+
+        referenceCount.set(1);
+
+        return this;
+    }
+
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer;
+    }
+
+    /**
+     * Returns false when the pool was exhausted and this buffer was allocated on the heap instead; such buffers are
+     * simply dropped when released.
+     */
+    public boolean isPooled () {
+        return byteBufferPool != null;
+    }
+
+    public int getReferenceCount () {
+        return referenceCount.get();
+    }
+
+    /**
+     * Increments the reference count.
+     *
+     * @throws IllegalStateException if the buffer has already been released.
+     */
+    public PooledByteBuffer retain () {
+
+        int current;
+
+        do {
+            current = referenceCount.get();
+
+            if (current <= 0)
+                throw new IllegalStateException("The buffer has already been released.");
+
+        } while (!referenceCount.compareAndSet(current, current + 1));
+
+        return this;
+    }
+
+    /**
+     * Decrements the reference count and returns the buffer to the pool once the count reaches zero.
+     *
+     * @return true if this call released the buffer.
+     *
+     * @throws IllegalStateException if the buffer has already been released.
+     */
+    public boolean release () {
+
+        int remaining = referenceCount.decrementAndGet();
+
+        if (remaining < 0) {
+            referenceCount.incrementAndGet();
+            throw new IllegalStateException("The buffer has already been released.");
+        }
+
+        if (remaining == 0 && byteBufferPool != null) {
+            byteBufferPool.recycle(this);
+        }
+
+        return remaining == 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.coherentlogic.gama.client.core.builders;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+
+/**
+ * A {@link QueryBuilderPool} which is shared by all threads and which holds at most capacity idle builders. When the
+ * pool is empty a new builder is created, which uses the same restTemplate as every other builder from this pool.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class BoundedQueryBuilderPool implements QueryBuilderPool {
+
+    private final RestTemplate restTemplate;
+
+    private final String uri;
+
+    private final BlockingQueue<QueryBuilder> idleQueryBuilders;
+
+    public BoundedQueryBuilderPool(RestTemplate restTemplate, int capacity) {
+        this(restTemplate, QueryBuilder.GOOGLE_ANALYTICS_URL, capacity);
+    }
+
+    public BoundedQueryBuilderPool(RestTemplate restTemplate, String uri, int capacity) {
+
+        Utils.assertNotNull("restTemplate", restTemplate);
+        Utils.assertNotNull("uri", uri);
+
+        this.restTemplate = restTemplate;
+        this.uri = uri;
+        this.idleQueryBuilders = new ArrayBlockingQueue<QueryBuilder> (capacity);
+    }
+
+    @Override
+    public QueryBuilder acquire() {
+
+        QueryBuilder result = idleQueryBuilders.poll();
+
+        return result == null ? new QueryBuilder (restTemplate, uri) : result;
+    }
+
+    @Override
+    public void release(QueryBuilder queryBuilder) {
+        idleQueryBuilders.offer(queryBuilder.reset());
+    }
+
+    /**
+     * Returns the number of builders currently waiting to be acquired.
+     */
+    public int getIdleCount () {
+        return idleQueryBuilders.size();
+    }
+}
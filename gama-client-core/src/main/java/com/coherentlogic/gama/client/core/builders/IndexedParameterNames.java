@@ -0,0 +1,90 @@
+package com.coherentlogic.gama.client.core.builders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The names of an indexed parameter such as pr{0}cd{1}, built by concatenation rather than
+ * {@link java.text.MessageFormat} and, for patterns with one or two indexes, created once and shared: pr7qt is the
+ * same String every time it is asked for. Names with three indexes, of which there can be eight million, are not
+ * kept.
+ *
+ * The tables are filled without locking; two threads may both create a name, but as Strings are immutable either
+ * copy is correct and the one kept does not matter.
+ *
+ * The indexes must have been checked to lie between one and {@link #MAX_INDEX}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+final class IndexedParameterNames {
+
+    static final int MAX_INDEX = 200;
+
+    /**
+     * The text before, between and after the indexes; pr{0}cd{1} is held as pr, cd and an empty String.
+     */
+    private final String[] segments;
+
+    private final String[] names;
+
+    private final String[][] rows;
+
+    IndexedParameterNames (String pattern) {
+
+        List<String> segments = new ArrayList<String> ();
+
+        int begin = 0;
+
+        for (int index = 0; ; index++) {
+
+            int end = pattern.indexOf("{" + index + "}", begin);
+
+            if (end < 0)
+                break;
+
+            segments.add(pattern.substring(begin, end));
+
+            begin = end + 2 + Integer.toString(index).length();
+        }
+
+        segments.add(pattern.substring(begin));
+
+        if (segments.size() < 2 || 4 < segments.size())
+            throw new IllegalArgumentException("The pattern must contain between one and three indexes (pattern: "
+                + pattern + ")");
+
+        this.segments = segments.toArray(new String[segments.size()]);
+        this.names = this.segments.length == 2 ? new String[MAX_INDEX + 1] : null;
+        this.rows = this.segments.length == 3 ? new String[MAX_INDEX + 1][] : null;
+    }
+
+    String get (int x) {
+
+        String result = names[x];
+
+        if (result == null)
+            names[x] = result = segments[0] + x + segments[1];
+
+        return result;
+    }
+
+    String get (int x, int y) {
+
+        String[] row = rows[x];
+
+        if (row == null)
+            rows[x] = row = new String[MAX_INDEX + 1];
+
+        String result = row[y];
+
+        if (result == null)
+            row[y] = result = segments[0] + x + segments[1] + y + segments[2];
+
+        return result;
+    }
+
+    String get (int x, int y, int z) {
+        return segments[0] + x + segments[1] + y + segments[2] + z + segments[3];
+    }
+}
@@ -3,8 +3,11 @@ package com.coherentlogic.gama.client.core.builders;
 import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.URI;
-import java.text.MessageFormat;
-import java.util.UUID;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.ws.rs.core.UriBuilder;
 
@@ -14,17 +17,33 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
 import com.coherentlogic.coherent.data.adapter.core.builders.rest.AbstractRESTQueryBuilder;
 import com.coherentlogic.coherent.data.model.core.util.Utils;
 import com.coherentlogic.coherent.data.adapter.core.util.WelcomeMessage;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.cid.ClientIdGenerator;
+import com.coherentlogic.gama.client.core.cid.ClientIdResolver;
+import com.coherentlogic.gama.client.core.ecommerce.AbstractProduct;
+import com.coherentlogic.gama.client.core.ecommerce.Impression;
+import com.coherentlogic.gama.client.core.ecommerce.Product;
+import com.coherentlogic.gama.client.core.ecommerce.Promotion;
+import com.coherentlogic.gama.client.core.encoders.FormUrlEncoder;
 import com.coherentlogic.gama.client.core.exceptions.InvalidQueueTime;
 import com.coherentlogic.gama.client.core.exceptions.MaxLengthInBytesExceededException;
 import com.coherentlogic.gama.client.core.exceptions.NegativeValueException;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
 import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
 import com.coherentlogic.gama.client.core.exceptions.ValueOutOfBoundsException;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.hits.HitParameters;
+import com.coherentlogic.gama.client.core.transport.ResponseBodyMode;
+import com.coherentlogic.gama.client.core.transport.RestTemplateTransport;
+import com.coherentlogic.gama.client.core.transport.SendReceipt;
 
 /**
  * Class is used to send events to Google Analytics via the Measurement API.
@@ -38,7 +57,7 @@ import com.coherentlogic.gama.client.core.exceptions.ValueOutOfBoundsException;
  * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
  * @author <a href="mailto:support@coherentlogic.com">Support</a>
  */
-public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
+public class QueryBuilder extends AbstractRESTQueryBuilder<String> implements HitParameters {
 
     private static final Logger log = LoggerFactory.getLogger(QueryBuilder.class);
 
@@ -102,10 +121,413 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
     public QueryBuilder(RestTemplate restTemplate, String uri) {
         super(restTemplate, uri);
+        this.endpoint = getUriBuilder().build();
     }
 
     public QueryBuilder(RestTemplate restTemplate, UriBuilder uriBuilder) {
         super(restTemplate, uriBuilder);
+        this.endpoint = getUriBuilder().build();
+    }
+
+    /**
+     * The maximum size of the payload that the Measurement API will accept in the body of a POST request.
+     */
+    public static final int MAX_PAYLOAD_SIZE_IN_BYTES = 8192;
+
+    /**
+     * Used by {@link #doExecute(Class)} so that encoding a hit does not require a new buffer each time.
+     */
+    private static final ThreadLocal<ByteBuffer> payloadBuffer =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_PAYLOAD_SIZE_IN_BYTES));
+
+    /**
+     * The number of small whole values whose decimal form is shared by every builder.
+     */
+    static final int CACHED_VALUE_COUNT = 1024;
+
+    /**
+     * The decimal form of the values below {@link #CACHED_VALUE_COUNT}.
+     */
+    private static final String[] CACHED_VALUES = new String[CACHED_VALUE_COUNT];
+
+    static {
+        for (int ctr = 0; ctr < CACHED_VALUE_COUNT; ctr++)
+            CACHED_VALUES[ctr] = Integer.toString(ctr);
+    }
+
+    /**
+     * Used by {@link #getValue(int)} to format amounts without a BigDecimal.
+     */
+    private static final ThreadLocal<ByteBuffer> decimalBuffer =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(FormUrlEncoder.MAX_DECIMAL_LENGTH));
+
+    /**
+     * The URI this builder was created with, before any parameters were added.
+     */
+    private final URI endpoint;
+
+    /**
+     * Used by {@link #doSend(ResponseBodyMode)}; created on the first send, as builders used only to build hits may
+     * have no restTemplate.
+     */
+    private RestTemplateTransport transport = null;
+
+    private static final int INITIAL_PARAMETER_CAPACITY = 16;
+
+    /**
+     * The value of parameterScales for a parameter which was added as text.
+     */
+    private static final byte TEXT = -1;
+
+    /**
+     * The parameter names and values, in the order they were added; these are the only record of the parameters, so
+     * the hit is encoded directly from them and the URI is only built when it is asked for (see
+     * {@link #getEscapedURI()}).
+     *
+     * Numbers are kept as they were added, as an unscaled value in parameterNumbers and its scale in parameterScales,
+     * and written by {@link #encodeTo(ByteBuffer)} without becoming a String; their entry in parameterValues is null
+     * until the value is asked for as text. Parameters added as text have a scale of {@link #TEXT}.
+     */
+    private String[] parameterNames = new String[INITIAL_PARAMETER_CAPACITY];
+
+    private String[] parameterValues = new String[INITIAL_PARAMETER_CAPACITY];
+
+    private long[] parameterNumbers = new long[INITIAL_PARAMETER_CAPACITY];
+
+    private byte[] parameterScales = new byte[INITIAL_PARAMETER_CAPACITY];
+
+    private int parameterCount = 0;
+
+    /**
+     * Records the name and value so that {@link #encodeTo(ByteBuffer)} can write them out later.
+     */
+    void putParameter (String name, String value) {
+        recordParameter(name, value, 0L, TEXT);
+    }
+
+    /**
+     * Records the name and the decimal form of the value; whole numbers are recorded as in
+     * {@link #putParameter(String, long)} and other values as text.
+     */
+    void putParameter (String name, Number value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            putParameter(name, value.longValue());
+        else
+            putParameter(name, value.toString());
+    }
+
+    /**
+     * Adds the value without boxing it or creating a String; the digits are written by
+     * {@link FormUrlEncoder#encode(long, ByteBuffer)} when the hit is encoded.
+     */
+    void putParameter (String name, long value) {
+        recordParameter(name, null, value, (byte) 0);
+    }
+
+    /**
+     * Adds the value without boxing it: whole numbers are added as in {@link #putParameter(String, long)}, so 47.0 is
+     * sent as 47, and fractions are added in plain notation.
+     *
+     * @throws IllegalArgumentException if the value is NaN or infinite.
+     */
+    void putParameter (String name, double value) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            throw new IllegalArgumentException("The " + name + " must be a finite number (value: " + value + ")");
+
+        // Whole numbers of magnitude 2^63 and above do not fit into a long.
+        if (value == Math.rint(value) && Math.abs(value) < 0x1p63)
+            putParameter(name, (long) value);
+        else
+            putParameter(name, BigDecimal.valueOf(value));
+    }
+
+    /**
+     * Adds the value as {@link Float#toString(float)} formats it, which is how a float was sent when it could only be
+     * passed boxed; widening it to a double would send 4.7f as 4.699999809265137.
+     */
+    void putParameter (String name, float value) {
+        putParameter(name, Float.toString(value));
+    }
+
+    /**
+     * Adds the value in plain notation, so that, for example, 1E+3 is sent as 1000.
+     */
+    void putParameter (String name, BigDecimal value) {
+
+        Utils.assertNotNull(name, value);
+
+        putParameter(name, value.toPlainString());
+    }
+
+    /**
+     * Adds unscaledValue &times; 10<sup>-scale</sup> in plain notation; the value is kept as it is and written by
+     * {@link FormUrlEncoder#encode(long, int, ByteBuffer)} when the hit is encoded, so no object is created.
+     */
+    void putParameter (String name, long unscaledValue, int scale) {
+
+        assertBetween("scale", 0, FormUrlEncoder.MAX_SCALE, scale);
+
+        recordParameter(name, null, unscaledValue, (byte) scale);
+    }
+
+    private void recordParameter (String name, String value, long number, byte scale) {
+
+        if (parameterCount == parameterNames.length) {
+            parameterNames = Arrays.copyOf(parameterNames, parameterCount * 2);
+            parameterValues = Arrays.copyOf(parameterValues, parameterCount * 2);
+            parameterNumbers = Arrays.copyOf(parameterNumbers, parameterCount * 2);
+            parameterScales = Arrays.copyOf(parameterScales, parameterCount * 2);
+        }
+
+        parameterNames[parameterCount] = name;
+        parameterValues[parameterCount] = value;
+        parameterNumbers[parameterCount] = number;
+        parameterScales[parameterCount] = scale;
+
+        parameterCount++;
+    }
+
+    /**
+     * Returns the value of the parameter at the given index as text, formatting a number the first time it is asked
+     * for; whole values below {@link #CACHED_VALUE_COUNT}, such as most quantities, positions and steps, share a
+     * String rather than each creating one.
+     */
+    private String getValue (int index) {
+
+        String result = parameterValues[index];
+
+        if (result == null) {
+
+            long number = parameterNumbers[index];
+            int scale = parameterScales[index];
+
+            if (scale == 0 && 0 <= number && number < CACHED_VALUE_COUNT)
+                result = CACHED_VALUES[(int) number];
+            else if (scale == 0)
+                result = Long.toString(number);
+            else {
+
+                ByteBuffer buffer = decimalBuffer.get();
+
+                buffer.clear();
+
+                FormUrlEncoder.encode(number, scale, buffer);
+
+                result = new String (buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+            }
+
+            parameterValues[index] = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of parameters that have been added to this builder.
+     */
+    @Override
+    public int getParameterCount () {
+        return parameterCount;
+    }
+
+    /**
+     * Returns the name of the parameter at the given index, in the order the parameters were added.
+     */
+    @Override
+    public String getParameterName (int index) {
+        return parameterNames[checkParameterIndex (index)];
+    }
+
+    /**
+     * Returns the value of the parameter at the given index, in the order the parameters were added.
+     */
+    @Override
+    public String getParameterValue (int index) {
+        return getValue (checkParameterIndex (index));
+    }
+
+    /**
+     * Returns the value of the last parameter added with the given name or null if no such parameter exists.
+     */
+    @Override
+    public String getParameter (String name) {
+
+        for (int ctr = parameterCount - 1; 0 <= ctr; ctr--)
+            if (parameterNames[ctr].equals(name))
+                return getValue (ctr);
+
+        return null;
+    }
+
+    /**
+     * Adds a parameter by name, without any of the validation performed by the corresponding with* method; this is
+     * intended for copying parameters which have already been validated from one hit to another.
+     */
+    public QueryBuilder withParameter (String name, String value) {
+
+        Utils.assertNotNull("name", name);
+        Utils.assertNotNull("value", value);
+
+        putParameter(name, value);
+
+        return this;
+    }
+
+    /**
+     * Adds a numeric parameter by name, see {@link #withParameter(String, String)}; whole numbers are added without a
+     * fraction and other values in plain notation, so 0.00015 is never sent as 1.5E-4.
+     *
+     * @throws IllegalArgumentException if the value is NaN or infinite.
+     */
+    public QueryBuilder withParameter (String name, double value) {
+
+        Utils.assertNotNull("name", name);
+
+        putParameter(name, value);
+
+        return this;
+    }
+
+    /**
+     * Adds every parameter of the source, in order, to this builder; this is intended for taking a copy of a hit
+     * whose builder will be reused before the copy is sent.
+     */
+    public QueryBuilder withParametersOf (QueryBuilder source) {
+
+        Utils.assertNotNull("source", source);
+
+        for (int ctr = 0; ctr < source.parameterCount; ctr++)
+            recordParameter(
+                source.parameterNames[ctr],
+                source.parameterValues[ctr],
+                source.parameterNumbers[ctr],
+                source.parameterScales[ctr]
+            );
+
+        return this;
+    }
+
+    /**
+     * Adds every parameter of the source, in order, to this builder; see {@link #withParametersOf(QueryBuilder)}.
+     */
+    public QueryBuilder withParametersOf (HitParameters source) {
+
+        Utils.assertNotNull("source", source);
+
+        for (int ctr = 0; ctr < source.getParameterCount(); ctr++)
+            putParameter(source.getParameterName(ctr), source.getParameterValue(ctr));
+
+        return this;
+    }
+
+    /**
+     * Returns an immutable copy of the parameters added so far, which can be shared between threads and is
+     * unaffected when this builder is reset and reused.
+     */
+    public Hit build () {
+
+        for (int ctr = 0; ctr < parameterCount; ctr++)
+            getValue (ctr);
+
+        return new Hit (endpoint, parameterNames, parameterValues, parameterCount);
+    }
+
+    private int checkParameterIndex (int index) {
+
+        if (index < 0 || parameterCount <= index)
+            throw new IndexOutOfBoundsException("index: " + index + ", parameterCount: " + parameterCount);
+
+        return index;
+    }
+
+    /**
+     * Returns the URI this builder was created with, before any parameters were added.
+     */
+    public URI getEndpoint () {
+        return endpoint;
+    }
+
+    /**
+     * Returns the endpoint with the parameters added as its query, in the order they were added; the URI is built
+     * afresh on every call, as sending a hit does not need it.
+     */
+    @Override
+    public String getEscapedURI () {
+
+        UriBuilder uriBuilder = UriBuilder.fromUri(endpoint);
+
+        for (int ctr = 0; ctr < parameterCount; ctr++)
+            uriBuilder.queryParam(parameterNames[ctr], getValue (ctr));
+
+        return uriBuilder.build().toString();
+    }
+
+    /**
+     * Removes all parameters which have been added to this builder so that it can be reused for another hit; the
+     * restTemplate and endpoint are kept.
+     *
+     * @see QueryBuilderPool
+     */
+    public QueryBuilder reset () {
+
+        Arrays.fill(parameterNames, 0, parameterCount, null);
+        Arrays.fill(parameterValues, 0, parameterCount, null);
+
+        parameterCount = 0;
+
+        return this;
+    }
+
+    /**
+     * Writes the parameters, as application/x-www-form-urlencoded name/value pairs, into the target starting at the
+     * target's current position; the target is not flipped.
+     *
+     * @throws PayloadTooLargeException if the target does not have enough space remaining.
+     */
+    public ByteBuffer encodeTo (ByteBuffer target) {
+
+        try {
+            for (int ctr = 0; ctr < parameterCount; ctr++) {
+                if (parameterScales[ctr] == TEXT)
+                    FormUrlEncoder.encodeParameter(parameterNames[ctr], parameterValues[ctr], ctr == 0, target);
+                else
+                    FormUrlEncoder.encodeParameter(
+                        parameterNames[ctr], parameterNumbers[ctr], parameterScales[ctr], ctr == 0, target);
+            }
+        } catch (BufferOverflowException bufferOverflowException) {
+            throw new PayloadTooLargeException(target.capacity(), bufferOverflowException);
+        }
+
+        return target;
+    }
+
+    /**
+     * Encodes the parameters into a buffer taken from the pool; the buffer is flipped and ready to be sent, and the
+     * caller is responsible for releasing it (see {@link com.coherentlogic.gama.client.core.transport.Transport}).
+     *
+     * @throws PayloadTooLargeException if the encoded hit exceeds {@link #MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    public PooledByteBuffer encodeTo (ByteBufferPool byteBufferPool) {
+
+        PooledByteBuffer result = byteBufferPool.acquireHitBuffer();
+
+        ByteBuffer buffer = result.getByteBuffer();
+
+        try {
+
+            buffer.limit(MAX_PAYLOAD_SIZE_IN_BYTES);
+
+            encodeTo(buffer).flip();
+
+        } catch (RuntimeException runtimeException) {
+
+            result.release();
+
+            throw runtimeException;
+        }
+
+        return result;
     }
 
     /**
@@ -114,8 +536,6 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     QueryBuilder assertNotNegative (String name, long value) {
 
-        Utils.assertNotNull(name, value);
-
         if (value < 0)
             throw new NegativeValueException (name, value);
 
@@ -128,8 +548,6 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     QueryBuilder assertNotNegative (String name, int value) {
 
-        Utils.assertNotNull(name, value);
-
         if (value < 0)
             throw new NegativeValueException (name, value);
 
@@ -147,6 +565,77 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         return this;
     }
 
+    /**
+     * The most bytes which one char is encoded as by any of the charsets {@link #checkSizeOf(String, String, int)} may
+     * use, so values no longer than a quarter of the limit need not be measured.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 4;
+
+    /**
+     * Does what {@link #checkSizeOf(String, String, int)} does for values which are present, without converting short
+     * values to bytes.
+     */
+    QueryBuilder checkSizeOfOptional (String parameterName, String parameterValue, int maxLengthInBytes) {
+
+        if (parameterValue != null && maxLengthInBytes < parameterValue.length() * MAX_BYTES_PER_CHAR)
+            checkSizeOf (parameterName, parameterValue, maxLengthInBytes);
+
+        return this;
+    }
+
+    /**
+     * Checks the indexes of the custom dimensions and metrics, and that the metrics are finite, so that adding them
+     * cannot fail part of the way through.
+     */
+    QueryBuilder checkCustomValuesOf (AbstractProduct<?> product) {
+
+        for (int ctr = 0; ctr < product.getCustomDimensionCount(); ctr++)
+            assertBetween("dimensionIndex", 1, 200, product.getCustomDimensionIndex(ctr));
+
+        for (int ctr = 0; ctr < product.getCustomMetricCount(); ctr++) {
+
+            assertBetween("metricIndex", 1, 200, product.getCustomMetricIndex(ctr));
+
+            double value = product.getCustomMetricValue(ctr);
+
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                throw new IllegalArgumentException("The customMetric must be a finite number (value: " + value + ")");
+        }
+
+        return this;
+    }
+
+    /**
+     * Checks that the collection holds no more than 200 entries, none of which are null.
+     */
+    QueryBuilder checkEntriesOf (String name, List<?> entries) {
+
+        Utils.assertNotNull(name, entries);
+
+        assertBetween(name + ".size", 0, IndexedParameterNames.MAX_INDEX, entries.size());
+
+        for (int ctr = 0; ctr < entries.size(); ctr++)
+            Utils.assertNotNull(name, entries.get(ctr));
+
+        return this;
+    }
+
+    /**
+     * Adds the parameter unless the value is null.
+     */
+    void putOptionalParameter (String name, String value) {
+        if (value != null)
+            putParameter(name, value);
+    }
+
+    /**
+     * Adds the parameter unless the value is {@link AbstractProduct#NOT_SET}.
+     */
+    void putOptionalParameter (String name, int value) {
+        if (value != AbstractProduct.NOT_SET)
+            putParameter(name, (long) value);
+    }
+
     /**
      * Converts the value to either 0 or 1.
      */
@@ -176,7 +665,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withV (String protocolVersion) {
 
-        addParameter(V, protocolVersion);
+        putParameter(V, protocolVersion);
 
         return this;
     }
@@ -206,7 +695,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withTid (String trackingId) {
 
-        addParameter(TID, trackingId);
+        putParameter(TID, trackingId);
     
         return this;
     }
@@ -229,7 +718,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         String value = asBoolean(anonymizeIP);
 
-        addParameter(AIP, value);
+        putParameter(AIP, value);
     
         return this;
     }
@@ -251,7 +740,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withDs (String dataSource) {
 
-        addParameter(DS, dataSource);
+        putParameter(DS, dataSource);
 
         return this;
     }
@@ -274,7 +763,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         if (queueTimeMillis <= 0)
             throw new InvalidQueueTime (queueTimeMillis);
 
-        addParameter(QT, Long.toString(queueTimeMillis));
+        putParameter(QT, queueTimeMillis);
 
         return this;
     }
@@ -294,7 +783,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withZ (String cacheBuster) {
 
-        addParameter(Z, cacheBuster);
+        putParameter(Z, cacheBuster);
 
         return this;
     }
@@ -315,11 +804,46 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withCID (String clientId) {
 
-        addParameter(CID, clientId);
+        putParameter(CID, clientId);
 
         return this;
     }
 
+    /**
+     * Client ID
+     *
+     * Required for all hit types.
+     *
+     * Sets the client id to the one the clientIdResolver has associated with the user key, so that every hit sent on
+     * behalf of the same end user uses the same client id.
+     *
+     * @see com.coherentlogic.gama.client.core.cid.MappedClientIdStore
+     */
+    public QueryBuilder withCID (ClientIdResolver clientIdResolver, String userKey) {
+
+        Utils.assertNotNull("clientIdResolver", clientIdResolver);
+
+        return withCID(clientIdResolver.resolve(userKey));
+    }
+
+    /**
+     * Client ID
+     *
+     * Required for all hit types.
+     *
+     * This anonymously identifies a particular user, device, or browser instance. For the web, this is generally stored
+     * as a first-party cookie with a two-year expiration. For mobile apps, this is randomly generated for each
+     * particular instance of an application install. The value of this field should be a random UUID (version 4) as
+     * described in http://www.ietf.org/rfc/rfc4122.txt
+     *
+     * The UUID is generated using {@link ClientIdGenerator#getInstance()}, which does not contend on a shared
+     * SecureRandom; use {@link #withCIDAsRandomUUID(ClientIdGenerator)} with
+     * {@link ClientIdGenerator#getSecureInstance()} when the client id must not be predictable.
+     */
+    public QueryBuilder withCIDAsRandomUUID () {
+        return withCIDAsRandomUUID(ClientIdGenerator.getInstance());
+    }
+
     /**
      * Client ID
      *
@@ -330,8 +854,11 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      * particular instance of an application install. The value of this field should be a random UUID (version 4) as
      * described in http://www.ietf.org/rfc/rfc4122.txt
      */
-    public QueryBuilder withCIDAsRandomUUID () {
-        return withCID(UUID.randomUUID().toString());
+    public QueryBuilder withCIDAsRandomUUID (ClientIdGenerator clientIdGenerator) {
+
+        Utils.assertNotNull("clientIdGenerator", clientIdGenerator);
+
+        return withCID(clientIdGenerator.nextClientId());
     }
 
     public static final String UID = "uid";
@@ -349,7 +876,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withUID (String userId) {
 
-        addParameter(UID, userId);
+        putParameter(UID, userId);
 
         return this;
     }
@@ -369,7 +896,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withSc (String sessionControl) {
 
-        addParameter(SC, sessionControl);
+        putParameter(SC, sessionControl);
 
         return this;
     }
@@ -391,7 +918,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         if (ipOverride == null)
             throw new NullPointerException("The ipOverride parameter is null.");
 
-        addParameter(UIP, ipOverride.getHostAddress());
+        putParameter(UIP, ipOverride.getHostAddress());
 
         return this;
     }
@@ -408,7 +935,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withUip (String ipOverride) {
 
-        addParameter(UIP, ipOverride);
+        putParameter(UIP, ipOverride);
 
         return this;
     }
@@ -427,7 +954,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withUa (String userAgentOverride) {
 
-        addParameter(UA, userAgentOverride);
+        putParameter(UA, userAgentOverride);
 
         return this;
     }
@@ -450,7 +977,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withGeoID (String geographicalOverride) {
 
-        addParameter(GEOID, geographicalOverride);
+        putParameter(GEOID, geographicalOverride);
 
         return this;
     }
@@ -471,7 +998,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("documentReferrer", documentReferrer, 2048);
 
-        addParameter(DR, documentReferrer);
+        putParameter(DR, documentReferrer);
 
         return this;
     }
@@ -491,7 +1018,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("campaignName", campaignName, 100);
 
-        addParameter(CN, campaignName);
+        putParameter(CN, campaignName);
 
         return this;
     }
@@ -511,7 +1038,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("campaignSource", campaignSource, 100);
 
-        addParameter(CS, campaignSource);
+        putParameter(CS, campaignSource);
 
         return this;
     }
@@ -531,7 +1058,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("campaignMedium", campaignMedium, 50);
 
-        addParameter(CM, campaignMedium);
+        putParameter(CM, campaignMedium);
 
         return this;
     }
@@ -551,7 +1078,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("campaignKeyword", campaignKeyword, 500);
 
-        addParameter(CK, campaignKeyword);
+        putParameter(CK, campaignKeyword);
 
         return this;
     }
@@ -571,7 +1098,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("campaignContent", campaignContent, 500);
 
-        addParameter(CC, campaignContent);
+        putParameter(CC, campaignContent);
 
         return this;
     }
@@ -591,7 +1118,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("campaignID", campaignID, 100);
 
-        addParameter(CI, campaignID);
+        putParameter(CI, campaignID);
 
         return this;
     }
@@ -609,7 +1136,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withGclid (String googleAdWordsID) {
 
-        addParameter(GCLID, googleAdWordsID);
+        putParameter(GCLID, googleAdWordsID);
 
         return this;
     }
@@ -627,7 +1154,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withDclid (String googleDisplayAdsID) {
 
-        addParameter(DCLID, googleDisplayAdsID);
+        putParameter(DCLID, googleDisplayAdsID);
 
         return this;
     }
@@ -647,7 +1174,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("screenResolution", screenResolution, 20);
 
-        addParameter(SR, screenResolution);
+        putParameter(SR, screenResolution);
 
         return this;
     }
@@ -667,7 +1194,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("viewportSize", viewportSize, 20);
 
-        addParameter(VP, viewportSize);
+        putParameter(VP, viewportSize);
 
         return this;
     }
@@ -687,7 +1214,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("documentEncoding", documentEncoding, 20);
 
-        addParameter(DE, documentEncoding);
+        putParameter(DE, documentEncoding);
 
         return this;
     }
@@ -707,7 +1234,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("screenColors", screenColors, 20);
 
-        addParameter(SD, screenColors);
+        putParameter(SD, screenColors);
 
         return this;
     }
@@ -727,7 +1254,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("userLanguage", userLanguage, 20);
 
-        addParameter(UL, userLanguage);
+        putParameter(UL, userLanguage);
 
         return this;
     }
@@ -745,7 +1272,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withJe (boolean javaEnabled) {
 
-        addParameter(JE, asBoolean(javaEnabled));
+        putParameter(JE, asBoolean(javaEnabled));
 
         return this;
     }
@@ -765,7 +1292,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("flashVersion", flashVersion, 20);
 
-        addParameter(FL, flashVersion);
+        putParameter(FL, flashVersion);
 
         return this;
     }
@@ -784,7 +1311,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withT (String hitType) {
 
-        addParameter(T, hitType);
+        putParameter(T, hitType);
 
         return this;
     }
@@ -923,7 +1450,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withNi (boolean nonInteractionHit) {
 
-        addParameter(NI, asBoolean(nonInteractionHit));
+        putParameter(NI, asBoolean(nonInteractionHit));
 
         return this;
     }
@@ -948,7 +1475,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("documentLocationURL", documentLocationURL, 2048);
 
-        addParameter(DL, documentLocationURL);
+        putParameter(DL, documentLocationURL);
 
         return this;
     }
@@ -968,7 +1495,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("documentHostName", documentHostName, 100);
 
-        addParameter(DH, documentHostName);
+        putParameter(DH, documentHostName);
 
         return this;
     }
@@ -989,7 +1516,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("documentPath", documentPath, 2048);
 
-        addParameter(DP, documentPath);
+        putParameter(DP, documentPath);
 
         return this;
     }
@@ -1009,7 +1536,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("documentTitle", documentTitle, 1500);
 
-        addParameter(DT, documentTitle);
+        putParameter(DT, documentTitle);
 
         return this;
     }
@@ -1031,7 +1558,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("screenName", screenName, 2048);
 
-        addParameter(CD, screenName);
+        putParameter(CD, screenName);
 
         return this;
     }
@@ -1050,7 +1577,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withLinkid (String linkID) {
 
-        addParameter(LINKID, linkID);
+        putParameter(LINKID, linkID);
 
         return this;
     }
@@ -1071,7 +1598,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("applicationName", applicationName, 100);
 
-        addParameter(AN, applicationName);
+        putParameter(AN, applicationName);
 
         return this;
     }
@@ -1091,7 +1618,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("applicationID", applicationID, 150);
 
-        addParameter(AID, applicationID);
+        putParameter(AID, applicationID);
 
         return this;
     }
@@ -1111,7 +1638,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("applicationVersion", applicationVersion, 100);
 
-        addParameter(AV, applicationVersion);
+        putParameter(AV, applicationVersion);
 
         return this;
     }
@@ -1131,7 +1658,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("applicationInstallerID", applicationInstallerID, 150);
 
-        addParameter(AIID, applicationInstallerID);
+        putParameter(AIID, applicationInstallerID);
 
         return this;
     }
@@ -1151,7 +1678,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("eventCategory", eventCategory, 150);
 
-        addParameter(EC, eventCategory);
+        putParameter(EC, eventCategory);
 
         return this;
     }
@@ -1171,7 +1698,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("eventAction", eventAction, 500);
 
-        addParameter(EA, eventAction);
+        putParameter(EA, eventAction);
 
         return this;
     }
@@ -1191,7 +1718,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("eventLabel", eventLabel, 500);
 
-        addParameter(EL, eventLabel);
+        putParameter(EL, eventLabel);
 
         return this;
     }
@@ -1213,7 +1740,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("eventValue", eventValue);
 
-        addParameter(EV, Integer.toString(eventValue));
+        putParameter(EV, eventValue);
 
         return this;
     }
@@ -1252,7 +1779,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("transactionID", transactionID, 500);
 
-        addParameter(TI, transactionID);
+        putParameter(TI, transactionID);
 
         return this;
     }
@@ -1287,7 +1814,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("transactionAffiliation", transactionAffiliation, 500);
 
-        addParameter(TA, transactionAffiliation);
+        putParameter(TA, transactionAffiliation);
 
         return this;
     }
@@ -1305,7 +1832,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withTr (String transactionRevenue) {
 
-        addParameter(TR, transactionRevenue);
+        putParameter(TR, transactionRevenue);
 
         return this;
     }
@@ -1323,7 +1850,27 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withTr (BigDecimal transactionRevenue) {
 
-        addParameter(TR, transactionRevenue);
+        putParameter(TR, transactionRevenue);
+
+        return this;
+    }
+
+    /**
+     * Transaction Revenue
+     *
+     * Optional.
+     *
+     * Specifies the total revenue associated with the transaction. This value should include any shipping or tax costs.
+     *
+     * Example value: 15.47 (withTr(1547L, 2))
+     *
+     * @param transactionRevenue The amount in the minor units of the currency, for example 1547 cents.
+     * @param scale The number of minor-unit digits of the currency, for example 2 for USD or 0 for JPY; between zero
+     *  and {@link FormUrlEncoder#MAX_SCALE}.
+     */
+    public QueryBuilder withTr (long transactionRevenue, int scale) {
+
+        putParameter(TR, transactionRevenue, scale);
 
         return this;
     }
@@ -1343,7 +1890,27 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withTt (BigDecimal transactionTax) {
 
-        addParameter(TT, transactionTax);
+        putParameter(TT, transactionTax);
+
+        return this;
+    }
+
+    /**
+     * Transaction Tax
+     *
+     * Optional.
+     *
+     * Specifies the total tax of the transaction.
+     *
+     * Example value: 11.20 (withTt(1120L, 2))
+     *
+     * @param transactionTax The amount in the minor units of the currency, for example 1547 cents.
+     * @param scale The number of minor-unit digits of the currency, for example 2 for USD or 0 for JPY; between zero
+     *  and {@link FormUrlEncoder#MAX_SCALE}.
+     */
+    public QueryBuilder withTt (long transactionTax, int scale) {
+
+        putParameter(TT, transactionTax, scale);
 
         return this;
     }
@@ -1363,7 +1930,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("itemName", itemName, 500);
 
-        addParameter(IN, itemName);
+        putParameter(IN, itemName);
 
         return this;
     }
@@ -1383,7 +1950,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withIp (String itemPrice) {
 
-        addParameter(IP, itemPrice);
+        putParameter(IP, itemPrice);
 
         return this;
     }
@@ -1401,7 +1968,27 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withIp (BigDecimal itemPrice) {
 
-        addParameter(IP, itemPrice);
+        putParameter(IP, itemPrice);
+
+        return this;
+    }
+
+    /**
+     * Item Price
+     *
+     * Optional.
+     *
+     * Specifies the price for a single item / unit.
+     *
+     * Example value: 3.50 (withIp(350L, 2))
+     *
+     * @param itemPrice The amount in the minor units of the currency, for example 1547 cents.
+     * @param scale The number of minor-unit digits of the currency, for example 2 for USD or 0 for JPY; between zero
+     *  and {@link FormUrlEncoder#MAX_SCALE}.
+     */
+    public QueryBuilder withIp (long itemPrice, int scale) {
+
+        putParameter(IP, itemPrice, scale);
 
         return this;
     }
@@ -1421,7 +2008,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withIq (String itemQuantity) {
 
-        addParameter(IQ, itemQuantity);
+        putParameter(IQ, itemQuantity);
 
         return this;
     }
@@ -1442,7 +2029,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("itemQuantity", itemQuantity);
 
-        addParameter("iq", Integer.toString(itemQuantity));
+        putParameter(IQ, itemQuantity);
 
         return this;
     }
@@ -1462,7 +2049,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("itemCode", itemCode, 500);
 
-        addParameter(IC, itemCode);
+        putParameter(IC, itemCode);
 
         return this;
     }
@@ -1482,7 +2069,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("itemCategory", itemCategory, 500);
 
-        addParameter(IV, itemCategory);
+        putParameter(IV, itemCategory);
 
         return this;
     }
@@ -1503,13 +2090,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf ("currencyCode", currencyCode, 500);
 
-        addParameter(CU, currencyCode);
+        putParameter(CU, currencyCode);
 
         return this;
     }
 
     public static final String PR_N_ID = "pr{0}id";
 
+    private static final IndexedParameterNames PR_N_ID_NAMES = new IndexedParameterNames (PR_N_ID);
+
     /**
      * Product SKU
      *
@@ -1526,13 +2115,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexN", 1, 200, productIndexN);
         checkSizeOf ("value", value, 500);
 
-        addParameter(MessageFormat.format(PR_N_ID, productIndexN), value);
+        putParameter(PR_N_ID_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_N_NM = "pr{0}nm";
 
+    private static final IndexedParameterNames PR_N_NM_NAMES = new IndexedParameterNames (PR_N_NM);
+
     /**
      * Product Name
      *
@@ -1548,13 +2139,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexN", 1, 200, productIndexN);
         checkSizeOf ("value", value, 500);
 
-        addParameter(MessageFormat.format(PR_N_NM, productIndexN), value);
+        putParameter(PR_N_NM_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_N_BR = "pr{0}br";
 
+    private static final IndexedParameterNames PR_N_BR_NAMES = new IndexedParameterNames (PR_N_BR);
+
     /**
      * Product Brand
      *
@@ -1570,13 +2163,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexN", 1, 200, productIndexN);
         checkSizeOf ("value", value, 500);
 
-        addParameter(MessageFormat.format(PR_N_BR, productIndexN), value);
+        putParameter(PR_N_BR_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_N_CA = "pr{0}ca";
 
+    private static final IndexedParameterNames PR_N_CA_NAMES = new IndexedParameterNames (PR_N_CA);
+
     /**
      * Product Category
      *
@@ -1595,13 +2190,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexN", 1, 200, productIndexN);
         checkSizeOf ("value", value, 500);
 
-        addParameter(MessageFormat.format(PR_N_CA, productIndexN), value);
+        putParameter(PR_N_CA_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_N_VA = "pr{0}va";
 
+    private static final IndexedParameterNames PR_N_VA_NAMES = new IndexedParameterNames (PR_N_VA);
+
     /**
      * Product Variant
      *
@@ -1618,13 +2215,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexN", 1, 200, productIndexN);
         checkSizeOf ("value", value, 500);
 
-        addParameter(MessageFormat.format(PR_N_VA, productIndexN), value);
+        putParameter(PR_N_VA_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_N_PR = "pr{0}pr";
 
+    private static final IndexedParameterNames PR_N_PR_NAMES = new IndexedParameterNames (PR_N_PR);
+
     /**
      * Product Price
      *
@@ -1640,7 +2239,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertBetween("productIndexN", 1, 200, productIndexN);
 
-        addParameter(MessageFormat.format(PR_N_PR, productIndexN), value);
+        putParameter(PR_N_PR_NAMES.get(productIndexN), value);
 
         return this;
     }
@@ -1660,13 +2259,39 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertBetween("productIndexN", 1, 200, productIndexN);
 
-        addParameter(MessageFormat.format(PR_N_PR, productIndexN), value);
+        putParameter(PR_N_PR_NAMES.get(productIndexN), value);
+
+        return this;
+    }
+
+    /**
+     * Product Price
+     *
+     * Optional.
+     *
+     * The unit price of a product. Product index must be a positive integer between 1 and 200, inclusive. For
+     * analytics.js the Enhanced Ecommerce plugin must be installed before using this field.
+     *
+     * Example value: 29.20
+     * Example usage: pr1pr=29.20 (withPrNPr(1, 2920L, 2))
+     *
+     * @param value The amount in the minor units of the currency, for example 1547 cents.
+     * @param scale The number of minor-unit digits of the currency, for example 2 for USD or 0 for JPY; between zero
+     *  and {@link FormUrlEncoder#MAX_SCALE}.
+     */
+    public QueryBuilder withPrNPr (int productIndexN, long value, int scale) {
+
+        assertBetween("productIndexN", 1, 200, productIndexN);
+
+        putParameter(PR_N_PR_NAMES.get(productIndexN), value, scale);
 
         return this;
     }
 
     public static final String PR_N_QT = "pr{0}qt";
 
+    private static final IndexedParameterNames PR_N_QT_NAMES = new IndexedParameterNames (PR_N_QT);
+
     /**
      * Product Quantity
      *
@@ -1680,10 +2305,28 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withPrNQt (int productIndexN, Integer value) {
 
+        Utils.assertNotNull("value", value);
+
+        return withPrNQt (productIndexN, value.intValue());
+    }
+
+    /**
+     * Product Quantity
+     *
+     * Optional.
+     *
+     * The quantity of a product. Product index must be a positive integer between 1 and 200, inclusive. For
+     * analytics.js the Enhanced Ecommerce plugin must be installed before using this field.
+     *
+     * Example value: 2
+     * Example usage: pr1qt=2
+     */
+    public QueryBuilder withPrNQt (int productIndexN, int value) {
+
         assertBetween("productIndexN", 1, 200, productIndexN);
         assertNotNegative("value", value);
 
-        addParameter(MessageFormat.format(PR_N_QT, productIndexN), value);
+        putParameter(PR_N_QT_NAMES.get(productIndexN), value);
 
         return this;
     }
@@ -1703,13 +2346,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertBetween("productIndexN", 1, 200, productIndexN);
 
-        addParameter(MessageFormat.format(PR_N_QT, productIndexN), value);
+        putParameter(PR_N_QT_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_N_CC = "pr{0}cc";
 
+    private static final IndexedParameterNames PR_N_CC_NAMES = new IndexedParameterNames (PR_N_CC);
+
     /**
      * Product Coupon Code
      *
@@ -1723,10 +2368,28 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withPrNCc (int productIndexN, Integer value) {
 
+        Utils.assertNotNull("value", value);
+
+        return withPrNCc (productIndexN, value.intValue());
+    }
+
+    /**
+     * Product Coupon Code
+     *
+     * Optional.
+     *
+     * The coupon code associated with a product. Product index must be a positive integer between 1 and 200, inclusive.
+     * For analytics.js the Enhanced Ecommerce plugin must be installed before using this field.
+     * 
+     * Example value: SUMMER_SALE13
+     * Example usage: pr1cc=SUMMER_SALE13
+     */
+    public QueryBuilder withPrNCc (int productIndexN, int value) {
+
         assertBetween("productIndexN", 1, 200, productIndexN);
         assertNotNegative("value", value);
 
-        addParameter(MessageFormat.format(PR_N_CC, productIndexN), value);
+        putParameter(PR_N_CC_NAMES.get(productIndexN), value);
 
         return this;
     }
@@ -1747,13 +2410,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexN", 1, 200, productIndexN);
         checkSizeOf("value", value, 500);
 
-        addParameter(MessageFormat.format(PR_N_CC, productIndexN), value);
+        putParameter(PR_N_CC_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_N_PS = "pr{0}ps";
 
+    private static final IndexedParameterNames PR_N_PS_NAMES = new IndexedParameterNames (PR_N_PS);
+
     /**
      * Product Position
      *
@@ -1769,7 +2434,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertBetween("productIndexN", 1, 200, productIndexN);
 
-        addParameter(MessageFormat.format(PR_N_PS, productIndexN), value);
+        putParameter(PR_N_PS_NAMES.get(productIndexN), value);
 
         return this;
     }
@@ -1787,16 +2452,36 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withPrNPs (int productIndexN, Integer value) {
 
+        Utils.assertNotNull("value", value);
+
+        return withPrNPs (productIndexN, value.intValue());
+    }
+
+    /**
+     * Product Position
+     *
+     * Optional.
+     *
+     * The product's position in a list or collection. Product index must be a positive integer between 1 and 200,
+     * inclusive. For analytics.js the Enhanced Ecommerce plugin must be installed before using this field.
+     *
+     * Example value: 2
+     * Example usage: pr1ps=2
+     */
+    public QueryBuilder withPrNPs (int productIndexN, int value) {
+
         assertBetween("productIndexN", 1, 200, productIndexN);
         assertNotNegative("value", value);
 
-        addParameter(MessageFormat.format(PR_N_PS, productIndexN), value);
+        putParameter(PR_N_PS_NAMES.get(productIndexN), value);
 
         return this;
     }
 
     public static final String PR_X_CD_Y = "pr{0}cd{1}";
 
+    private static final IndexedParameterNames PR_X_CD_Y_NAMES = new IndexedParameterNames (PR_X_CD_Y);
+
     /**
      * Product Custom Dimension
      *
@@ -1816,13 +2501,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexX", 1, 200, productIndexX);
         assertBetween("dimensionIndexY", 1, 200, dimensionIndexY);
 
-        addParameter(MessageFormat.format(PR_X_CD_Y, productIndexX, dimensionIndexY), value);
+        putParameter(PR_X_CD_Y_NAMES.get(productIndexX, dimensionIndexY), value);
 
         return this;
     }
 
     public static final String PR_X_CM_Y = "pr{0}cm{1}";
 
+    private static final IndexedParameterNames PR_X_CM_Y_NAMES = new IndexedParameterNames (PR_X_CM_Y);
+
     /**
      * Product Custom Metric
      *
@@ -1840,7 +2527,149 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndexX", 1, 200, productIndexX);
         assertBetween("metricIndexY", 1, 200, metricIndexY);
 
-        addParameter(MessageFormat.format(PR_X_CM_Y, productIndexX, metricIndexY), value);
+        putParameter(PR_X_CM_Y_NAMES.get(productIndexX, metricIndexY), value);
+
+        return this;
+    }
+
+    /**
+     * Product Custom Metric
+     *
+     * Optional.
+     *
+     * A product-level custom metric where metric index is a positive integer between 1 and 200, inclusive. Product
+     * index must be a positive integer between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce plugin
+     * must be installed before using this field.
+     *
+     * Example value: 28
+     * Example usage: pr1cm2=28
+     *
+     * The value is sent as its decimal digits, without being boxed.
+     */
+    public QueryBuilder withPrXCmY (int productIndexX, int metricIndexY, long value) {
+
+        assertBetween("productIndexX", 1, 200, productIndexX);
+        assertBetween("metricIndexY", 1, 200, metricIndexY);
+
+        putParameter(PR_X_CM_Y_NAMES.get(productIndexX, metricIndexY), value);
+
+        return this;
+    }
+
+    /**
+     * Product Custom Metric
+     *
+     * Optional.
+     *
+     * A product-level custom metric where metric index is a positive integer between 1 and 200, inclusive. Product
+     * index must be a positive integer between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce plugin
+     * must be installed before using this field.
+     *
+     * Example value: 28
+     * Example usage: pr1cm2=28
+     *
+     * Whole values are sent without a fraction and other values in plain notation; see
+     * {@link #withCmX(int, double)}.
+     *
+     * @throws IllegalArgumentException if the value is NaN or infinite.
+     */
+    public QueryBuilder withPrXCmY (int productIndexX, int metricIndexY, double value) {
+
+        assertBetween("productIndexX", 1, 200, productIndexX);
+        assertBetween("metricIndexY", 1, 200, metricIndexY);
+
+        putParameter(PR_X_CM_Y_NAMES.get(productIndexX, metricIndexY), value);
+
+        return this;
+    }
+
+    /**
+     * Product Custom Metric
+     *
+     * Optional.
+     *
+     * A product-level custom metric where metric index is a positive integer between 1 and 200, inclusive. Product
+     * index must be a positive integer between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce plugin
+     * must be installed before using this field.
+     *
+     * Example value: 28
+     * Example usage: pr1cm2=28
+     *
+     * The value is sent as {@link Float#toString(float)} formats it; see {@link #withCmX(int, float)}.
+     */
+    public QueryBuilder withPrXCmY (int productIndexX, int metricIndexY, float value) {
+
+        assertBetween("productIndexX", 1, 200, productIndexX);
+        assertBetween("metricIndexY", 1, 200, metricIndexY);
+
+        putParameter(PR_X_CM_Y_NAMES.get(productIndexX, metricIndexY), value);
+
+        return this;
+    }
+
+    /**
+     * Product Fields
+     *
+     * Optional.
+     *
+     * Adds the products as pr1 to prN, each with the fields which have been set. The whole collection is checked --
+     * the number of products, the length of each text field and the custom dimension and metric indexes -- before any
+     * parameter is added, so a product which fails leaves this builder unchanged, and the names are taken from tables
+     * rather than formatted, so adding 200 products costs little more than adding their values. For analytics.js the
+     * Enhanced Ecommerce plugin must be installed before using these fields.
+     *
+     * Example usage: pr1id=P12345&pr1nm=Android+T-Shirt&pr1pr=29.20&pr1qt=2
+     *
+     * @param products At most 200 products.
+     */
+    public QueryBuilder withProducts (List<Product> products) {
+
+        checkEntriesOf ("products", products);
+
+        for (int ctr = 0; ctr < products.size(); ctr++) {
+
+            Product product = products.get(ctr);
+
+            checkSizeOfOptional ("id", product.getId(), 500);
+            checkSizeOfOptional ("name", product.getName(), 500);
+            checkSizeOfOptional ("brand", product.getBrand(), 500);
+            checkSizeOfOptional ("category", product.getCategory(), 500);
+            checkSizeOfOptional ("variant", product.getVariant(), 500);
+            checkSizeOfOptional ("couponCode", product.getCouponCode(), 500);
+            checkCustomValuesOf (product);
+        }
+
+        for (int ctr = 0; ctr < products.size(); ctr++) {
+
+            Product product = products.get(ctr);
+
+            int productIndexN = ctr + 1;
+
+            putOptionalParameter(PR_N_ID_NAMES.get(productIndexN), product.getId());
+            putOptionalParameter(PR_N_NM_NAMES.get(productIndexN), product.getName());
+            putOptionalParameter(PR_N_BR_NAMES.get(productIndexN), product.getBrand());
+            putOptionalParameter(PR_N_CA_NAMES.get(productIndexN), product.getCategory());
+            putOptionalParameter(PR_N_VA_NAMES.get(productIndexN), product.getVariant());
+
+            if (product.hasPrice())
+                putParameter(PR_N_PR_NAMES.get(productIndexN), product.getPrice(), product.getPriceScale());
+
+            putOptionalParameter(PR_N_QT_NAMES.get(productIndexN), product.getQuantity());
+            putOptionalParameter(PR_N_CC_NAMES.get(productIndexN), product.getCouponCode());
+            putOptionalParameter(PR_N_PS_NAMES.get(productIndexN), product.getPosition());
+
+            for (int next = 0; next < product.getCustomDimensionCount(); next++)
+                putParameter(
+                    PR_X_CD_Y_NAMES.get(productIndexN, product.getCustomDimensionIndex(next)),
+                    product.getCustomDimensionValue(next)
+                );
+
+            for (int next = 0; next < product.getCustomMetricCount(); next++)
+                putParameter(
+                    PR_X_CM_Y_NAMES.get(productIndexN, product.getCustomMetricIndex(next)),
+                    product.getCustomMetricValue(next)
+                );
+        }
 
         return this;
     }
@@ -1861,7 +2690,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withPa (String productAction) {
 
-        addParameter(PA, productAction);
+        putParameter(PA, productAction);
 
         return this;
     }
@@ -2038,7 +2867,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withTs (String shipping) {
 
-        addParameter(TS, shipping);
+        putParameter(TS, shipping);
 
         return this;
     }
@@ -2057,7 +2886,30 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withTs (BigDecimal shipping) {
 
-        addParameter(TS, shipping);
+        putParameter(TS, shipping);
+
+        return this;
+    }
+
+    /**
+     * Shipping
+     *
+     * Optional.
+     *
+     * The shipping cost associated with the transaction. This is an additional parameter that can be sent when Product
+     * Action is set to 'purchase' or 'refund'. For analytics.js the Enhanced Ecommerce plugin must be installed before
+     * using this field.
+     *
+     * Example value: 3.55
+     * Example usage: ts=3.55 (withTs(355L, 2))
+     *
+     * @param shipping The amount in the minor units of the currency, for example 1547 cents.
+     * @param scale The number of minor-unit digits of the currency, for example 2 for USD or 0 for JPY; between zero
+     *  and {@link FormUrlEncoder#MAX_SCALE}.
+     */
+    public QueryBuilder withTs (long shipping, int scale) {
+
+        putParameter(TS, shipping, scale);
 
         return this;
     }
@@ -2078,7 +2930,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withTcc (String couponCode) {
 
-        addParameter(TCC, couponCode);
+        putParameter(TCC, couponCode);
 
         return this;
     }
@@ -2099,7 +2951,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withPal (String productActionList) {
 
-        addParameter(PAL, productActionList);
+        putParameter(PAL, productActionList);
 
         return this;
     }
@@ -2119,7 +2971,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withCos (int checkoutStep) {
 
-        addParameter(COS, checkoutStep);
+        putParameter(COS, checkoutStep);
 
         return this;
     }
@@ -2140,13 +2992,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withCol (String checkoutStepOption) {
 
-        addParameter(COL, checkoutStepOption);
+        putParameter(COL, checkoutStepOption);
 
         return this;
     }
 
     public static final String IL_X_NM = "il{0}nm";
 
+    private static final IndexedParameterNames IL_X_NM_NAMES = new IndexedParameterNames (IL_X_NM);
+
     /**
      * Product Impression List Name
      *
@@ -2162,8 +3016,8 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertBetween("listIndex", 1, 200, listIndex);
 
-        addParameter(
-            MessageFormat.format(IL_X_NM, listIndex),
+        putParameter(
+            IL_X_NM_NAMES.get(listIndex),
             productImpressionListName
         );
 
@@ -2172,6 +3026,8 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
     public static final String IL_X_PI_Y_ID = "il{0}pi{1}id";
 
+    private static final IndexedParameterNames IL_X_PI_Y_ID_NAMES = new IndexedParameterNames (IL_X_PI_Y_ID);
+
     /**
      * Product Impression SKU
      *
@@ -2189,13 +3045,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("listIndex", 1, 200, listIndex);
         assertBetween("productIndex", 1, 200, productIndex);
 
-        addParameter(MessageFormat.format(IL_X_PI_Y_ID, listIndex, productIndex), productImpressionSKU);
+        putParameter(IL_X_PI_Y_ID_NAMES.get(listIndex, productIndex), productImpressionSKU);
 
         return this;
     }
 
     public static final String IL_X_PI_Y_NM = "il{0}pi{1}nm";
 
+    private static final IndexedParameterNames IL_X_PI_Y_NM_NAMES = new IndexedParameterNames (IL_X_PI_Y_NM);
+
     /**
      * Product Impression Name
      *
@@ -2213,13 +3071,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("listIndex", 1, 200, listIndex);
         assertBetween("productIndex", 1, 200, productIndex);
 
-        addParameter(MessageFormat.format(IL_X_PI_Y_NM, listIndex, productIndex), productImpressionName);
+        putParameter(IL_X_PI_Y_NM_NAMES.get(listIndex, productIndex), productImpressionName);
 
         return this;
     }
 
     public static final String IL_X_PI_Y_BR = "il{0}pi{1}br";
 
+    private static final IndexedParameterNames IL_X_PI_Y_BR_NAMES = new IndexedParameterNames (IL_X_PI_Y_BR);
+
     /**
      * Product Impression Brand
      *
@@ -2237,13 +3097,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("listIndex", 1, 200, listIndex);
         assertBetween("productIndex", 1, 200, productIndex);
 
-        addParameter(MessageFormat.format(IL_X_PI_Y_BR, listIndex, productIndex), productImpressionBrand);
+        putParameter(IL_X_PI_Y_BR_NAMES.get(listIndex, productIndex), productImpressionBrand);
 
         return this;
     }
 
     public static final String IL_X_PI_Y_CA = "il{0}pi{1}ca";
 
+    private static final IndexedParameterNames IL_X_PI_Y_CA_NAMES = new IndexedParameterNames (IL_X_PI_Y_CA);
+
     /**
      * Product Impression Category
      *
@@ -2261,37 +3123,63 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("listIndex", 1, 200, listIndex);
         assertBetween("productIndex", 1, 200, productIndex);
 
-        addParameter(MessageFormat.format(IL_X_PI_Y_CA, listIndex, productIndex), productImpressionBrand);
+        putParameter(IL_X_PI_Y_CA_NAMES.get(listIndex, productIndex), productImpressionBrand);
 
         return this;
     }
 
     public static final String IL_X_PI_Y_VA = "il{0}pi{1}va";
 
+    private static final IndexedParameterNames IL_X_PI_Y_VA_NAMES = new IndexedParameterNames (IL_X_PI_Y_VA);
+
+    /**
+     * Product Impression Variant
+     *
+     * Optional.
+     *
+     * The variant of the product. Impression List index must be a positive integer between 1 and 200, inclusive.
+     * Product index must be a positive integer between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce
+     * plugin must be installed before using this field.
+     *
+     * Example value: Black
+     * Example usage: il1pi2va=Black
+     */
+    public QueryBuilder withIlXPiYVa (int listIndex, int productIndex, String productImpressionVariant) {
+
+        assertBetween("listIndex", 1, 200, listIndex);
+        assertBetween("productIndex", 1, 200, productIndex);
+
+        putParameter(IL_X_PI_Y_VA_NAMES.get(listIndex, productIndex), productImpressionVariant);
+
+        return this;
+    }
+
+    public static final String IL_X_PI_Y_PS = "il{0}pi{1}ps";
+
+    private static final IndexedParameterNames IL_X_PI_Y_PS_NAMES = new IndexedParameterNames (IL_X_PI_Y_PS);
+
     /**
-     * Product Impression Variant
+     * Product Impression Position
      *
      * Optional.
      *
-     * The variant of the product. Impression List index must be a positive integer between 1 and 200, inclusive.
-     * Product index must be a positive integer between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce
-     * plugin must be installed before using this field.
+     * The product's position in a list or collection. Impression List index must be a positive integer between 1 and
+     * 200, inclusive. Product index must be a positive integer between 1 and 200, inclusive. For analytics.js the
+     * Enhanced Ecommerce plugin must be installed before using this field.
      *
-     * Example value: Black
-     * Example usage: il1pi2va=Black
+     * Example value: 2
+     * Example usage: il1pi2ps=2
      */
-    public QueryBuilder withIlXPiYVa (int listIndex, int productIndex, String productImpressionVariant) {
+    public QueryBuilder withIlXPiYPs (int listIndex, int productIndex, String productImpressionPosition) {
 
         assertBetween("listIndex", 1, 200, listIndex);
         assertBetween("productIndex", 1, 200, productIndex);
 
-        addParameter(MessageFormat.format(IL_X_PI_Y_VA, listIndex, productIndex), productImpressionVariant);
+        putParameter(IL_X_PI_Y_PS_NAMES.get(listIndex, productIndex), productImpressionPosition);
 
         return this;
     }
 
-    public static final String IL_X_PI_Y_PS = "il{0}pi{1}ps";
-
     /**
      * Product Impression Position
      *
@@ -2304,18 +3192,21 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      * Example value: 2
      * Example usage: il1pi2ps=2
      */
-    public QueryBuilder withIlXPiYPs (int listIndex, int productIndex, String productImpressionPosition) {
+    public QueryBuilder withIlXPiYPs (int listIndex, int productIndex, int productImpressionPosition) {
 
         assertBetween("listIndex", 1, 200, listIndex);
         assertBetween("productIndex", 1, 200, productIndex);
+        assertNotNegative("productImpressionPosition", productImpressionPosition);
 
-        addParameter(MessageFormat.format(IL_X_PI_Y_PS, listIndex, productIndex), productImpressionPosition);
+        putParameter(IL_X_PI_Y_PS_NAMES.get(listIndex, productIndex), productImpressionPosition);
 
         return this;
     }
 
     public static final String IL_X_PI_Y_PR = "il{0}pi{1}pr";
 
+    private static final IndexedParameterNames IL_X_PI_Y_PR_NAMES = new IndexedParameterNames (IL_X_PI_Y_PR);
+
     /**
      * Product Impression Price
      *
@@ -2333,13 +3224,41 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("listIndex", 1, 200, listIndex);
         assertBetween("productIndex", 1, 200, productIndex);
 
-        addParameter(MessageFormat.format(IL_X_PI_Y_PR, listIndex, productIndex), productImpressionPrice);
+        putParameter(IL_X_PI_Y_PR_NAMES.get(listIndex, productIndex), productImpressionPrice);
+
+        return this;
+    }
+
+    /**
+     * Product Impression Price
+     *
+     * Optional.
+     *
+     * The price of a product. Impression List index must be a positive integer between 1 and 200, inclusive. Product
+     * index must be a positive integer between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce plugin
+     * must be installed before using this field.
+     *
+     * Example value: 29.20
+     * Example usage: il1pi2pr=29.20 (withIlXPiYPr(1, 2, 2920L, 2))
+     *
+     * @param productImpressionPrice The price in the minor units of the currency, for example 2920 cents.
+     * @param scale The number of minor-unit digits of the currency, for example 2 for USD or 0 for JPY; between zero
+     *  and {@link FormUrlEncoder#MAX_SCALE}.
+     */
+    public QueryBuilder withIlXPiYPr (int listIndex, int productIndex, long productImpressionPrice, int scale) {
+
+        assertBetween("listIndex", 1, 200, listIndex);
+        assertBetween("productIndex", 1, 200, productIndex);
+
+        putParameter(IL_X_PI_Y_PR_NAMES.get(listIndex, productIndex), productImpressionPrice, scale);
 
         return this;
     }
 
     public static final String IL_X_PI_Y_CD_Z = "il{0}pi{1}cd{2}";
 
+    private static final IndexedParameterNames IL_X_PI_Y_CD_Z_NAMES = new IndexedParameterNames (IL_X_PI_Y_CD_Z);
+
     /**
      * Product Impression Custom Dimension
      *
@@ -2364,8 +3283,8 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndex", 1, 200, productIndex);
         assertBetween("dimensionIndex", 1, 200, dimensionIndex);
 
-        addParameter(
-            MessageFormat.format(IL_X_PI_Y_CD_Z, listIndex, productIndex, dimensionIndex),
+        putParameter(
+            IL_X_PI_Y_CD_Z_NAMES.get(listIndex, productIndex, dimensionIndex),
             productImpressionCustomDimension
         );
 
@@ -2374,6 +3293,8 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
     public static final String IL_X_PI_Y_CM = "il{0}pi{1}cm{2}";
 
+    private static final IndexedParameterNames IL_X_PI_Y_CM_NAMES = new IndexedParameterNames (IL_X_PI_Y_CM);
+
     /**
      * Product Impression Custom Metric
      *
@@ -2397,16 +3318,181 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         assertBetween("productIndex", 1, 200, productIndex);
         assertBetween("metricIndex", 1, 200, metricIndex);
 
-        addParameter(
-            MessageFormat.format(IL_X_PI_Y_CM, listIndex, productIndex, metricIndex),
+        putParameter(
+            IL_X_PI_Y_CM_NAMES.get(listIndex, productIndex, metricIndex),
+            productImpressionCustomMetric
+        );
+
+        return this;
+    }
+
+    /**
+     * Product Impression Custom Metric
+     *
+     * Optional.
+     *
+     * A product-level custom metric where metric index is a positive integer between 1 and 200, inclusive. Impression
+     * List index must be a positive integer between 1 and 200, inclusive. Product index must be a positive integer
+     * between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce plugin must be installed before using this
+     * field.
+     *
+     * Example value: 28
+     * Example usage: il1pi2cm3=28
+     *
+     * The value is sent as its decimal digits, without being boxed.
+     */
+    public QueryBuilder withIlXPiYCmZ (
+        int listIndex,
+        int productIndex,
+        int metricIndex,
+        long productImpressionCustomMetric
+    ) {
+        assertBetween("listIndex", 1, 200, listIndex);
+        assertBetween("productIndex", 1, 200, productIndex);
+        assertBetween("metricIndex", 1, 200, metricIndex);
+
+        putParameter(
+            IL_X_PI_Y_CM_NAMES.get(listIndex, productIndex, metricIndex),
+            productImpressionCustomMetric
+        );
+
+        return this;
+    }
+
+    /**
+     * Product Impression Custom Metric
+     *
+     * Optional.
+     *
+     * A product-level custom metric where metric index is a positive integer between 1 and 200, inclusive. Impression
+     * List index must be a positive integer between 1 and 200, inclusive. Product index must be a positive integer
+     * between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce plugin must be installed before using this
+     * field.
+     *
+     * Example value: 28
+     * Example usage: il1pi2cm3=28
+     *
+     * Whole values are sent without a fraction and other values in plain notation; see
+     * {@link #withCmX(int, double)}.
+     *
+     * @throws IllegalArgumentException if the value is NaN or infinite.
+     */
+    public QueryBuilder withIlXPiYCmZ (
+        int listIndex,
+        int productIndex,
+        int metricIndex,
+        double productImpressionCustomMetric
+    ) {
+        assertBetween("listIndex", 1, 200, listIndex);
+        assertBetween("productIndex", 1, 200, productIndex);
+        assertBetween("metricIndex", 1, 200, metricIndex);
+
+        putParameter(
+            IL_X_PI_Y_CM_NAMES.get(listIndex, productIndex, metricIndex),
+            productImpressionCustomMetric
+        );
+
+        return this;
+    }
+
+    /**
+     * Product Impression Custom Metric
+     *
+     * Optional.
+     *
+     * A product-level custom metric where metric index is a positive integer between 1 and 200, inclusive. Impression
+     * List index must be a positive integer between 1 and 200, inclusive. Product index must be a positive integer
+     * between 1 and 200, inclusive. For analytics.js the Enhanced Ecommerce plugin must be installed before using this
+     * field.
+     *
+     * Example value: 28
+     * Example usage: il1pi2cm3=28
+     *
+     * The value is sent as {@link Float#toString(float)} formats it; see {@link #withCmX(int, float)}.
+     */
+    public QueryBuilder withIlXPiYCmZ (
+        int listIndex,
+        int productIndex,
+        int metricIndex,
+        float productImpressionCustomMetric
+    ) {
+        assertBetween("listIndex", 1, 200, listIndex);
+        assertBetween("productIndex", 1, 200, productIndex);
+        assertBetween("metricIndex", 1, 200, metricIndex);
+
+        putParameter(
+            IL_X_PI_Y_CM_NAMES.get(listIndex, productIndex, metricIndex),
             productImpressionCustomMetric
         );
 
         return this;
     }
 
+    /**
+     * Product Impression Fields
+     *
+     * Optional.
+     *
+     * Adds the list name and the impressions as il{listIndex}pi1 to il{listIndex}piN, each with the fields which have
+     * been set. As with {@link #withProducts(List)}, the whole list is checked before any parameter is added.
+     * Impression List index must be a positive integer between 1 and 200, inclusive. For analytics.js the Enhanced
+     * Ecommerce plugin must be installed before using these fields.
+     *
+     * Example usage: il1nm=Search+Results&il1pi1id=P67890&il1pi1ps=1
+     *
+     * @param listName The name of the list, or null to leave it out.
+     * @param impressions At most 200 impressions.
+     */
+    public QueryBuilder withImpressionList (int listIndex, String listName, List<Impression> impressions) {
+
+        assertBetween("listIndex", 1, 200, listIndex);
+        checkEntriesOf ("impressions", impressions);
+
+        for (int ctr = 0; ctr < impressions.size(); ctr++)
+            checkCustomValuesOf (impressions.get(ctr));
+
+        putOptionalParameter(IL_X_NM_NAMES.get(listIndex), listName);
+
+        for (int ctr = 0; ctr < impressions.size(); ctr++) {
+
+            Impression impression = impressions.get(ctr);
+
+            int productIndex = ctr + 1;
+
+            putOptionalParameter(IL_X_PI_Y_ID_NAMES.get(listIndex, productIndex), impression.getId());
+            putOptionalParameter(IL_X_PI_Y_NM_NAMES.get(listIndex, productIndex), impression.getName());
+            putOptionalParameter(IL_X_PI_Y_BR_NAMES.get(listIndex, productIndex), impression.getBrand());
+            putOptionalParameter(IL_X_PI_Y_CA_NAMES.get(listIndex, productIndex), impression.getCategory());
+            putOptionalParameter(IL_X_PI_Y_VA_NAMES.get(listIndex, productIndex), impression.getVariant());
+            putOptionalParameter(IL_X_PI_Y_PS_NAMES.get(listIndex, productIndex), impression.getPosition());
+
+            if (impression.hasPrice())
+                putParameter(
+                    IL_X_PI_Y_PR_NAMES.get(listIndex, productIndex),
+                    impression.getPrice(),
+                    impression.getPriceScale()
+                );
+
+            for (int next = 0; next < impression.getCustomDimensionCount(); next++)
+                putParameter(
+                    IL_X_PI_Y_CD_Z_NAMES.get(listIndex, productIndex, impression.getCustomDimensionIndex(next)),
+                    impression.getCustomDimensionValue(next)
+                );
+
+            for (int next = 0; next < impression.getCustomMetricCount(); next++)
+                putParameter(
+                    IL_X_PI_Y_CM_NAMES.get(listIndex, productIndex, impression.getCustomMetricIndex(next)),
+                    impression.getCustomMetricValue(next)
+                );
+        }
+
+        return this;
+    }
+
     public static final String PROMO_N_ID = "promo{0}id";
 
+    private static final IndexedParameterNames PROMO_N_ID_NAMES = new IndexedParameterNames (PROMO_N_ID);
+
     /**
      * Promotion ID
      *
@@ -2424,13 +3510,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
     ) {
         assertBetween("promoIndex", 1, 200, promoIndex);
 
-        addParameter(MessageFormat.format(PROMO_N_ID, promoIndex), promotionID);
+        putParameter(PROMO_N_ID_NAMES.get(promoIndex), promotionID);
 
         return this;
     }
 
     public static final String PROMO_N_NM = "promo{0}nm";
 
+    private static final IndexedParameterNames PROMO_N_NM_NAMES = new IndexedParameterNames (PROMO_N_NM);
+
     /**
      * Promotion Name
      *
@@ -2448,13 +3536,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
     ) {
         assertBetween("promoIndex", 1, 200, promoIndex);
 
-        addParameter(MessageFormat.format(PROMO_N_NM, promoIndex), promotionName);
+        putParameter(PROMO_N_NM_NAMES.get(promoIndex), promotionName);
 
         return this;
     }
 
     public static final String PROMO_N_CR = "promo{0}cr";
 
+    private static final IndexedParameterNames PROMO_N_CR_NAMES = new IndexedParameterNames (PROMO_N_CR);
+
     /**
      * Promotion Creative
      *
@@ -2472,13 +3562,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
     ) {
         assertBetween("promoIndex", 1, 200, promoIndex);
 
-        addParameter(MessageFormat.format(PROMO_N_CR, promoIndex), promotionCreative);
+        putParameter(PROMO_N_CR_NAMES.get(promoIndex), promotionCreative);
 
         return this;
     }
 
     public static final String PROMO_N_PS = "promo{0}ps";
 
+    private static final IndexedParameterNames PROMO_N_PS_NAMES = new IndexedParameterNames (PROMO_N_PS);
+
     /**
      * Promotion Position
      *
@@ -2496,7 +3588,38 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
     ) {
         assertBetween("promoIndex", 1, 200, promoIndex);
 
-        addParameter(MessageFormat.format(PROMO_N_PS, promoIndex), promotionPosition);
+        putParameter(PROMO_N_PS_NAMES.get(promoIndex), promotionPosition);
+
+        return this;
+    }
+
+    /**
+     * Promotion Fields
+     *
+     * Optional.
+     *
+     * Adds the promotions as promo1 to promoN, each with the fields which have been set. For analytics.js the Enhanced
+     * Ecommerce plugin must be installed before using these fields.
+     *
+     * Example usage: promo1id=SHIP&promo1nm=Free+Shipping&promo1ps=banner_slot_1
+     *
+     * @param promotions At most 200 promotions.
+     */
+    public QueryBuilder withPromotions (List<Promotion> promotions) {
+
+        checkEntriesOf ("promotions", promotions);
+
+        for (int ctr = 0; ctr < promotions.size(); ctr++) {
+
+            Promotion promotion = promotions.get(ctr);
+
+            int promoIndex = ctr + 1;
+
+            putOptionalParameter(PROMO_N_ID_NAMES.get(promoIndex), promotion.getId());
+            putOptionalParameter(PROMO_N_NM_NAMES.get(promoIndex), promotion.getName());
+            putOptionalParameter(PROMO_N_CR_NAMES.get(promoIndex), promotion.getCreative());
+            putOptionalParameter(PROMO_N_PS_NAMES.get(promoIndex), promotion.getPosition());
+        }
 
         return this;
     }
@@ -2517,7 +3640,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withPromoa (String promotionAction) {
 
-        addParameter(PROMOA, promotionAction);
+        putParameter(PROMOA, promotionAction);
 
         return this;
     }
@@ -2538,7 +3661,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("socialNetwork", socialNetwork, 50);
 
-        addParameter(SN, socialNetwork);
+        putParameter(SN, socialNetwork);
 
         return this;
     }
@@ -2560,7 +3683,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("socialAction", socialAction, 50);
 
-        addParameter(SA, socialAction);
+        putParameter(SA, socialAction);
 
         return this;
     }
@@ -2581,7 +3704,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("socialActionTarget", socialActionTarget, 2048);
 
-        addParameter(ST, socialActionTarget);
+        putParameter(ST, socialActionTarget);
 
         return this;
     }
@@ -2602,7 +3725,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("userTimingCategory", userTimingCategory, 150);
 
-        addParameter(UTC, userTimingCategory);
+        putParameter(UTC, userTimingCategory);
 
         return this;
     }
@@ -2623,7 +3746,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("userTimingVariableName", userTimingVariableName, 500);
 
-        addParameter(UTV, userTimingVariableName);
+        putParameter(UTV, userTimingVariableName);
 
         return this;
     }
@@ -2644,7 +3767,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("userTimingTime", userTimingTime);
 
-        addParameter(UTT, userTimingTime);
+        putParameter(UTT, userTimingTime);
 
         return this;
     }
@@ -2665,7 +3788,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("userTimingLabel", userTimingLabel, 500);
 
-        addParameter(UTL, userTimingLabel);
+        putParameter(UTL, userTimingLabel);
 
         return this;
     }
@@ -2686,7 +3809,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("pageLoadTime", pageLoadTime);
 
-        addParameter("plt", pageLoadTime);
+        putParameter("plt", pageLoadTime);
 
         return this;
     }
@@ -2707,7 +3830,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("dnsTime", dnsTime);
 
-        addParameter(DNS, dnsTime);
+        putParameter(DNS, dnsTime);
 
         return this;
     }
@@ -2728,7 +3851,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("pageDownloadTime", pageDownloadTime);
 
-        addParameter(PDT, pageDownloadTime);
+        putParameter(PDT, pageDownloadTime);
 
         return this;
     }
@@ -2749,7 +3872,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("redirectResponseTime", redirectResponseTime);
 
-        addParameter(RRT, redirectResponseTime);
+        putParameter(RRT, redirectResponseTime);
 
         return this;
     }
@@ -2770,7 +3893,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("tcpConnectTime", tcpConnectTime);
 
-        addParameter(TCP, tcpConnectTime);
+        putParameter(TCP, tcpConnectTime);
 
         return this;
     }
@@ -2791,7 +3914,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("serverResponseTime", serverResponseTime);
 
-        addParameter(SRT, serverResponseTime);
+        putParameter(SRT, serverResponseTime);
 
         return this;
     }
@@ -2812,7 +3935,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("domInteractiveTime", domInteractiveTime);
 
-        addParameter(DIT, domInteractiveTime);
+        putParameter(DIT, domInteractiveTime);
 
         return this;
     }
@@ -2833,7 +3956,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertNotNegative("contentLoadTime", contentLoadTime);
 
-        addParameter(CLT, contentLoadTime);
+        putParameter(CLT, contentLoadTime);
 
         return this;
     }
@@ -2854,7 +3977,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("exceptionDescription", exceptionDescription, 150);
 
-        addParameter(EXD, exceptionDescription);
+        putParameter(EXD, exceptionDescription);
 
         return this;
     }
@@ -2873,13 +3996,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withExf (boolean exceptionFatal) {
 
-        addParameter(EXF, asBoolean(exceptionFatal));
+        putParameter(EXF, asBoolean(exceptionFatal));
 
         return this;
     }
 
     public static final String CDX = "cd{0}";
 
+    private static final IndexedParameterNames CDX_NAMES = new IndexedParameterNames (CDX);
+
     /**
      * Custom Dimension
      *
@@ -2895,13 +4020,15 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         assertBetween("dimensionIndex", 1, 200, dimensionIndex);
 
-        addParameter(MessageFormat.format(CDX, dimensionIndex), customDimension);
+        putParameter(CDX_NAMES.get(dimensionIndex), customDimension);
 
         return this;
     }
 
     public static final String CMX = "cm{0}";
 
+    private static final IndexedParameterNames CMX_NAMES = new IndexedParameterNames (CMX);
+
     /**
      * Custom Metric
      *
@@ -2912,12 +4039,85 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      *
      * Example value: 47
      * Example usage: cm1=47
+     *
+     * Whole Long, Integer, Short and Byte values are sent as their decimal digits; any other Number is sent as its
+     * toString method formats it, so a Double of 47.0 is sent as 47.0.
      */
     public QueryBuilder withCmX (int metricIndex, Number customMetric) {
 
         assertBetween("metricIndex", 1, 200, metricIndex);
 
-        addParameter(MessageFormat.format(CMX, metricIndex), customMetric);
+        putParameter(CMX_NAMES.get(metricIndex), customMetric);
+
+        return this;
+    }
+
+    /**
+     * Custom Metric
+     *
+     * Optional.
+     *
+     * Each custom metric has an associated index. There is a maximum of 20 custom metrics (200 for Analytics 360
+     * accounts). The metric index must be a positive integer between 1 and 200, inclusive.
+     *
+     * Example value: 47
+     * Example usage: cm1=47
+     *
+     * The value is sent as its decimal digits, without being boxed.
+     */
+    public QueryBuilder withCmX (int metricIndex, long customMetric) {
+
+        assertBetween("metricIndex", 1, 200, metricIndex);
+
+        putParameter(CMX_NAMES.get(metricIndex), customMetric);
+
+        return this;
+    }
+
+    /**
+     * Custom Metric
+     *
+     * Optional.
+     *
+     * Each custom metric has an associated index. There is a maximum of 20 custom metrics (200 for Analytics 360
+     * accounts). The metric index must be a positive integer between 1 and 200, inclusive.
+     *
+     * Example value: 47
+     * Example usage: cm1=47
+     *
+     * Whole values are sent without a fraction, so 47.0 is sent as 47, and other values are sent in plain notation,
+     * so 0.00015 is sent as 0.00015 rather than 1.5E-4.
+     *
+     * @throws IllegalArgumentException if the value is NaN or infinite.
+     */
+    public QueryBuilder withCmX (int metricIndex, double customMetric) {
+
+        assertBetween("metricIndex", 1, 200, metricIndex);
+
+        putParameter(CMX_NAMES.get(metricIndex), customMetric);
+
+        return this;
+    }
+
+    /**
+     * Custom Metric
+     *
+     * Optional.
+     *
+     * Each custom metric has an associated index. There is a maximum of 20 custom metrics (200 for Analytics 360
+     * accounts). The metric index must be a positive integer between 1 and 200, inclusive.
+     *
+     * Example value: 47
+     * Example usage: cm1=47
+     *
+     * The value is sent as {@link Float#toString(float)} formats it, as it was before the float was widened to a
+     * double, so 4.7f is sent as 4.7 rather than 4.699999809265137 and 47f as 47.0.
+     */
+    public QueryBuilder withCmX (int metricIndex, float customMetric) {
+
+        assertBetween("metricIndex", 1, 200, metricIndex);
+
+        putParameter(CMX_NAMES.get(metricIndex), customMetric);
 
         return this;
     }
@@ -2939,7 +4139,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
 
         checkSizeOf("experimentID", experimentID, 40);
 
-        addParameter(XID, experimentID);
+        putParameter(XID, experimentID);
 
         return this;
     }
@@ -2959,7 +4159,7 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
      */
     public QueryBuilder withXvar (String experimentVariant) {
 
-        addParameter(XVAR, experimentVariant);
+        putParameter(XVAR, experimentVariant);
 
         return this;
     }
@@ -2972,16 +4172,24 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
     @Override
     protected <T> T doExecute(Class<T> type) {
 
-        UriBuilder uriBuilder = getUriBuilder();
+        ByteBuffer buffer = payloadBuffer.get();
+
+        buffer.clear();
+
+        encodeTo(buffer).flip();
+
+        byte[] payload = new byte[buffer.remaining()];
+
+        buffer.get(payload);
 
         HttpHeaders headers = new HttpHeaders();
 
-        HttpEntity<?> entity = new HttpEntity<>(headers);
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
-        URI uri = uriBuilder.build();
+        HttpEntity<byte[]> entity = new HttpEntity<>(payload, headers);
 
         HttpEntity<T> response = getRestTemplate ().exchange(
-            uri,
+            endpoint,
             HttpMethod.POST,
             entity,
             type
@@ -2990,16 +4198,49 @@ public class QueryBuilder extends AbstractRESTQueryBuilder<String> {
         ResponseEntity<T> responseEntity = (ResponseEntity<T>) response;
 
         if (!HttpStatus.OK.equals(responseEntity.getStatusCode()))
-            throw new PostFailedException("The post failed for the URI " + uri +
+            throw new PostFailedException("The post failed for the URI " + endpoint +
                 " (http status: " + responseEntity.getStatusCodeValue() + ")");
 
-        /*
-         * TODO: We should return the entire responseEntity and not just the body. 
-         */
         return response.getBody();
     }
 
+    /**
+     * Posts this hit and returns the body of the response; see {@link #doSend()}, which neither buffers the body nor
+     * copies the payload.
+     */
     public String doPost () {
         return doGet(String.class);
     }
+
+    /**
+     * Posts this hit and returns a receipt describing the send; the body of the response is discarded.
+     *
+     * @throws PostFailedException if the http status code is not OK.
+     */
+    public SendReceipt doSend () {
+        return doSend (ResponseBodyMode.DISCARD);
+    }
+
+    /**
+     * Posts this hit and returns a receipt describing the send, including the time taken to encode the hit.
+     *
+     * @throws PostFailedException if the http status code is not OK.
+     */
+    public SendReceipt doSend (ResponseBodyMode mode) {
+
+        long startNanos = System.nanoTime();
+
+        ByteBuffer buffer = payloadBuffer.get();
+
+        buffer.clear();
+
+        encodeTo(buffer).flip();
+
+        long encodeNanos = System.nanoTime() - startNanos;
+
+        if (transport == null)
+            transport = new RestTemplateTransport (getRestTemplate (), endpoint);
+
+        return transport.exchange(buffer, mode, encodeNanos);
+    }
 }
@@ -0,0 +1,35 @@
+package com.coherentlogic.gama.client.core.builders;
+
+/**
+ * A source of reusable {@link QueryBuilder} instances so that steady-state hit emission does not need to allocate a new
+ * builder (and, with the default constructors, a new RestTemplate) per hit.
+ *
+ * Usage:
+ *
+ * <pre>
+ * QueryBuilder queryBuilder = pool.acquire();
+ *
+ * try {
+ *     queryBuilder.withV1().withTid(trackingId).withCIDAsRandomUUID().withTAsPageView().doPost();
+ * } finally {
+ *     pool.release(queryBuilder);
+ * }
+ * </pre>
+ *
+ * A builder must not be used after it has been released.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public interface QueryBuilderPool {
+
+    /**
+     * Returns a builder without any parameters.
+     */
+    QueryBuilder acquire ();
+
+    /**
+     * Resets the builder and returns it to the pool; if the pool is full the builder is discarded.
+     */
+    void release (QueryBuilder queryBuilder);
+}
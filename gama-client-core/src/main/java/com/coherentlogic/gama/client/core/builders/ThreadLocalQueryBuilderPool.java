@@ -0,0 +1,57 @@
+package com.coherentlogic.gama.client.core.builders;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+
+/**
+ * A {@link QueryBuilderPool} which keeps one idle builder per thread, so acquiring and releasing never contends with
+ * other threads. If a thread acquires a second builder before releasing the first then a new builder is created, and
+ * only one of the two is kept when they are released.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ThreadLocalQueryBuilderPool implements QueryBuilderPool {
+
+    private final RestTemplate restTemplate;
+
+    private final String uri;
+
+    private final ThreadLocal<QueryBuilder> idleQueryBuilder = new ThreadLocal<QueryBuilder> ();
+
+    public ThreadLocalQueryBuilderPool(RestTemplate restTemplate) {
+        this(restTemplate, QueryBuilder.GOOGLE_ANALYTICS_URL);
+    }
+
+    public ThreadLocalQueryBuilderPool(RestTemplate restTemplate, String uri) {
+
+        Utils.assertNotNull("restTemplate", restTemplate);
+        Utils.assertNotNull("uri", uri);
+
+        this.restTemplate = restTemplate;
+        this.uri = uri;
+    }
+
+    @Override
+    public QueryBuilder acquire() {
+
+        QueryBuilder result = idleQueryBuilder.get();
+
+        if (result == null)
+            return new QueryBuilder (restTemplate, uri);
+
+        idleQueryBuilder.set(null);
+
+        return result;
+    }
+
+    @Override
+    public void release(QueryBuilder queryBuilder) {
+
+        queryBuilder.reset();
+
+        if (idleQueryBuilder.get() == null)
+            idleQueryBuilder.set(queryBuilder);
+    }
+}
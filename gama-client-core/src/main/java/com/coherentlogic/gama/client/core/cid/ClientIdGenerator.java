@@ -0,0 +1,173 @@
+package com.coherentlogic.gama.client.core.cid;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates random (version 4) UUIDs, as described in http://www.ietf.org/rfc/rfc4122.txt, for use as client ids.
+ *
+ * {@link UUID#randomUUID()} draws from a single, shared SecureRandom which becomes a point of contention when many
+ * threads create client ids at the same time. The default instance of this class uses {@link ThreadLocalRandom}
+ * instead, so threads never contend with one another; the secure instance uses one SecureRandom per thread, for when
+ * client ids must not be predictable.
+ *
+ * The client id can be written as a String or, without any allocation, into a char array or straight into an encode
+ * buffer -- every character in a UUID is safe in application/x-www-form-urlencoded form so no escaping is needed.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ClientIdGenerator {
+
+    /**
+     * The number of characters in the canonical form of a UUID, for example: 35009a79-1a05-49d7-b876-2b884d0f825b
+     */
+    public static final int LENGTH = 36;
+
+    private static final char[] DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    private static final ClientIdGenerator instance = new ClientIdGenerator (false);
+
+    private static final ClientIdGenerator secureInstance = new ClientIdGenerator (true);
+
+    private final ThreadLocal<SecureRandom> secureRandom;
+
+    ClientIdGenerator(boolean secure) {
+        this.secureRandom = secure ? ThreadLocal.withInitial(SecureRandom::new) : null;
+    }
+
+    /**
+     * Returns the generator which uses {@link ThreadLocalRandom}.
+     */
+    public static ClientIdGenerator getInstance () {
+        return instance;
+    }
+
+    /**
+     * Returns the generator which uses one {@link SecureRandom} per thread.
+     */
+    public static ClientIdGenerator getSecureInstance () {
+        return secureInstance;
+    }
+
+    public boolean isSecure () {
+        return secureRandom != null;
+    }
+
+    Random random () {
+        return secureRandom == null ? ThreadLocalRandom.current() : secureRandom.get();
+    }
+
+    static long asVersion4MostSignificantBits (long bits) {
+        return (bits & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+    }
+
+    static long asVariant2LeastSignificantBits (long bits) {
+        return (bits & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    }
+
+    public UUID nextUUID () {
+
+        Random random = random ();
+
+        return new UUID (
+            asVersion4MostSignificantBits(random.nextLong()),
+            asVariant2LeastSignificantBits(random.nextLong())
+        );
+    }
+
+    /**
+     * Returns a new client id, for example: 35009a79-1a05-49d7-b876-2b884d0f825b
+     */
+    public String nextClientId () {
+
+        char[] result = new char[LENGTH];
+
+        nextClientId(result, 0);
+
+        return new String (result);
+    }
+
+    /**
+     * Writes a new client id into the target, starting at the offset.
+     */
+    public void nextClientId (char[] target, int offset) {
+
+        Random random = random ();
+
+        format(
+            asVersion4MostSignificantBits(random.nextLong()),
+            asVariant2LeastSignificantBits(random.nextLong()),
+            target,
+            offset
+        );
+    }
+
+    /**
+     * Writes a new client id, as {@link #LENGTH} ASCII bytes, into the target at the target's current position.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public ByteBuffer nextClientId (ByteBuffer target) {
+
+        Random random = random ();
+
+        return format(
+            asVersion4MostSignificantBits(random.nextLong()),
+            asVariant2LeastSignificantBits(random.nextLong()),
+            target
+        );
+    }
+
+    /**
+     * Writes the canonical form of the UUID with the given bits into the target, starting at the offset.
+     */
+    public static void format (long mostSignificantBits, long leastSignificantBits, char[] target, int offset) {
+
+        for (int ctr = 0, shift = 60; ctr < LENGTH; ctr++) {
+
+            if (ctr == 8 || ctr == 13 || ctr == 18 || ctr == 23) {
+                target[offset + ctr] = '-';
+            } else if (shift >= 0) {
+                target[offset + ctr] = DIGITS[(int) (mostSignificantBits >>> shift) & 0x0F];
+                shift -= 4;
+            } else {
+                target[offset + ctr] = DIGITS[(int) (leastSignificantBits >>> (shift + 64)) & 0x0F];
+                shift -= 4;
+            }
+        }
+    }
+
+    /**
+     * Writes the canonical form of the UUID with the given bits, as ASCII bytes, into the target at the target's
+     * current position.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer format (long mostSignificantBits, long leastSignificantBits, ByteBuffer target) {
+
+        if (target.remaining() < LENGTH)
+            throw new BufferOverflowException();
+
+        for (int ctr = 0, shift = 60; ctr < LENGTH; ctr++) {
+
+            if (ctr == 8 || ctr == 13 || ctr == 18 || ctr == 23) {
+                target.put((byte) '-');
+            } else if (shift >= 0) {
+                target.put((byte) DIGITS[(int) (mostSignificantBits >>> shift) & 0x0F]);
+                shift -= 4;
+            } else {
+                target.put((byte) DIGITS[(int) (leastSignificantBits >>> (shift + 64)) & 0x0F]);
+                shift -= 4;
+            }
+        }
+
+        return target;
+    }
+}
@@ -0,0 +1,19 @@
+package com.coherentlogic.gama.client.core.cid;
+
+/**
+ * Maps a key which identifies an end user (for example an account number or a session cookie) to a stable client id,
+ * so that all hits sent on behalf of that user are attributed to the same client.
+ *
+ * @see com.coherentlogic.gama.client.core.builders.QueryBuilder#withCID(ClientIdResolver, String)
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public interface ClientIdResolver {
+
+    /**
+     * Returns the client id for the user key, creating a new random (version 4) UUID if the key has not been seen
+     * before.
+     */
+    String resolve (String userKey);
+}
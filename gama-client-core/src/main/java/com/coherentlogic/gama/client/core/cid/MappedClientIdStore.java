@@ -0,0 +1,327 @@
+package com.coherentlogic.gama.client.core.cid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.util.Hashing;
+
+/**
+ * A {@link ClientIdResolver} which keeps the user key to client id mapping in a memory-mapped file, so the mapping lives
+ * off-heap, survives restarts and can be resolved with a single probe.
+ *
+ * The file holds a fixed-size, set-associative, open-addressing hash table: the user key is hashed to 128 bits, the
+ * high bits select a bucket of {@link #SLOTS_PER_BUCKET} slots and the bucket is probed linearly. Each slot holds the
+ * key hash, the UUID bits, the time the entry was last used and a checksum. Entries which have not been used within the
+ * time-to-live are treated as absent and their slot is reused; when a bucket is full the least recently used entry in
+ * that bucket is evicted.
+ *
+ * Every slot is written in full before its checksum, and slots whose checksum does not match are cleared when the file
+ * is opened, so a torn write caused by a crash results in the loss of at most that one mapping (the user simply gets a
+ * new client id). Call {@link #flush()} periodically to force the mapping to disk; a JVM crash without an OS crash
+ * loses nothing since the pages are owned by the OS.
+ *
+ * This class is thread-safe; buckets are guarded by striped locks.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class MappedClientIdStore implements ClientIdResolver, Closeable {
+
+    static final int MAGIC = 0x47414D41, VERSION = 1, HEADER_SIZE = 64;
+
+    static final int MAGIC_OFFSET = 0,
+        VERSION_OFFSET = 4,
+        BUCKET_COUNT_OFFSET = 8,
+        SLOTS_PER_BUCKET_OFFSET = 12;
+
+    public static final int SLOTS_PER_BUCKET = 8;
+
+    static final int SLOT_SIZE = 48;
+
+    static final int KEY_HIGH_OFFSET = 0,
+        KEY_LOW_OFFSET = 8,
+        MOST_SIGNIFICANT_BITS_OFFSET = 16,
+        LEAST_SIGNIFICANT_BITS_OFFSET = 24,
+        LAST_USED_OFFSET = 32,
+        STATE_OFFSET = 40,
+        CHECKSUM_OFFSET = 44;
+
+    static final int EMPTY = 0, OCCUPIED = 1;
+
+    private static final int MAX_STRIPES = 256;
+
+    private final FileChannel fileChannel;
+
+    private final MappedByteBuffer mappedByteBuffer;
+
+    private final int bucketMask;
+
+    private final Object[] stripes;
+
+    private final long timeToLiveMillis;
+
+    private final LongSupplier clock;
+
+    private final ClientIdGenerator clientIdGenerator;
+
+    private final AtomicLong evictionCount = new AtomicLong ();
+
+    /**
+     * @param file The file the mapping is stored in; it is created if it does not exist.
+     * @param capacity The maximum number of mappings; this is rounded up to a power of two.
+     * @param timeToLiveMillis Mappings which have not been used for this long are discarded, or zero to keep mappings
+     *  until they are evicted.
+     */
+    public MappedClientIdStore(Path file, int capacity, long timeToLiveMillis) throws IOException {
+        this(file, capacity, timeToLiveMillis, ClientIdGenerator.getInstance(), System::currentTimeMillis);
+    }
+
+    MappedClientIdStore(
+        Path file,
+        int capacity,
+        long timeToLiveMillis,
+        ClientIdGenerator clientIdGenerator,
+        LongSupplier clock
+    ) throws IOException {
+
+        Utils.assertNotNull("file", file);
+        Utils.assertNotNull("clientIdGenerator", clientIdGenerator);
+        Utils.assertNotNull("clock", clock);
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be greater than zero (capacity: " + capacity + ")");
+
+        if (timeToLiveMillis < 0)
+            throw new IllegalArgumentException("The timeToLiveMillis cannot be negative (timeToLiveMillis: "
+                + timeToLiveMillis + ")");
+
+        int bucketCount = Math.max(1, Integer.highestOneBit((capacity + SLOTS_PER_BUCKET - 1) / SLOTS_PER_BUCKET));
+
+        if (bucketCount * SLOTS_PER_BUCKET < capacity)
+            bucketCount <<= 1;
+
+        this.bucketMask = bucketCount - 1;
+        this.stripes = new Object[Math.min(bucketCount, MAX_STRIPES)];
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.clientIdGenerator = clientIdGenerator;
+        this.clock = clock;
+
+        for (int ctr = 0; ctr < stripes.length; ctr++)
+            stripes[ctr] = new Object ();
+
+        long size = HEADER_SIZE + (long) bucketCount * SLOTS_PER_BUCKET * SLOT_SIZE;
+
+        this.fileChannel = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+
+        try {
+            boolean created = fileChannel.size() == 0;
+
+            if (!created && fileChannel.size() != size)
+                throw new IOException("The file " + file + " has size " + fileChannel.size() + " but a store with "
+                    + "capacity " + capacity + " requires " + size + " bytes.");
+
+            this.mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            if (created)
+                writeHeader(bucketCount);
+            else
+                verify(file, bucketCount);
+
+        } catch (IOException | RuntimeException exception) {
+            fileChannel.close();
+            throw exception;
+        }
+    }
+
+    void writeHeader (int bucketCount) {
+
+        mappedByteBuffer.putInt(VERSION_OFFSET, VERSION);
+        mappedByteBuffer.putInt(BUCKET_COUNT_OFFSET, bucketCount);
+        mappedByteBuffer.putInt(SLOTS_PER_BUCKET_OFFSET, SLOTS_PER_BUCKET);
+        // The magic number is written last so a header which was only partly written is not mistaken for a valid one.
+        mappedByteBuffer.putInt(MAGIC_OFFSET, MAGIC);
+
+        mappedByteBuffer.force();
+    }
+
+    /**
+     * Checks the header and clears any slot whose checksum does not match its contents.
+     */
+    void verify (Path file, int bucketCount) throws IOException {
+
+        if (mappedByteBuffer.getInt(MAGIC_OFFSET) != MAGIC
+            || mappedByteBuffer.getInt(VERSION_OFFSET) != VERSION
+            || mappedByteBuffer.getInt(BUCKET_COUNT_OFFSET) != bucketCount
+            || mappedByteBuffer.getInt(SLOTS_PER_BUCKET_OFFSET) != SLOTS_PER_BUCKET)
+            throw new IOException("The file " + file + " is not a client id store with a capacity of "
+                + (bucketCount * SLOTS_PER_BUCKET) + ".");
+
+        int slotCount = bucketCount * SLOTS_PER_BUCKET;
+
+        for (int ctr = 0; ctr < slotCount; ctr++) {
+
+            int offset = HEADER_SIZE + ctr * SLOT_SIZE;
+
+            if (mappedByteBuffer.getInt(offset + STATE_OFFSET) != EMPTY
+                && mappedByteBuffer.getInt(offset + CHECKSUM_OFFSET) != checksumOf(offset))
+                mappedByteBuffer.putInt(offset + STATE_OFFSET, EMPTY);
+        }
+    }
+
+    @Override
+    public String resolve(String userKey) {
+
+        Utils.assertNotNull("userKey", userKey);
+
+        long keyHigh = Hashing.hash(userKey, Hashing.DEFAULT_SEED);
+        long keyLow = Hashing.hash(userKey, 0x9E3779B97F4A7C15L);
+
+        int bucket = (int) (keyHigh >>> 32) & bucketMask;
+
+        long mostSignificantBits;
+        long leastSignificantBits;
+
+        synchronized (stripes[bucket & (stripes.length - 1)]) {
+
+            long now = clock.getAsLong();
+
+            int bucketOffset = HEADER_SIZE + bucket * SLOTS_PER_BUCKET * SLOT_SIZE;
+
+            // Empty slots are preferred, then expired entries, then the least recently used entry.
+            int target = -1;
+            long targetScore = Long.MAX_VALUE;
+
+            for (int ctr = 0; ctr < SLOTS_PER_BUCKET; ctr++) {
+
+                int offset = bucketOffset + ctr * SLOT_SIZE;
+
+                long score;
+
+                if (mappedByteBuffer.getInt(offset + STATE_OFFSET) == EMPTY) {
+                    score = Long.MIN_VALUE;
+                } else {
+
+                    long lastUsed = mappedByteBuffer.getLong(offset + LAST_USED_OFFSET);
+
+                    boolean expired = 0 < timeToLiveMillis && timeToLiveMillis <= now - lastUsed;
+
+                    if (mappedByteBuffer.getLong(offset + KEY_HIGH_OFFSET) == keyHigh
+                        && mappedByteBuffer.getLong(offset + KEY_LOW_OFFSET) == keyLow) {
+
+                        if (expired) {
+                            target = offset;
+                            targetScore = Long.MIN_VALUE;
+                            break;
+                        }
+
+                        mappedByteBuffer.putLong(offset + LAST_USED_OFFSET, now);
+
+                        return format (
+                            mappedByteBuffer.getLong(offset + MOST_SIGNIFICANT_BITS_OFFSET),
+                            mappedByteBuffer.getLong(offset + LEAST_SIGNIFICANT_BITS_OFFSET)
+                        );
+                    }
+
+                    score = expired ? Long.MIN_VALUE + 1 : lastUsed;
+                }
+
+                if (score < targetScore) {
+                    target = offset;
+                    targetScore = score;
+                }
+            }
+
+            if (Long.MIN_VALUE + 1 < targetScore)
+                evictionCount.incrementAndGet();
+
+            UUID uuid = clientIdGenerator.nextUUID();
+
+            mostSignificantBits = uuid.getMostSignificantBits();
+            leastSignificantBits = uuid.getLeastSignificantBits();
+
+            write(target, keyHigh, keyLow, mostSignificantBits, leastSignificantBits, now);
+        }
+
+        return format (mostSignificantBits, leastSignificantBits);
+    }
+
+    void write (
+        int offset,
+        long keyHigh,
+        long keyLow,
+        long mostSignificantBits,
+        long leastSignificantBits,
+        long lastUsed
+    ) {
+        mappedByteBuffer.putInt(offset + STATE_OFFSET, EMPTY);
+        mappedByteBuffer.putLong(offset + KEY_HIGH_OFFSET, keyHigh);
+        mappedByteBuffer.putLong(offset + KEY_LOW_OFFSET, keyLow);
+        mappedByteBuffer.putLong(offset + MOST_SIGNIFICANT_BITS_OFFSET, mostSignificantBits);
+        mappedByteBuffer.putLong(offset + LEAST_SIGNIFICANT_BITS_OFFSET, leastSignificantBits);
+        mappedByteBuffer.putLong(offset + LAST_USED_OFFSET, lastUsed);
+        mappedByteBuffer.putInt(offset + CHECKSUM_OFFSET, checksumOf(offset));
+        mappedByteBuffer.putInt(offset + STATE_OFFSET, OCCUPIED);
+    }
+
+    int checksumOf (int offset) {
+
+        long result = Hashing.mix(mappedByteBuffer.getLong(offset + KEY_HIGH_OFFSET))
+            ^ Hashing.mix(mappedByteBuffer.getLong(offset + KEY_LOW_OFFSET) + 1)
+            ^ Hashing.mix(mappedByteBuffer.getLong(offset + MOST_SIGNIFICANT_BITS_OFFSET) + 2)
+            ^ Hashing.mix(mappedByteBuffer.getLong(offset + LEAST_SIGNIFICANT_BITS_OFFSET) + 3);
+
+        return (int) (result ^ (result >>> 32));
+    }
+
+    static String format (long mostSignificantBits, long leastSignificantBits) {
+
+        char[] result = new char[ClientIdGenerator.LENGTH];
+
+        ClientIdGenerator.format(mostSignificantBits, leastSignificantBits, result, 0);
+
+        return new String (result);
+    }
+
+    /**
+     * Returns the number of mappings which have been evicted, because their bucket was full, since this instance was
+     * created.
+     */
+    public long getEvictionCount () {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the maximum number of mappings this store can hold.
+     */
+    public int getCapacity () {
+        return (bucketMask + 1) * SLOTS_PER_BUCKET;
+    }
+
+    /**
+     * Forces any changes to the mapping to be written to disk.
+     */
+    public void flush () {
+        mappedByteBuffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        flush ();
+
+        fileChannel.close();
+    }
+}
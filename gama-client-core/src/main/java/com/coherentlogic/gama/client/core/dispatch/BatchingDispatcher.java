@@ -0,0 +1,213 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.io.Closeable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * A {@link Dispatcher} which packs hits into a {@link HitBatch} and sends each batch as one request, so the transport
+ * must point at the batch endpoint ({@link HitBatch#GOOGLE_ANALYTICS_BATCH_URL}). A batch is sent as soon as it is
+ * full, by the thread whose hit filled it, and otherwise by the scheduler every lingerMillis, so no hit waits much
+ * longer than that.
+ *
+ * Hits are encoded into the batch under a lock, but batches are sent outside it, so several threads (for example the
+ * lanes of a {@link StripedDispatcher}) can send at once. A batch which cannot be sent is logged and its hits are
+ * counted as dropped; wrap the transport in a
+ * {@link com.coherentlogic.gama.client.core.transport.RetryingTransport} to retry it first.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class BatchingDispatcher implements Dispatcher, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingDispatcher.class);
+
+    private final Transport transport;
+
+    private final HitBatch hitBatch;
+
+    private final ScheduledFuture<?> scheduledFlush;
+
+    private final LongAdder batchCount = new LongAdder ();
+
+    private final LongAdder sentCount = new LongAdder ();
+
+    private final LongAdder droppedCount = new LongAdder ();
+
+    /**
+     * @param transport Sends the batches; it must point at the batch endpoint.
+     * @param scheduler Used to send the batch which is being filled every lingerMillis; may be null, in which case
+     *  {@link #flush()} must be called by the owner.
+     */
+    public BatchingDispatcher(
+        Transport transport,
+        ByteBufferPool byteBufferPool,
+        ScheduledExecutorService scheduler,
+        long lingerMillis
+    ) {
+        Utils.assertNotNull("transport", transport);
+        Utils.assertNotNull("byteBufferPool", byteBufferPool);
+
+        if (lingerMillis <= 0)
+            throw new IllegalArgumentException("The lingerMillis must be greater than zero (lingerMillis: "
+                + lingerMillis + ")");
+
+        this.transport = transport;
+        this.hitBatch = new HitBatch (byteBufferPool);
+
+        this.scheduledFlush = scheduler == null ? null : scheduler.scheduleAtFixedRate(
+            this::flushQuietly, lingerMillis, lingerMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @throws com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException if the hit exceeds
+     *  {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        add (batch -> batch.add(queryBuilder));
+    }
+
+    /**
+     * Copies the hit's cached bytes into the batch.
+     *
+     * @throws com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException if the hit exceeds
+     *  {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    @Override
+    public void dispatch(Hit hit) {
+        add (batch -> batch.add(hit));
+    }
+
+    /**
+     * Adds the hit using the adder, which returns false when the batch has no room for it, and sends the batch it
+     * filled or did not fit into.
+     */
+    void add (Predicate<HitBatch> adder) {
+
+        PooledByteBuffer full = null;
+
+        int hitCount = 0;
+
+        // The batch is sent even if the hit turns out to be too large for an empty batch.
+        try {
+            synchronized (hitBatch) {
+
+                if (!adder.test(hitBatch)) {
+
+                    hitCount = hitBatch.getHitCount();
+                    full = hitBatch.drain();
+
+                    adder.test(hitBatch);
+
+                } else if (hitBatch.getHitCount() == HitBatch.MAX_HITS) {
+
+                    hitCount = hitBatch.getHitCount();
+                    full = hitBatch.drain();
+                }
+            }
+        } finally {
+            if (full != null)
+                send (full, hitCount);
+        }
+    }
+
+    /**
+     * Sends the batch which is being filled, if any.
+     */
+    public void flush () {
+
+        PooledByteBuffer payload;
+
+        int hitCount;
+
+        synchronized (hitBatch) {
+
+            if (hitBatch.isEmpty())
+                return;
+
+            hitCount = hitBatch.getHitCount();
+            payload = hitBatch.drain();
+        }
+
+        send (payload, hitCount);
+    }
+
+    void flushQuietly () {
+        try {
+            flush ();
+        } catch (RuntimeException runtimeException) {
+            log.error("The batch could not be flushed.", runtimeException);
+        }
+    }
+
+    void send (PooledByteBuffer payload, int hitCount) {
+        try {
+            transport.send(payload);
+
+            batchCount.increment();
+            sentCount.add(hitCount);
+
+        } catch (RuntimeException runtimeException) {
+
+            droppedCount.add(hitCount);
+
+            log.error("A batch of " + hitCount + " hits was dropped.", runtimeException);
+        }
+    }
+
+    /**
+     * Returns the number of batch requests which have been sent.
+     */
+    public long getBatchCount () {
+        return batchCount.sum();
+    }
+
+    /**
+     * Returns the number of hits which have been sent.
+     */
+    public long getSentCount () {
+        return sentCount.sum();
+    }
+
+    /**
+     * Returns the number of hits which were dropped because their batch could not be sent.
+     */
+    public long getDroppedCount () {
+        return droppedCount.sum();
+    }
+
+    public Transport getTransport () {
+        return transport;
+    }
+
+    /**
+     * Stops the scheduled flush, if any, and sends the batch which is being filled.
+     */
+    @Override
+    public void close() {
+
+        if (scheduledFlush != null)
+            scheduledFlush.cancel(false);
+
+        flush ();
+
+        synchronized (hitBatch) {
+            hitBatch.close();
+        }
+    }
+}
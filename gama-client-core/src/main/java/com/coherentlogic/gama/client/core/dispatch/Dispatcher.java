@@ -0,0 +1,55 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.hits.HitParameters;
+
+/**
+ * A stage in the pipeline which hits pass through on their way to the Measurement API. Stages can drop, merge or
+ * reorder hits and hand the result to the next dispatcher; the last dispatcher sends the hit.
+ *
+ * A dispatcher reads the parameters from the queryBuilder before dispatch returns and does not hold on to the
+ * queryBuilder afterwards, so the caller may reset and reuse it (see
+ * {@link com.coherentlogic.gama.client.core.builders.QueryBuilderPool}). An immutable {@link Hit} may be dispatched
+ * instead; stages which can pass it along as it is do so, and the others copy it into a builder.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public interface Dispatcher {
+
+    void dispatch (QueryBuilder queryBuilder);
+
+    /**
+     * Dispatches an immutable hit, which stages may hold on to, queue or send from any thread without copying it; by
+     * default the hit is copied into a new builder (see {@link Hit#toQueryBuilder()}). That builder has no RestTemplate,
+     * so stages which send hits themselves, such as {@link PostingDispatcher}, must override this method.
+     */
+    default void dispatch (Hit hit) {
+        dispatch (hit.toQueryBuilder());
+    }
+
+    /**
+     * Dispatches the hit unless that would block the caller, for example because a queue is full, in which case the
+     * hit is dropped; used by callers such as request threads which must never wait. By default the hit is dispatched.
+     *
+     * @return true if the hit was dispatched, false if it was dropped.
+     */
+    default boolean offer (QueryBuilder queryBuilder) {
+
+        dispatch (queryBuilder);
+
+        return true;
+    }
+
+    /**
+     * Returns the value which identifies the client the hit belongs to -- the client id or, when that is not set, the
+     * user id -- or null if neither has been set.
+     */
+    static String clientKeyOf (HitParameters hit) {
+
+        String result = hit.getParameter(QueryBuilder.CID);
+
+        return result != null ? result : hit.getParameter(QueryBuilder.UID);
+    }
+}
@@ -0,0 +1,412 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+
+/**
+ * A {@link Dispatcher} which merges identical events -- the same tracking id, client, category, action and label --
+ * which arrive within a window into a single event hit whose value is the sum of the merged event values.
+ *
+ * The merged hit copies the remaining parameters from the first event in the window. Since event values must be
+ * non-negative integers the sum saturates at {@link Integer#MAX_VALUE}; when none of the merged events had a value the
+ * merged hit has none either. Optionally the number of merged events is reported as a custom metric.
+ *
+ * Pending events are kept in a concurrent map and expired by a time wheel which advances every tickMillis, so expiry
+ * costs are proportional to the number of expiring events rather than to the size of the map. Any hit which is not an
+ * event with a category and action is forwarded unchanged.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class EventCoalescingDispatcher implements Dispatcher, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventCoalescingDispatcher.class);
+
+    /**
+     * Parameters which are not copied from the first event to the merged hit.
+     */
+    static final Set<String> NOT_CARRIED = new HashSet<String> (Arrays.asList(
+        QueryBuilder.EV,
+        QueryBuilder.QT,
+        QueryBuilder.Z
+    ));
+
+    private final Dispatcher delegate;
+
+    private final QueryBuilderPool queryBuilderPool;
+
+    private final int countMetricIndex;
+
+    private final ConcurrentHashMap<Key, Pending> pendingEvents = new ConcurrentHashMap<Key, Pending> ();
+
+    private final ConcurrentLinkedQueue<Pending>[] wheel;
+
+    private final int windowTicks;
+
+    private final AtomicLong currentTick = new AtomicLong ();
+
+    private final ScheduledFuture<?> scheduledAdvance;
+
+    private final LongAdder coalescedCount = new LongAdder ();
+
+    private final LongAdder mergedCount = new LongAdder ();
+
+    /**
+     * @param scheduler Used to advance the time wheel every tickMillis; may be null, in which case {@link #advance()}
+     *  or {@link #flush()} must be called by the owner.
+     * @param windowMillis How long the first event of a kind waits for identical events before being forwarded.
+     * @param tickMillis The resolution of the time wheel.
+     * @param countMetricIndex The index of the custom metric which receives the number of merged events, or zero for
+     *  none.
+     */
+    @SuppressWarnings("unchecked")
+    public EventCoalescingDispatcher(
+        Dispatcher delegate,
+        QueryBuilderPool queryBuilderPool,
+        ScheduledExecutorService scheduler,
+        long windowMillis,
+        long tickMillis,
+        int countMetricIndex
+    ) {
+        Utils.assertNotNull("delegate", delegate);
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+
+        if (tickMillis <= 0 || windowMillis < tickMillis)
+            throw new IllegalArgumentException("The tickMillis must be greater than zero and no greater than the "
+                + "windowMillis (windowMillis: " + windowMillis + ", tickMillis: " + tickMillis + ")");
+
+        if (countMetricIndex < 0)
+            throw new IllegalArgumentException("The countMetricIndex cannot be negative (countMetricIndex: "
+                + countMetricIndex + ")");
+
+        this.delegate = delegate;
+        this.queryBuilderPool = queryBuilderPool;
+        this.countMetricIndex = countMetricIndex;
+        this.windowTicks = (int) ((windowMillis + tickMillis - 1) / tickMillis);
+        this.wheel = new ConcurrentLinkedQueue[windowTicks + 1];
+
+        for (int ctr = 0; ctr < wheel.length; ctr++)
+            wheel[ctr] = new ConcurrentLinkedQueue<Pending> ();
+
+        this.scheduledAdvance = scheduler == null ? null : scheduler.scheduleAtFixedRate(
+            this::advanceQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        if (!coalesce (queryBuilder))
+            delegate.dispatch(queryBuilder);
+    }
+
+    /**
+     * Events are coalesced without waiting, and other hits are offered to the delegate.
+     */
+    @Override
+    public boolean offer(QueryBuilder queryBuilder) {
+        return coalesce (queryBuilder) || delegate.offer(queryBuilder);
+    }
+
+    /**
+     * Adds the event to its pending event, or returns false if it is not an event which can be coalesced.
+     */
+    boolean coalesce (QueryBuilder queryBuilder) {
+
+        String category = queryBuilder.getParameter(QueryBuilder.EC);
+        String action = queryBuilder.getParameter(QueryBuilder.EA);
+
+        if (!QueryBuilder.EVENT.equals(queryBuilder.getParameter(QueryBuilder.T))
+            || category == null || action == null)
+            return false;
+
+        Key key = new Key (
+            queryBuilder.getParameter(QueryBuilder.TID),
+            Dispatcher.clientKeyOf(queryBuilder),
+            category,
+            action,
+            queryBuilder.getParameter(QueryBuilder.EL)
+        );
+
+        String eventValue = queryBuilder.getParameter(QueryBuilder.EV);
+
+        int value = eventValue == null ? -1 : Integer.parseInt(eventValue);
+
+        while (true) {
+
+            Pending pending = pendingEvents.get(key);
+
+            if (pending == null) {
+
+                Pending created = new Pending (key, queryBuilder);
+
+                pending = pendingEvents.putIfAbsent(key, created);
+
+                if (pending == null) {
+
+                    created.add(value);
+
+                    wheel[(int) ((currentTick.get() + windowTicks) % wheel.length)].add(created);
+
+                    coalescedCount.increment();
+
+                    return true;
+                }
+            }
+
+            if (pending.add(value)) {
+                coalescedCount.increment();
+                return true;
+            }
+
+            // The pending event expired while we were adding to it, so start a new one.
+            pendingEvents.remove(key, pending);
+        }
+    }
+
+    /**
+     * Moves the time wheel forward by one tick and forwards the events whose window has ended.
+     */
+    public void advance () {
+
+        long tick = currentTick.incrementAndGet();
+
+        ConcurrentLinkedQueue<Pending> slot = wheel[(int) (tick % wheel.length)];
+
+        Pending next;
+
+        while ((next = slot.poll()) != null)
+            emit(next);
+    }
+
+    void advanceQuietly () {
+        try {
+            advance ();
+        } catch (RuntimeException runtimeException) {
+            log.error("The coalesced events could not be dispatched.", runtimeException);
+        }
+    }
+
+    /**
+     * Forwards every pending event immediately.
+     */
+    public void flush () {
+        for (ConcurrentLinkedQueue<Pending> slot : wheel) {
+
+            Pending next;
+
+            while ((next = slot.poll()) != null)
+                emit(next);
+        }
+    }
+
+    void emit (Pending pending) {
+
+        pending.close();
+
+        pendingEvents.remove(pending.key, pending);
+
+        QueryBuilder merged = queryBuilderPool.acquire();
+
+        try {
+            pending.writeTo(merged, countMetricIndex);
+
+            delegate.dispatch(merged);
+
+            mergedCount.increment();
+        } finally {
+            queryBuilderPool.release(merged);
+        }
+    }
+
+    /**
+     * Returns the number of events which have been received by this dispatcher.
+     */
+    public long getCoalescedCount () {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Returns the number of merged event hits which have been forwarded.
+     */
+    public long getMergedCount () {
+        return mergedCount.sum();
+    }
+
+    /**
+     * Returns the number of merged events which are waiting for their window to end.
+     */
+    public int getPendingCount () {
+        return pendingEvents.size();
+    }
+
+    /**
+     * Stops the scheduled advance, if any, and forwards every pending event.
+     */
+    @Override
+    public void close() {
+
+        if (scheduledAdvance != null)
+            scheduledAdvance.cancel(false);
+
+        flush ();
+    }
+
+    static class Key {
+
+        final String trackingId, clientKey, category, action, label;
+
+        final int hashCode;
+
+        Key(String trackingId, String clientKey, String category, String action, String label) {
+            this.trackingId = trackingId;
+            this.clientKey = clientKey;
+            this.category = category;
+            this.action = action;
+            this.label = label;
+            this.hashCode = Arrays.hashCode(new Object[] {trackingId, clientKey, category, action, label});
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+
+            if (!(object instanceof Key))
+                return false;
+
+            Key other = (Key) object;
+
+            return equal(trackingId, other.trackingId)
+                && equal(clientKey, other.clientKey)
+                && category.equals(other.category)
+                && action.equals(other.action)
+                && equal(label, other.label);
+        }
+
+        static boolean equal (String left, String right) {
+            return left == null ? right == null : left.equals(right);
+        }
+    }
+
+    static class Pending {
+
+        /**
+         * Set in {@link #writers} once the pending event has been closed.
+         */
+        static final int CLOSED = 0x80000000;
+
+        final Key key;
+
+        private final String[] carriedNames;
+
+        private final String[] carriedValues;
+
+        private final AtomicInteger writers = new AtomicInteger ();
+
+        private final AtomicLong valueSum = new AtomicLong ();
+
+        private final AtomicInteger valueCount = new AtomicInteger ();
+
+        private final AtomicInteger eventCount = new AtomicInteger ();
+
+        Pending(Key key, QueryBuilder first) {
+
+            this.key = key;
+
+            int carriedCount = 0;
+
+            String[] names = new String[first.getParameterCount()];
+            String[] values = new String[first.getParameterCount()];
+
+            for (int ctr = 0; ctr < first.getParameterCount(); ctr++) {
+
+                String name = first.getParameterName(ctr);
+
+                if (!NOT_CARRIED.contains(name)) {
+                    names[carriedCount] = name;
+                    values[carriedCount] = first.getParameterValue(ctr);
+                    carriedCount++;
+                }
+            }
+
+            this.carriedNames = Arrays.copyOf(names, carriedCount);
+            this.carriedValues = Arrays.copyOf(values, carriedCount);
+        }
+
+        /**
+         * Adds the event value, or -1 for an event without a value, and returns false if the pending event has
+         * already been closed.
+         */
+        boolean add (int value) {
+
+            int current;
+
+            do {
+                current = writers.get();
+
+                if ((current & CLOSED) != 0)
+                    return false;
+
+            } while (!writers.compareAndSet(current, current + 1));
+
+            try {
+                eventCount.incrementAndGet();
+
+                if (0 <= value) {
+                    valueSum.addAndGet(value);
+                    valueCount.incrementAndGet();
+                }
+            } finally {
+                writers.decrementAndGet();
+            }
+
+            return true;
+        }
+
+        /**
+         * Prevents further additions and waits for additions which are in progress to finish.
+         */
+        void close () {
+
+            int current;
+
+            do {
+                current = writers.get();
+            } while (!writers.compareAndSet(current, current | CLOSED));
+
+            while ((writers.get() & ~CLOSED) != 0)
+                Thread.yield();
+        }
+
+        void writeTo (QueryBuilder merged, int countMetricIndex) {
+
+            for (int ctr = 0; ctr < carriedNames.length; ctr++)
+                merged.withParameter(carriedNames[ctr], carriedValues[ctr]);
+
+            if (0 < valueCount.get())
+                merged.withEv((int) Math.min(Integer.MAX_VALUE, valueSum.get()));
+
+            if (0 < countMetricIndex)
+                merged.withCmX(countMetricIndex, eventCount.get());
+        }
+    }
+}
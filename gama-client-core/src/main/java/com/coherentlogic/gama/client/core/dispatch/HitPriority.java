@@ -0,0 +1,48 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+
+/**
+ * The priority classes hits are sorted into when the pipeline backs up; see {@link PriorityDispatcher}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public enum HitPriority {
+
+    /**
+     * Transaction and item hits, as well as purchase and refund product actions -- the hits which carry revenue.
+     */
+    HIGH,
+
+    /**
+     * Page views, screen views, exceptions and any other hit which carries a product action.
+     */
+    NORMAL,
+
+    /**
+     * Events, timings, social interactions and hits of an unknown type.
+     */
+    LOW;
+
+    public static HitPriority of (QueryBuilder queryBuilder) {
+        return of (queryBuilder.getParameter(QueryBuilder.T), queryBuilder.getParameter(QueryBuilder.PA));
+    }
+
+    public static HitPriority of (String hitType, String productAction) {
+
+        HitPriority result;
+
+        if (SamplingDispatcher.isExempt(hitType, productAction))
+            result = HIGH;
+        else if (productAction != null
+            || QueryBuilder.PAGE_VIEW.equals(hitType)
+            || QueryBuilder.SCREEN_VIEW.equals(hitType)
+            || QueryBuilder.EXCEPTION.equals(hitType))
+            result = NORMAL;
+        else
+            result = LOW;
+
+        return result;
+    }
+}
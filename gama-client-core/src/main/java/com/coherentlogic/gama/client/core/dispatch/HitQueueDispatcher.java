@@ -0,0 +1,40 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.queue.MappedHitQueue;
+
+/**
+ * A {@link Dispatcher} which appends the hit to a {@link MappedHitQueue} on the calling thread, leaving the hit to be
+ * sent by the process which drains the queue (see {@link com.coherentlogic.gama.client.core.queue.HitQueueSender}).
+ * Hits are dropped when the queue is full; see {@link MappedHitQueue#getRejectedCount()}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitQueueDispatcher implements Dispatcher {
+
+    private final MappedHitQueue queue;
+
+    public HitQueueDispatcher(MappedHitQueue queue) {
+
+        Utils.assertNotNull("queue", queue);
+
+        this.queue = queue;
+    }
+
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        queue.offer(queryBuilder);
+    }
+
+    @Override
+    public void dispatch(Hit hit) {
+        queue.offer(hit);
+    }
+
+    public MappedHitQueue getQueue() {
+        return queue;
+    }
+}
@@ -0,0 +1,62 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.transport.RestTemplateTransport;
+
+/**
+ * A {@link Dispatcher} which sends the hit on the calling thread using {@link QueryBuilder#doPost()}.
+ *
+ * An immutable {@link Hit} has no RestTemplate of its own, so its cached bytes are posted to the hit's endpoint using
+ * this dispatcher's restTemplate, through one {@link RestTemplateTransport} per endpoint.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class PostingDispatcher implements Dispatcher {
+
+    private final RestTemplate restTemplate;
+
+    private final ConcurrentMap<URI, RestTemplateTransport> transports = new ConcurrentHashMap<> ();
+
+    public PostingDispatcher() {
+        this(new RestTemplate ());
+    }
+
+    /**
+     * @param restTemplate Used to post immutable hits.
+     */
+    public PostingDispatcher(RestTemplate restTemplate) {
+
+        Utils.assertNotNull("restTemplate", restTemplate);
+
+        this.restTemplate = restTemplate;
+    }
+
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        queryBuilder.doPost();
+    }
+
+    /**
+     * Posts the hit's cached bytes to the hit's endpoint.
+     *
+     * @throws com.coherentlogic.gama.client.core.exceptions.PostFailedException if the http status code is not OK.
+     */
+    @Override
+    public void dispatch(Hit hit) {
+        transports.computeIfAbsent(hit.getEndpoint(), endpoint -> new RestTemplateTransport (restTemplate, endpoint))
+            .send(hit.asByteBuffer());
+    }
+
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+}
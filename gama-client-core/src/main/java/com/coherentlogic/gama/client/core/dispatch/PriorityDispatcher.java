@@ -0,0 +1,352 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+
+/**
+ * A {@link Dispatcher} which queues hits by {@link HitPriority} and drains the queues on its own thread, so that revenue
+ * hits are not held up, or dropped, because of a flood of page views and events.
+ *
+ * Each priority has its own bounded queue, and all queues share a total capacity. The drain thread takes up to
+ * weight hits from each non-empty queue in turn, highest priority first, so lower priorities slow down but never
+ * stop. When the total capacity has been reached the newest hit of the lowest priority below that of the incoming hit
+ * is shed to make room; when there is no such hit, or when the queue of the incoming hit is itself full, the incoming
+ * hit is shed instead.
+ *
+ * Hits are copied into builders acquired from the queryBuilderPool, which are released once the delegate returns or
+ * the hit is shed.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class PriorityDispatcher implements Dispatcher, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PriorityDispatcher.class);
+
+    static final HitPriority[] PRIORITIES = HitPriority.values();
+
+    /**
+     * The default number of hits taken from the high, normal and low priority queues per round.
+     */
+    public static final int[] DEFAULT_WEIGHTS = {8, 3, 1};
+
+    private final Dispatcher delegate;
+
+    private final QueryBuilderPool queryBuilderPool;
+
+    private final int totalCapacity;
+
+    private final int[] capacities;
+
+    private final int[] weights;
+
+    private final ArrayDeque<QueryBuilder>[] queues;
+
+    private final ReentrantLock lock = new ReentrantLock ();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition drained = lock.newCondition();
+
+    private final AtomicLongArray shedCounts = new AtomicLongArray (PRIORITIES.length);
+
+    private final AtomicLongArray sentCounts = new AtomicLongArray (PRIORITIES.length);
+
+    private final Thread drainThread;
+
+    private int size = 0;
+
+    private int inFlight = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Every priority may use the whole capacity, and the queues are drained using the {@link #DEFAULT_WEIGHTS}.
+     */
+    public PriorityDispatcher(Dispatcher delegate, QueryBuilderPool queryBuilderPool, int capacity) {
+        this(
+            delegate,
+            queryBuilderPool,
+            capacity,
+            new int[] {capacity, capacity, capacity},
+            DEFAULT_WEIGHTS,
+            runnable -> {
+                Thread result = new Thread (runnable, "gama-priority-drain");
+                result.setDaemon(true);
+                return result;
+            }
+        );
+    }
+
+    /**
+     * @param totalCapacity The number of hits which may be queued across all priorities.
+     * @param capacities The number of hits which may be queued per priority, indexed by {@link HitPriority#ordinal()}.
+     * @param weights The number of hits taken from each priority per round, indexed by {@link HitPriority#ordinal()}.
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityDispatcher(
+        Dispatcher delegate,
+        QueryBuilderPool queryBuilderPool,
+        int totalCapacity,
+        int[] capacities,
+        int[] weights,
+        ThreadFactory threadFactory
+    ) {
+        Utils.assertNotNull("delegate", delegate);
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+        Utils.assertNotNull("capacities", capacities);
+        Utils.assertNotNull("weights", weights);
+        Utils.assertNotNull("threadFactory", threadFactory);
+
+        if (totalCapacity <= 0)
+            throw new IllegalArgumentException("The totalCapacity must be greater than zero (totalCapacity: "
+                + totalCapacity + ")");
+
+        if (capacities.length != PRIORITIES.length || weights.length != PRIORITIES.length)
+            throw new IllegalArgumentException("One capacity and one weight is required per priority (priorities: "
+                + PRIORITIES.length + ", capacities: " + capacities.length + ", weights: " + weights.length + ")");
+
+        for (int ctr = 0; ctr < PRIORITIES.length; ctr++)
+            if (capacities[ctr] <= 0 || weights[ctr] <= 0)
+                throw new IllegalArgumentException("The capacity and weight of " + PRIORITIES[ctr] + " must be "
+                    + "greater than zero (capacity: " + capacities[ctr] + ", weight: " + weights[ctr] + ")");
+
+        this.delegate = delegate;
+        this.queryBuilderPool = queryBuilderPool;
+        this.totalCapacity = totalCapacity;
+        this.capacities = capacities.clone();
+        this.weights = weights.clone();
+        this.queues = new ArrayDeque[PRIORITIES.length];
+
+        for (int ctr = 0; ctr < PRIORITIES.length; ctr++)
+            queues[ctr] = new ArrayDeque<QueryBuilder> (Math.min(capacities[ctr], totalCapacity));
+
+        this.drainThread = threadFactory.newThread(this::drain);
+
+        drainThread.start();
+    }
+
+    /**
+     * @throws IllegalStateException if this dispatcher has been closed.
+     */
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        enqueue (queryBuilder);
+    }
+
+    /**
+     * Queues the hit as {@link #dispatch(QueryBuilder)} does, which never waits.
+     *
+     * @return false if the hit was shed because its priority's queue was full.
+     *
+     * @throws IllegalStateException if this dispatcher has been closed.
+     */
+    @Override
+    public boolean offer(QueryBuilder queryBuilder) {
+        return enqueue (queryBuilder);
+    }
+
+    boolean enqueue (QueryBuilder queryBuilder) {
+
+        int priority = HitPriority.of(queryBuilder).ordinal();
+
+        QueryBuilder copy = queryBuilderPool.acquire().withParametersOf(queryBuilder);
+
+        QueryBuilder shed = copy;
+        int shedPriority = priority;
+
+        lock.lock();
+
+        try {
+            if (closed) {
+                queryBuilderPool.release(copy);
+                throw new IllegalStateException("This dispatcher has been closed.");
+            }
+
+            if (queues[priority].size() < capacities[priority]) {
+
+                if (size < totalCapacity) {
+                    shed = null;
+                } else {
+
+                    int victim = lowestNonEmptyBelow (priority);
+
+                    if (0 <= victim) {
+                        shed = queues[victim].pollLast();
+                        shedPriority = victim;
+                        size--;
+                    }
+                }
+
+                if (shed != copy) {
+                    queues[priority].addLast(copy);
+                    size++;
+                    notEmpty.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (shed != null) {
+            shedCounts.incrementAndGet(shedPriority);
+            queryBuilderPool.release(shed);
+        }
+
+        return shed != copy;
+    }
+
+    private int lowestNonEmptyBelow (int priority) {
+
+        for (int ctr = PRIORITIES.length - 1; priority < ctr; ctr--)
+            if (!queues[ctr].isEmpty())
+                return ctr;
+
+        return -1;
+    }
+
+    void drain () {
+
+        int current = 0;
+        int taken = 0;
+
+        while (true) {
+
+            QueryBuilder next = null;
+            int priority = -1;
+
+            lock.lock();
+
+            try {
+                while (size == 0 && !closed)
+                    notEmpty.awaitUninterruptibly();
+
+                if (size == 0)
+                    return;
+
+                while (next == null) {
+
+                    if (taken < weights[current] && !queues[current].isEmpty()) {
+                        next = queues[current].pollFirst();
+                        priority = current;
+                        taken++;
+                    } else {
+                        current = (current + 1) % PRIORITIES.length;
+                        taken = 0;
+                    }
+                }
+
+                size--;
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                delegate.dispatch(next);
+                sentCounts.incrementAndGet(priority);
+            } catch (RuntimeException runtimeException) {
+                log.error("The hit could not be dispatched.", runtimeException);
+            } finally {
+                queryBuilderPool.release(next);
+
+                lock.lock();
+
+                try {
+                    if (--inFlight == 0 && size == 0)
+                        drained.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until every queued hit has been sent.
+     *
+     * @return true if the queues drained before the timeout elapsed.
+     */
+    public boolean flush (long timeout, TimeUnit unit) throws InterruptedException {
+
+        long remaining = unit.toNanos(timeout);
+
+        lock.lock();
+
+        try {
+            while (0 < size || 0 < inFlight) {
+
+                if (remaining <= 0)
+                    return false;
+
+                remaining = drained.awaitNanos(remaining);
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of hits of the given priority waiting to be sent.
+     */
+    public int getQueuedCount (HitPriority priority) {
+
+        lock.lock();
+
+        try {
+            return queues[priority.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of hits of the given priority which were dropped because the queues were full.
+     */
+    public long getShedCount (HitPriority priority) {
+        return shedCounts.get(priority.ordinal());
+    }
+
+    /**
+     * Returns the number of hits of the given priority which were handed to the delegate.
+     */
+    public long getSentCount (HitPriority priority) {
+        return sentCounts.get(priority.ordinal());
+    }
+
+    /**
+     * Stops accepting hits and waits for the drain thread to send the hits which have already been queued.
+     */
+    @Override
+    public void close() {
+
+        lock.lock();
+
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            drainThread.join();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
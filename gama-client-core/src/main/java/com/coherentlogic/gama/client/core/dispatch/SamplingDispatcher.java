@@ -0,0 +1,196 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.hits.HitParameters;
+import com.coherentlogic.gama.client.core.util.Hashing;
+
+/**
+ * A {@link Dispatcher} which forwards only a percentage of hits to the next dispatcher, so that traffic which is only
+ * needed in aggregate is not paid for in full.
+ *
+ * The decision is made by hashing the client id (or the user id when no client id is set) so a given client is either
+ * always in or always out of the sample and sessions are never broken up. Rates can be configured per hit type;
+ * transaction and item hits, as well as purchase and refund product actions, are never sampled, and neither are hits
+ * which identify no client.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class SamplingDispatcher implements Dispatcher {
+
+    /**
+     * Seed for the client hash, which is independent of the seeds used elsewhere so that sampling does not correlate
+     * with, for example, striping.
+     */
+    static final long SAMPLING_SEED = 0x5A4D504C494E4721L;
+
+    private final Dispatcher delegate;
+
+    private final double defaultRate;
+
+    private final Map<String, Double> ratesByHitType;
+
+    private final Map<String, LongAdder> sampledOutCountsByHitType = new ConcurrentHashMap<String, LongAdder> ();
+
+    private final LongAdder sampledOutCount = new LongAdder ();
+
+    private final LongAdder forwardedCount = new LongAdder ();
+
+    /**
+     * @param defaultRate The fraction of clients, between 0.0 and 1.0, whose hits are forwarded.
+     */
+    public SamplingDispatcher(Dispatcher delegate, double defaultRate) {
+        this(delegate, defaultRate, new HashMap<String, Double> ());
+    }
+
+    /**
+     * @param defaultRate The fraction of clients, between 0.0 and 1.0, whose hits are forwarded when the hit type does
+     *  not appear in ratesByHitType.
+     * @param ratesByHitType The fraction of clients whose hits are forwarded, keyed by hit type (for example
+     *  {@link QueryBuilder#PAGE_VIEW} or {@link QueryBuilder#EVENT}).
+     */
+    public SamplingDispatcher(Dispatcher delegate, double defaultRate, Map<String, Double> ratesByHitType) {
+
+        Utils.assertNotNull("delegate", delegate);
+        Utils.assertNotNull("ratesByHitType", ratesByHitType);
+
+        this.delegate = delegate;
+        this.defaultRate = assertRate("defaultRate", defaultRate);
+        this.ratesByHitType = new HashMap<String, Double> (ratesByHitType);
+
+        for (Map.Entry<String, Double> next : this.ratesByHitType.entrySet())
+            assertRate(next.getKey(), next.getValue());
+    }
+
+    static double assertRate (String name, Double rate) {
+
+        Utils.assertNotNull(name, rate);
+
+        if (!(0.0 <= rate && rate <= 1.0))
+            throw new IllegalArgumentException("The rate for " + name + " must be between 0.0 and 1.0 (rate: " + rate
+                + ")");
+
+        return rate;
+    }
+
+    /**
+     * Returns true for hits which carry revenue and therefore must never be sampled.
+     */
+    static boolean isExempt (String hitType, String productAction) {
+        return QueryBuilder.TRANSACTION.equals(hitType)
+            || QueryBuilder.ITEM.equals(hitType)
+            || QueryBuilder.PURCHASE.equals(productAction)
+            || QueryBuilder.REFUND.equals(productAction);
+    }
+
+    /**
+     * Returns the rate which applies to the hit type.
+     */
+    public double getRate (String hitType) {
+
+        Double result = hitType == null ? null : ratesByHitType.get(hitType);
+
+        return result == null ? defaultRate : result;
+    }
+
+    /**
+     * Returns true if the hit should be forwarded to the next dispatcher.
+     */
+    public boolean isSampledIn (HitParameters hit) {
+
+        String hitType = hit.getParameter(QueryBuilder.T);
+
+        if (isExempt(hitType, hit.getParameter(QueryBuilder.PA)))
+            return true;
+
+        String clientKey = Dispatcher.clientKeyOf(hit);
+
+        if (clientKey == null)
+            return true;
+
+        double rate = getRate (hitType);
+
+        return rate == 1.0 || Hashing.toUnitInterval(Hashing.hash(clientKey, SAMPLING_SEED)) < rate;
+    }
+
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        if (isSampledIn(queryBuilder)) {
+            forwardedCount.increment();
+            delegate.dispatch(queryBuilder);
+        } else
+            countSampledOut (queryBuilder);
+    }
+
+    @Override
+    public void dispatch(Hit hit) {
+        if (isSampledIn(hit)) {
+            forwardedCount.increment();
+            delegate.dispatch(hit);
+        } else
+            countSampledOut (hit);
+    }
+
+    /**
+     * Offers the hit to the delegate if it is sampled in; a hit which is sampled out counts as dispatched.
+     */
+    @Override
+    public boolean offer(QueryBuilder queryBuilder) {
+
+        if (!isSampledIn(queryBuilder)) {
+            countSampledOut (queryBuilder);
+            return true;
+        }
+
+        boolean result = delegate.offer(queryBuilder);
+
+        if (result)
+            forwardedCount.increment();
+
+        return result;
+    }
+
+    void countSampledOut (HitParameters hit) {
+
+        sampledOutCount.increment();
+
+        String hitType = hit.getParameter(QueryBuilder.T);
+
+        sampledOutCountsByHitType
+            .computeIfAbsent(hitType == null ? "" : hitType, key -> new LongAdder ())
+            .increment();
+    }
+
+    /**
+     * Returns the number of hits which were dropped.
+     */
+    public long getSampledOutCount () {
+        return sampledOutCount.sum();
+    }
+
+    /**
+     * Returns the number of hits of the given type which were dropped.
+     */
+    public long getSampledOutCount (String hitType) {
+
+        LongAdder result = sampledOutCountsByHitType.get(hitType == null ? "" : hitType);
+
+        return result == null ? 0L : result.sum();
+    }
+
+    /**
+     * Returns the number of hits which were forwarded to the next dispatcher.
+     */
+    public long getForwardedCount () {
+        return forwardedCount.sum();
+    }
+}
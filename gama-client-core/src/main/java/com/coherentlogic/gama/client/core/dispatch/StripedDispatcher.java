@@ -0,0 +1,411 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.util.Hashing;
+
+/**
+ * A {@link Dispatcher} which hands hits to a fixed number of lanes, each drained by its own thread, so that hits are
+ * sent concurrently while the hits of any one client are always sent in the order they were dispatched.
+ *
+ * The lane is chosen by hashing the client id (or the user id when no client id is set); hits which identify no client
+ * are spread over the lanes in turn. Each lane is a bounded queue, and dispatch blocks when the lane is full rather than
+ * reorder or drop hits; {@link #offer(QueryBuilder)} drops and counts the hit instead. The current and peak depth of
+ * each lane is available so that hot clients can be detected.
+ *
+ * Hits are copied into builders acquired from the queryBuilderPool, which are released once the delegate returns; the
+ * delegate is therefore called from the lane threads and must be thread-safe. An immutable {@link Hit} is queued as it
+ * is and passed to the delegate's {@link Dispatcher#dispatch(Hit)}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class StripedDispatcher implements Dispatcher, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedDispatcher.class);
+
+    /**
+     * Seed for the client hash, which is independent of the seeds used elsewhere so that striping does not correlate
+     * with, for example, sampling.
+     */
+    static final long STRIPING_SEED = 0x5354524950494E47L;
+
+    /**
+     * Placed on each lane by {@link #close()} to stop the lane thread once the hits ahead of it have been sent.
+     */
+    static final Object SHUTDOWN = new Object ();
+
+    private final Dispatcher delegate;
+
+    private final QueryBuilderPool queryBuilderPool;
+
+    private final Lane[] lanes;
+
+    private final AtomicInteger nextUnkeyedLane = new AtomicInteger ();
+
+    private final AtomicLong droppedCount = new AtomicLong ();
+
+    private final AtomicBoolean closed = new AtomicBoolean ();
+
+    /**
+     * The number of threads inside dispatch; {@link #close()} waits for it to reach zero before stopping the lanes, so
+     * that no hit can be queued behind {@link #SHUTDOWN}.
+     */
+    private final AtomicInteger dispatching = new AtomicInteger ();
+
+    public StripedDispatcher(Dispatcher delegate, QueryBuilderPool queryBuilderPool, int laneCount, int laneCapacity) {
+        this(delegate, queryBuilderPool, laneCount, laneCapacity, new LaneThreadFactory ());
+    }
+
+    public StripedDispatcher(
+        Dispatcher delegate,
+        QueryBuilderPool queryBuilderPool,
+        int laneCount,
+        int laneCapacity,
+        ThreadFactory threadFactory
+    ) {
+        Utils.assertNotNull("delegate", delegate);
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+        Utils.assertNotNull("threadFactory", threadFactory);
+
+        if (laneCount <= 0 || laneCapacity <= 0)
+            throw new IllegalArgumentException("The laneCount and laneCapacity must be greater than zero (laneCount: "
+                + laneCount + ", laneCapacity: " + laneCapacity + ")");
+
+        this.delegate = delegate;
+        this.queryBuilderPool = queryBuilderPool;
+        this.lanes = new Lane[laneCount];
+
+        for (int ctr = 0; ctr < laneCount; ctr++)
+            lanes[ctr] = new Lane (laneCapacity);
+
+        for (int ctr = 0; ctr < laneCount; ctr++) {
+
+            Thread thread = threadFactory.newThread(lanes[ctr]);
+
+            lanes[ctr].thread = thread;
+
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns the lane which hits with the given client key are sent through.
+     */
+    public int laneOf (String clientKey) {
+
+        if (clientKey == null)
+            return (nextUnkeyedLane.getAndIncrement() & Integer.MAX_VALUE) % lanes.length;
+
+        return (int) ((Hashing.hash(clientKey, STRIPING_SEED) >>> 1) % lanes.length);
+    }
+
+    /**
+     * @throws IllegalStateException if this dispatcher has been closed.
+     */
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+
+        enter ();
+
+        try {
+            Lane lane = lanes[laneOf (Dispatcher.clientKeyOf(queryBuilder))];
+
+            QueryBuilder copy = queryBuilderPool.acquire().withParametersOf(queryBuilder);
+
+            lane.put(copy);
+        } finally {
+            dispatching.decrementAndGet();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if this dispatcher has been closed.
+     */
+    @Override
+    public void dispatch(Hit hit) {
+
+        enter ();
+
+        try {
+            lanes[laneOf (Dispatcher.clientKeyOf(hit))].put(hit);
+        } finally {
+            dispatching.decrementAndGet();
+        }
+    }
+
+    /**
+     * Queues the hit without waiting; when its lane is full the hit is dropped and counted (see
+     * {@link #getDroppedCount()}).
+     *
+     * @throws IllegalStateException if this dispatcher has been closed.
+     */
+    @Override
+    public boolean offer(QueryBuilder queryBuilder) {
+
+        enter ();
+
+        try {
+            Lane lane = lanes[laneOf (Dispatcher.clientKeyOf(queryBuilder))];
+
+            boolean result = lane.queue.remainingCapacity() != 0
+                && lane.offer(queryBuilderPool.acquire().withParametersOf(queryBuilder));
+
+            if (!result)
+                droppedCount.incrementAndGet();
+
+            return result;
+        } finally {
+            dispatching.decrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the calling thread as dispatching, unless this dispatcher has been closed; the count is raised before
+     * closed is read, so either close sees this thread and waits for it, or this thread sees that it was closed.
+     */
+    void enter () {
+
+        dispatching.incrementAndGet();
+
+        if (closed.get()) {
+
+            dispatching.decrementAndGet();
+
+            throw new IllegalStateException("This dispatcher has been closed.");
+        }
+    }
+
+    /**
+     * Waits until every hit dispatched before this method was called has been sent.
+     *
+     * @return true if all lanes drained before the timeout elapsed.
+     */
+    public boolean flush (long timeout, TimeUnit unit) {
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (Lane lane : lanes) {
+
+            while (0 < lane.pending.get()) {
+
+                if (deadline - System.nanoTime() <= 0)
+                    return false;
+
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+
+        return true;
+    }
+
+    public int getLaneCount () {
+        return lanes.length;
+    }
+
+    /**
+     * Returns the number of hits waiting in, or being sent by, the lane.
+     */
+    public int getLaneDepth (int lane) {
+        return (int) lanes[lane].pending.get();
+    }
+
+    /**
+     * Returns the greatest depth the lane has reached; a lane whose peak depth is far above that of the others is
+     * being fed by one or more hot clients.
+     */
+    public int getPeakLaneDepth (int lane) {
+        return (int) lanes[lane].peakDepth.get();
+    }
+
+    /**
+     * Returns the number of hits the lane has handed to the delegate.
+     */
+    public long getSentCount (int lane) {
+        return lanes[lane].sentCount.get();
+    }
+
+    /**
+     * Returns the number of hits for which the delegate threw an exception.
+     */
+    public long getFailureCount () {
+
+        long result = 0;
+
+        for (Lane lane : lanes)
+            result += lane.failureCount.get();
+
+        return result;
+    }
+
+    /**
+     * Returns the number of hits which {@link #offer(QueryBuilder)} dropped because their lane was full.
+     */
+    public long getDroppedCount () {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops accepting hits and waits for the lane threads to send the hits which have already been dispatched,
+     * including those of threads which were inside dispatch when this method was called.
+     */
+    @Override
+    public void close() {
+
+        // Only the first call stops the lanes, so concurrent calls cannot queue SHUTDOWN twice.
+        if (!closed.compareAndSet(false, true))
+            return;
+
+        // The lane threads keep running, so a dispatch waiting for space in a full lane still completes.
+        while (0 < dispatching.get())
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+
+        for (Lane lane : lanes)
+            lane.put(SHUTDOWN);
+
+        try {
+            for (Lane lane : lanes)
+                lane.thread.join();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    class Lane implements Runnable {
+
+        /**
+         * Holds pooled QueryBuilders, which are released once sent, and Hits.
+         */
+        private final BlockingQueue<Object> queue;
+
+        private final AtomicLong pending = new AtomicLong ();
+
+        private final AtomicLong peakDepth = new AtomicLong ();
+
+        private final AtomicLong sentCount = new AtomicLong ();
+
+        private final AtomicLong failureCount = new AtomicLong ();
+
+        private Thread thread;
+
+        Lane(int capacity) {
+            this.queue = new ArrayBlockingQueue<Object> (capacity);
+        }
+
+        void put (Object hit) {
+
+            if (hit != SHUTDOWN)
+                increment ();
+
+            try {
+                queue.put(hit);
+            } catch (InterruptedException interruptedException) {
+
+                if (hit != SHUTDOWN) {
+                    pending.decrementAndGet();
+                    release (hit);
+                }
+
+                Thread.currentThread().interrupt();
+
+                throw new IllegalStateException("Interrupted while waiting for space in the lane.",
+                    interruptedException);
+            }
+        }
+
+        /**
+         * Queues the hit if there is space, and otherwise releases it.
+         */
+        boolean offer (Object hit) {
+
+            increment ();
+
+            boolean result = queue.offer(hit);
+
+            if (!result) {
+                pending.decrementAndGet();
+                release (hit);
+            }
+
+            return result;
+        }
+
+        void increment () {
+
+            long depth = pending.incrementAndGet();
+            long peak;
+
+            while (depth > (peak = peakDepth.get()) && !peakDepth.compareAndSet(peak, depth))
+                ;
+        }
+
+        @Override
+        public void run() {
+
+            while (true) {
+
+                Object next;
+
+                try {
+                    next = queue.take();
+                } catch (InterruptedException interruptedException) {
+                    log.warn("The lane thread was interrupted; " + queue.size() + " hits will not be sent.");
+                    return;
+                }
+
+                if (next == SHUTDOWN)
+                    return;
+
+                try {
+                    if (next instanceof Hit)
+                        delegate.dispatch((Hit) next);
+                    else
+                        delegate.dispatch((QueryBuilder) next);
+
+                    sentCount.incrementAndGet();
+                } catch (RuntimeException runtimeException) {
+                    failureCount.incrementAndGet();
+                    log.error("The hit could not be dispatched.", runtimeException);
+                } finally {
+                    release (next);
+                    pending.decrementAndGet();
+                }
+            }
+        }
+
+        void release (Object hit) {
+            if (hit instanceof QueryBuilder)
+                queryBuilderPool.release((QueryBuilder) hit);
+        }
+    }
+
+    static class LaneThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger nextId = new AtomicInteger ();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread result = new Thread (runnable, "gama-lane-" + nextId.getAndIncrement());
+
+            result.setDaemon(true);
+
+            return result;
+        }
+    }
+}
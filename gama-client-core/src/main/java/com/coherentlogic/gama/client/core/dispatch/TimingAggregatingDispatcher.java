@@ -0,0 +1,404 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.util.Utf8;
+
+/**
+ * A {@link Dispatcher} which, rather than forwarding every timing hit, accumulates timing hits with the same tracking
+ * id, category, variable and label over a window and then forwards a single summary hit per combination.
+ *
+ * The summary hit copies the remaining parameters (v, tid, cid, an and so on) from the first hit seen in the window,
+ * carries the mean as the timing value, sums any custom metrics (cm1, cm2, ...) and reports the hit count and the
+ * 50th, 90th and 99th percentiles either appended to the label, for example "db-query n=1200 p50=12 p90=40 p99=95",
+ * or, when metric indices are supplied, as custom metrics.
+ *
+ * All other hits are forwarded unchanged. Recording is lock-free: counts and sums use {@link LongAdder} and
+ * {@link DoubleAdder} and the percentiles come from a striped {@link TimingHistogram}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class TimingAggregatingDispatcher implements Dispatcher, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingAggregatingDispatcher.class);
+
+    static final int MAX_LABEL_LENGTH_IN_BYTES = 500;
+
+    /**
+     * Parameters which are not copied from the first hit to the summary hit.
+     */
+    static final Set<String> NOT_CARRIED = new HashSet<String> (Arrays.asList(
+        QueryBuilder.T,
+        QueryBuilder.UTC,
+        QueryBuilder.UTV,
+        QueryBuilder.UTT,
+        QueryBuilder.UTL,
+        QueryBuilder.QT,
+        QueryBuilder.Z
+    ));
+
+    private final Dispatcher delegate;
+
+    private final QueryBuilderPool queryBuilderPool;
+
+    private final int[] percentileMetricIndices;
+
+    private final int stripeCount;
+
+    private final AtomicReference<Generation> currentGeneration = new AtomicReference<Generation> (new Generation ());
+
+    private final ScheduledFuture<?> scheduledFlush;
+
+    private final LongAdder aggregatedCount = new LongAdder ();
+
+    private final LongAdder summaryCount = new LongAdder ();
+
+    /**
+     * Creates a dispatcher which appends the count and percentiles to the label of the summary hit.
+     *
+     * @param scheduler Used to flush the accumulated hits every windowMillis; may be null, in which case
+     *  {@link #flush()} must be called by the owner.
+     */
+    public TimingAggregatingDispatcher(
+        Dispatcher delegate,
+        QueryBuilderPool queryBuilderPool,
+        ScheduledExecutorService scheduler,
+        long windowMillis
+    ) {
+        this(delegate, queryBuilderPool, scheduler, windowMillis, null);
+    }
+
+    /**
+     * Creates a dispatcher which reports the count and percentiles as custom metrics of the summary hit.
+     *
+     * @param percentileMetricIndices The custom metric indices for the count, p50, p90 and p99, in that order, or null
+     *  to append these to the label.
+     */
+    public TimingAggregatingDispatcher(
+        Dispatcher delegate,
+        QueryBuilderPool queryBuilderPool,
+        ScheduledExecutorService scheduler,
+        long windowMillis,
+        int[] percentileMetricIndices
+    ) {
+        Utils.assertNotNull("delegate", delegate);
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+
+        if (windowMillis <= 0)
+            throw new IllegalArgumentException("The windowMillis must be greater than zero (windowMillis: "
+                + windowMillis + ")");
+
+        if (percentileMetricIndices != null && percentileMetricIndices.length != 4)
+            throw new IllegalArgumentException("Exactly four percentileMetricIndices (count, p50, p90, p99) are "
+                + "required.");
+
+        this.delegate = delegate;
+        this.queryBuilderPool = queryBuilderPool;
+        this.percentileMetricIndices = percentileMetricIndices == null ? null : percentileMetricIndices.clone();
+        this.stripeCount = Integer.highestOneBit(Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+        this.scheduledFlush = scheduler == null ? null : scheduler.scheduleAtFixedRate(
+            this::flushQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    static boolean isCustomMetric (String name) {
+
+        if (name.length() <= 2 || !name.startsWith(QueryBuilder.CM))
+            return false;
+
+        for (int ctr = 2; ctr < name.length(); ctr++)
+            if (!Character.isDigit(name.charAt(ctr)))
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        if (!aggregate (queryBuilder))
+            delegate.dispatch(queryBuilder);
+    }
+
+    /**
+     * Timing hits are absorbed without waiting, and other hits are offered to the delegate.
+     */
+    @Override
+    public boolean offer(QueryBuilder queryBuilder) {
+        return aggregate (queryBuilder) || delegate.offer(queryBuilder);
+    }
+
+    /**
+     * Records the hit in its summary, or returns false if it is not a timing hit which can be aggregated.
+     */
+    boolean aggregate (QueryBuilder queryBuilder) {
+
+        String category = queryBuilder.getParameter(QueryBuilder.UTC);
+        String variable = queryBuilder.getParameter(QueryBuilder.UTV);
+        String time = queryBuilder.getParameter(QueryBuilder.UTT);
+
+        if (!QueryBuilder.TIMING.equals(queryBuilder.getParameter(QueryBuilder.T))
+            || category == null || variable == null || time == null)
+            return false;
+
+        Key key = new Key (
+            queryBuilder.getParameter(QueryBuilder.TID),
+            category,
+            variable,
+            queryBuilder.getParameter(QueryBuilder.UTL)
+        );
+
+        long timeMillis = Long.parseLong(time);
+
+        while (true) {
+
+            Generation generation = currentGeneration.get();
+
+            generation.writers.incrementAndGet();
+
+            try {
+                if (generation != currentGeneration.get())
+                    continue;
+
+                generation
+                    .accumulators
+                    .computeIfAbsent(key, unused -> new Accumulator (queryBuilder, stripeCount))
+                    .record(queryBuilder, timeMillis);
+
+                aggregatedCount.increment();
+
+                return true;
+
+            } finally {
+                generation.writers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Forwards a summary hit for every combination seen since the last flush.
+     */
+    public void flush () {
+
+        Generation generation = currentGeneration.getAndSet(new Generation ());
+
+        // Wait for any thread which picked up the generation before it was replaced to finish recording.
+        while (generation.writers.get() != 0)
+            Thread.yield();
+
+        for (Map.Entry<Key, Accumulator> next : generation.accumulators.entrySet()) {
+
+            QueryBuilder summary = queryBuilderPool.acquire();
+
+            try {
+                next.getValue().summarize(next.getKey(), summary, percentileMetricIndices);
+
+                delegate.dispatch(summary);
+
+                summaryCount.increment();
+            } finally {
+                queryBuilderPool.release(summary);
+            }
+        }
+    }
+
+    void flushQuietly () {
+        try {
+            flush ();
+        } catch (RuntimeException runtimeException) {
+            log.error("The timing summaries could not be dispatched.", runtimeException);
+        }
+    }
+
+    /**
+     * Returns the number of timing hits which have been absorbed into summaries.
+     */
+    public long getAggregatedCount () {
+        return aggregatedCount.sum();
+    }
+
+    /**
+     * Returns the number of summary hits which have been forwarded.
+     */
+    public long getSummaryCount () {
+        return summaryCount.sum();
+    }
+
+    /**
+     * Stops the scheduled flush, if any, and flushes whatever has been accumulated.
+     */
+    @Override
+    public void close() {
+
+        if (scheduledFlush != null)
+            scheduledFlush.cancel(false);
+
+        flush ();
+    }
+
+    static class Generation {
+
+        final ConcurrentHashMap<Key, Accumulator> accumulators = new ConcurrentHashMap<Key, Accumulator> ();
+
+        final AtomicInteger writers = new AtomicInteger ();
+    }
+
+    static class Key {
+
+        final String trackingId, category, variable, label;
+
+        final int hashCode;
+
+        Key(String trackingId, String category, String variable, String label) {
+            this.trackingId = trackingId;
+            this.category = category;
+            this.variable = variable;
+            this.label = label;
+            this.hashCode = Arrays.hashCode(new Object[] {trackingId, category, variable, label});
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+
+            if (!(object instanceof Key))
+                return false;
+
+            Key other = (Key) object;
+
+            return equal(trackingId, other.trackingId)
+                && category.equals(other.category)
+                && variable.equals(other.variable)
+                && equal(label, other.label);
+        }
+
+        static boolean equal (String left, String right) {
+            return left == null ? right == null : left.equals(right);
+        }
+    }
+
+    static class Accumulator {
+
+        private final String[] carriedNames;
+
+        private final String[] carriedValues;
+
+        private final LongAdder count = new LongAdder ();
+
+        private final LongAdder sum = new LongAdder ();
+
+        private final TimingHistogram histogram;
+
+        private final ConcurrentHashMap<String, DoubleAdder> customMetrics =
+            new ConcurrentHashMap<String, DoubleAdder> ();
+
+        Accumulator(QueryBuilder first, int stripeCount) {
+
+            int carriedCount = 0;
+
+            String[] names = new String[first.getParameterCount()];
+            String[] values = new String[first.getParameterCount()];
+
+            for (int ctr = 0; ctr < first.getParameterCount(); ctr++) {
+
+                String name = first.getParameterName(ctr);
+
+                if (!NOT_CARRIED.contains(name) && !isCustomMetric(name)) {
+                    names[carriedCount] = name;
+                    values[carriedCount] = first.getParameterValue(ctr);
+                    carriedCount++;
+                }
+            }
+
+            this.carriedNames = Arrays.copyOf(names, carriedCount);
+            this.carriedValues = Arrays.copyOf(values, carriedCount);
+            this.histogram = new TimingHistogram (stripeCount);
+        }
+
+        void record (QueryBuilder queryBuilder, long timeMillis) {
+
+            count.increment();
+            sum.add(timeMillis);
+            histogram.record(timeMillis);
+
+            for (int ctr = 0; ctr < queryBuilder.getParameterCount(); ctr++) {
+
+                String name = queryBuilder.getParameterName(ctr);
+
+                if (isCustomMetric(name))
+                    customMetrics
+                        .computeIfAbsent(name, unused -> new DoubleAdder ())
+                        .add(Double.parseDouble(queryBuilder.getParameterValue(ctr)));
+            }
+        }
+
+        void summarize (Key key, QueryBuilder summary, int[] percentileMetricIndices) {
+
+            long total = count.sum();
+            long[] counts = histogram.snapshot();
+
+            long p50 = TimingHistogram.percentile(counts, total, 50.0);
+            long p90 = TimingHistogram.percentile(counts, total, 90.0);
+            long p99 = TimingHistogram.percentile(counts, total, 99.0);
+
+            for (int ctr = 0; ctr < carriedNames.length; ctr++)
+                summary.withParameter(carriedNames[ctr], carriedValues[ctr]);
+
+            summary
+                .withTAsTiming()
+                .withUtc(key.category)
+                .withUtv(key.variable)
+                .withUtt(Math.round((double) sum.sum() / total));
+
+            if (percentileMetricIndices == null) {
+
+                String suffix = "n=" + total + " p50=" + p50 + " p90=" + p90 + " p99=" + p99;
+
+                summary.withUtl(key.label == null ? suffix : truncate(key.label, suffix));
+
+            } else {
+
+                if (key.label != null)
+                    summary.withUtl(key.label);
+
+                summary
+                    .withCmX(percentileMetricIndices[0], total)
+                    .withCmX(percentileMetricIndices[1], p50)
+                    .withCmX(percentileMetricIndices[2], p90)
+                    .withCmX(percentileMetricIndices[3], p99);
+            }
+
+            for (Map.Entry<String, DoubleAdder> next : customMetrics.entrySet())
+                summary.withParameter(next.getKey(), next.getValue().sum());
+        }
+
+        /**
+         * Joins the label and suffix, shortening the label so the result fits in the maximum label size.
+         */
+        static String truncate (String label, String suffix) {
+            return Utf8.truncate(label, MAX_LABEL_LENGTH_IN_BYTES - 1 - Utf8.length(suffix)) + " " + suffix;
+        }
+    }
+}
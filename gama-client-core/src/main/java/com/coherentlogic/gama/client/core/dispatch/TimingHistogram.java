@@ -0,0 +1,104 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free, log-linear histogram of timing values (in milliseconds). Values below {@link #LINEAR_LIMIT} are
+ * recorded exactly; larger values are recorded in one of {@link #SUB_BUCKETS} buckets per power of two, so a
+ * percentile is accurate to within 12.5%.
+ *
+ * The counts are striped across several arrays, selected by thread, so that threads recording at the same time rarely
+ * contend on the same cache line.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+class TimingHistogram {
+
+    static final int LINEAR_LIMIT = 16, SUB_BUCKETS = 8, SUB_BUCKET_BITS = 3, MAX_EXPONENT = 40;
+
+    static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - 3) * SUB_BUCKETS;
+
+    private final AtomicLongArray[] stripes;
+
+    TimingHistogram(int stripeCount) {
+
+        stripes = new AtomicLongArray[stripeCount];
+
+        for (int ctr = 0; ctr < stripeCount; ctr++)
+            stripes[ctr] = new AtomicLongArray(BUCKET_COUNT);
+    }
+
+    static int indexOf (long value) {
+
+        if (value < LINEAR_LIMIT)
+            return (int) Math.max(0, value);
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+        if (MAX_EXPONENT < exponent)
+            return BUCKET_COUNT - 1;
+
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the value in the middle of the range covered by the bucket at the index.
+     */
+    static long valueOf (int index) {
+
+        if (index < LINEAR_LIMIT)
+            return index;
+
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + 4;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lowerBound = (1L << exponent) + subBucket * width;
+
+        return lowerBound + width / 2;
+    }
+
+    void record (long value) {
+
+        int stripe = (int) Thread.currentThread().getId() & (stripes.length - 1);
+
+        stripes[stripe].incrementAndGet(indexOf(value));
+    }
+
+    /**
+     * Returns the counts, summed across stripes; this should only be called once recording has finished.
+     */
+    long[] snapshot () {
+
+        long[] result = new long[BUCKET_COUNT];
+
+        for (AtomicLongArray next : stripes)
+            for (int ctr = 0; ctr < BUCKET_COUNT; ctr++)
+                result[ctr] += next.get(ctr);
+
+        return result;
+    }
+
+    /**
+     * Returns the value at the percentile (between 0 and 100) of the counts taken from {@link #snapshot()}.
+     */
+    static long percentile (long[] counts, long total, double percentile) {
+
+        long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+
+        long seen = 0L;
+
+        for (int ctr = 0; ctr < counts.length; ctr++) {
+
+            seen += counts[ctr];
+
+            if (rank <= seen)
+                return valueOf(ctr);
+        }
+
+        return valueOf(counts.length - 1);
+    }
+}
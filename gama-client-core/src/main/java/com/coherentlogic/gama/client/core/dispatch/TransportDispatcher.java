@@ -0,0 +1,48 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * A {@link Dispatcher} which sends the hit on the calling thread by encoding it into a buffer from the byteBufferPool
+ * and handing the buffer to the transport, so that every hit shares the transport's connections regardless of which
+ * RestTemplate the queryBuilder was created with.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class TransportDispatcher implements Dispatcher {
+
+    private final Transport transport;
+
+    private final ByteBufferPool byteBufferPool;
+
+    public TransportDispatcher(Transport transport, ByteBufferPool byteBufferPool) {
+
+        Utils.assertNotNull("transport", transport);
+        Utils.assertNotNull("byteBufferPool", byteBufferPool);
+
+        this.transport = transport;
+        this.byteBufferPool = byteBufferPool;
+    }
+
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        transport.send(queryBuilder.encodeTo(byteBufferPool));
+    }
+
+    /**
+     * Sends the hit's cached bytes, so the hit is neither encoded again nor copied into a pooled buffer.
+     */
+    @Override
+    public void dispatch(Hit hit) {
+        transport.send(hit.asByteBuffer());
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+}
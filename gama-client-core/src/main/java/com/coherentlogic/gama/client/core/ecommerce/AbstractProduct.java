@@ -0,0 +1,305 @@
+package com.coherentlogic.gama.client.core.ecommerce;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.encoders.FormUrlEncoder;
+import com.coherentlogic.gama.client.core.exceptions.NegativeValueException;
+
+/**
+ * The fields which a {@link Product} and a product {@link Impression} have in common. Every field is optional; those
+ * which have not been set are left out of the hit.
+ *
+ * Values which cannot be represented, such as a negative position, are rejected when they are set; the limits of the
+ * Measurement Protocol -- lengths and indexes -- are checked when the collection is added to a
+ * {@link com.coherentlogic.gama.client.core.builders.QueryBuilder}.
+ *
+ * @param <T> The concrete type, which the setters return.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public abstract class AbstractProduct<T extends AbstractProduct<T>> {
+
+    /**
+     * The value of {@link #getPriceScale()} and {@link #getPosition()} when they have not been set.
+     */
+    public static final int NOT_SET = -1;
+
+    private static final int[] NO_INDEXES = new int[0];
+
+    private static final String[] NO_DIMENSIONS = new String[0];
+
+    private static final double[] NO_METRICS = new double[0];
+
+    private String id = null;
+
+    private String name = null;
+
+    private String brand = null;
+
+    private String category = null;
+
+    private String variant = null;
+
+    private long price = 0L;
+
+    private int priceScale = NOT_SET;
+
+    private int position = NOT_SET;
+
+    private int[] dimensionIndexes = NO_INDEXES;
+
+    private String[] dimensionValues = NO_DIMENSIONS;
+
+    private int dimensionCount = 0;
+
+    private int[] metricIndexes = NO_INDEXES;
+
+    private double[] metricValues = NO_METRICS;
+
+    private int metricCount = 0;
+
+    AbstractProduct() {
+    }
+
+    @SuppressWarnings("unchecked")
+    T self () {
+        return (T) this;
+    }
+
+    /**
+     * The product id or SKU, for example P12345.
+     */
+    public T withId (String id) {
+
+        this.id = id;
+
+        return self ();
+    }
+
+    public String getId () {
+        return id;
+    }
+
+    /**
+     * The name of the product, for example Android T-Shirt.
+     */
+    public T withName (String name) {
+
+        this.name = name;
+
+        return self ();
+    }
+
+    public String getName () {
+        return name;
+    }
+
+    /**
+     * The brand of the product, for example Google.
+     */
+    public T withBrand (String brand) {
+
+        this.brand = brand;
+
+        return self ();
+    }
+
+    public String getBrand () {
+        return brand;
+    }
+
+    /**
+     * The category of the product, which may use / to specify up to five levels, for example Apparel/Mens/T-Shirts.
+     */
+    public T withCategory (String category) {
+
+        this.category = category;
+
+        return self ();
+    }
+
+    public String getCategory () {
+        return category;
+    }
+
+    /**
+     * The variant of the product, for example Black.
+     */
+    public T withVariant (String variant) {
+
+        this.variant = variant;
+
+        return self ();
+    }
+
+    public String getVariant () {
+        return variant;
+    }
+
+    /**
+     * The unit price in the minor units of the currency; withPrice(2920L, 2) is sent as 29.20.
+     *
+     * @param scale The number of minor-unit digits of the currency, for example 2 for USD or 0 for JPY; between zero
+     *  and {@link FormUrlEncoder#MAX_SCALE}.
+     */
+    public T withPrice (long price, int scale) {
+
+        if (scale < 0 || FormUrlEncoder.MAX_SCALE < scale)
+            throw new IllegalArgumentException("The scale must be between zero and " + FormUrlEncoder.MAX_SCALE
+                + " (scale: " + scale + ")");
+
+        this.price = price;
+        this.priceScale = scale;
+
+        return self ();
+    }
+
+    /**
+     * The unit price, which is sent in plain notation.
+     *
+     * @throws ArithmeticException if the price has more than {@link FormUrlEncoder#MAX_SCALE} decimal places or
+     *  does not fit into a long once the decimal point is removed.
+     */
+    public T withPrice (BigDecimal price) {
+
+        Utils.assertNotNull("price", price);
+
+        BigDecimal plain = price.scale() < 0 ? price.setScale(0) : price;
+
+        if (FormUrlEncoder.MAX_SCALE < plain.scale())
+            throw new ArithmeticException("The price has more than " + FormUrlEncoder.MAX_SCALE
+                + " decimal places (price: " + price + ")");
+
+        return withPrice (plain.unscaledValue().longValueExact(), plain.scale());
+    }
+
+    /**
+     * Returns true if a price has been set; it is {@link #getPrice()} &times; 10<sup>-{@link #getPriceScale()}</sup>.
+     */
+    public boolean hasPrice () {
+        return priceScale != NOT_SET;
+    }
+
+    /**
+     * Returns the price in minor units.
+     */
+    public long getPrice () {
+        return price;
+    }
+
+    /**
+     * Returns the number of minor-unit digits of the price or {@link #NOT_SET}.
+     */
+    public int getPriceScale () {
+        return priceScale;
+    }
+
+    /**
+     * The position of the product in a list or collection, for example 2.
+     *
+     * @throws NegativeValueException if the position is less than zero.
+     */
+    public T withPosition (int position) {
+
+        if (position < 0)
+            throw new NegativeValueException ("position", position);
+
+        this.position = position;
+
+        return self ();
+    }
+
+    /**
+     * Returns the position or {@link #NOT_SET}.
+     */
+    public int getPosition () {
+        return position;
+    }
+
+    /**
+     * Adds a product-level custom dimension; the index is checked to lie between 1 and 200 when the product is added
+     * to a hit.
+     */
+    public T withCustomDimension (int index, String value) {
+
+        Utils.assertNotNull("value", value);
+
+        if (dimensionCount == dimensionIndexes.length) {
+
+            int capacity = Math.max(4, dimensionCount * 2);
+
+            dimensionIndexes = Arrays.copyOf(dimensionIndexes, capacity);
+            dimensionValues = Arrays.copyOf(dimensionValues, capacity);
+        }
+
+        dimensionIndexes[dimensionCount] = index;
+        dimensionValues[dimensionCount] = value;
+
+        dimensionCount++;
+
+        return self ();
+    }
+
+    /**
+     * Returns the number of custom dimensions, in the order they were added.
+     */
+    public int getCustomDimensionCount () {
+        return dimensionCount;
+    }
+
+    public int getCustomDimensionIndex (int ctr) {
+        return dimensionIndexes[checkIndex (ctr, dimensionCount)];
+    }
+
+    public String getCustomDimensionValue (int ctr) {
+        return dimensionValues[checkIndex (ctr, dimensionCount)];
+    }
+
+    /**
+     * Adds a product-level custom metric; whole values are sent without a fraction, so 28.0 is sent as 28. The index
+     * is checked to lie between 1 and 200, and the value to be finite, when the product is added to a hit.
+     */
+    public T withCustomMetric (int index, double value) {
+
+        if (metricCount == metricIndexes.length) {
+
+            int capacity = Math.max(4, metricCount * 2);
+
+            metricIndexes = Arrays.copyOf(metricIndexes, capacity);
+            metricValues = Arrays.copyOf(metricValues, capacity);
+        }
+
+        metricIndexes[metricCount] = index;
+        metricValues[metricCount] = value;
+
+        metricCount++;
+
+        return self ();
+    }
+
+    /**
+     * Returns the number of custom metrics, in the order they were added.
+     */
+    public int getCustomMetricCount () {
+        return metricCount;
+    }
+
+    public int getCustomMetricIndex (int ctr) {
+        return metricIndexes[checkIndex (ctr, metricCount)];
+    }
+
+    public double getCustomMetricValue (int ctr) {
+        return metricValues[checkIndex (ctr, metricCount)];
+    }
+
+    static int checkIndex (int ctr, int count) {
+
+        if (ctr < 0 || count <= ctr)
+            throw new IndexOutOfBoundsException("index: " + ctr + ", count: " + count);
+
+        return ctr;
+    }
+}
@@ -0,0 +1,20 @@
+package com.coherentlogic.gama.client.core.ecommerce;
+
+/**
+ * A product shown in an impression list, such as search results; added to a hit with
+ * {@link com.coherentlogic.gama.client.core.builders.QueryBuilder#withImpressionList(int, String, java.util.List)}.
+ *
+ * <pre>
+ * new Impression ().withId("P67890").withName("Android T-Shirt").withPrice(2920L, 2).withPosition(2)
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class Impression extends AbstractProduct<Impression> {
+
+    @Override
+    public String toString () {
+        return "Impression [id=" + getId() + ", name=" + getName() + ", position=" + getPosition() + "]";
+    }
+}
@@ -0,0 +1,60 @@
+package com.coherentlogic.gama.client.core.ecommerce;
+
+import com.coherentlogic.gama.client.core.exceptions.NegativeValueException;
+
+/**
+ * A product which a product action, such as a purchase, applies to; added to a hit with
+ * {@link com.coherentlogic.gama.client.core.builders.QueryBuilder#withProducts(java.util.List)}.
+ *
+ * <pre>
+ * new Product ().withId("P12345").withName("Android T-Shirt").withPrice(2920L, 2).withQuantity(2)
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class Product extends AbstractProduct<Product> {
+
+    private int quantity = NOT_SET;
+
+    private String couponCode = null;
+
+    /**
+     * @throws NegativeValueException if the quantity is less than zero.
+     */
+    public Product withQuantity (int quantity) {
+
+        if (quantity < 0)
+            throw new NegativeValueException ("quantity", quantity);
+
+        this.quantity = quantity;
+
+        return this;
+    }
+
+    /**
+     * Returns the quantity or {@link #NOT_SET}.
+     */
+    public int getQuantity () {
+        return quantity;
+    }
+
+    /**
+     * The coupon code associated with the product, for example SUMMER_SALE13.
+     */
+    public Product withCouponCode (String couponCode) {
+
+        this.couponCode = couponCode;
+
+        return this;
+    }
+
+    public String getCouponCode () {
+        return couponCode;
+    }
+
+    @Override
+    public String toString () {
+        return "Product [id=" + getId() + ", name=" + getName() + ", quantity=" + quantity + "]";
+    }
+}
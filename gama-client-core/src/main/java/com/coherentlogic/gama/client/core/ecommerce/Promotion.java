@@ -0,0 +1,79 @@
+package com.coherentlogic.gama.client.core.ecommerce;
+
+/**
+ * An internal promotion, such as a banner; added to a hit with
+ * {@link com.coherentlogic.gama.client.core.builders.QueryBuilder#withPromotions(java.util.List)}. Every field is
+ * optional; those which have not been set are left out of the hit.
+ *
+ * <pre>
+ * new Promotion ().withId("SHIP").withName("Free Shipping").withPosition("banner_slot_1")
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class Promotion {
+
+    private String id = null;
+
+    private String name = null;
+
+    private String creative = null;
+
+    private String position = null;
+
+    public Promotion withId (String id) {
+
+        this.id = id;
+
+        return this;
+    }
+
+    public String getId () {
+        return id;
+    }
+
+    public Promotion withName (String name) {
+
+        this.name = name;
+
+        return this;
+    }
+
+    public String getName () {
+        return name;
+    }
+
+    /**
+     * The creative associated with the promotion, for example Shipping Banner.
+     */
+    public Promotion withCreative (String creative) {
+
+        this.creative = creative;
+
+        return this;
+    }
+
+    public String getCreative () {
+        return creative;
+    }
+
+    /**
+     * The position of the creative, for example banner_slot_1.
+     */
+    public Promotion withPosition (String position) {
+
+        this.position = position;
+
+        return this;
+    }
+
+    public String getPosition () {
+        return position;
+    }
+
+    @Override
+    public String toString () {
+        return "Promotion [id=" + id + ", name=" + name + ", creative=" + creative + ", position=" + position + "]";
+    }
+}
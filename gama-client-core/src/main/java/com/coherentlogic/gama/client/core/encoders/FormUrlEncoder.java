@@ -0,0 +1,344 @@
+package com.coherentlogic.gama.client.core.encoders;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes parameter names and values using the application/x-www-form-urlencoded format and writes the result directly
+ * into a caller-supplied {@link ByteBuffer}.
+ *
+ * Characters are classified using a precomputed 256-entry table so that safe ASCII characters are copied through with
+ * a single lookup, while all other characters are converted to UTF-8 and percent-encoded in place -- no intermediate
+ * Strings or byte arrays are created.
+ *
+ * The output is identical to {@link java.net.URLEncoder#encode(String, String)} when used with UTF-8, except that
+ * unpaired surrogates are replaced with '?' (which is what {@link String#getBytes(java.nio.charset.Charset)} does).
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class FormUrlEncoder {
+
+    public static final byte AMPERSAND = '&', EQUALS = '=', PLUS = '+', PERCENT = '%', QUESTION_MARK = '?',
+        MINUS = '-', DECIMAL_POINT = '.';
+
+    /**
+     * The largest scale accepted by {@link #encode(long, int, ByteBuffer)}; a long holds at most 19 digits, so larger
+     * scales would only add leading zeros.
+     */
+    public static final int MAX_SCALE = 18;
+
+    /**
+     * The most bytes {@link #encode(long, int, ByteBuffer)} writes: a sign, "0.", and {@link #MAX_SCALE} digits, or
+     * a sign, all 19 digits of a long and the decimal point.
+     */
+    public static final int MAX_DECIMAL_LENGTH = 21;
+
+    /**
+     * Entry is true when the byte can be written as-is.
+     */
+    private static final boolean[] SAFE = new boolean[256];
+
+    private static final byte[] HEX = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    static {
+
+        for (int next = 'a'; next <= 'z'; next++)
+            SAFE[next] = true;
+
+        for (int next = 'A'; next <= 'Z'; next++)
+            SAFE[next] = true;
+
+        for (int next = '0'; next <= '9'; next++)
+            SAFE[next] = true;
+
+        SAFE['-'] = true;
+        SAFE['_'] = true;
+        SAFE['.'] = true;
+        SAFE['*'] = true;
+    }
+
+    private FormUrlEncoder() {
+    }
+
+    /**
+     * Returns true if the character will be written without being encoded.
+     */
+    public static boolean isSafe (char value) {
+        return value < SAFE.length && SAFE[value];
+    }
+
+    /**
+     * Writes name=value, preceded by an ampersand when this is not the first parameter, to the target.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer encodeParameter (CharSequence name, CharSequence value, boolean first, ByteBuffer target) {
+
+        if (!first)
+            target.put(AMPERSAND);
+
+        encode(name, target);
+
+        target.put(EQUALS);
+
+        encode(value, target);
+
+        return target;
+    }
+
+    /**
+     * Writes name=unscaledValue &times; 10<sup>-scale</sup>, preceded by an ampersand when this is not the first
+     * parameter, to the target; see {@link #encode(long, int, ByteBuffer)}.
+     *
+     * @throws IllegalArgumentException if the scale is not between zero and {@link #MAX_SCALE}.
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer encodeParameter (
+        CharSequence name,
+        long unscaledValue,
+        int scale,
+        boolean first,
+        ByteBuffer target
+    ) {
+        if (!first)
+            target.put(AMPERSAND);
+
+        encode(name, target);
+
+        target.put(EQUALS);
+
+        return encode(unscaledValue, scale, target);
+    }
+
+    /**
+     * Writes the form-urlencoded form of the value to the target, starting at the target's current position.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer encode (CharSequence value, ByteBuffer target) {
+
+        int length = value.length();
+
+        for (int ctr = 0; ctr < length; ctr++) {
+
+            char next = value.charAt(ctr);
+
+            if (next < 0x80) {
+                if (SAFE[next])
+                    target.put((byte) next);
+                else if (next == ' ')
+                    target.put(PLUS);
+                else
+                    putEscaped(next, target);
+            } else if (next < 0x800) {
+                putEscaped(0xC0 | (next >> 6), target);
+                putEscaped(0x80 | (next & 0x3F), target);
+            } else if (Character.isHighSurrogate(next)
+                && ctr + 1 < length
+                && Character.isLowSurrogate(value.charAt(ctr + 1))) {
+
+                int codePoint = Character.toCodePoint(next, value.charAt(++ctr));
+
+                putEscaped(0xF0 | (codePoint >> 18), target);
+                putEscaped(0x80 | ((codePoint >> 12) & 0x3F), target);
+                putEscaped(0x80 | ((codePoint >> 6) & 0x3F), target);
+                putEscaped(0x80 | (codePoint & 0x3F), target);
+            } else if (Character.isSurrogate(next)) {
+                putEscaped(QUESTION_MARK, target);
+            } else {
+                putEscaped(0xE0 | (next >> 12), target);
+                putEscaped(0x80 | ((next >> 6) & 0x3F), target);
+                putEscaped(0x80 | (next & 0x3F), target);
+            }
+        }
+
+        return target;
+    }
+
+    /**
+     * Writes the decimal digits of the value, preceded by a minus sign when it is negative, to the target; this
+     * produces the same output as encoding {@link Long#toString(long)} without creating the String.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer encode (long value, ByteBuffer target) {
+
+        if (value < 0) {
+
+            target.put(MINUS);
+
+            // Long.MIN_VALUE has no positive counterpart, so its last digit is written separately.
+            if (value == Long.MIN_VALUE)
+                return encode (-(value / 10), target).put((byte) ('0' - (value % 10)));
+
+            value = -value;
+        }
+
+        int digits = 1;
+
+        for (long remaining = value; 10 <= remaining; remaining /= 10)
+            digits++;
+
+        if (target.remaining() < digits)
+            throw new BufferOverflowException();
+
+        int end = target.position() + digits;
+
+        for (int index = end - 1; target.position() <= index; index--) {
+            target.put(index, (byte) ('0' + (value % 10)));
+            value /= 10;
+        }
+
+        target.position(end);
+
+        return target;
+    }
+
+    /**
+     * Writes the decimal unscaledValue &times; 10<sup>-scale</sup> in plain notation -- for example 1547 with a scale
+     * of two is written as 15.47 -- to the target; this produces the same output as encoding
+     * {@link java.math.BigDecimal#toPlainString()} of {@link java.math.BigDecimal#valueOf(long, int)} without creating
+     * either. Amounts of money held in minor units (cents, for example) are written with the scale of their currency.
+     *
+     * @throws IllegalArgumentException if the scale is not between zero and {@link #MAX_SCALE}.
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer encode (long unscaledValue, int scale, ByteBuffer target) {
+
+        if (scale < 0 || MAX_SCALE < scale)
+            throw new IllegalArgumentException("The scale must be between zero and " + MAX_SCALE + " (scale: " + scale
+                + ")");
+
+        if (scale == 0)
+            return encode (unscaledValue, target);
+
+        // The digits are taken from the negated value so that Long.MIN_VALUE needs no special case.
+        long remaining = unscaledValue < 0 ? unscaledValue : -unscaledValue;
+
+        int digits = 1;
+
+        for (long next = remaining / 10; next != 0; next /= 10)
+            digits++;
+
+        // Values smaller than one are written with a leading zero, as in 0.05.
+        int length = (unscaledValue < 0 ? 1 : 0) + Math.max(digits, scale + 1) + 1;
+
+        if (target.remaining() < length)
+            throw new BufferOverflowException();
+
+        int end = target.position() + length;
+
+        int index = end - 1;
+
+        for (int ctr = 0; ctr < scale; ctr++) {
+            target.put(index--, (byte) ('0' - (remaining % 10)));
+            remaining /= 10;
+        }
+
+        target.put(index--, DECIMAL_POINT);
+
+        do {
+            target.put(index--, (byte) ('0' - (remaining % 10)));
+            remaining /= 10;
+        } while (remaining != 0);
+
+        if (unscaledValue < 0)
+            target.put(index, MINUS);
+
+        target.position(end);
+
+        return target;
+    }
+
+    /**
+     * Writes the form-urlencoded form of the UTF-8 bytes between the source's position and limit to the target; the
+     * source's position is not changed. This produces the same output as {@link #encode(CharSequence, ByteBuffer)}
+     * does for the decoded value, without decoding it.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer encodeUtf8 (ByteBuffer source, ByteBuffer target) {
+
+        int limit = source.limit();
+
+        for (int index = source.position(); index < limit; index++) {
+
+            int next = source.get(index) & 0xFF;
+
+            if (SAFE[next])
+                target.put((byte) next);
+            else if (next == ' ')
+                target.put(PLUS);
+            else
+                putEscaped(next, target);
+        }
+
+        return target;
+    }
+
+    /**
+     * Returns true if the bytes between the source's position and limit could have been written by this class: that
+     * is, if they are all safe characters, separators or well-formed percent escapes.
+     */
+    public static boolean isFormUrlEncoded (ByteBuffer source) {
+
+        int limit = source.limit();
+
+        for (int index = source.position(); index < limit; index++) {
+
+            int next = source.get(index) & 0xFF;
+
+            if (SAFE[next] || next == AMPERSAND || next == EQUALS || next == PLUS)
+                continue;
+
+            if (next != PERCENT
+                || limit <= index + 2
+                || Character.digit(source.get(index + 1), 16) < 0
+                || Character.digit(source.get(index + 2), 16) < 0)
+                return false;
+
+            index += 2;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes that {@link #encode(CharSequence, ByteBuffer)} will write for the value.
+     */
+    public static int encodedLength (CharSequence value) {
+
+        int result = 0;
+        int length = value.length();
+
+        for (int ctr = 0; ctr < length; ctr++) {
+
+            char next = value.charAt(ctr);
+
+            if (next < 0x80)
+                result += (SAFE[next] || next == ' ') ? 1 : 3;
+            else if (next < 0x800)
+                result += 6;
+            else if (Character.isHighSurrogate(next)
+                && ctr + 1 < length
+                && Character.isLowSurrogate(value.charAt(ctr + 1))) {
+                result += 12;
+                ctr++;
+            } else if (Character.isSurrogate(next))
+                result += 3;
+            else
+                result += 9;
+        }
+
+        return result;
+    }
+
+    private static void putEscaped (int value, ByteBuffer target) {
+        target.put(PERCENT);
+        target.put(HEX[(value >> 4) & 0x0F]);
+        target.put(HEX[value & 0x0F]);
+    }
+}
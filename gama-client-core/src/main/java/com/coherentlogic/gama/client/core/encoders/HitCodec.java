@@ -0,0 +1,192 @@
+package com.coherentlogic.gama.client.core.encoders;
+
+import java.nio.ByteBuffer;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.HitParameters;
+import com.coherentlogic.gama.client.core.util.Utf8;
+
+/**
+ * A compact binary form of a hit, for passing hits between threads and processes or writing them to a spool, where
+ * the form-urlencoded form wastes space and time on repeated parameter names and percent-encoding:
+ *
+ * <pre>
+ * hit       := version count parameter*
+ * parameter := id index* value | 0 name value
+ * name      := length utf-8-bytes
+ * value     := length utf-8-bytes
+ * </pre>
+ *
+ * where version is a single byte ({@link #FORMAT_VERSION}), count, id, index and length are unsigned varints, id is a
+ * parameter's position in the {@link ParameterTable} and is followed by one index for each placeholder in the
+ * parameter's pattern (so pr3cd12 is written as the id of pr{0}cd{1}, 3 and 12), and parameters which are not in the
+ * table are written by name after an id of zero. Parameters are written in the order they were added to the builder.
+ *
+ * Encoded hits are read using a {@link HitReader}, which does not copy values; {@link #toFormUrlEncoded(ByteBuffer,
+ * ByteBuffer)} produces the same bytes as {@link QueryBuilder#encodeTo(ByteBuffer)} without creating any Strings.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class HitCodec {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    /**
+     * The maximum number of bytes an unsigned varint holding an int occupies.
+     */
+    static final int MAX_VARINT_LENGTH = 5;
+
+    private HitCodec() {
+    }
+
+    /**
+     * Returns the number of bytes that {@link #encode(HitParameters, ByteBuffer)} will write for the hit.
+     */
+    public static int encodedLength (HitParameters hit) {
+
+        int parameterCount = hit.getParameterCount();
+
+        int result = 1 + varintLength(parameterCount);
+
+        for (int ctr = 0; ctr < parameterCount; ctr++) {
+
+            String name = hit.getParameterName(ctr);
+
+            int[] key = ParameterTable.resolve(name);
+
+            if (key == ParameterTable.NOT_FOUND) {
+                result += 1 + stringLength(name);
+            } else {
+                for (int next : key)
+                    result += varintLength(next);
+            }
+
+            result += stringLength(hit.getParameterValue(ctr));
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the binary form of the hit to the target, starting at the target's current position.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining, in which case the
+     *  contents of the target after its original position are undefined; use {@link #encodedLength(HitParameters)} to
+     *  size the target.
+     */
+    public static ByteBuffer encode (HitParameters hit, ByteBuffer target) {
+
+        Utils.assertNotNull("hit", hit);
+        Utils.assertNotNull("target", target);
+
+        int parameterCount = hit.getParameterCount();
+
+        target.put(FORMAT_VERSION);
+
+        putVarint(parameterCount, target);
+
+        for (int ctr = 0; ctr < parameterCount; ctr++) {
+
+            String name = hit.getParameterName(ctr);
+
+            int[] key = ParameterTable.resolve(name);
+
+            if (key == ParameterTable.NOT_FOUND) {
+                target.put((byte) ParameterTable.LITERAL);
+                putString(name, target);
+            } else {
+                for (int next : key)
+                    putVarint(next, target);
+            }
+
+            putString(hit.getParameterValue(ctr), target);
+        }
+
+        return target;
+    }
+
+    /**
+     * Reads one hit from the source, advancing its position past the hit, and adds its parameters to the target.
+     *
+     * @throws com.coherentlogic.gama.client.core.exceptions.MalformedHitException if the hit is truncated or corrupt.
+     */
+    public static QueryBuilder decode (ByteBuffer source, QueryBuilder target) {
+
+        Utils.assertNotNull("target", target);
+
+        HitReader hitReader = new HitReader ().reset(source);
+
+        while (hitReader.next())
+            target.withParameter(hitReader.getName(), hitReader.getValueAsString());
+
+        return target;
+    }
+
+    /**
+     * Reads one hit from the source, advancing its position past the hit, and writes its form-urlencoded form to the
+     * target; the output is identical to that of {@link QueryBuilder#encodeTo(ByteBuffer)} for the original hit.
+     *
+     * @throws com.coherentlogic.gama.client.core.exceptions.MalformedHitException if the hit is truncated or corrupt.
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer toFormUrlEncoded (ByteBuffer source, ByteBuffer target) {
+
+        HitReader hitReader = new HitReader ().reset(source);
+
+        boolean first = true;
+
+        while (hitReader.next()) {
+
+            if (!first)
+                target.put(FormUrlEncoder.AMPERSAND);
+
+            hitReader.writeFormUrlEncodedName(target);
+
+            target.put(FormUrlEncoder.EQUALS);
+
+            FormUrlEncoder.encodeUtf8(hitReader.getValue(), target);
+
+            first = false;
+        }
+
+        return target;
+    }
+
+    static int varintLength (int value) {
+
+        int result = 1;
+
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            result++;
+        }
+
+        return result;
+    }
+
+    static void putVarint (int value, ByteBuffer target) {
+
+        while ((value & ~0x7F) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        target.put((byte) value);
+    }
+
+    static int stringLength (String value) {
+
+        int length = Utf8.encodedLength(value);
+
+        return varintLength(length) + length;
+    }
+
+    static void putString (String value, ByteBuffer target) {
+
+        putVarint(Utf8.encodedLength(value), target);
+
+        Utf8.encode(value, target);
+    }
+}
@@ -0,0 +1,264 @@
+package com.coherentlogic.gama.client.core.encoders;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.exceptions.MalformedHitException;
+
+/**
+ * Reads the parameters of a hit written by {@link HitCodec} without copying them: each value is exposed as a view of
+ * the source buffer, and names and values are only converted to Strings when asked for.
+ *
+ * <pre>
+ * HitReader hitReader = new HitReader ().reset(source);
+ *
+ * while (hitReader.next())
+ *     process (hitReader.getParameterId(), hitReader.getValue());
+ * </pre>
+ *
+ * The source's position is advanced past each parameter as it is read, so a buffer holding several hits back to
+ * back can be read by calling {@link #reset(ByteBuffer)} again once {@link #next()} returns false. A reader may be
+ * reused but is not thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitReader {
+
+    private ByteBuffer source = null;
+
+    private ByteBuffer view = null;
+
+    private int remainingCount = 0;
+
+    private int parameterCount = 0;
+
+    private int id = ParameterTable.LITERAL;
+
+    private final int[] indices = new int[ParameterTable.MAX_INDEX_COUNT];
+
+    private int nameStart, nameLength, valueStart, valueLength;
+
+    /**
+     * Starts reading the hit at the source's current position.
+     *
+     * @throws MalformedHitException if the header is truncated or the format version is not supported.
+     */
+    public HitReader reset (ByteBuffer source) {
+
+        Utils.assertNotNull("source", source);
+
+        if (this.source != source) {
+            this.source = source;
+            this.view = source.asReadOnlyBuffer();
+        }
+
+        try {
+            byte version = source.get();
+
+            if (version != HitCodec.FORMAT_VERSION)
+                throw new MalformedHitException("The format version " + version + " is not supported.");
+
+            parameterCount = getNonNegativeVarint ("parameter count");
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new MalformedHitException("The hit is truncated.", bufferUnderflowException);
+        }
+
+        remainingCount = parameterCount;
+
+        return this;
+    }
+
+    /**
+     * Advances to the next parameter and returns true, or returns false when every parameter has been read.
+     *
+     * @throws MalformedHitException if the parameter is truncated or its id is unknown.
+     */
+    public boolean next () {
+
+        if (remainingCount == 0)
+            return false;
+
+        try {
+            id = getNonNegativeVarint ("parameter id");
+
+            if (id == ParameterTable.LITERAL) {
+                nameLength = getLength ();
+                nameStart = skip (nameLength);
+            } else if (ParameterTable.isValid(id)) {
+                for (int ctr = 0; ctr < ParameterTable.getIndexCount(id); ctr++)
+                    indices[ctr] = getNonNegativeVarint ("index");
+            } else {
+                throw new MalformedHitException("The parameter id " + id + " is unknown.");
+            }
+
+            valueLength = getLength ();
+            valueStart = skip (valueLength);
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new MalformedHitException("The hit is truncated.", bufferUnderflowException);
+        }
+
+        remainingCount--;
+
+        return true;
+    }
+
+    public int getParameterCount () {
+        return parameterCount;
+    }
+
+    /**
+     * Returns the id of the current parameter in the {@link ParameterTable}, or zero if it is not in the table.
+     */
+    public int getParameterId () {
+        return id;
+    }
+
+    /**
+     * Returns the number of indices in the name of the current parameter (two for pr3cd12).
+     */
+    public int getIndexCount () {
+        return ParameterTable.getIndexCount(id);
+    }
+
+    public int getIndex (int position) {
+
+        if (position < 0 || getIndexCount () <= position)
+            throw new IndexOutOfBoundsException("position: " + position + ", indexCount: " + getIndexCount ());
+
+        return indices[position];
+    }
+
+    public String getName () {
+
+        if (id == ParameterTable.LITERAL)
+            return decode (nameStart, nameLength);
+
+        String[] segments = ParameterTable.SEGMENTS[id];
+
+        if (segments.length == 1)
+            return segments[0];
+
+        StringBuilder result = new StringBuilder (segments[0]);
+
+        for (int ctr = 1; ctr < segments.length; ctr++)
+            result.append(indices[ctr - 1]).append(segments[ctr]);
+
+        return result.toString();
+    }
+
+    /**
+     * Returns a read-only view of the UTF-8 bytes of the current value, between its position and limit; the view is
+     * shared and is only valid until the next call to {@link #next()}.
+     */
+    public ByteBuffer getValue () {
+        return select (valueStart, valueLength);
+    }
+
+    public String getValueAsString () {
+        return decode (valueStart, valueLength);
+    }
+
+    /**
+     * Writes the form-urlencoded name of the current parameter to the target.
+     */
+    void writeFormUrlEncodedName (ByteBuffer target) {
+
+        if (id == ParameterTable.LITERAL) {
+            FormUrlEncoder.encodeUtf8(select (nameStart, nameLength), target);
+            return;
+        }
+
+        String[] segments = ParameterTable.SEGMENTS[id];
+
+        FormUrlEncoder.encode(segments[0], target);
+
+        for (int ctr = 1; ctr < segments.length; ctr++) {
+            putDigits (indices[ctr - 1], target);
+            FormUrlEncoder.encode(segments[ctr], target);
+        }
+    }
+
+    static void putDigits (int value, ByteBuffer target) {
+
+        int divisor = 1;
+
+        while (divisor <= value / 10)
+            divisor *= 10;
+
+        for (; 0 < divisor; divisor /= 10)
+            target.put((byte) ('0' + (value / divisor) % 10));
+    }
+
+    ByteBuffer select (int start, int length) {
+
+        view.limit(start + length);
+        view.position(start);
+
+        return view;
+    }
+
+    String decode (int start, int length) {
+
+        if (source.hasArray())
+            return new String (source.array(), source.arrayOffset() + start, length, StandardCharsets.UTF_8);
+
+        return StandardCharsets.UTF_8.decode(select (start, length).duplicate()).toString();
+    }
+
+    int getVarint () {
+
+        int result = 0;
+
+        for (int shift = 0; shift < 7 * HitCodec.MAX_VARINT_LENGTH; shift += 7) {
+
+            byte next = source.get();
+
+            result |= (next & 0x7F) << shift;
+
+            if (next >= 0)
+                return result;
+        }
+
+        throw new MalformedHitException("A varint is longer than " + HitCodec.MAX_VARINT_LENGTH + " bytes.");
+    }
+
+    /**
+     * Reads a varint which must not be negative; a five byte varint can decode to a negative int, which, as an index,
+     * would be written out as bytes which are not digits.
+     */
+    int getNonNegativeVarint (String name) {
+
+        int result = getVarint ();
+
+        if (result < 0)
+            throw new MalformedHitException("The " + name + " " + result + " is negative.");
+
+        return result;
+    }
+
+    int getLength () {
+
+        int result = getVarint ();
+
+        if (result < 0 || source.remaining() < result)
+            throw new MalformedHitException("The length " + result + " exceeds the " + source.remaining()
+                + " bytes remaining.");
+
+        return result;
+    }
+
+    /**
+     * Skips length bytes and returns the position they start at.
+     */
+    int skip (int length) {
+
+        int result = source.position();
+
+        source.position(result + length);
+
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+package com.coherentlogic.gama.client.core.encoders;
+
+import static com.coherentlogic.gama.client.core.builders.QueryBuilder.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The parameters known to {@link HitCodec}, each of which is written as a small integer id rather than by name. The
+ * names of indexed parameters, such as pr3cd12, are matched against their pattern (pr{0}cd{1}) and written as the id
+ * followed by the indices.
+ *
+ * The id of a parameter is its position in {@link #PATTERNS} plus one, and is part of the binary format: new
+ * parameters must only ever be appended, and existing entries must never be reordered or removed. Id zero is
+ * reserved for parameters which are not in the table and are therefore written by name.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+final class ParameterTable {
+
+    static final int LITERAL = 0;
+
+    /**
+     * Indices are limited to nine digits so that they always fit into an int.
+     */
+    static final int MAX_INDEX_DIGITS = 9;
+
+    static final int MAX_INDEX_COUNT = 3;
+
+    /**
+     * The number of resolved names which are cached; indexed names are built on demand, so the set of names in use
+     * is bounded only by the caller.
+     */
+    static final int MAX_CACHED_NAMES = 4096;
+
+    static final String[] PATTERNS = {
+        V, TID, CID, T, UID, DS, QT, Z, AIP, SC, UIP, UA, GEOID, DR, CN, CS, CM, CK, CC, CI, GCLID, DCLID, SR, VP, DE,
+        SD, UL, JE, FL, NI, DL, DH, DP, DT, CD, LINKID, AN, AID, AV, AIID, EC, EA, EL, EV, TI, TA, TR, TT, TS, TCC, IN,
+        IP, IQ, IC, IV, CU, PA, PAL, COS, COL, PROMOA, SN, SA, ST, UTC, UTV, UTT, UTL, PLT, DNS, PDT, RRT, TCP, SRT,
+        DIT, CLT, EXD, EXF, XID, XVAR, CDX, CMX, PR_N_ID, PR_N_NM, PR_N_BR, PR_N_CA, PR_N_VA, PR_N_PR, PR_N_QT,
+        PR_N_CC, PR_N_PS, PR_X_CD_Y, PR_X_CM_Y, IL_X_NM, IL_X_PI_Y_ID, IL_X_PI_Y_NM, IL_X_PI_Y_BR, IL_X_PI_Y_CA,
+        IL_X_PI_Y_VA, IL_X_PI_Y_PS, IL_X_PI_Y_PR, IL_X_PI_Y_CD_Z, IL_X_PI_Y_CM, PROMO_N_ID, PROMO_N_NM, PROMO_N_CR,
+        PROMO_N_PS
+    };
+
+    /**
+     * The literal parts of each pattern, by id; an index is written between each pair of segments.
+     */
+    static final String[][] SEGMENTS = new String[PATTERNS.length + 1][];
+
+    private static final Map<String, Integer> IDS_BY_SHAPE = new HashMap<String, Integer> ();
+
+    /**
+     * Maps a name to its id followed by its indices; names which are not in the table map to {@link #NOT_FOUND}.
+     */
+    private static final Map<String, int[]> CACHE = new ConcurrentHashMap<String, int[]> ();
+
+    static final int[] NOT_FOUND = new int[0];
+
+    static {
+
+        SEGMENTS[LITERAL] = new String[0];
+
+        for (int ctr = 0; ctr < PATTERNS.length; ctr++) {
+
+            String[] segments = PATTERNS[ctr].split("\\{\\d\\}", -1);
+
+            SEGMENTS[ctr + 1] = segments;
+
+            if (IDS_BY_SHAPE.put(String.join("{}", segments), ctr + 1) != null)
+                throw new ExceptionInInitializerError("The pattern " + PATTERNS[ctr] + " is not unique.");
+        }
+    }
+
+    private ParameterTable() {
+    }
+
+    static int getIndexCount (int id) {
+        return SEGMENTS[id].length - 1;
+    }
+
+    static boolean isValid (int id) {
+        return LITERAL < id && id < SEGMENTS.length;
+    }
+
+    /**
+     * Returns the id of the name followed by its indices, or {@link #NOT_FOUND}.
+     */
+    static int[] resolve (String name) {
+
+        int[] result = CACHE.get(name);
+
+        if (result == null) {
+
+            result = doResolve (name);
+
+            if (CACHE.size() < MAX_CACHED_NAMES)
+                CACHE.put(name, result);
+        }
+
+        return result;
+    }
+
+    static int[] doResolve (String name) {
+
+        StringBuilder shape = new StringBuilder (name.length());
+
+        int[] indices = new int[MAX_INDEX_COUNT];
+        int indexCount = 0;
+
+        int length = name.length();
+
+        for (int ctr = 0; ctr < length; ctr++) {
+
+            char next = name.charAt(ctr);
+
+            if (next < '0' || '9' < next) {
+                shape.append(next);
+                continue;
+            }
+
+            int end = ctr;
+
+            while (end < length && '0' <= name.charAt(end) && name.charAt(end) <= '9')
+                end++;
+
+            // Leading zeros would not survive the round trip.
+            if (next == '0' || MAX_INDEX_DIGITS < end - ctr || indexCount == MAX_INDEX_COUNT)
+                return NOT_FOUND;
+
+            indices[indexCount++] = Integer.parseInt(name.substring(ctr, end));
+
+            shape.append("{}");
+
+            ctr = end - 1;
+        }
+
+        Integer id = IDS_BY_SHAPE.get(shape.toString());
+
+        if (id == null)
+            return NOT_FOUND;
+
+        int[] result = new int[indexCount + 1];
+
+        result[0] = id;
+
+        System.arraycopy(indices, 0, result, 1, indexCount);
+
+        return result;
+    }
+}
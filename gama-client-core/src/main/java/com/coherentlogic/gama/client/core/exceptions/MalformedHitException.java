@@ -0,0 +1,23 @@
+package com.coherentlogic.gama.client.core.exceptions;
+
+import org.springframework.core.NestedRuntimeException;
+
+/**
+ * An exception that is thrown when a binary encoded hit is truncated, corrupt or was written using an unsupported
+ * format version.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class MalformedHitException extends NestedRuntimeException {
+
+    private static final long serialVersionUID = -2286409941744290877L;
+
+    public MalformedHitException (String msg) {
+        super (msg);
+    }
+
+    public MalformedHitException (String msg, Throwable cause) {
+        super (msg, cause);
+    }
+}
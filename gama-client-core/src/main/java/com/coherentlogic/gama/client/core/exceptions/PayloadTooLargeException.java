@@ -0,0 +1,22 @@
+package com.coherentlogic.gama.client.core.exceptions;
+
+import org.springframework.core.NestedRuntimeException;
+
+/**
+ * An exception that is thrown when the encoded hit does not fit into the maximum payload size.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class PayloadTooLargeException extends NestedRuntimeException {
+
+    private static final long serialVersionUID = 4412270283573096121L;
+
+    public PayloadTooLargeException (int maxLengthInBytes) {
+        super ("The encoded hit exceeds the maximum number of bytes allowed (" + maxLengthInBytes + ").");
+    }
+
+    public PayloadTooLargeException (int maxLengthInBytes, Throwable cause) {
+        super ("The encoded hit exceeds the maximum number of bytes allowed (" + maxLengthInBytes + ").", cause);
+    }
+}
@@ -0,0 +1,217 @@
+package com.coherentlogic.gama.client.core.hits;
+
+import java.net.URI;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.encoders.FormUrlEncoder;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+
+/**
+ * An immutable hit, created by {@link QueryBuilder#build()}, which can be handed between threads -- to a dispatcher,
+ * a spool or a retry -- without being copied. The form-urlencoded bytes are computed the first time they are needed
+ * and then reused, so a hit which is sent more than once, or logged and then sent, is encoded once.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class Hit implements HitParameters, TypedHit {
+
+    private final URI endpoint;
+
+    private final String[] names;
+
+    private final String[] values;
+
+    /**
+     * Computed at most a few times when several threads race to encode the hit first, which is harmless as every
+     * thread computes the same bytes.
+     */
+    private volatile byte[] encoded;
+
+    /**
+     * @param names The parameter names, which are copied.
+     * @param values The parameter values, which are copied.
+     */
+    public Hit(URI endpoint, String[] names, String[] values) {
+        this(endpoint, names, values, checkLengths (names, values));
+    }
+
+    /**
+     * Takes a copy of the first count names and values, so the caller may go on to change or reuse its arrays.
+     */
+    public Hit(URI endpoint, String[] names, String[] values, int count) {
+
+        Utils.assertNotNull("endpoint", endpoint);
+        Utils.assertNotNull("names", names);
+        Utils.assertNotNull("values", values);
+
+        if (count < 0 || names.length < count || values.length < count)
+            throw new IllegalArgumentException("The count must lie between zero and the number of names and values "
+                + "(count: " + count + ", names: " + names.length + ", values: " + values.length + ")");
+
+        this.endpoint = endpoint;
+        this.names = Arrays.copyOf(names, count);
+        this.values = Arrays.copyOf(values, count);
+    }
+
+    static int checkLengths (String[] names, String[] values) {
+
+        Utils.assertNotNull("names", names);
+        Utils.assertNotNull("values", values);
+
+        if (names.length != values.length)
+            throw new IllegalArgumentException("There must be as many names as values (names: " + names.length
+                + ", values: " + values.length + ")");
+
+        return names.length;
+    }
+
+    /**
+     * Returns the URI of the builder this hit was built from.
+     */
+    public URI getEndpoint () {
+        return endpoint;
+    }
+
+    @Override
+    public int getParameterCount () {
+        return names.length;
+    }
+
+    @Override
+    public String getParameterName (int index) {
+        return names[index];
+    }
+
+    @Override
+    public String getParameterValue (int index) {
+        return values[index];
+    }
+
+    @Override
+    public String getParameter (String name) {
+
+        for (int ctr = names.length - 1; 0 <= ctr; ctr--)
+            if (names[ctr].equals(name))
+                return values[ctr];
+
+        return null;
+    }
+
+    @Override
+    public String getHitType () {
+        return getParameter (QueryBuilder.T);
+    }
+
+    /**
+     * Returns the number of bytes the form-urlencoded hit occupies.
+     *
+     * @throws PayloadTooLargeException if the encoded hit exceeds {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    public int getEncodedLength () {
+        return encoded ().length;
+    }
+
+    /**
+     * Returns a read-only view of the form-urlencoded hit, positioned at zero; each call returns a new view, so the
+     * result can be consumed without affecting other threads.
+     *
+     * @throws PayloadTooLargeException if the encoded hit exceeds {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    public ByteBuffer asByteBuffer () {
+        return ByteBuffer.wrap(encoded ()).asReadOnlyBuffer();
+    }
+
+    @Override
+    public ByteBuffer encodeTo (ByteBuffer target) {
+
+        try {
+            return target.put(encoded ());
+        } catch (BufferOverflowException bufferOverflowException) {
+            throw new PayloadTooLargeException(target.capacity(), bufferOverflowException);
+        }
+    }
+
+    @Override
+    public String toFormUrlEncoded () {
+        return new String (encoded (), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns a new builder holding the parameters of this hit, for dispatchers which only accept builders; the
+     * builder has no RestTemplate and cannot be posted itself.
+     */
+    public QueryBuilder toQueryBuilder () {
+        return new QueryBuilder ((RestTemplate) null, endpoint.toString()).withParametersOf(this);
+    }
+
+    /**
+     * Returns the form-urlencoded hit; the size is checked when the bytes are first computed, so a hit which is too
+     * large is never cached and is rejected each time it is sent, as the builder it came from would be.
+     */
+    byte[] encoded () {
+
+        byte[] result = encoded;
+
+        if (result == null) {
+
+            int length = 0;
+
+            for (int ctr = 0; ctr < names.length; ctr++)
+                length += (ctr == 0 ? 1 : 2) + FormUrlEncoder.encodedLength(names[ctr])
+                    + FormUrlEncoder.encodedLength(values[ctr]);
+
+            if (QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES < length)
+                throw new PayloadTooLargeException(QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES);
+
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+
+            for (int ctr = 0; ctr < names.length; ctr++)
+                FormUrlEncoder.encodeParameter(names[ctr], values[ctr], ctr == 0, buffer);
+
+            encoded = result = buffer.array();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean equals (Object object) {
+
+        if (this == object)
+            return true;
+
+        if (!(object instanceof Hit))
+            return false;
+
+        Hit other = (Hit) object;
+
+        return endpoint.equals(other.endpoint)
+            && Arrays.equals(names, other.names)
+            && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode () {
+        return 31 * (31 * endpoint.hashCode() + Arrays.hashCode(names)) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString () {
+        try {
+            return "Hit [" + toFormUrlEncoded() + "]";
+        } catch (PayloadTooLargeException payloadTooLargeException) {
+            return "Hit [" + names.length + " parameters exceeding " + QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES
+                + " bytes]";
+        }
+    }
+}
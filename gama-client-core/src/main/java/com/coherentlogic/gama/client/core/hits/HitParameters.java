@@ -0,0 +1,22 @@
+package com.coherentlogic.gama.client.core.hits;
+
+/**
+ * Read access to the parameters of a hit, in the order they were added; implemented by the mutable
+ * {@link com.coherentlogic.gama.client.core.builders.QueryBuilder} and by the immutable {@link Hit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public interface HitParameters {
+
+    int getParameterCount ();
+
+    String getParameterName (int index);
+
+    String getParameterValue (int index);
+
+    /**
+     * Returns the value of the last parameter with the given name or null if no such parameter exists.
+     */
+    String getParameter (String name);
+}
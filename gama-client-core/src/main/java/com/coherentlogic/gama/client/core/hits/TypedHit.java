@@ -0,0 +1,71 @@
+package com.coherentlogic.gama.client.core.hits;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+
+/**
+ * A hit of one specific type whose required parameters were supplied when it was created, so it can be encoded without
+ * any of the lookups or checks which the {@link QueryBuilder} performs. Implementations are usually generated; see the
+ * gama-client-hits module.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public interface TypedHit {
+
+    /**
+     * Returns the value of the hit type (t) parameter.
+     */
+    String getHitType ();
+
+    /**
+     * Writes the parameters, as application/x-www-form-urlencoded name/value pairs, into the target starting at the
+     * target's current position; the target is not flipped.
+     *
+     * @throws com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException if the target does not have
+     *  enough space remaining.
+     */
+    ByteBuffer encodeTo (ByteBuffer target);
+
+    /**
+     * Encodes the parameters into a buffer taken from the pool; the buffer is flipped and ready to be sent, and the
+     * caller is responsible for releasing it (see {@link com.coherentlogic.gama.client.core.transport.Transport}).
+     */
+    default PooledByteBuffer encodeTo (ByteBufferPool byteBufferPool) {
+
+        PooledByteBuffer result = byteBufferPool.acquireHitBuffer();
+
+        ByteBuffer buffer = result.getByteBuffer();
+
+        try {
+
+            buffer.limit(QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES);
+
+            encodeTo(buffer).flip();
+
+        } catch (RuntimeException runtimeException) {
+
+            result.release();
+
+            throw runtimeException;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the hit as it would be posted, which is useful for logging and testing.
+     */
+    default String toFormUrlEncoded () {
+
+        ByteBuffer buffer = ByteBuffer.allocate(QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES);
+
+        encodeTo(buffer).flip();
+
+        return StandardCharsets.US_ASCII.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,338 @@
+package com.coherentlogic.gama.client.core.logging;
+
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.dispatch.Dispatcher;
+import com.coherentlogic.gama.client.core.util.Hashing;
+import com.coherentlogic.gama.client.core.util.Utf8;
+
+/**
+ * Turns logged errors into exception hits without letting a storm of log messages become a storm of hits; this class
+ * holds the logic shared by the {@link Log4jExceptionAppender} and the {@link LogbackExceptionAppender}.
+ *
+ * Each error is reduced to a fingerprint -- the exception types and the top stack frames of the throwable and its
+ * causes or, for errors logged without a throwable, the logger name and message. Fingerprints are kept in a bounded
+ * cache which forgets the least recently seen fingerprint first, and each fingerprint may send at most
+ * maxHitsPerFingerprint hits per interval; in addition, no more than maxHitsPerInterval hits are sent per interval in
+ * total. The exception description (exd) is shortened to the 150 bytes the Measurement Protocol allows.
+ *
+ * Hits are handed to the dispatcher on the logging thread, so the dispatcher should be asynchronous.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ExceptionReporter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExceptionReporter.class);
+
+    public static final int MAX_DESCRIPTION_LENGTH_IN_BYTES = 150;
+
+    /**
+     * The number of stack frames of each throwable in the cause chain which contribute to the fingerprint.
+     */
+    static final int FINGERPRINT_FRAMES = 5;
+
+    /**
+     * Limits how far down the cause chain the fingerprint and description look, which also guards against cycles.
+     */
+    static final int MAX_CAUSE_DEPTH = 8;
+
+    static final long FINGERPRINT_SEED = 0x4558434550544E21L;
+
+    private final String trackingId;
+
+    private final String clientId;
+
+    private final Dispatcher dispatcher;
+
+    private final QueryBuilderPool queryBuilderPool;
+
+    private final Closeable onClose;
+
+    private final long intervalMillis;
+
+    private final int maxHitsPerFingerprint;
+
+    private final int maxHitsPerInterval;
+
+    private final LongSupplier clock;
+
+    private final Map<Long, Window> windowsByFingerprint;
+
+    private final Window totalWindow = new Window ();
+
+    private final LongAdder reportedCount = new LongAdder ();
+
+    private final LongAdder suppressedCount = new LongAdder ();
+
+    /**
+     * @param onClose Closed by {@link #close()}, typically the dispatcher when this reporter owns it; may be null.
+     * @param maxFingerprints The number of fingerprints which are remembered.
+     */
+    public ExceptionReporter(
+        String trackingId,
+        String clientId,
+        Dispatcher dispatcher,
+        QueryBuilderPool queryBuilderPool,
+        Closeable onClose,
+        int maxFingerprints,
+        long intervalMillis,
+        int maxHitsPerFingerprint,
+        int maxHitsPerInterval
+    ) {
+        this(trackingId, clientId, dispatcher, queryBuilderPool, onClose, maxFingerprints, intervalMillis,
+            maxHitsPerFingerprint, maxHitsPerInterval, System::currentTimeMillis);
+    }
+
+    ExceptionReporter(
+        String trackingId,
+        String clientId,
+        Dispatcher dispatcher,
+        QueryBuilderPool queryBuilderPool,
+        Closeable onClose,
+        int maxFingerprints,
+        long intervalMillis,
+        int maxHitsPerFingerprint,
+        int maxHitsPerInterval,
+        LongSupplier clock
+    ) {
+        Utils.assertNotNull("trackingId", trackingId);
+        Utils.assertNotNull("clientId", clientId);
+        Utils.assertNotNull("dispatcher", dispatcher);
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+        Utils.assertNotNull("clock", clock);
+
+        if (maxFingerprints <= 0 || intervalMillis <= 0 || maxHitsPerFingerprint <= 0 || maxHitsPerInterval <= 0)
+            throw new IllegalArgumentException("The maxFingerprints, intervalMillis, maxHitsPerFingerprint and "
+                + "maxHitsPerInterval must be greater than zero (maxFingerprints: " + maxFingerprints
+                + ", intervalMillis: " + intervalMillis + ", maxHitsPerFingerprint: " + maxHitsPerFingerprint
+                + ", maxHitsPerInterval: " + maxHitsPerInterval + ")");
+
+        this.trackingId = trackingId;
+        this.clientId = clientId;
+        this.dispatcher = dispatcher;
+        this.queryBuilderPool = queryBuilderPool;
+        this.onClose = onClose;
+        this.intervalMillis = intervalMillis;
+        this.maxHitsPerFingerprint = maxHitsPerFingerprint;
+        this.maxHitsPerInterval = maxHitsPerInterval;
+        this.clock = clock;
+        this.windowsByFingerprint = new LinkedHashMap<Long, Window> (16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Window> eldest) {
+                return maxFingerprints < size();
+            }
+        };
+    }
+
+    /**
+     * Sends an exception hit for the error unless the rate limits have been reached.
+     *
+     * @param loggerName The name of the logger the error was logged with; may be null.
+     * @param message The message the error was logged with; may be null.
+     * @param throwable The error; may be null.
+     *
+     * @return true if a hit was dispatched.
+     */
+    public boolean report (String loggerName, String message, Throwable throwable, boolean fatal) {
+        return report (loggerName, message, message, throwable, fatal);
+    }
+
+    /**
+     * Sends an exception hit for the error unless the rate limits have been reached.
+     *
+     * @param loggerName The name of the logger the error was logged with; may be null.
+     * @param pattern The message before parameters were substituted, which fingerprints errors without a throwable so
+     *  that they are rate limited together; may be null.
+     * @param message The message the error was logged with, which is sent when there is no throwable; may be null.
+     * @param throwable The error; may be null.
+     *
+     * @return true if a hit was dispatched.
+     */
+    public boolean report (String loggerName, String pattern, String message, Throwable throwable, boolean fatal) {
+
+        long fingerprint = throwable == null
+            ? Hashing.hash(loggerName + "|" + pattern, FINGERPRINT_SEED)
+            : fingerprint(throwable);
+
+        if (!tryAcquire (fingerprint)) {
+            suppressedCount.increment();
+            return false;
+        }
+
+        QueryBuilder queryBuilder = queryBuilderPool.acquire();
+
+        try {
+            dispatcher.dispatch(
+                queryBuilder
+                    .withV1()
+                    .withTid(trackingId)
+                    .withCID(clientId)
+                    .withTAsException()
+                    .withExd(describe (message, throwable))
+                    .withExf(fatal)
+            );
+
+            reportedCount.increment();
+
+            return true;
+        } finally {
+            queryBuilderPool.release(queryBuilder);
+        }
+    }
+
+    boolean tryAcquire (long fingerprint) {
+
+        long now = clock.getAsLong();
+
+        synchronized (windowsByFingerprint) {
+
+            Window window = windowsByFingerprint.computeIfAbsent(fingerprint, key -> new Window ());
+
+            if (!window.hasRoom(now, maxHitsPerFingerprint) || !totalWindow.hasRoom(now, maxHitsPerInterval))
+                return false;
+
+            window.count++;
+            totalWindow.count++;
+
+            return true;
+        }
+    }
+
+    /**
+     * Returns a hash of the exception types and the top stack frames of the throwable and its causes; the message is
+     * left out since it often contains values which differ from one occurrence to the next.
+     */
+    public static long fingerprint (Throwable throwable) {
+
+        StringBuilder key = new StringBuilder ();
+
+        Throwable next = throwable;
+
+        for (int depth = 0; next != null && depth < MAX_CAUSE_DEPTH; depth++, next = next.getCause()) {
+
+            key.append(next.getClass().getName()).append('|');
+
+            StackTraceElement[] stackTrace = next.getStackTrace();
+
+            for (int ctr = 0; ctr < stackTrace.length && ctr < FINGERPRINT_FRAMES; ctr++)
+                key
+                    .append(stackTrace[ctr].getClassName())
+                    .append('.')
+                    .append(stackTrace[ctr].getMethodName())
+                    .append(':')
+                    .append(stackTrace[ctr].getLineNumber())
+                    .append('|');
+        }
+
+        return Hashing.hash(key, FINGERPRINT_SEED);
+    }
+
+    /**
+     * Returns the exception description: the simple name of the innermost cause, its message, and the frame it was
+     * thrown from, shortened to {@link #MAX_DESCRIPTION_LENGTH_IN_BYTES}. The log message is used when there is no
+     * throwable.
+     */
+    public static String describe (String message, Throwable throwable) {
+
+        StringBuilder result = new StringBuilder ();
+
+        if (throwable == null)
+            result.append(message == null ? "" : message);
+        else {
+
+            Throwable root = throwable;
+
+            for (int depth = 0; root.getCause() != null && depth < MAX_CAUSE_DEPTH; depth++)
+                root = root.getCause();
+
+            result.append(root.getClass().getSimpleName());
+
+            if (root.getMessage() != null)
+                result.append(": ").append(root.getMessage());
+
+            StackTraceElement[] stackTrace = root.getStackTrace();
+
+            if (0 < stackTrace.length)
+                result
+                    .append(" at ")
+                    .append(stackTrace[0].getClassName())
+                    .append('.')
+                    .append(stackTrace[0].getMethodName())
+                    .append(':')
+                    .append(stackTrace[0].getLineNumber());
+        }
+
+        return Utf8.truncate(result.toString(), MAX_DESCRIPTION_LENGTH_IN_BYTES);
+    }
+
+    /**
+     * Returns the number of exception hits which have been dispatched.
+     */
+    public long getReportedCount () {
+        return reportedCount.sum();
+    }
+
+    /**
+     * Returns the number of errors which were not reported because a rate limit had been reached.
+     */
+    public long getSuppressedCount () {
+        return suppressedCount.sum();
+    }
+
+    /**
+     * Returns the number of fingerprints currently remembered.
+     */
+    public int getFingerprintCount () {
+        synchronized (windowsByFingerprint) {
+            return windowsByFingerprint.size();
+        }
+    }
+
+    @Override
+    public void close() {
+
+        if (onClose != null) {
+            try {
+                onClose.close();
+            } catch (Exception exception) {
+                log.warn("The exception reporter could not be closed.", exception);
+            }
+        }
+    }
+
+    /**
+     * A fixed window counter; guarded by the windowsByFingerprint lock.
+     */
+    class Window {
+
+        long start = Long.MIN_VALUE;
+
+        int count = 0;
+
+        boolean hasRoom (long now, int max) {
+
+            if (start == Long.MIN_VALUE || intervalMillis <= now - start) {
+                start = now;
+                count = 0;
+            }
+
+            return count < max;
+        }
+    }
+}
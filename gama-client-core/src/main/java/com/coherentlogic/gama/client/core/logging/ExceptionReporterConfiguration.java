@@ -0,0 +1,74 @@
+package com.coherentlogic.gama.client.core.logging;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.cid.ClientIdGenerator;
+import com.coherentlogic.gama.client.core.dispatch.PostingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.PriorityDispatcher;
+
+/**
+ * The properties shared by the exception appenders, which the appenders expose as bean properties so they can be set
+ * from the logging configuration file.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+class ExceptionReporterConfiguration {
+
+    /**
+     * Errors logged by this library are never reported, since reporting them could fail in turn.
+     */
+    static final String OWN_LOGGER_PREFIX = "com.coherentlogic.gama.";
+
+    String trackingId;
+
+    String clientId = ClientIdGenerator.getInstance().nextClientId();
+
+    String uri = QueryBuilder.GOOGLE_ANALYTICS_URL;
+
+    int maxFingerprints = 1024;
+
+    long intervalMillis = 60000L;
+
+    int maxHitsPerFingerprint = 1;
+
+    int maxHitsPerInterval = 60;
+
+    int queueCapacity = 256;
+
+    static boolean isReportable (String loggerName) {
+        return loggerName == null || !loggerName.startsWith(OWN_LOGGER_PREFIX);
+    }
+
+    /**
+     * Returns a reporter which sends its hits on a background thread; when the thread falls behind, hits are dropped
+     * rather than block the logging thread.
+     *
+     * @throws IllegalStateException if the trackingId has not been set.
+     */
+    ExceptionReporter newExceptionReporter () {
+
+        if (trackingId == null)
+            throw new IllegalStateException("The trackingId property is required.");
+
+        BoundedQueryBuilderPool queryBuilderPool =
+            new BoundedQueryBuilderPool (new RestTemplate (), uri, queueCapacity);
+
+        PriorityDispatcher dispatcher =
+            new PriorityDispatcher (new PostingDispatcher (), queryBuilderPool, queueCapacity);
+
+        return new ExceptionReporter (
+            trackingId,
+            clientId,
+            dispatcher,
+            queryBuilderPool,
+            dispatcher,
+            maxFingerprints,
+            intervalMillis,
+            maxHitsPerFingerprint,
+            maxHitsPerInterval
+        );
+    }
+}
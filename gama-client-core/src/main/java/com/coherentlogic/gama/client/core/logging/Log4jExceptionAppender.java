@@ -0,0 +1,137 @@
+package com.coherentlogic.gama.client.core.logging;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.spi.ThrowableInformation;
+
+/**
+ * A Log4j appender which sends an exception hit for each event logged at ERROR or above, subject to the fingerprinting
+ * and rate limits described in {@link ExceptionReporter}. Events logged at FATAL, and events carrying an
+ * {@link Error}, are reported as fatal.
+ *
+ * Example log4j.properties configuration:
+ *
+ * <pre>
+ * log4j.appender.gama=com.coherentlogic.gama.client.core.logging.Log4jExceptionAppender
+ * log4j.appender.gama.TrackingId=UA-12345-1
+ * log4j.appender.gama.MaxHitsPerInterval=60
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class Log4jExceptionAppender extends AppenderSkeleton {
+
+    private final ExceptionReporterConfiguration configuration = new ExceptionReporterConfiguration ();
+
+    private ExceptionReporter exceptionReporter = null;
+
+    private boolean ownsExceptionReporter = false;
+
+    public Log4jExceptionAppender() {
+        setThreshold(Level.ERROR);
+    }
+
+    /**
+     * Used when the appender is configured programmatically.
+     */
+    public Log4jExceptionAppender(ExceptionReporter exceptionReporter) {
+        this();
+        this.exceptionReporter = exceptionReporter;
+    }
+
+    @Override
+    public void activateOptions() {
+
+        super.activateOptions();
+
+        if (exceptionReporter == null) {
+            try {
+                exceptionReporter = configuration.newExceptionReporter();
+                ownsExceptionReporter = true;
+            } catch (RuntimeException runtimeException) {
+                errorHandler.error("The exception reporter could not be created: " + runtimeException.getMessage());
+            }
+        }
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+
+        if (exceptionReporter == null
+            || !event.getLevel().isGreaterOrEqual(Level.ERROR)
+            || !ExceptionReporterConfiguration.isReportable(event.getLoggerName()))
+            return;
+
+        ThrowableInformation throwableInformation = event.getThrowableInformation();
+
+        Throwable throwable = throwableInformation == null ? null : throwableInformation.getThrowable();
+
+        Object message = event.getMessage();
+
+        try {
+            exceptionReporter.report(
+                event.getLoggerName(),
+                message == null ? null : message.toString(),
+                throwable,
+                event.getLevel().isGreaterOrEqual(Level.FATAL) || throwable instanceof Error
+            );
+        } catch (RuntimeException runtimeException) {
+            errorHandler.error("The exception hit could not be dispatched.", runtimeException, 0, event);
+        }
+    }
+
+    @Override
+    public void close() {
+
+        closed = true;
+
+        if (ownsExceptionReporter) {
+            exceptionReporter.close();
+            exceptionReporter = null;
+            ownsExceptionReporter = false;
+        }
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+    public void setTrackingId (String trackingId) {
+        configuration.trackingId = trackingId;
+    }
+
+    public void setClientId (String clientId) {
+        configuration.clientId = clientId;
+    }
+
+    public void setUri (String uri) {
+        configuration.uri = uri;
+    }
+
+    public void setMaxFingerprints (int maxFingerprints) {
+        configuration.maxFingerprints = maxFingerprints;
+    }
+
+    public void setIntervalMillis (long intervalMillis) {
+        configuration.intervalMillis = intervalMillis;
+    }
+
+    public void setMaxHitsPerFingerprint (int maxHitsPerFingerprint) {
+        configuration.maxHitsPerFingerprint = maxHitsPerFingerprint;
+    }
+
+    public void setMaxHitsPerInterval (int maxHitsPerInterval) {
+        configuration.maxHitsPerInterval = maxHitsPerInterval;
+    }
+
+    public void setQueueCapacity (int queueCapacity) {
+        configuration.queueCapacity = queueCapacity;
+    }
+
+    ExceptionReporter getExceptionReporter () {
+        return exceptionReporter;
+    }
+}
@@ -0,0 +1,130 @@
+package com.coherentlogic.gama.client.core.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import ch.qos.logback.core.AppenderBase;
+
+/**
+ * A Logback appender which sends an exception hit for each event logged at ERROR, subject to the fingerprinting and
+ * rate limits described in {@link ExceptionReporter}. Events carrying an {@link Error} are reported as fatal. The
+ * message pattern, rather than the formatted message, is used to fingerprint events without a throwable, while the
+ * formatted message is what is sent.
+ *
+ * Example logback.xml configuration:
+ *
+ * <pre>
+ * &lt;appender name="gama" class="com.coherentlogic.gama.client.core.logging.LogbackExceptionAppender"&gt;
+ *     &lt;trackingId&gt;UA-12345-1&lt;/trackingId&gt;
+ *     &lt;maxHitsPerInterval&gt;60&lt;/maxHitsPerInterval&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class LogbackExceptionAppender extends AppenderBase<ILoggingEvent> {
+
+    private final ExceptionReporterConfiguration configuration = new ExceptionReporterConfiguration ();
+
+    private ExceptionReporter exceptionReporter = null;
+
+    private boolean ownsExceptionReporter = false;
+
+    public LogbackExceptionAppender() {
+    }
+
+    /**
+     * Used when the appender is configured programmatically.
+     */
+    public LogbackExceptionAppender(ExceptionReporter exceptionReporter) {
+        this.exceptionReporter = exceptionReporter;
+    }
+
+    @Override
+    public void start() {
+
+        if (exceptionReporter == null) {
+            try {
+                exceptionReporter = configuration.newExceptionReporter();
+                ownsExceptionReporter = true;
+            } catch (RuntimeException runtimeException) {
+                addError("The exception reporter could not be created.", runtimeException);
+                return;
+            }
+        }
+
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+
+        if (!event.getLevel().isGreaterOrEqual(Level.ERROR)
+            || !ExceptionReporterConfiguration.isReportable(event.getLoggerName()))
+            return;
+
+        IThrowableProxy throwableProxy = event.getThrowableProxy();
+
+        Throwable throwable = throwableProxy instanceof ThrowableProxy
+            ? ((ThrowableProxy) throwableProxy).getThrowable()
+            : null;
+
+        try {
+            exceptionReporter.report(
+                event.getLoggerName(),
+                event.getMessage(),
+                event.getFormattedMessage(),
+                throwable,
+                throwable instanceof Error
+            );
+        } catch (RuntimeException runtimeException) {
+            addError("The exception hit could not be dispatched.", runtimeException);
+        }
+    }
+
+    @Override
+    public void stop() {
+
+        super.stop();
+
+        if (ownsExceptionReporter) {
+            exceptionReporter.close();
+            exceptionReporter = null;
+            ownsExceptionReporter = false;
+        }
+    }
+
+    public void setTrackingId (String trackingId) {
+        configuration.trackingId = trackingId;
+    }
+
+    public void setClientId (String clientId) {
+        configuration.clientId = clientId;
+    }
+
+    public void setUri (String uri) {
+        configuration.uri = uri;
+    }
+
+    public void setMaxFingerprints (int maxFingerprints) {
+        configuration.maxFingerprints = maxFingerprints;
+    }
+
+    public void setIntervalMillis (long intervalMillis) {
+        configuration.intervalMillis = intervalMillis;
+    }
+
+    public void setMaxHitsPerFingerprint (int maxHitsPerFingerprint) {
+        configuration.maxHitsPerFingerprint = maxHitsPerFingerprint;
+    }
+
+    public void setMaxHitsPerInterval (int maxHitsPerInterval) {
+        configuration.maxHitsPerInterval = maxHitsPerInterval;
+    }
+
+    public void setQueueCapacity (int queueCapacity) {
+        configuration.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,241 @@
+package com.coherentlogic.gama.client.core.queue;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.exceptions.MalformedHitException;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+import com.coherentlogic.gama.client.core.transport.RateLimiter;
+import com.coherentlogic.gama.client.core.transport.RetryingTransport;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * Drains a {@link MappedHitQueue} on its own thread, packing the hits into batch requests which are sent using the
+ * transport, so that the processes which append to the queue share this sender's connections and rate limit.
+ *
+ * A batch is sent as soon as it is full, or once the queue is empty; a batch which cannot be sent is retried with
+ * exponential backoff (see {@link RetryingTransport}), and dropped once maxRetries has been exceeded. The hits in a
+ * batch are only committed, and so removed from the queue, after the batch has been sent or dropped, hence hits may
+ * be sent twice if the sender stops part way through a batch.
+ *
+ * <pre>
+ * try (MappedHitQueue queue = new MappedHitQueue (file, 64 * 1024 * 1024);
+ *     HitQueueSender sender = new HitQueueSender (queue, transport, new ByteBufferPool (), 20.0, 5, 1000L)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitQueueSender implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HitQueueSender.class);
+
+    /**
+     * How long the drain thread waits before polling an empty queue again.
+     */
+    static final long IDLE_MILLIS = 10L;
+
+    private final MappedHitQueue queue;
+
+    private final Transport transport;
+
+    private final RateLimiter rateLimiter;
+
+    private final HitBatch hitBatch;
+
+    private final AtomicLong sentCount = new AtomicLong ();
+
+    private final AtomicLong droppedCount = new AtomicLong ();
+
+    private final Thread drainThread;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param hitsPerSecond The rate hits are sent at, or zero for no limit.
+     * @param maxRetries The number of times a batch is retried before it is dropped.
+     * @param retryBackoffMillis The delay before the first retry, which doubles for every subsequent retry.
+     */
+    public HitQueueSender(
+        MappedHitQueue queue,
+        Transport transport,
+        ByteBufferPool byteBufferPool,
+        double hitsPerSecond,
+        int maxRetries,
+        long retryBackoffMillis
+    ) {
+        this(
+            queue,
+            transport,
+            byteBufferPool,
+            hitsPerSecond,
+            maxRetries,
+            retryBackoffMillis,
+            runnable -> new Thread (runnable, "gama-hit-queue-sender")
+        );
+    }
+
+    public HitQueueSender(
+        MappedHitQueue queue,
+        Transport transport,
+        ByteBufferPool byteBufferPool,
+        double hitsPerSecond,
+        int maxRetries,
+        long retryBackoffMillis,
+        ThreadFactory threadFactory
+    ) {
+        Utils.assertNotNull("queue", queue);
+        Utils.assertNotNull("transport", transport);
+        Utils.assertNotNull("byteBufferPool", byteBufferPool);
+        Utils.assertNotNull("threadFactory", threadFactory);
+
+        this.queue = queue;
+        this.transport = new RetryingTransport (transport, maxRetries, retryBackoffMillis);
+        this.rateLimiter = new RateLimiter (hitsPerSecond);
+        this.hitBatch = new HitBatch (byteBufferPool);
+        this.drainThread = threadFactory.newThread(this::drain);
+
+        drainThread.start();
+    }
+
+    void drain () {
+        try {
+            while (!closed) {
+                if (!drainOnce ())
+                    TimeUnit.MILLISECONDS.sleep(IDLE_MILLIS);
+            }
+
+            // Send whatever was queued before close was called, but not what producers go on to append.
+            long end = queue.getWritePosition();
+
+            while (queue.getReadPosition() < end && drainOnce ())
+                ;
+
+            if (!hitBatch.isEmpty()) {
+                flush ();
+                queue.commit();
+            }
+
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException runtimeException) {
+            log.error("The hit queue sender stopped.", runtimeException);
+        } finally {
+            hitBatch.close();
+        }
+    }
+
+    /**
+     * Sends at most one batch of the hits which are in the queue, so that the drain thread notices close even while
+     * producers keep appending, and returns false if there was nothing to send.
+     */
+    boolean drainOnce () throws InterruptedException {
+
+        int polledCount = 0;
+
+        while (polledCount < HitBatch.MAX_HITS) {
+
+            long position = queue.getReadPosition();
+
+            ByteBuffer hit = queue.poll();
+
+            if (hit == null)
+                break;
+
+            polledCount++;
+
+            try {
+                if (!hitBatch.addBinary(hit)) {
+
+                    flush ();
+
+                    // The hit which did not fit is not committed until the batch it goes into has been sent.
+                    queue.commit(position);
+
+                    hitBatch.addBinary(hit);
+
+                    return true;
+                }
+            } catch (MalformedHitException | PayloadTooLargeException exception) {
+                droppedCount.incrementAndGet();
+                log.warn("A hit was dropped: " + exception.getMessage());
+            }
+        }
+
+        boolean result = 0 < polledCount || !hitBatch.isEmpty();
+
+        if (!hitBatch.isEmpty())
+            flush ();
+
+        if (result)
+            queue.commit();
+
+        return result;
+    }
+
+    void flush () throws InterruptedException {
+
+        int hitCount = hitBatch.getHitCount();
+
+        rateLimiter.acquire(hitCount);
+
+        PooledByteBuffer payload = hitBatch.drain();
+
+        try {
+            transport.send(payload.getByteBuffer());
+            sentCount.addAndGet(hitCount);
+        } catch (RuntimeException runtimeException) {
+
+            // An interrupted batch is neither sent nor dropped; it is left in the queue, uncommitted.
+            if (Thread.interrupted())
+                throw new InterruptedException ();
+
+            droppedCount.addAndGet(hitCount);
+            log.error("A batch of " + hitCount + " hits was dropped after every retry failed.", runtimeException);
+        } finally {
+            payload.release();
+        }
+    }
+
+    /**
+     * Returns the number of hits which have been sent.
+     */
+    public long getSentCount () {
+        return sentCount.get();
+    }
+
+    /**
+     * Returns the number of hits which were dropped because they were malformed or too large, or because their batch
+     * could not be sent.
+     */
+    public long getDroppedCount () {
+        return droppedCount.get();
+    }
+
+    /**
+     * Sends the hits which are already in the queue and stops the drain thread; the queue itself is not closed.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+
+        try {
+            drainThread.join();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
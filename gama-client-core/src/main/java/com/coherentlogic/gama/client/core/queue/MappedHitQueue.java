@@ -0,0 +1,438 @@
+package com.coherentlogic.gama.client.core.queue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.encoders.HitCodec;
+import com.coherentlogic.gama.client.core.hits.HitParameters;
+
+/**
+ * A bounded queue of hits, kept in a memory-mapped file, which any number of processes on one host append to and one
+ * process drains, so that the host needs a single connection pool and rate limiter (see {@link HitQueueSender})
+ * rather than one per process.
+ *
+ * The file holds a header followed by a ring of records, each of which is the length of a hit followed by the hit in
+ * the binary form written by {@link HitCodec}, padded to a multiple of {@link #ALIGNMENT} bytes; a record which would
+ * run past the end of the ring is preceded by a {@link #PADDING} marker and written at the start of the ring instead.
+ * When the queue is empty the padding is freed straight away, so such a record only needs room for itself.
+ * The header holds the head (the position of the oldest record which has not been committed by the consumer) and the
+ * tail (the position the next record is written at); both only ever increase.
+ *
+ * Producers append under an exclusive lock on the header, writing the record in full before moving the tail, so a
+ * process which dies while appending leaves no partial record behind; the lock is released by the operating system if
+ * its owner dies. The consumer takes the lock only to read the tail and to move the head, and otherwise reads the
+ * records in place. Records are only freed when the consumer calls {@link #commit()}, so hits which were polled but
+ * not committed before the consumer stopped are delivered again when it restarts.
+ *
+ * File locks are held on behalf of the whole JVM, so a file must only be opened once per JVM; this class is
+ * thread-safe, and {@link #poll()} and {@link #commit()} must only be called from one thread.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class MappedHitQueue implements Closeable {
+
+    static final int MAGIC = 0x47414D51, VERSION = 1, HEADER_SIZE = 64;
+
+    static final int MAGIC_OFFSET = 0,
+        VERSION_OFFSET = 4,
+        CAPACITY_OFFSET = 8,
+        HEAD_OFFSET = 16,
+        TAIL_OFFSET = 24;
+
+    static final int ALIGNMENT = 8;
+
+    static final int LENGTH_SIZE = 4;
+
+    static final int PADDING = -1;
+
+    /**
+     * The region locked by the consumer for as long as it is draining the queue; it lies beyond the end of the file
+     * so it never overlaps the header lock.
+     */
+    static final long CONSUMER_LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    private final Path file;
+
+    private final FileChannel fileChannel;
+
+    private final MappedByteBuffer mappedByteBuffer;
+
+    private final int capacity;
+
+    private final AtomicLong offeredCount = new AtomicLong ();
+
+    private final AtomicLong rejectedCount = new AtomicLong ();
+
+    private FileLock consumerLock = null;
+
+    /**
+     * The position of the next record the consumer will read, which is ahead of the head by the records which have
+     * been polled but not committed.
+     */
+    private long readPosition;
+
+    /**
+     * The tail as of the last time the consumer read it.
+     */
+    private long knownTail;
+
+    /**
+     * @param file The file the queue is kept in; it is created if it does not exist.
+     * @param capacity The size of the ring in bytes; this is rounded up to a multiple of {@link #ALIGNMENT}, and must
+     *  be the same in every process which opens the file.
+     */
+    public MappedHitQueue(Path file, int capacity) throws IOException {
+
+        Utils.assertNotNull("file", file);
+
+        if (capacity <= 0 || Integer.MAX_VALUE - HEADER_SIZE - ALIGNMENT < capacity)
+            throw new IllegalArgumentException("The capacity must be greater than zero and less than "
+                + (Integer.MAX_VALUE - HEADER_SIZE - ALIGNMENT) + " (capacity: " + capacity + ")");
+
+        this.file = file;
+        this.capacity = align (capacity);
+
+        long size = HEADER_SIZE + (long) this.capacity;
+
+        this.fileChannel = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+
+        try {
+            long currentSize = fileChannel.size();
+
+            if (currentSize != 0 && currentSize != size)
+                throw new IOException("The file " + file + " has size " + currentSize + " but a queue with capacity "
+                    + this.capacity + " requires " + size + " bytes.");
+
+            this.mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            initialize ();
+
+        } catch (IOException | RuntimeException exception) {
+            fileChannel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Writes the header if no other process has done so yet, otherwise checks it.
+     */
+    synchronized void initialize () throws IOException {
+
+        try (FileLock headerLock = lockHeader ()) {
+
+            if (mappedByteBuffer.getInt(MAGIC_OFFSET) == 0) {
+
+                mappedByteBuffer.putInt(VERSION_OFFSET, VERSION);
+                mappedByteBuffer.putInt(CAPACITY_OFFSET, capacity);
+                mappedByteBuffer.putLong(HEAD_OFFSET, 0L);
+                mappedByteBuffer.putLong(TAIL_OFFSET, 0L);
+                mappedByteBuffer.putInt(MAGIC_OFFSET, MAGIC);
+
+                mappedByteBuffer.force();
+
+            } else if (mappedByteBuffer.getInt(MAGIC_OFFSET) != MAGIC
+                || mappedByteBuffer.getInt(VERSION_OFFSET) != VERSION
+                || mappedByteBuffer.getInt(CAPACITY_OFFSET) != capacity) {
+                throw new IOException("The file " + file + " is not a hit queue with a capacity of " + capacity + ".");
+            }
+        }
+    }
+
+    FileLock lockHeader () throws IOException {
+        return fileChannel.lock(0L, HEADER_SIZE, false);
+    }
+
+    static int align (int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Appends the hit to the queue, or returns false if the queue does not have room for it.
+     *
+     * @throws UncheckedIOException if the file cannot be locked.
+     */
+    public boolean offer (HitParameters hit) {
+
+        Utils.assertNotNull("hit", hit);
+
+        int length = HitCodec.encodedLength(hit);
+
+        int recordSize = align (LENGTH_SIZE + length);
+
+        if (capacity < recordSize) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+
+        synchronized (this) {
+            try (FileLock headerLock = lockHeader ()) {
+
+                long head = mappedByteBuffer.getLong(HEAD_OFFSET);
+                long tail = mappedByteBuffer.getLong(TAIL_OFFSET);
+
+                int offset = (int) (tail % capacity);
+
+                int untilEnd = capacity - offset;
+
+                if (head == tail && untilEnd < recordSize) {
+
+                    // The queue is empty, so rather than waiting for the head to pass the end of the ring, which it
+                    // never would if no more hits were sent, the padding is freed at once and the record goes at the
+                    // start; each step leaves a valid queue behind should this process die part way through.
+                    mappedByteBuffer.putInt(HEADER_SIZE + offset, PADDING);
+                    mappedByteBuffer.putLong(TAIL_OFFSET, tail + untilEnd);
+                    mappedByteBuffer.putLong(HEAD_OFFSET, tail + untilEnd);
+
+                    head = tail = tail + untilEnd;
+                    offset = 0;
+                    untilEnd = capacity;
+                }
+
+                int required = untilEnd < recordSize ? untilEnd + recordSize : recordSize;
+
+                if (capacity - (tail - head) < required) {
+                    rejectedCount.incrementAndGet();
+                    return false;
+                }
+
+                if (untilEnd < recordSize) {
+                    mappedByteBuffer.putInt(HEADER_SIZE + offset, PADDING);
+                    tail += untilEnd;
+                    offset = 0;
+                }
+
+                ByteBuffer target = mappedByteBuffer.duplicate();
+
+                target.limit(HEADER_SIZE + offset + LENGTH_SIZE + length);
+                target.position(HEADER_SIZE + offset + LENGTH_SIZE);
+
+                HitCodec.encode(hit, target);
+
+                mappedByteBuffer.putInt(HEADER_SIZE + offset, length);
+                // The tail is moved last so that a process which dies before this point leaves no partial record.
+                mappedByteBuffer.putLong(TAIL_OFFSET, tail + recordSize);
+
+            } catch (IOException ioException) {
+                throw new UncheckedIOException("The queue " + file + " could not be locked.", ioException);
+            }
+        }
+
+        offeredCount.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Returns a read-only view of the next hit, in the binary form written by {@link HitCodec}, or null if the queue
+     * is empty. The view is valid until the hit is committed. The first call makes this instance the consumer of the
+     * queue.
+     *
+     * @throws IllegalStateException if another process is already consuming the queue, or if the queue is corrupt.
+     * @throws UncheckedIOException if the file cannot be locked.
+     */
+    public ByteBuffer poll () {
+
+        acquireConsumerLock ();
+
+        if (readPosition == knownTail) {
+
+            synchronized (this) {
+                try (FileLock headerLock = lockHeader ()) {
+
+                    knownTail = mappedByteBuffer.getLong(TAIL_OFFSET);
+
+                    // A producer which found the queue empty may have freed the rest of the ring (see offer).
+                    readPosition = Math.max(readPosition, mappedByteBuffer.getLong(HEAD_OFFSET));
+
+                } catch (IOException ioException) {
+                    throw new UncheckedIOException("The queue " + file + " could not be locked.", ioException);
+                }
+            }
+
+            if (readPosition == knownTail)
+                return null;
+        }
+
+        int offset = (int) (readPosition % capacity);
+
+        int length = mappedByteBuffer.getInt(HEADER_SIZE + offset);
+
+        if (length == PADDING) {
+
+            readPosition += capacity - offset;
+            offset = 0;
+
+            // Only the padding was written, by a producer which died before it could free it (see offer).
+            if (readPosition == knownTail)
+                return poll ();
+
+            length = mappedByteBuffer.getInt(HEADER_SIZE);
+        }
+
+        int recordSize = align (LENGTH_SIZE + length);
+
+        if (length < 0 || capacity - offset < recordSize || knownTail - readPosition < recordSize)
+            throw new IllegalStateException("The queue " + file + " is corrupt; the record at position "
+                + readPosition + " has length " + length + ".");
+
+        ByteBuffer result = mappedByteBuffer.asReadOnlyBuffer();
+
+        result.limit(HEADER_SIZE + offset + LENGTH_SIZE + length);
+        result.position(HEADER_SIZE + offset + LENGTH_SIZE);
+
+        readPosition += recordSize;
+
+        return result;
+    }
+
+    /**
+     * Returns the position of the next hit {@link #poll()} will return, which can be passed to
+     * {@link #commit(long)} to free the hits before it.
+     */
+    public long getReadPosition () {
+
+        acquireConsumerLock ();
+
+        return readPosition;
+    }
+
+    /**
+     * Returns the position the next hit will be appended at; once {@link #getReadPosition()} reaches it, every hit
+     * which had been appended before this method was called has been polled.
+     *
+     * @throws UncheckedIOException if the file cannot be locked.
+     */
+    public synchronized long getWritePosition () {
+        try (FileLock headerLock = lockHeader ()) {
+            return mappedByteBuffer.getLong(TAIL_OFFSET);
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("The queue " + file + " could not be locked.", ioException);
+        }
+    }
+
+    /**
+     * Frees the space used by every hit returned by {@link #poll()} so far.
+     *
+     * @throws UncheckedIOException if the file cannot be locked.
+     */
+    public void commit () {
+        commit (getReadPosition ());
+    }
+
+    /**
+     * Frees the space used by the hits before the position, which was returned by {@link #getReadPosition()}.
+     *
+     * @throws IllegalArgumentException if the position is ahead of the read position.
+     * @throws UncheckedIOException if the file cannot be locked.
+     */
+    public void commit (long position) {
+
+        acquireConsumerLock ();
+
+        if (readPosition < position)
+            throw new IllegalArgumentException("The position " + position + " is ahead of the read position "
+                + readPosition + ".");
+
+        synchronized (this) {
+            try (FileLock headerLock = lockHeader ()) {
+                if (mappedByteBuffer.getLong(HEAD_OFFSET) < position)
+                    mappedByteBuffer.putLong(HEAD_OFFSET, position);
+            } catch (IOException ioException) {
+                throw new UncheckedIOException("The queue " + file + " could not be locked.", ioException);
+            }
+        }
+    }
+
+    synchronized void acquireConsumerLock () {
+
+        if (consumerLock != null)
+            return;
+
+        try {
+            try {
+                consumerLock = fileChannel.tryLock(CONSUMER_LOCK_POSITION, 1L, false);
+            } catch (OverlappingFileLockException overlappingFileLockException) {
+                // Another instance in this JVM is the consumer.
+                consumerLock = null;
+            }
+
+            if (consumerLock == null)
+                throw new IllegalStateException("The queue " + file + " is already being consumed by another "
+                    + "process.");
+
+            try (FileLock headerLock = lockHeader ()) {
+                readPosition = mappedByteBuffer.getLong(HEAD_OFFSET);
+                knownTail = mappedByteBuffer.getLong(TAIL_OFFSET);
+            }
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("The queue " + file + " could not be locked.", ioException);
+        }
+    }
+
+    /**
+     * Returns the number of bytes in use by hits which have not been committed.
+     */
+    public synchronized long getUsedBytes () {
+        try (FileLock headerLock = lockHeader ()) {
+            return mappedByteBuffer.getLong(TAIL_OFFSET) - mappedByteBuffer.getLong(HEAD_OFFSET);
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("The queue " + file + " could not be locked.", ioException);
+        }
+    }
+
+    public int getCapacity () {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of hits this instance has appended to the queue.
+     */
+    public long getOfferedCount () {
+        return offeredCount.get();
+    }
+
+    /**
+     * Returns the number of hits this instance could not append because the queue was full or the hit was larger
+     * than the queue.
+     */
+    public long getRejectedCount () {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Forces the contents of the queue to be written to disk.
+     */
+    public void flush () {
+        mappedByteBuffer.force();
+    }
+
+    /**
+     * Closes the file; hits which were polled but not committed will be delivered to the next consumer.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (consumerLock != null) {
+            consumerLock.release();
+            consumerLock = null;
+        }
+
+        fileChannel.close();
+    }
+}
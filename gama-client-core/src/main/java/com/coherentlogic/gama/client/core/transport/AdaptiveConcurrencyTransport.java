@@ -0,0 +1,254 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
+
+/**
+ * A {@link Transport} which limits the number of sends in flight through the delegate, and adjusts that limit using
+ * additive increase, multiplicative decrease (AIMD): every send which completes quickly while the limit is in use
+ * raises the limit by 1 / limit (so by about one per round trip), while a send which fails, or which takes longer than
+ * tolerance times the shortest recent round trip, cuts the limit by the backoffRatio. Cuts are at most once per round
+ * trip, so that a burst of slow responses caused by a single cut is not counted again. The shortest round trip is
+ * forgotten every {@link #MIN_RTT_WINDOW} sends so the baseline follows the collector when its latency shifts.
+ *
+ * Callers which would exceed the limit wait for a send to complete. When the collector is fast the limit climbs until
+ * the callers, not the limit, are the bottleneck; when it slows down or starts failing, fewer requests are sent at once
+ * rather than piling up into timeouts. Give the transport more callers (for example lanes, see
+ * {@link com.coherentlogic.gama.client.core.dispatch.StripedDispatcher}) than maxLimit so there is room to grow.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class AdaptiveConcurrencyTransport implements Transport {
+
+    public static final double DEFAULT_TOLERANCE = 2.0, DEFAULT_BACKOFF_RATIO = 0.9;
+
+    /**
+     * The number of sends after which the shortest round trip is measured afresh.
+     */
+    static final int MIN_RTT_WINDOW = 1000;
+
+    private final Transport delegate;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final double backoffRatio;
+
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock ();
+
+    private final Condition available = lock.newCondition();
+
+    private final AtomicLong decreaseCount = new AtomicLong ();
+
+    private double limit;
+
+    private int inFlight = 0;
+
+    private long minRttNanos = Long.MAX_VALUE;
+
+    private long nextMinRttNanos = Long.MAX_VALUE;
+
+    private int samplesInWindow = 0;
+
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyTransport(Transport delegate, int initialLimit, int minLimit, int maxLimit) {
+        this(delegate, initialLimit, minLimit, maxLimit, DEFAULT_TOLERANCE, DEFAULT_BACKOFF_RATIO, System::nanoTime);
+    }
+
+    /**
+     * @param tolerance A send which takes longer than this multiple of the shortest recent round trip counts as a
+     *  sign of congestion.
+     * @param backoffRatio The factor the limit is multiplied by on congestion.
+     */
+    public AdaptiveConcurrencyTransport(
+        Transport delegate,
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        double tolerance,
+        double backoffRatio,
+        LongSupplier nanoClock
+    ) {
+        Utils.assertNotNull("delegate", delegate);
+        Utils.assertNotNull("nanoClock", nanoClock);
+
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || maxLimit < initialLimit)
+            throw new IllegalArgumentException("The limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit "
+                + "(minLimit: " + minLimit + ", initialLimit: " + initialLimit + ", maxLimit: " + maxLimit + ")");
+
+        if (tolerance <= 1.0)
+            throw new IllegalArgumentException("The tolerance must be greater than one (tolerance: " + tolerance
+                + ")");
+
+        if (backoffRatio <= 0.0 || 1.0 <= backoffRatio)
+            throw new IllegalArgumentException("The backoffRatio must be between zero and one (backoffRatio: "
+                + backoffRatio + ")");
+
+        this.delegate = delegate;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Waits until the limit allows another send and then sends the payload using the delegate.
+     *
+     * @throws PostFailedException if the calling thread is interrupted while waiting.
+     */
+    @Override
+    public String send(ByteBuffer payload) {
+
+        acquire ();
+
+        long startNanos = nanoClock.getAsLong();
+
+        boolean failed = true;
+
+        try {
+            String result = delegate.send(payload);
+
+            failed = false;
+
+            return result;
+        } finally {
+            release (nanoClock.getAsLong() - startNanos, failed);
+        }
+    }
+
+    void acquire () {
+
+        lock.lock();
+
+        try {
+            while ((int) limit <= inFlight)
+                available.await();
+
+            inFlight++;
+
+        } catch (InterruptedException interruptedException) {
+
+            Thread.currentThread().interrupt();
+
+            throw new PostFailedException("Interrupted while waiting to send.", interruptedException);
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release (long rttNanos, boolean failed) {
+
+        lock.lock();
+
+        try {
+            // The limit is only raised if it is being used, otherwise it would grow without bound while idle.
+            boolean saturated = (int) limit <= inFlight * 2;
+
+            inFlight--;
+
+            if (!failed)
+                updateMinRtt (rttNanos);
+
+            long now = nanoClock.getAsLong();
+
+            boolean congested = failed || (minRttNanos != Long.MAX_VALUE && tolerance * minRttNanos < rttNanos);
+
+            if (congested) {
+                if (Math.min(rttNanos, minRttNanos) <= now - lastDecreaseNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                    decreaseCount.incrementAndGet();
+                }
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+
+            available.signalAll();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void updateMinRtt (long rttNanos) {
+
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        nextMinRttNanos = Math.min(nextMinRttNanos, rttNanos);
+
+        if (MIN_RTT_WINDOW <= ++samplesInWindow) {
+            minRttNanos = nextMinRttNanos;
+            nextMinRttNanos = Long.MAX_VALUE;
+            samplesInWindow = 0;
+        }
+    }
+
+    /**
+     * Returns the number of sends currently allowed in flight.
+     */
+    public int getLimit () {
+
+        lock.lock();
+
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight () {
+
+        lock.lock();
+
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the shortest round trip observed recently, or -1 if no send has succeeded yet.
+     */
+    public long getMinRtt (TimeUnit unit) {
+
+        lock.lock();
+
+        try {
+            return minRttNanos == Long.MAX_VALUE ? -1L : unit.convert(minRttNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times the limit has been cut.
+     */
+    public long getDecreaseCount () {
+        return decreaseCount.get();
+    }
+
+    public Transport getDelegate () {
+        return delegate;
+    }
+}
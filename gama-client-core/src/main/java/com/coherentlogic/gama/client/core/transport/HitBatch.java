@@ -0,0 +1,219 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import java.io.Closeable;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.encoders.HitCodec;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+import com.coherentlogic.gama.client.core.hits.Hit;
+
+/**
+ * Encodes hits, one per line, into a payload for the Measurement Protocol batch endpoint, which accepts at most
+ * {@link #MAX_HITS} hits and {@link #MAX_PAYLOAD_SIZE_IN_BYTES} bytes per request, with each hit limited to
+ * {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES} bytes.
+ *
+ * <pre>
+ * if (!hitBatch.add(queryBuilder)) {
+ *     transport.send(hitBatch.drain());
+ *     hitBatch.add(queryBuilder);
+ * }
+ * </pre>
+ *
+ * This class is not thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitBatch implements Closeable {
+
+    public static final String GOOGLE_ANALYTICS_BATCH_URL = "http://www.google-analytics.com/batch";
+
+    public static final int MAX_HITS = 20;
+
+    public static final int MAX_PAYLOAD_SIZE_IN_BYTES = ByteBufferPool.BATCH_SLOT_SIZE;
+
+    static final byte NEW_LINE = '\n';
+
+    private final ByteBufferPool byteBufferPool;
+
+    private PooledByteBuffer payload = null;
+
+    private int hitCount = 0;
+
+    public HitBatch(ByteBufferPool byteBufferPool) {
+
+        Utils.assertNotNull("byteBufferPool", byteBufferPool);
+
+        this.byteBufferPool = byteBufferPool;
+    }
+
+    /**
+     * Appends the hit to the batch, or returns false, leaving the batch as it was, when the batch already holds
+     * {@link #MAX_HITS} hits or does not have room for this one.
+     *
+     * @throws PayloadTooLargeException if the hit on its own exceeds {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    public boolean add (QueryBuilder queryBuilder) {
+
+        Utils.assertNotNull("queryBuilder", queryBuilder);
+
+        return append (queryBuilder::encodeTo);
+    }
+
+    /**
+     * Appends the hit's cached bytes to the batch, or returns false, leaving the batch as it was, when the batch
+     * already holds {@link #MAX_HITS} hits or does not have room for this one.
+     *
+     * @throws PayloadTooLargeException if the hit exceeds {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    public boolean add (Hit hit) {
+
+        Utils.assertNotNull("hit", hit);
+
+        return append (hit::encodeTo);
+    }
+
+    /**
+     * Appends the hit, in the binary form written by {@link HitCodec}, to the batch, or returns false when the batch
+     * already holds {@link #MAX_HITS} hits or does not have room for this one; in that case neither the batch nor the
+     * position of the source is changed. Otherwise the source's position is advanced past the hit.
+     *
+     * @throws PayloadTooLargeException if the hit on its own exceeds {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     * @throws com.coherentlogic.gama.client.core.exceptions.MalformedHitException if the hit is truncated or corrupt.
+     */
+    public boolean addBinary (ByteBuffer source) {
+
+        Utils.assertNotNull("source", source);
+
+        ByteBuffer hit = source.duplicate();
+
+        boolean result = append (target -> {
+            try {
+                HitCodec.toFormUrlEncoded(hit, target);
+            } catch (BufferOverflowException bufferOverflowException) {
+                throw new PayloadTooLargeException(target.capacity(), bufferOverflowException);
+            }
+        });
+
+        if (result)
+            source.position(hit.position());
+
+        return result;
+    }
+
+    /**
+     * Appends a hit which is already form-urlencoded, copying the bytes between the source's position and limit, or
+     * returns false when the batch already holds {@link #MAX_HITS} hits or does not have room for this one. The
+     * source's position is not changed, and the caller is responsible for checking that the bytes are a valid hit
+     * (see {@link com.coherentlogic.gama.client.core.encoders.FormUrlEncoder#isFormUrlEncoded(ByteBuffer)}).
+     *
+     * @throws PayloadTooLargeException if the hit on its own exceeds {@link QueryBuilder#MAX_PAYLOAD_SIZE_IN_BYTES}.
+     */
+    public boolean addEncoded (ByteBuffer source) {
+
+        Utils.assertNotNull("source", source);
+
+        return append (target -> {
+
+            if (target.remaining() < source.remaining())
+                throw new PayloadTooLargeException(target.capacity(), null);
+
+            target.put(source.duplicate());
+        });
+    }
+
+    boolean append (Consumer<ByteBuffer> encoder) {
+
+        if (MAX_HITS <= hitCount)
+            return false;
+
+        if (payload == null) {
+            payload = byteBufferPool.acquireBatchBuffer();
+            payload.getByteBuffer().limit(MAX_PAYLOAD_SIZE_IN_BYTES);
+        }
+
+        ByteBuffer buffer = payload.getByteBuffer();
+
+        ByteBuffer view = buffer.duplicate();
+
+        if (0 < hitCount) {
+
+            if (!view.hasRemaining())
+                return false;
+
+            view.put(NEW_LINE);
+        }
+
+        int hitLimit = view.position() + QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES;
+
+        boolean hasRoomForLargestHit = hitLimit <= view.limit();
+
+        if (hasRoomForLargestHit)
+            view.limit(hitLimit);
+
+        try {
+            encoder.accept(view);
+        } catch (PayloadTooLargeException payloadTooLargeException) {
+
+            if (hasRoomForLargestHit)
+                throw new PayloadTooLargeException(QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES, payloadTooLargeException);
+
+            return false;
+        }
+
+        buffer.position(view.position());
+
+        hitCount++;
+
+        return true;
+    }
+
+    public int getHitCount () {
+        return hitCount;
+    }
+
+    public boolean isEmpty () {
+        return hitCount == 0;
+    }
+
+    /**
+     * Returns the flipped payload, which the caller must release (for example by passing it to
+     * {@link Transport#send(PooledByteBuffer)}), and starts a new, empty batch.
+     *
+     * @throws IllegalStateException if the batch is empty.
+     */
+    public PooledByteBuffer drain () {
+
+        if (hitCount == 0)
+            throw new IllegalStateException("The batch is empty.");
+
+        PooledByteBuffer result = payload;
+
+        result.getByteBuffer().flip();
+
+        payload = null;
+        hitCount = 0;
+
+        return result;
+    }
+
+    /**
+     * Releases the payload of a batch which will not be sent.
+     */
+    @Override
+    public void close() {
+
+        if (payload != null) {
+            payload.release();
+            payload = null;
+        }
+
+        hitCount = 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces permits evenly so that no more than permitsPerSecond are handed out per second, on average, across all
+ * threads; a caller which asks for several permits at once waits for all of them.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class RateLimiter {
+
+    private final long nanosPerPermit;
+
+    private long nextFreeNanos = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond The rate, or zero (or less) for no limit.
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this.nanosPerPermit = permitsPerSecond <= 0 ? 0L : (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * Blocks until the permits are available.
+     */
+    public void acquire (int permits) throws InterruptedException {
+
+        long waitNanos = reserve (permits);
+
+        if (0 < waitNanos)
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    /**
+     * Reserves the permits and returns how long the caller must wait before using them.
+     */
+    synchronized long reserve (int permits) {
+
+        if (nanosPerPermit == 0L)
+            return 0L;
+
+        long now = System.nanoTime();
+
+        if (nextFreeNanos - now < 0)
+            nextFreeNanos = now;
+
+        long result = nextFreeNanos - now;
+
+        nextFreeNanos += permits * nanosPerPermit;
+
+        return result;
+    }
+}
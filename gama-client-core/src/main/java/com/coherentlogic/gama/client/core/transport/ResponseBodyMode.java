@@ -0,0 +1,21 @@
+package com.coherentlogic.gama.client.core.transport;
+
+/**
+ * What is done with the body of the response to a send.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public enum ResponseBodyMode {
+
+    /**
+     * The body is read into a String, which is available from {@link SendReceipt#getBody()}.
+     */
+    BUFFER,
+
+    /**
+     * The body is read and dropped through a reusable scratch array so the connection can be reused; nothing is
+     * allocated for it. The Measurement API always answers with the same 1x1 GIF, so this is usually what is wanted.
+     */
+    DISCARD
+}
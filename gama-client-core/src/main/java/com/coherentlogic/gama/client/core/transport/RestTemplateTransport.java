@@ -0,0 +1,184 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
+
+/**
+ * A {@link Transport} which posts the payload as an application/x-www-form-urlencoded body using a RestTemplate.
+ *
+ * The payload is written straight to the request body; direct buffers are copied through a per-thread scratch array
+ * so that no byte array needs to be allocated for each send. {@link #exchange(ByteBuffer, ResponseBodyMode)} returns a
+ * {@link SendReceipt} in place of the response body, and can drop the body through the same scratch array.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class RestTemplateTransport implements Transport {
+
+    private static final ThreadLocal<byte[]> scratch =
+        ThreadLocal.withInitial(() -> new byte[QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES]);
+
+    private final RestTemplate restTemplate;
+
+    private final URI endpoint;
+
+    private final ResponseBodyMode responseBodyMode;
+
+    public RestTemplateTransport(RestTemplate restTemplate) {
+        this(restTemplate, URI.create(QueryBuilder.GOOGLE_ANALYTICS_URL));
+    }
+
+    public RestTemplateTransport(RestTemplate restTemplate, URI endpoint) {
+        this(restTemplate, endpoint, ResponseBodyMode.BUFFER);
+    }
+
+    /**
+     * @param responseBodyMode What {@link #send(ByteBuffer)} does with the body of the response.
+     */
+    public RestTemplateTransport(RestTemplate restTemplate, URI endpoint, ResponseBodyMode responseBodyMode) {
+
+        Utils.assertNotNull("restTemplate", restTemplate);
+        Utils.assertNotNull("endpoint", endpoint);
+        Utils.assertNotNull("responseBodyMode", responseBodyMode);
+
+        this.restTemplate = restTemplate;
+        this.endpoint = endpoint;
+        this.responseBodyMode = responseBodyMode;
+    }
+
+    public RestTemplate getRestTemplate() {
+        return restTemplate;
+    }
+
+    public URI getEndpoint() {
+        return endpoint;
+    }
+
+    public ResponseBodyMode getResponseBodyMode() {
+        return responseBodyMode;
+    }
+
+    /**
+     * Sends the payload and returns the body of the response, or null if this transport discards it.
+     */
+    @Override
+    public String send(ByteBuffer payload) {
+        return exchange(payload, responseBodyMode).getBody();
+    }
+
+    public SendReceipt exchange(ByteBuffer payload, ResponseBodyMode mode) {
+        return exchange(payload, mode, 0L);
+    }
+
+    /**
+     * Sends the bytes between the payload's position and limit and describes the send.
+     *
+     * @param encodeNanos The time which was taken to encode the payload, which is copied to the receipt.
+     *
+     * @throws PostFailedException if the http status code is not OK.
+     */
+    public SendReceipt exchange(ByteBuffer payload, ResponseBodyMode mode, long encodeNanos) {
+
+        Utils.assertNotNull("payload", payload);
+        Utils.assertNotNull("mode", mode);
+
+        ByteBuffer source = payload.duplicate();
+
+        int bytesSent = source.remaining();
+
+        // The start of the exchange and the time the request factory handed over the request.
+        long[] marks = new long[] { System.nanoTime(), 0L };
+
+        return restTemplate.execute(
+            endpoint,
+            HttpMethod.POST,
+            (ClientHttpRequest request) -> {
+
+                marks[1] = System.nanoTime();
+
+                request.getHeaders().setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+                request.getHeaders().setContentLength(bytesSent);
+
+                write(source, request.getBody());
+            },
+            (ClientHttpResponse response) -> {
+
+                int status = response.getRawStatusCode();
+
+                if (HttpStatus.OK.value() != status)
+                    throw new PostFailedException("The post failed for the URI " + endpoint +
+                        " (http status: " + status + ")");
+
+                String body = null;
+
+                if (mode == ResponseBodyMode.BUFFER)
+                    body = StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+                else
+                    discard(response.getBody());
+
+                return new SendReceipt (
+                    endpoint,
+                    status,
+                    bytesSent,
+                    encodeNanos,
+                    marks[1] - marks[0],
+                    System.nanoTime() - marks[1],
+                    body
+                );
+            }
+        );
+    }
+
+    /**
+     * Reads the source to the end without keeping what was read, so that the connection can be reused.
+     */
+    static void discard (InputStream source) throws IOException {
+
+        if (source == null)
+            return;
+
+        byte[] buffer = scratch.get();
+
+        while (source.read(buffer) != -1)
+            ;
+    }
+
+    static void write (ByteBuffer source, OutputStream target) throws IOException {
+
+        if (source.hasArray()) {
+
+            target.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+
+            source.position(source.limit());
+
+            return;
+        }
+
+        byte[] buffer = scratch.get();
+
+        while (source.hasRemaining()) {
+
+            int length = Math.min(buffer.length, source.remaining());
+
+            source.get(buffer, 0, length);
+
+            target.write(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
+
+/**
+ * A {@link Transport} which retries a send that fails with exponential backoff: the first retry waits
+ * retryBackoffMillis, and every subsequent retry waits twice as long as the one before. Once maxRetries have failed,
+ * or once the caller's cancelled condition is true, the last failure is thrown and the caller decides whether the
+ * payload is dropped.
+ *
+ * Every attempt sends the bytes between the payload's position and limit as they were when send was called, so the
+ * payload is sent in full even if the delegate consumed it on a failed attempt.
+ *
+ * This class is thread-safe, provided the delegate is.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class RetryingTransport implements Transport {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryingTransport.class);
+
+    /**
+     * The backoff stops doubling after this many retries, so that it cannot overflow.
+     */
+    static final int MAX_BACKOFF_SHIFT = 16;
+
+    private final Transport delegate;
+
+    private final int maxRetries;
+
+    private final long retryBackoffMillis;
+
+    private final BooleanSupplier cancelled;
+
+    private final AtomicLong retryCount = new AtomicLong ();
+
+    /**
+     * @param maxRetries The number of times a send is retried before the failure is thrown.
+     * @param retryBackoffMillis The delay before the first retry, which doubles for every subsequent retry.
+     */
+    public RetryingTransport(Transport delegate, int maxRetries, long retryBackoffMillis) {
+        this(delegate, maxRetries, retryBackoffMillis, () -> false);
+    }
+
+    /**
+     * @param cancelled Checked after every failure; once it returns true the send is not retried again, for example
+     *  because the caller is shutting down.
+     */
+    public RetryingTransport(Transport delegate, int maxRetries, long retryBackoffMillis, BooleanSupplier cancelled) {
+
+        Utils.assertNotNull("delegate", delegate);
+        Utils.assertNotNull("cancelled", cancelled);
+
+        if (maxRetries < 0 || retryBackoffMillis < 0)
+            throw new IllegalArgumentException("The maxRetries and retryBackoffMillis cannot be negative (maxRetries: "
+                + maxRetries + ", retryBackoffMillis: " + retryBackoffMillis + ")");
+
+        this.delegate = delegate;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Sends the payload using the delegate, retrying until it succeeds, maxRetries have failed or the send is
+     * cancelled.
+     *
+     * @throws RuntimeException the failure of the last attempt.
+     * @throws PostFailedException if the calling thread is interrupted while waiting to retry; the interrupt status is
+     *  restored.
+     */
+    @Override
+    public String send(ByteBuffer payload) {
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return delegate.send(payload.duplicate());
+            } catch (RuntimeException runtimeException) {
+
+                if (maxRetries <= attempt || cancelled.getAsBoolean())
+                    throw runtimeException;
+
+                long backoffMillis = getBackoffMillis (attempt);
+
+                log.warn("The batch could not be sent (attempt " + (attempt + 1) + "); retrying in "
+                    + backoffMillis + " milliseconds.", runtimeException);
+
+                retryCount.incrementAndGet();
+
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMillis);
+                } catch (InterruptedException interruptedException) {
+
+                    Thread.currentThread().interrupt();
+
+                    throw new PostFailedException("Interrupted while waiting to retry.", interruptedException);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the delay before the retry which follows the given (zero-based) failed attempt.
+     */
+    long getBackoffMillis (int attempt) {
+        return retryBackoffMillis << Math.min(attempt, MAX_BACKOFF_SHIFT);
+    }
+
+    /**
+     * Returns the number of sends which have been retried, counting every retry.
+     */
+    public long getRetryCount () {
+        return retryCount.get();
+    }
+
+    public int getMaxRetries () {
+        return maxRetries;
+    }
+
+    public Transport getDelegate () {
+        return delegate;
+    }
+}
@@ -0,0 +1,113 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes a completed send: where the payload went, how large it was, the http status of the response, and how long
+ * each phase took. The phases are:
+ *
+ * <ul>
+ * <li>encode: writing the hit into the payload buffer; zero when the payload was already encoded.</li>
+ * <li>request creation: obtaining the request from the RestTemplate's request factory.</li>
+ * <li>send: writing the body and waiting for the response, including reading or discarding the response body.</li>
+ * </ul>
+ *
+ * The time taken to connect is not reported separately, as the request factory does not say when it connects: the
+ * {@link org.springframework.http.client.SimpleClientHttpRequestFactory}, for example, opens the connection while the
+ * body is written, so connecting is counted as part of the send.
+ *
+ * Instances are immutable.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class SendReceipt {
+
+    private final URI endpoint;
+
+    private final int status;
+
+    private final int bytesSent;
+
+    private final long encodeNanos;
+
+    private final long requestCreationNanos;
+
+    private final long sendNanos;
+
+    private final String body;
+
+    public SendReceipt(
+        URI endpoint,
+        int status,
+        int bytesSent,
+        long encodeNanos,
+        long requestCreationNanos,
+        long sendNanos,
+        String body
+    ) {
+        this.endpoint = endpoint;
+        this.status = status;
+        this.bytesSent = bytesSent;
+        this.encodeNanos = encodeNanos;
+        this.requestCreationNanos = requestCreationNanos;
+        this.sendNanos = sendNanos;
+        this.body = body;
+    }
+
+    public URI getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the http status code of the response.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of payload bytes in the request body.
+     */
+    public int getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getEncodeDuration(TimeUnit unit) {
+        return unit.convert(encodeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the time taken to obtain the request from the request factory; this does not include connecting for
+     * factories which connect while the body is written.
+     */
+    public long getRequestCreationDuration(TimeUnit unit) {
+        return unit.convert(requestCreationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getSendDuration(TimeUnit unit) {
+        return unit.convert(sendNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the sum of the encode, request creation and send durations.
+     */
+    public long getTotalDuration(TimeUnit unit) {
+        return unit.convert(encodeNanos + requestCreationNanos + sendNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the body of the response, or null if it was discarded (see {@link ResponseBodyMode#DISCARD}).
+     */
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return "SendReceipt [endpoint=" + endpoint + ", status=" + status + ", bytesSent=" + bytesSent
+            + ", encodeNanos=" + encodeNanos + ", requestCreationNanos=" + requestCreationNanos + ", sendNanos="
+            + sendNanos + "]";
+    }
+}
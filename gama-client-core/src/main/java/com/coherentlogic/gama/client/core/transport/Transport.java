@@ -0,0 +1,35 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import java.nio.ByteBuffer;
+
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+
+/**
+ * Sends an already encoded payload (one hit or a batch of hits) to the Measurement API.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public interface Transport {
+
+    /**
+     * Sends the bytes between the payload's position and limit.
+     *
+     * @return The body of the response, or null if the transport discards it.
+     *
+     * @throws com.coherentlogic.gama.client.core.exceptions.PostFailedException if the http status code is not OK.
+     */
+    String send (ByteBuffer payload);
+
+    /**
+     * Sends the bytes between the payload's position and limit and then releases the payload, regardless of whether
+     * the send succeeded.
+     */
+    default String send (PooledByteBuffer payload) {
+        try {
+            return send(payload.getByteBuffer());
+        } finally {
+            payload.release();
+        }
+    }
+}
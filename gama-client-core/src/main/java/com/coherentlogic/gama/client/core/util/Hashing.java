@@ -0,0 +1,61 @@
+package com.coherentlogic.gama.client.core.util;
+
+/**
+ * Fast, non-cryptographic hash functions which are stable across JVMs and restarts (unlike, for example,
+ * {@link String#hashCode()} combined with a per-instance seed), so they can be used to partition hits and to persist
+ * hashed keys.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class Hashing {
+
+    public static final long DEFAULT_SEED = 0xCBF29CE484222325L;
+
+    private Hashing() {
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the characters in the value, finished with {@link #mix(long)}; different seeds yield
+     * independent hashes.
+     */
+    public static long hash (CharSequence value, long seed) {
+
+        long result = seed;
+
+        int length = value.length();
+
+        for (int ctr = 0; ctr < length; ctr++) {
+            result ^= value.charAt(ctr);
+            result *= 0x100000001B3L;
+        }
+
+        return mix(result ^ length);
+    }
+
+    /**
+     * Returns {@link #hash(CharSequence, long)} using the {@link #DEFAULT_SEED}.
+     */
+    public static long hash (CharSequence value) {
+        return hash(value, DEFAULT_SEED);
+    }
+
+    /**
+     * The finalization step of the SplitMix64 generator.
+     */
+    public static long mix (long value) {
+
+        long result = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+
+        return result ^ (result >>> 31);
+    }
+
+    /**
+     * Maps the hash onto a double which is uniformly distributed between zero (inclusive) and one (exclusive).
+     */
+    public static double toUnitInterval (long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,132 @@
+package com.coherentlogic.gama.client.core.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Measures and shortens strings by their UTF-8 encoded length, which is how the Measurement Protocol limits the size of
+ * parameter values.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public final class Utf8 {
+
+    private Utf8() {
+    }
+
+    /**
+     * Returns the number of bytes the character occupies when encoded; each half of a surrogate pair counts as two.
+     */
+    public static int length (char value) {
+        return value < 0x80 ? 1 : value < 0x800 || Character.isSurrogate(value) ? 2 : 3;
+    }
+
+    public static int length (CharSequence value) {
+
+        int result = 0;
+
+        for (int ctr = 0; ctr < value.length(); ctr++)
+            result += length(value.charAt(ctr));
+
+        return result;
+    }
+
+    /**
+     * Returns the longest prefix of the value which encodes to at most maxLengthInBytes, without splitting a surrogate
+     * pair; the value itself is returned when it already fits.
+     */
+    public static String truncate (String value, int maxLengthInBytes) {
+
+        int total = 0;
+
+        for (int ctr = 0; ctr < value.length(); ctr++) {
+
+            char next = value.charAt(ctr);
+
+            total += length(next);
+
+            if (maxLengthInBytes < total) {
+
+                int end = ctr;
+
+                if (0 < end && Character.isHighSurrogate(value.charAt(end - 1)))
+                    end--;
+
+                return value.substring(0, end);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the exact number of bytes that {@link #encode(CharSequence, ByteBuffer)} will write for the value.
+     */
+    public static int encodedLength (CharSequence value) {
+
+        int result = 0;
+        int length = value.length();
+
+        for (int ctr = 0; ctr < length; ctr++) {
+
+            char next = value.charAt(ctr);
+
+            if (next < 0x80)
+                result += 1;
+            else if (next < 0x800)
+                result += 2;
+            else if (Character.isHighSurrogate(next)
+                && ctr + 1 < length
+                && Character.isLowSurrogate(value.charAt(ctr + 1))) {
+                result += 4;
+                ctr++;
+            } else if (Character.isSurrogate(next))
+                result += 1;
+            else
+                result += 3;
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the UTF-8 form of the value to the target, starting at the target's current position; unpaired
+     * surrogates are replaced with '?', which is what {@link String#getBytes(java.nio.charset.Charset)} does.
+     *
+     * @throws java.nio.BufferOverflowException if the target does not have enough space remaining.
+     */
+    public static ByteBuffer encode (CharSequence value, ByteBuffer target) {
+
+        int length = value.length();
+
+        for (int ctr = 0; ctr < length; ctr++) {
+
+            char next = value.charAt(ctr);
+
+            if (next < 0x80) {
+                target.put((byte) next);
+            } else if (next < 0x800) {
+                target.put((byte) (0xC0 | (next >> 6)));
+                target.put((byte) (0x80 | (next & 0x3F)));
+            } else if (Character.isHighSurrogate(next)
+                && ctr + 1 < length
+                && Character.isLowSurrogate(value.charAt(ctr + 1))) {
+
+                int codePoint = Character.toCodePoint(next, value.charAt(++ctr));
+
+                target.put((byte) (0xF0 | (codePoint >> 18)));
+                target.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                target.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                target.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(next)) {
+                target.put((byte) '?');
+            } else {
+                target.put((byte) (0xE0 | (next >> 12)));
+                target.put((byte) (0x80 | ((next >> 6) & 0x3F)));
+                target.put((byte) (0x80 | (next & 0x3F)));
+            }
+        }
+
+        return target;
+    }
+}
@@ -0,0 +1,358 @@
+package com.coherentlogic.gama.client.core.web;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.cid.ClientIdGenerator;
+import com.coherentlogic.gama.client.core.dispatch.Dispatcher;
+import com.coherentlogic.gama.client.core.dispatch.PostingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.StripedDispatcher;
+import com.coherentlogic.gama.client.core.util.Utf8;
+
+/**
+ * A servlet {@link Filter} which sends a page view hit for every HTTP request it sees, built from the request -- the
+ * document location, host name and path, the referrer, user agent, IP address and language -- and the time the rest
+ * of the filter chain took to respond (srt).
+ *
+ * The hit is handed to a {@link Dispatcher} once the response is complete, so the dispatcher should be asynchronous
+ * (for example a {@link StripedDispatcher}) for the filter to add almost nothing to the request latency. The hit is
+ * offered (see {@link Dispatcher#offer(QueryBuilder)}) rather than dispatched, so when the dispatcher falls behind page
+ * views are dropped and counted instead of holding up the request thread. Requests which go asynchronous are timed
+ * until the asynchronous processing completes.
+ *
+ * The client id is taken from the analytics.js _ga cookie when the request carries one, and is random otherwise.
+ *
+ * When the filter is created by the container it is configured using the following init parameters:
+ *
+ * <ul>
+ * <li>trackingId -- required, for example UA-12345-1.</li>
+ * <li>uri -- the Measurement Protocol endpoint, {@link QueryBuilder#GOOGLE_ANALYTICS_URL} by default.</li>
+ * <li>laneCount and laneCapacity -- the size of the {@link StripedDispatcher} which sends the hits, 2 and 1024 by
+ * default.</li>
+ * <li>trustForwardedFor -- true if the IP address should be taken from the X-Forwarded-For header, which should only be
+ * done behind a proxy which sets it; false by default.</li>
+ * </ul>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class PageviewFilter implements Filter {
+
+    private static final Logger log = LoggerFactory.getLogger(PageviewFilter.class);
+
+    public static final String TRACKING_ID = "trackingId",
+        URI = "uri",
+        LANE_COUNT = "laneCount",
+        LANE_CAPACITY = "laneCapacity",
+        TRUST_FORWARDED_FOR = "trustForwardedFor";
+
+    static final String GA_COOKIE = "_ga",
+        REFERER = "Referer",
+        USER_AGENT = "User-Agent",
+        ACCEPT_LANGUAGE = "Accept-Language",
+        X_FORWARDED_FOR = "X-Forwarded-For";
+
+    static final int MAX_URL_LENGTH_IN_BYTES = 2048,
+        MAX_HOST_NAME_LENGTH_IN_BYTES = 100,
+        MAX_LANGUAGE_LENGTH_IN_BYTES = 20;
+
+    private String trackingId;
+
+    private Dispatcher dispatcher;
+
+    private QueryBuilderPool queryBuilderPool;
+
+    private boolean trustForwardedFor;
+
+    private Closeable ownedDispatcher = null;
+
+    private final ClientIdGenerator clientIdGenerator = ClientIdGenerator.getInstance();
+
+    private final LongAdder sentCount = new LongAdder ();
+
+    private final LongAdder failedCount = new LongAdder ();
+
+    private final LongAdder droppedCount = new LongAdder ();
+
+    /**
+     * Used by the container; the filter is configured by {@link #init(FilterConfig)}.
+     */
+    public PageviewFilter() {
+    }
+
+    /**
+     * Used when the filter is registered programmatically; {@link #init(FilterConfig)} does not change the
+     * configuration and {@link #destroy()} does not close the dispatcher.
+     */
+    public PageviewFilter(
+        String trackingId,
+        Dispatcher dispatcher,
+        QueryBuilderPool queryBuilderPool,
+        boolean trustForwardedFor
+    ) {
+        Utils.assertNotNull("trackingId", trackingId);
+        Utils.assertNotNull("dispatcher", dispatcher);
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+
+        this.trackingId = trackingId;
+        this.dispatcher = dispatcher;
+        this.queryBuilderPool = queryBuilderPool;
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+
+        if (dispatcher != null)
+            return;
+
+        trackingId = filterConfig.getInitParameter(TRACKING_ID);
+
+        if (trackingId == null)
+            throw new ServletException("The " + TRACKING_ID + " init parameter is required.");
+
+        String uri = getInitParameter(filterConfig, URI, QueryBuilder.GOOGLE_ANALYTICS_URL);
+
+        int laneCount = Integer.parseInt(getInitParameter(filterConfig, LANE_COUNT, "2"));
+        int laneCapacity = Integer.parseInt(getInitParameter(filterConfig, LANE_CAPACITY, "1024"));
+
+        trustForwardedFor = Boolean.parseBoolean(getInitParameter(filterConfig, TRUST_FORWARDED_FOR, "false"));
+
+        queryBuilderPool = new BoundedQueryBuilderPool (new RestTemplate (), uri, laneCount * laneCapacity);
+
+        StripedDispatcher stripedDispatcher =
+            new StripedDispatcher (new PostingDispatcher (), queryBuilderPool, laneCount, laneCapacity);
+
+        dispatcher = stripedDispatcher;
+        ownedDispatcher = stripedDispatcher;
+    }
+
+    static String getInitParameter (FilterConfig filterConfig, String name, String defaultValue) {
+
+        String result = filterConfig.getInitParameter(name);
+
+        return result == null ? defaultValue : result;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+
+        if (!(request instanceof HttpServletRequest) || !shouldTrack((HttpServletRequest) request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+
+        long start = System.nanoTime();
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (httpServletRequest.isAsyncStarted())
+                httpServletRequest.getAsyncContext().addListener(new AsyncListener () {
+
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        track (httpServletRequest, System.nanoTime() - start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            else
+                track (httpServletRequest, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns true if a page view should be sent for the request; subclasses can override this method to skip, for
+     * example, static resources and health checks.
+     */
+    protected boolean shouldTrack (HttpServletRequest request) {
+        return true;
+    }
+
+    /**
+     * Builds the page view hit and offers it to the dispatcher without waiting; hits which are dropped are counted,
+     * failures are logged and counted, and neither reaches the caller.
+     */
+    void track (HttpServletRequest request, long elapsedNanos) {
+
+        QueryBuilder queryBuilder = queryBuilderPool.acquire();
+
+        try {
+            if (dispatcher.offer(toPageview (request, elapsedNanos, queryBuilder)))
+                sentCount.increment();
+            else
+                droppedCount.increment();
+        } catch (RuntimeException runtimeException) {
+
+            failedCount.increment();
+
+            log.warn("The page view for " + request.getRequestURI() + " could not be dispatched.", runtimeException);
+        } finally {
+            queryBuilderPool.release(queryBuilder);
+        }
+    }
+
+    QueryBuilder toPageview (HttpServletRequest request, long elapsedNanos, QueryBuilder queryBuilder) {
+
+        String queryString = request.getQueryString();
+
+        StringBuffer location = request.getRequestURL();
+
+        String path = request.getRequestURI();
+
+        if (queryString != null) {
+            location.append('?').append(queryString);
+            path = path + "?" + queryString;
+        }
+
+        queryBuilder
+            .withV1()
+            .withTid(trackingId)
+            .withCID(getClientId (request))
+            .withTAsPageView()
+            .withDl(Utf8.truncate(location.toString(), MAX_URL_LENGTH_IN_BYTES))
+            .withDh(Utf8.truncate(request.getServerName(), MAX_HOST_NAME_LENGTH_IN_BYTES))
+            .withDp(Utf8.truncate(path, MAX_URL_LENGTH_IN_BYTES));
+
+        String referrer = request.getHeader(REFERER);
+
+        if (referrer != null)
+            queryBuilder.withDr(Utf8.truncate(referrer, MAX_URL_LENGTH_IN_BYTES));
+
+        String userAgent = request.getHeader(USER_AGENT);
+
+        if (userAgent != null)
+            queryBuilder.withUa(userAgent);
+
+        String ipAddress = getIpAddress (request);
+
+        if (ipAddress != null)
+            queryBuilder.withUip(ipAddress);
+
+        if (request.getHeader(ACCEPT_LANGUAGE) != null) {
+
+            // The root locale, so that, for example, a Turkish default locale does not turn I into a dotless i.
+            String language = request.getLocale().toLanguageTag().toLowerCase(Locale.ROOT);
+
+            queryBuilder.withUl(Utf8.truncate(language, MAX_LANGUAGE_LENGTH_IN_BYTES));
+        }
+
+        return queryBuilder.withSrt(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    /**
+     * Returns the client id from the _ga cookie, which has the form GA1.2.random.timestamp and whose last two fields are
+     * the client id, or a random client id when there is no such cookie.
+     */
+    String getClientId (HttpServletRequest request) {
+
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+
+                String value = cookie.getValue();
+
+                if (GA_COOKIE.equals(cookie.getName()) && value != null) {
+
+                    int last = value.lastIndexOf('.');
+                    int secondLast = last < 0 ? -1 : value.lastIndexOf('.', last - 1);
+
+                    if (0 <= secondLast && secondLast + 1 < last && last + 1 < value.length())
+                        return value.substring(secondLast + 1);
+                }
+            }
+        }
+
+        return clientIdGenerator.nextClientId();
+    }
+
+    String getIpAddress (HttpServletRequest request) {
+
+        if (trustForwardedFor) {
+
+            String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+
+            if (forwardedFor != null) {
+
+                int comma = forwardedFor.indexOf(',');
+
+                String result = (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+
+                if (!result.isEmpty())
+                    return result;
+            }
+        }
+
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Returns the number of page views which have been handed to the dispatcher.
+     */
+    public long getSentCount () {
+        return sentCount.sum();
+    }
+
+    /**
+     * Returns the number of page views which could not be built or dispatched.
+     */
+    public long getFailedCount () {
+        return failedCount.sum();
+    }
+
+    /**
+     * Returns the number of page views which were dropped because the dispatcher had no room for them.
+     */
+    public long getDroppedCount () {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public void destroy() {
+
+        if (ownedDispatcher != null) {
+            try {
+                ownedDispatcher.close();
+            } catch (IOException ioException) {
+                log.warn("The dispatcher could not be closed.", ioException);
+            }
+        }
+    }
+}
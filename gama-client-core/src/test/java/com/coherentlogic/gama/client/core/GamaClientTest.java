@@ -0,0 +1,186 @@
+package com.coherentlogic.gama.client.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+
+/**
+ * Unit test for the {@link GamaClient} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class GamaClientTest {
+
+    private List<String> sent = null;
+
+    private GamaClient client = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        sent = new CopyOnWriteArrayList<String> ();
+
+        Properties properties = new Properties ();
+
+        properties.setProperty(GamaClientConfiguration.TRACKING_ID, "UA-1");
+        properties.setProperty(GamaClientConfiguration.APPLICATION_NAME, "orders");
+        properties.setProperty(GamaClientConfiguration.LANES, "4");
+
+        client = new GamaClient (
+            new GamaClientConfiguration (properties),
+            payload -> {
+
+                byte[] bytes = new byte[payload.remaining()];
+
+                payload.get(bytes);
+
+                sent.add(new String (bytes, StandardCharsets.US_ASCII));
+
+                return null;
+            }
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        client = null;
+        sent = null;
+    }
+
+    @Test
+    public void testNewHitCarriesTheDefaults() {
+
+        QueryBuilder queryBuilder = client.newHit();
+
+        assertEquals("1", queryBuilder.getParameter(QueryBuilder.V));
+        assertEquals("UA-1", queryBuilder.getParameter(QueryBuilder.TID));
+        assertEquals("orders", queryBuilder.getParameter(QueryBuilder.AN));
+        assertEquals(null, queryBuilder.getParameter(QueryBuilder.AV));
+
+        client.discard(queryBuilder);
+    }
+
+    @Test
+    public void testSend() {
+
+        client.send(client.newHit().withCID("c1").withTAsPageView().withDp("/home"));
+
+        assertEquals(1, sent.size());
+        assertEquals("v=1&tid=UA-1&an=orders&cid=c1&t=pageview&dp=%2Fhome", sent.get(0));
+    }
+
+    @Test
+    public void testSendHit() {
+
+        QueryBuilder queryBuilder = client.newHit().withCID("c1").withTAsPageView();
+
+        Hit hit = queryBuilder.build();
+
+        client.discard(queryBuilder);
+
+        client.send(hit);
+        client.sendAsync(hit);
+        client.flush();
+
+        assertEquals(2, sent.size());
+        assertEquals(hit.toFormUrlEncoded(), sent.get(1));
+    }
+
+    @Test
+    public void testSendAsyncFromManyThreads() throws InterruptedException {
+
+        int threadCount = 16;
+        int hitCount = 250;
+
+        Thread[] threads = new Thread[threadCount];
+
+        for (int ctr = 0; ctr < threadCount; ctr++) {
+
+            String clientId = "c" + ctr;
+
+            threads[ctr] = new Thread (() -> {
+                for (int sequence = 0; sequence < hitCount; sequence++)
+                    client.sendAsync(client.newHit().withCID(clientId).withTAsPageView().withDp("/" + sequence));
+            });
+
+            threads[ctr].start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertTrue(client.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(threadCount * hitCount, sent.size());
+        assertEquals(0L, client.getFailureCount());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testSendAfterClose() {
+
+        QueryBuilder queryBuilder = client.newHit();
+
+        client.close();
+        client.close();
+
+        client.send(queryBuilder);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testSendAsyncAfterClose() {
+
+        QueryBuilder queryBuilder = client.newHit();
+
+        client.close();
+
+        client.sendAsync(queryBuilder);
+    }
+
+    @Test
+    public void testInitialize() {
+
+        GamaClient instance = GamaClient.initialize(GamaClientConfiguration.forTrackingId("UA-1"));
+
+        try {
+            assertSame(instance, GamaClient.getInstance());
+        } finally {
+            instance.close();
+        }
+
+        // Once closed, another client can be initialized.
+        GamaClient.initialize(GamaClientConfiguration.forTrackingId("UA-2")).close();
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testInitializeTwice() {
+
+        GamaClient instance = GamaClient.initialize(GamaClientConfiguration.forTrackingId("UA-1"));
+
+        try {
+            GamaClient.initialize(GamaClientConfiguration.forTrackingId("UA-2"));
+        } finally {
+            instance.close();
+        }
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testGetInstanceBeforeInitialize() {
+        GamaClient.getInstance();
+    }
+}
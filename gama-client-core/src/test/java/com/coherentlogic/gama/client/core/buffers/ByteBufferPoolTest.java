@@ -0,0 +1,127 @@
+package com.coherentlogic.gama.client.core.buffers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link ByteBufferPool} and {@link PooledByteBuffer} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ByteBufferPoolTest {
+
+    private ByteBufferPool byteBufferPool = null;
+
+    @Before
+    public void setUp() throws Exception {
+        byteBufferPool = new ByteBufferPool (2, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        byteBufferPool = null;
+    }
+
+    @Test
+    public void testAcquireHitBuffer() {
+
+        PooledByteBuffer pooledByteBuffer = byteBufferPool.acquireHitBuffer();
+
+        assertTrue(pooledByteBuffer.isPooled());
+        assertTrue(pooledByteBuffer.getByteBuffer().isDirect());
+        assertEquals(ByteBufferPool.HIT_SLOT_SIZE, pooledByteBuffer.getByteBuffer().capacity());
+        assertEquals(1, pooledByteBuffer.getReferenceCount());
+        assertEquals(1, byteBufferPool.getAvailableHitSlots());
+    }
+
+    @Test
+    public void testAcquireBatchBuffer() {
+
+        PooledByteBuffer pooledByteBuffer = byteBufferPool.acquireBatchBuffer();
+
+        assertEquals(ByteBufferPool.BATCH_SLOT_SIZE, pooledByteBuffer.getByteBuffer().capacity());
+        assertEquals(0, byteBufferPool.getAvailableBatchSlots());
+        assertEquals(2, byteBufferPool.getAvailableHitSlots());
+    }
+
+    @Test
+    public void testReleaseReturnsTheBufferToThePool() {
+
+        PooledByteBuffer pooledByteBuffer = byteBufferPool.acquireHitBuffer();
+
+        pooledByteBuffer.getByteBuffer().put((byte) 1);
+
+        pooledByteBuffer.retain();
+
+        assertFalse(pooledByteBuffer.release());
+        assertEquals(1, byteBufferPool.getAvailableHitSlots());
+
+        assertTrue(pooledByteBuffer.release());
+        assertEquals(2, byteBufferPool.getAvailableHitSlots());
+
+        PooledByteBuffer first = byteBufferPool.acquireHitBuffer();
+        PooledByteBuffer second = byteBufferPool.acquireHitBuffer();
+
+        assertTrue(first == pooledByteBuffer || second == pooledByteBuffer);
+        assertEquals(0, pooledByteBuffer.getByteBuffer().position());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testReleaseTwice() {
+
+        PooledByteBuffer pooledByteBuffer = byteBufferPool.acquireHitBuffer();
+
+        pooledByteBuffer.release();
+        pooledByteBuffer.release();
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testRetainAfterRelease() {
+
+        PooledByteBuffer pooledByteBuffer = byteBufferPool.acquireHitBuffer();
+
+        pooledByteBuffer.release();
+        pooledByteBuffer.retain();
+    }
+
+    @Test
+    public void testExhaustedPoolFallsBackToTheHeap() {
+
+        byteBufferPool.acquireHitBuffer();
+        byteBufferPool.acquireHitBuffer();
+
+        PooledByteBuffer overflow = byteBufferPool.acquireHitBuffer();
+
+        assertEquals(ByteBufferPool.BATCH_SLOT_SIZE, overflow.getByteBuffer().capacity());
+
+        PooledByteBuffer miss = byteBufferPool.acquireHitBuffer();
+
+        assertFalse(miss.isPooled());
+        assertFalse(miss.getByteBuffer().isDirect());
+        assertEquals(1, byteBufferPool.getMissCount());
+
+        assertTrue(miss.release());
+        assertEquals(0, byteBufferPool.getAvailableHitSlots());
+    }
+
+    @Test
+    public void testSlotCountWhichOverflowsTheSlab() {
+
+        // 2^19 + 1 slots of 8 KiB wrap around to a single slot when the slab size is computed as an int.
+        int slotCount = (1 << 19) + 1;
+
+        try {
+            new ByteBufferPool (slotCount, 0);
+            fail("The slotCount should have been rejected.");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("slotCount is too large"));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.coherentlogic.gama.client.core.builders;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.encoders.FormUrlEncoder;
+
+/**
+ * Measures the bytes allocated per numeric parameter by the boxed and the primitive setters, by encoding numbers
+ * directly into a buffer, and by encoding a builder's numeric parameters, and fails if any but the boxed setters
+ * allocate. Allocation depends on the JIT and the garbage collector, so this is not part of the unit tests; run it
+ * with, for example:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:... \
+ *     com.coherentlogic.gama.client.core.builders.NumericParameterBenchmark
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class NumericParameterBenchmark {
+
+    static final int ITERATIONS = 1000000;
+
+    /**
+     * The number of parameters each iteration adds or encodes.
+     */
+    static final int PARAMETERS = 4;
+
+    private final com.sun.management.ThreadMXBean allocations =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final QueryBuilder queryBuilder = new QueryBuilder ((RestTemplate) null);
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES);
+
+    private final int iterations;
+
+    public NumericParameterBenchmark (int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * Returns the bytes allocated per parameter by the task, after running it once to warm up.
+     */
+    double measure (Runnable task) {
+
+        task.run();
+
+        long threadId = Thread.currentThread().getId();
+
+        long before = allocations.getThreadAllocatedBytes(threadId);
+
+        task.run();
+
+        return (double) (allocations.getThreadAllocatedBytes(threadId) - before) / ((long) iterations * PARAMETERS);
+    }
+
+    /**
+     * Measures the task and throws an AssertionError if it allocated a byte or more per iteration, which leaves room
+     * for the measurement itself but not for a single object per iteration.
+     */
+    double assertDoesNotAllocate (String name, Runnable task) {
+
+        double result = measure (task);
+
+        if (1.0 / PARAMETERS <= result)
+            throw new AssertionError(name + " allocated " + result + " bytes per parameter.");
+
+        return result;
+    }
+
+    void boxedSetters () {
+        for (int ctr = 0; ctr < iterations; ctr++) {
+            queryBuilder.reset()
+                .withPrNQt(1, Integer.valueOf(ctr & 7))
+                .withPrNPs(1, Integer.valueOf(ctr & 1023))
+                .withCmX(1, Long.valueOf(ctr))
+                .withCmX(2, Double.valueOf(ctr));
+        }
+    }
+
+    void primitiveSetters () {
+        for (int ctr = 0; ctr < iterations; ctr++) {
+            queryBuilder.reset()
+                .withPrNQt(1, ctr & 7)
+                .withCmX(1, (long) ctr)
+                .withCmX(2, (double) ctr)
+                .withPrNPr(1, ctr * 100L + 99L, 2);
+        }
+    }
+
+    void encoder () {
+        for (int ctr = 0; ctr < iterations; ctr++) {
+
+            buffer.clear();
+
+            FormUrlEncoder.encode(ctr & 7, buffer);
+            FormUrlEncoder.encode(ctr & 1023, buffer);
+            FormUrlEncoder.encode(ctr, buffer);
+            FormUrlEncoder.encode(ctr * 100L, 2, buffer);
+        }
+    }
+
+    void encodeTo () {
+
+        queryBuilder.reset().withPrNQt(1, 2).withCmX(1, 47000L).withCmX(2, 4.0).withPrNPr(1, 2920L, 2);
+
+        for (int ctr = 0; ctr < iterations; ctr++) {
+            buffer.clear();
+            queryBuilder.encodeTo(buffer);
+        }
+    }
+
+    public static void main (String[] unused) {
+
+        NumericParameterBenchmark benchmark = new NumericParameterBenchmark (ITERATIONS);
+
+        System.out.printf("%-22s %10s%n", "", "bytes/parameter");
+        System.out.printf("%-22s %10.1f%n", "boxed setters", benchmark.measure(benchmark::boxedSetters));
+        System.out.printf("%-22s %10.1f%n", "primitive setters",
+            benchmark.assertDoesNotAllocate("The primitive setters", benchmark::primitiveSetters));
+        System.out.printf("%-22s %10.1f%n", "FormUrlEncoder.encode",
+            benchmark.assertDoesNotAllocate("FormUrlEncoder.encode", benchmark::encoder));
+        System.out.printf("%-22s %10.1f%n", "QueryBuilder.encodeTo",
+            benchmark.assertDoesNotAllocate("QueryBuilder.encodeTo", benchmark::encodeTo));
+    }
+}
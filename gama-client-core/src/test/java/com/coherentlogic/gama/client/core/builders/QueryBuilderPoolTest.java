@@ -0,0 +1,101 @@
+package com.coherentlogic.gama.client.core.builders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Unit test for the {@link BoundedQueryBuilderPool} and {@link ThreadLocalQueryBuilderPool} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class QueryBuilderPoolTest {
+
+    private RestTemplate restTemplate = null;
+
+    @Before
+    public void setUp() throws Exception {
+        restTemplate = new RestTemplate ();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        restTemplate = null;
+    }
+
+    @Test
+    public void testBoundedPoolReusesReleasedBuilders() {
+
+        BoundedQueryBuilderPool pool = new BoundedQueryBuilderPool (restTemplate, 1);
+
+        QueryBuilder first = pool.acquire().withTAsEvent();
+
+        pool.release(first);
+
+        assertEquals(1, pool.getIdleCount());
+
+        QueryBuilder second = pool.acquire();
+
+        assertSame(first, second);
+        assertSame(restTemplate, second.getRestTemplate());
+        assertEquals(0, second.getParameterCount());
+    }
+
+    @Test
+    public void testBoundedPoolDiscardsBuildersWhenFull() {
+
+        BoundedQueryBuilderPool pool = new BoundedQueryBuilderPool (restTemplate, 1);
+
+        QueryBuilder first = pool.acquire();
+        QueryBuilder second = pool.acquire();
+
+        assertNotSame(first, second);
+
+        pool.release(first);
+        pool.release(second);
+
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testThreadLocalPoolReusesReleasedBuilder() {
+
+        ThreadLocalQueryBuilderPool pool = new ThreadLocalQueryBuilderPool (restTemplate);
+
+        QueryBuilder first = pool.acquire().withTAsEvent();
+
+        pool.release(first);
+
+        QueryBuilder second = pool.acquire();
+
+        assertSame(first, second);
+        assertEquals(0, second.getParameterCount());
+    }
+
+    @Test
+    public void testThreadLocalPoolNestedAcquire() {
+
+        ThreadLocalQueryBuilderPool pool = new ThreadLocalQueryBuilderPool (restTemplate);
+
+        QueryBuilder outer = pool.acquire();
+
+        pool.release(outer);
+
+        outer = pool.acquire();
+
+        QueryBuilder inner = pool.acquire();
+
+        assertNotSame(outer, inner);
+
+        pool.release(inner);
+        pool.release(outer);
+
+        assertSame(inner, pool.acquire());
+    }
+}
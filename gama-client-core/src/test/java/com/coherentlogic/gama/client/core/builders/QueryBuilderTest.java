@@ -1,18 +1,32 @@
 package com.coherentlogic.gama.client.core.builders;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.web.client.RestTemplate;
 
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.ecommerce.Impression;
+import com.coherentlogic.gama.client.core.ecommerce.Product;
+import com.coherentlogic.gama.client.core.ecommerce.Promotion;
 import com.coherentlogic.gama.client.core.exceptions.InvalidQueueTime;
 import com.coherentlogic.gama.client.core.exceptions.MaxLengthInBytesExceededException;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
 import com.coherentlogic.gama.client.core.exceptions.ValueOutOfBoundsException;
 
 /**
@@ -747,6 +761,377 @@ public class QueryBuilderTest {
         assertEquals("http://www.google-analytics.com/collect?tr=123.45", queryBuilder.getEscapedURI());
     }
 
+    @Test
+    public void testWithTrAsBigDecimalInScientificNotation() {
+
+        queryBuilder.withTr(new BigDecimal ("1E+3"));
+
+        assertEquals("http://www.google-analytics.com/collect?tr=1000", queryBuilder.getEscapedURI());
+    }
+
+    @Test
+    public void testWithTrInMinorUnits() {
+
+        queryBuilder.withTr(1547L, 2);
+
+        assertEquals("http://www.google-analytics.com/collect?tr=15.47", queryBuilder.getEscapedURI());
+    }
+
+    @Test(expected=ValueOutOfBoundsException.class)
+    public void testWithTrInMinorUnitsWithNegativeScale() {
+        queryBuilder.withTr(1547L, -2);
+    }
+
+    /**
+     * Each amount must be encoded exactly as the same amount passed as a BigDecimal.
+     */
+    @Test
+    public void testMinorUnitsMatchBigDecimal() {
+
+        long[] amounts = { 0L, 1L, 5L, 99L, 1547L, -1547L, 100000000L, Long.MAX_VALUE, Long.MIN_VALUE };
+
+        ByteBuffer expected = ByteBuffer.allocate(1024);
+        ByteBuffer actual = ByteBuffer.allocate(1024);
+
+        for (long amount : amounts) {
+            for (int scale = 0; scale <= 18; scale++) {
+
+                BigDecimal value = BigDecimal.valueOf(amount, scale);
+
+                expected.clear();
+                actual.clear();
+
+                new QueryBuilder((RestTemplate) null)
+                    .withTr(value)
+                    .withTt(value)
+                    .withTs(value)
+                    .withIp(value)
+                    .withPrNPr(200, value)
+                    .encodeTo(expected)
+                    .flip();
+
+                new QueryBuilder((RestTemplate) null)
+                    .withTr(amount, scale)
+                    .withTt(amount, scale)
+                    .withTs(amount, scale)
+                    .withIp(amount, scale)
+                    .withPrNPr(200, amount, scale)
+                    .encodeTo(actual)
+                    .flip();
+
+                assertEquals(value.toPlainString(), expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testWithCmXAsLong() {
+
+        queryBuilder.withCmX(1, 47L);
+
+        assertEquals("http://www.google-analytics.com/collect?cm1=47", queryBuilder.getEscapedURI());
+    }
+
+    @Test
+    public void testWithCmXAsDouble() {
+
+        queryBuilder.withCmX(1, 47.0).withCmX(2, 0.25).withCmX(3, 1e20).withCmX(4, -1.5e-7);
+
+        assertEquals("47", queryBuilder.getParameter("cm1"));
+        assertEquals("0.25", queryBuilder.getParameter("cm2"));
+        assertEquals("100000000000000000000", queryBuilder.getParameter("cm3"));
+        assertEquals("-0.00000015", queryBuilder.getParameter("cm4"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testWithCmXAsNaN() {
+        queryBuilder.withCmX(1, Double.NaN);
+    }
+
+    @Test
+    public void testSmallValuesAreShared() {
+
+        queryBuilder.withPrNQt(1, 5);
+
+        assertSame(
+            queryBuilder.getParameter("pr1qt"),
+            new QueryBuilder((RestTemplate) null).withPrNPs(1, 5).getParameter("pr1ps")
+        );
+    }
+
+    /**
+     * A float must be sent as it was when it could only be passed boxed, rather than widened to a double.
+     */
+    @Test
+    public void testFloatsAreSentAsBoxedFloatsWere() {
+
+        queryBuilder
+            .withCmX(1, 4.7f)
+            .withCmX(2, 47f)
+            .withPrXCmY(1, 2, 4.7f)
+            .withIlXPiYCmZ(1, 2, 3, 0.1f);
+
+        assertEquals("4.7", queryBuilder.getParameter("cm1"));
+        assertEquals("47.0", queryBuilder.getParameter("cm2"));
+        assertEquals("4.7", queryBuilder.getParameter("pr1cm2"));
+        assertEquals("0.1", queryBuilder.getParameter("il1pi2cm3"));
+    }
+
+    /**
+     * Each primitive overload must be encoded exactly as the same value passed boxed.
+     */
+    @Test
+    public void testPrimitivesMatchBoxedValues() {
+
+        int[] values = { 0, 1, 1023, 1024, 65536, Integer.MAX_VALUE };
+
+        ByteBuffer expected = ByteBuffer.allocate(1024);
+        ByteBuffer actual = ByteBuffer.allocate(1024);
+
+        for (int value : values) {
+
+            expected.clear();
+            actual.clear();
+
+            new QueryBuilder((RestTemplate) null)
+                .withPrNQt(1, Integer.valueOf(value))
+                .withPrNCc(2, Integer.valueOf(value))
+                .withPrNPs(3, Integer.valueOf(value))
+                .withCmX(4, Long.valueOf(value))
+                .withPrXCmY(5, 6, Integer.toString(value))
+                .withIlXPiYPs(7, 8, Integer.toString(value))
+                .withIlXPiYCmZ(9, 10, 11, Integer.toString(value))
+                .encodeTo(expected)
+                .flip();
+
+            new QueryBuilder((RestTemplate) null)
+                .withPrNQt(1, value)
+                .withPrNCc(2, value)
+                .withPrNPs(3, value)
+                .withCmX(4, (long) value)
+                .withPrXCmY(5, 6, (double) value)
+                .withIlXPiYPs(7, 8, value)
+                .withIlXPiYCmZ(9, 10, 11, (long) value)
+                .encodeTo(actual)
+                .flip();
+
+            assertEquals(Integer.toString(value), expected, actual);
+        }
+    }
+
+    @Test
+    public void testWithIlXPiYPrInMinorUnits() {
+
+        queryBuilder.withIlXPiYPr(1, 2, 2920L, 2);
+
+        assertEquals("http://www.google-analytics.com/collect?il1pi2pr=29.20", queryBuilder.getEscapedURI());
+    }
+
+    static void assertSameParameters(QueryBuilder expected, QueryBuilder actual) {
+
+        assertEquals(expected.getParameterCount(), actual.getParameterCount());
+
+        for (int ctr = 0; ctr < expected.getParameterCount(); ctr++) {
+            assertEquals(expected.getParameterName(ctr), actual.getParameterName(ctr));
+            assertEquals(expected.getParameterValue(ctr), actual.getParameterValue(ctr));
+        }
+    }
+
+    @Test
+    public void testIndexedParameterNamesMatchMessageFormat() {
+
+        IndexedParameterNames productNames = new IndexedParameterNames(QueryBuilder.PR_N_QT);
+        IndexedParameterNames dimensionNames = new IndexedParameterNames(QueryBuilder.PR_X_CD_Y);
+        IndexedParameterNames impressionNames = new IndexedParameterNames(QueryBuilder.IL_X_PI_Y_CM);
+
+        for (int x = 1; x <= 200; x++) {
+
+            assertEquals(MessageFormat.format(QueryBuilder.PR_N_QT, x), productNames.get(x));
+            assertSame(productNames.get(x), productNames.get(x));
+
+            for (int y = 1; y <= 200; y += 199 / 3) {
+                assertEquals(MessageFormat.format(QueryBuilder.PR_X_CD_Y, x, y), dimensionNames.get(x, y));
+                assertSame(dimensionNames.get(x, y), dimensionNames.get(x, y));
+                assertEquals(
+                    MessageFormat.format(QueryBuilder.IL_X_PI_Y_CM, x, y, 200),
+                    impressionNames.get(x, y, 200)
+                );
+            }
+        }
+    }
+
+    @Test
+    public void testWithProducts() {
+
+        queryBuilder.withProducts(
+            Arrays.asList(
+                new Product()
+                    .withId("P12345")
+                    .withName("Android T-Shirt")
+                    .withBrand("Google")
+                    .withCategory("Apparel/Mens/T-Shirts")
+                    .withVariant("Black")
+                    .withPrice(2920L, 2)
+                    .withQuantity(2)
+                    .withCouponCode("SUMMER_SALE13")
+                    .withPosition(1)
+                    .withCustomDimension(2, "Member")
+                    .withCustomMetric(3, 28)
+                    .withCustomMetric(4, 4.5),
+                new Product().withName("Mug").withPrice(new BigDecimal("1E+1")),
+                new Product().withId("P3").withPrice(new BigDecimal("0.05"))
+            )
+        );
+
+        QueryBuilder expected = new QueryBuilder((RestTemplate) null)
+            .withPrNId(1, "P12345")
+            .withPrNNm(1, "Android T-Shirt")
+            .withPrNBr(1, "Google")
+            .withPrNCa(1, "Apparel/Mens/T-Shirts")
+            .withPrNVa(1, "Black")
+            .withPrNPr(1, 2920L, 2)
+            .withPrNQt(1, 2)
+            .withPrNCc(1, "SUMMER_SALE13")
+            .withPrNPs(1, 1)
+            .withPrXCdY(1, 2, "Member")
+            .withPrXCmY(1, 3, 28L)
+            .withPrXCmY(1, 4, 4.5)
+            .withPrNNm(2, "Mug")
+            .withPrNPr(2, new BigDecimal("1E+1"))
+            .withPrNId(3, "P3")
+            .withPrNPr(3, new BigDecimal("0.05"));
+
+        assertSameParameters(expected, queryBuilder);
+    }
+
+    @Test
+    public void testWithTwoHundredProducts() {
+
+        List<Product> products = new ArrayList<Product>();
+
+        for (int ctr = 0; ctr < 200; ctr++)
+            products.add(new Product().withId("P" + ctr).withQuantity(ctr));
+
+        queryBuilder.withProducts(products);
+
+        assertEquals(400, queryBuilder.getParameterCount());
+        assertEquals("pr200qt", queryBuilder.getParameterName(399));
+        assertEquals("199", queryBuilder.getParameterValue(399));
+    }
+
+    @Test(expected=ValueOutOfBoundsException.class)
+    public void testWithTooManyProducts() {
+
+        List<Product> products = new ArrayList<Product>();
+
+        for (int ctr = 0; ctr < 201; ctr++)
+            products.add(new Product().withId("P" + ctr));
+
+        queryBuilder.withProducts(products);
+    }
+
+    @Test
+    public void testWithProductsThatExceedsAllowedSize() {
+
+        try {
+            queryBuilder.withProducts(
+                Arrays.asList(new Product().withId("P1"), new Product().withName(generateStringOfSize(501)))
+            );
+            fail("The name should have been rejected.");
+        } catch (MaxLengthInBytesExceededException expected) {
+            // The first product must not have been added.
+            assertEquals(0, queryBuilder.getParameterCount());
+        }
+
+        queryBuilder.withProducts(Arrays.asList(new Product().withName(generateStringOfSize(500))));
+
+        assertEquals(1, queryBuilder.getParameterCount());
+    }
+
+    @Test
+    public void testWithProductsWithACustomDimensionOutOfBounds() {
+
+        try {
+            queryBuilder.withProducts(
+                Arrays.asList(new Product().withId("P1"), new Product().withCustomDimension(201, FOO))
+            );
+            fail("The dimension index should have been rejected.");
+        } catch (ValueOutOfBoundsException expected) {
+            assertEquals(0, queryBuilder.getParameterCount());
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testWithProductsWithANaNCustomMetric() {
+        queryBuilder.withProducts(Arrays.asList(new Product().withCustomMetric(1, Double.NaN)));
+    }
+
+    @Test
+    public void testWithImpressionList() {
+
+        queryBuilder.withImpressionList(
+            3,
+            "Search Results",
+            Arrays.asList(
+                new Impression()
+                    .withId("P67890")
+                    .withName("Android T-Shirt")
+                    .withBrand("Google")
+                    .withCategory("Apparel")
+                    .withVariant("Black")
+                    .withPosition(1)
+                    .withPrice(2920L, 2)
+                    .withCustomDimension(5, "Member")
+                    .withCustomMetric(6, 28),
+                new Impression().withId("P2")
+            )
+        );
+
+        QueryBuilder expected = new QueryBuilder((RestTemplate) null)
+            .withIlXNm(3, "Search Results")
+            .withIlXPiYId(3, 1, "P67890")
+            .withIlXPiYNm(3, 1, "Android T-Shirt")
+            .withIlXPiYBr(3, 1, "Google")
+            .withIlXPiYCa(3, 1, "Apparel")
+            .withIlXPiYVa(3, 1, "Black")
+            .withIlXPiYPs(3, 1, 1)
+            .withIlXPiYPr(3, 1, 2920L, 2)
+            .withIlXPiYCdZ(3, 1, 5, "Member")
+            .withIlXPiYCmZ(3, 1, 6, 28L)
+            .withIlXPiYId(3, 2, "P2");
+
+        assertSameParameters(expected, queryBuilder);
+    }
+
+    @Test(expected=ValueOutOfBoundsException.class)
+    public void testWithImpressionListOutOfBounds() {
+        queryBuilder.withImpressionList(201, null, Arrays.asList(new Impression().withId("P1")));
+    }
+
+    @Test
+    public void testWithPromotions() {
+
+        queryBuilder.withPromotions(
+            Arrays.asList(
+                new Promotion()
+                    .withId("SHIP")
+                    .withName("Free Shipping")
+                    .withCreative("Shipping Banner")
+                    .withPosition("banner_slot_1"),
+                new Promotion().withId("SALE")
+            )
+        );
+
+        QueryBuilder expected = new QueryBuilder((RestTemplate) null)
+            .withPromoNId(1, "SHIP")
+            .withPromoNNm(1, "Free Shipping")
+            .withPromoNCr(1, "Shipping Banner")
+            .withPromoNPs(1, "banner_slot_1")
+            .withPromoNId(2, "SALE");
+
+        assertSameParameters(expected, queryBuilder);
+    }
+
     @Test
     public void testWithPrNCaWithString() {
 
@@ -1302,4 +1687,108 @@ public class QueryBuilderTest {
 
         assertEquals("http://www.google-analytics.com/collect?xvar=foo", queryBuilder.getEscapedURI());
     }
+
+    static String encode (QueryBuilder queryBuilder, int capacity) {
+
+        ByteBuffer buffer = ByteBuffer.allocate(capacity);
+
+        queryBuilder.encodeTo(buffer).flip();
+
+        return StandardCharsets.US_ASCII.decode(buffer).toString();
+    }
+
+    @Test
+    public void testEncodeTo() {
+
+        queryBuilder
+            .withV1()
+            .withTid("UA-XXXX-Y")
+            .withTAsEvent()
+            .withEc("Integration Test")
+            .withEv(55)
+            .withTt(new BigDecimal ("123.45"));
+
+        assertEquals("v=1&tid=UA-XXXX-Y&t=event&ec=Integration+Test&ev=55&tt=123.45", encode (queryBuilder, 1024));
+    }
+
+    @Test
+    public void testEncodeToWithNoParameters() {
+        assertEquals("", encode (queryBuilder, 16));
+    }
+
+    @Test(expected=PayloadTooLargeException.class)
+    public void testEncodeToThatExceedsCapacity() {
+
+        queryBuilder.withEc(FOO);
+
+        encode (queryBuilder, 4);
+    }
+
+    @Test
+    public void testGetParameter() {
+
+        queryBuilder.withCID("foo").withTAsPageView();
+
+        assertEquals(2, queryBuilder.getParameterCount());
+        assertEquals("cid", queryBuilder.getParameterName(0));
+        assertEquals("pageview", queryBuilder.getParameterValue(1));
+        assertEquals("foo", queryBuilder.getParameter(QueryBuilder.CID));
+        assertEquals(null, queryBuilder.getParameter(QueryBuilder.UID));
+    }
+
+    @Test
+    public void testWithParametersOf() {
+
+        QueryBuilder source = new QueryBuilder ((RestTemplate) null).withCID("foo").withTAsPageView();
+
+        queryBuilder.withV1().withParametersOf(source);
+
+        assertEquals(
+            "http://www.google-analytics.com/collect?v=1&cid=foo&t=pageview",
+            queryBuilder.getEscapedURI()
+        );
+    }
+
+    @Test
+    public void testReset() {
+
+        queryBuilder.withV1().withTid(FOO).reset();
+
+        assertEquals(0, queryBuilder.getParameterCount());
+        assertEquals("http://www.google-analytics.com/collect", queryBuilder.getEscapedURI());
+
+        queryBuilder.withTAsEvent();
+
+        assertEquals("http://www.google-analytics.com/collect?t=event", queryBuilder.getEscapedURI());
+        assertEquals("t=event", encode (queryBuilder, 16));
+    }
+
+    /**
+     * Adding parameters must not touch the uriBuilder; the escaped URI is built from the recorded parameters only when
+     * it is asked for.
+     */
+    @Test
+    public void testParametersAreNotAddedToTheUriBuilder() {
+
+        queryBuilder.withV1().withTid(FOO).withTAsEvent();
+
+        assertEquals("http://www.google-analytics.com/collect", queryBuilder.getUriBuilder().build().toString());
+        assertEquals("http://www.google-analytics.com/collect?v=1&tid=foo&t=event", queryBuilder.getEscapedURI());
+        assertEquals("http://www.google-analytics.com/collect?v=1&tid=foo&t=event", queryBuilder.getEscapedURI());
+    }
+
+    @Test
+    public void testEncodeToAPooledBuffer() {
+
+        ByteBufferPool byteBufferPool = new ByteBufferPool (1, 0);
+
+        PooledByteBuffer pooledByteBuffer = queryBuilder.withV1().withTAsPageView().encodeTo(byteBufferPool);
+
+        assertEquals("v=1&t=pageview", StandardCharsets.US_ASCII.decode(pooledByteBuffer.getByteBuffer()).toString());
+        assertEquals(0, byteBufferPool.getAvailableHitSlots());
+
+        pooledByteBuffer.release();
+
+        assertEquals(1, byteBufferPool.getAvailableHitSlots());
+    }
 }
@@ -0,0 +1,82 @@
+package com.coherentlogic.gama.client.core.cid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link ClientIdGenerator} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ClientIdGeneratorTest {
+
+    static void assertVersion4 (String clientId) {
+
+        UUID uuid = UUID.fromString(clientId);
+
+        assertEquals(clientId, uuid.toString());
+        assertEquals(4, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void testFormatMatchesUUIDToString() {
+
+        UUID uuid = UUID.fromString("35009a79-1a05-49d7-b876-2b884d0f825b");
+
+        char[] target = new char[ClientIdGenerator.LENGTH + 2];
+
+        ClientIdGenerator.format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), target, 1);
+
+        assertEquals(uuid.toString(), new String (target, 1, ClientIdGenerator.LENGTH));
+    }
+
+    @Test
+    public void testNextClientId() {
+
+        ClientIdGenerator generator = ClientIdGenerator.getInstance();
+
+        assertFalse(generator.isSecure());
+
+        for (int ctr = 0; ctr < 1000; ctr++)
+            assertVersion4(generator.nextClientId());
+    }
+
+    @Test
+    public void testNextClientIdUsingTheSecureInstance() {
+
+        ClientIdGenerator generator = ClientIdGenerator.getSecureInstance();
+
+        assertTrue(generator.isSecure());
+
+        assertVersion4(generator.nextClientId());
+    }
+
+    @Test
+    public void testNextClientIdIntoAByteBuffer() {
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+
+        buffer.put((byte) '=');
+
+        ClientIdGenerator.getInstance().nextClientId(buffer).flip();
+
+        assertEquals(ClientIdGenerator.LENGTH + 1, buffer.remaining());
+        assertEquals('=', buffer.get());
+
+        assertVersion4(StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    @Test
+    public void testNextUUID() {
+        assertVersion4(ClientIdGenerator.getInstance().nextUUID().toString());
+    }
+}
@@ -0,0 +1,159 @@
+package com.coherentlogic.gama.client.core.cid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link MappedClientIdStore} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class MappedClientIdStoreTest {
+
+    static final long TTL = 1000L;
+
+    private Path file = null;
+
+    private AtomicLong clock = null;
+
+    private MappedClientIdStore store = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        file = Files.createTempFile("cid", ".map");
+
+        Files.delete(file);
+
+        clock = new AtomicLong (1000000L);
+
+        store = open (MappedClientIdStore.SLOTS_PER_BUCKET);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        store.close();
+
+        Files.deleteIfExists(file);
+
+        store = null;
+        clock = null;
+        file = null;
+    }
+
+    MappedClientIdStore open (int capacity) throws IOException {
+        return new MappedClientIdStore (file, capacity, TTL, ClientIdGenerator.getInstance(), clock::get);
+    }
+
+    @Test
+    public void testResolveIsStable() {
+
+        String clientId = store.resolve("user-1");
+
+        assertEquals(4, UUID.fromString(clientId).version());
+        assertEquals(clientId, store.resolve("user-1"));
+        assertFalse(clientId.equals(store.resolve("user-2")));
+    }
+
+    @Test
+    public void testResolveSurvivesReopening() throws IOException {
+
+        String clientId = store.resolve("user-1");
+
+        store.close();
+
+        store = open (MappedClientIdStore.SLOTS_PER_BUCKET);
+
+        assertEquals(clientId, store.resolve("user-1"));
+    }
+
+    @Test(expected=IOException.class)
+    public void testReopeningWithADifferentCapacity() throws IOException {
+
+        store.close();
+
+        store = open (MappedClientIdStore.SLOTS_PER_BUCKET * 4);
+    }
+
+    @Test
+    public void testExpiredMappingsAreReplaced() {
+
+        String clientId = store.resolve("user-1");
+
+        clock.addAndGet(TTL - 1);
+
+        assertEquals(clientId, store.resolve("user-1"));
+
+        clock.addAndGet(TTL);
+
+        assertFalse(clientId.equals(store.resolve("user-1")));
+        assertEquals(0, store.getEvictionCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedMappingIsEvicted() {
+
+        String[] clientIds = new String[MappedClientIdStore.SLOTS_PER_BUCKET];
+
+        for (int ctr = 0; ctr < clientIds.length; ctr++) {
+            clientIds[ctr] = store.resolve("user-" + ctr);
+            clock.incrementAndGet();
+        }
+
+        // Touch user-0 so that user-1 becomes the least recently used.
+        store.resolve("user-0");
+        clock.incrementAndGet();
+
+        store.resolve("user-new");
+
+        assertEquals(1, store.getEvictionCount());
+        assertEquals(clientIds[0], store.resolve("user-0"));
+        assertEquals(clientIds[2], store.resolve("user-2"));
+        assertFalse(clientIds[1].equals(store.resolve("user-1")));
+    }
+
+    @Test
+    public void testCorruptSlotIsClearedOnOpen() throws IOException {
+
+        String clientId = store.resolve("user-1");
+
+        store.close();
+
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(MappedClientIdStore.SLOT_SIZE * MappedClientIdStore.SLOTS_PER_BUCKET);
+
+            fileChannel.read(buffer, MappedClientIdStore.HEADER_SIZE);
+
+            for (int ctr = 0; ctr < MappedClientIdStore.SLOTS_PER_BUCKET; ctr++) {
+
+                int offset = ctr * MappedClientIdStore.SLOT_SIZE + MappedClientIdStore.MOST_SIGNIFICANT_BITS_OFFSET;
+
+                buffer.putLong(offset, ~buffer.getLong(offset));
+            }
+
+            buffer.clear();
+
+            fileChannel.write(buffer, MappedClientIdStore.HEADER_SIZE);
+        }
+
+        store = open (MappedClientIdStore.SLOTS_PER_BUCKET);
+
+        assertFalse(clientId.equals(store.resolve("user-1")));
+    }
+}
@@ -0,0 +1,131 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+
+/**
+ * Unit test for the {@link BatchingDispatcher} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class BatchingDispatcherTest {
+
+    private List<String> sent = null;
+
+    private ByteBufferPool byteBufferPool = null;
+
+    private BatchingDispatcher dispatcher = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        sent = new ArrayList<String> ();
+        byteBufferPool = new ByteBufferPool (0, 2);
+
+        dispatcher = new BatchingDispatcher (
+            payload -> {
+
+                byte[] bytes = new byte[payload.remaining()];
+
+                payload.get(bytes);
+
+                sent.add(new String (bytes, StandardCharsets.UTF_8));
+
+                return null;
+            },
+            byteBufferPool,
+            null,
+            1000L
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sent = null;
+        byteBufferPool = null;
+        dispatcher = null;
+    }
+
+    static QueryBuilder event (int value) {
+        return new QueryBuilder ((RestTemplate) null)
+            .withV1()
+            .withTid("UA-1")
+            .withCID("c1")
+            .withTAsEvent()
+            .withEv(value);
+    }
+
+    @Test
+    public void testFullBatchIsSentAtOnce() {
+
+        for (int ctr = 0; ctr < HitBatch.MAX_HITS + 1; ctr++)
+            dispatcher.dispatch(event (ctr));
+
+        assertEquals(1, sent.size());
+        assertEquals(HitBatch.MAX_HITS, sent.get(0).split("\n").length);
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event&ev=0", sent.get(0).split("\n")[0]);
+        assertEquals(HitBatch.MAX_HITS, dispatcher.getSentCount());
+
+        dispatcher.flush();
+
+        assertEquals(2, sent.size());
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event&ev=20", sent.get(1));
+        assertEquals(2, dispatcher.getBatchCount());
+    }
+
+    @Test
+    public void testHitsAreBatched() {
+
+        dispatcher.dispatch(event (1));
+        dispatcher.dispatch(event (2).build());
+
+        assertEquals(0, sent.size());
+
+        dispatcher.close();
+
+        assertEquals(1, sent.size());
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event&ev=1\nv=1&tid=UA-1&cid=c1&t=event&ev=2", sent.get(0));
+        assertEquals(2, dispatcher.getSentCount());
+        assertEquals(2, byteBufferPool.getAvailableBatchSlots());
+    }
+
+    @Test
+    public void testBatchWhichCannotBeSentIsDropped() {
+
+        dispatcher = new BatchingDispatcher (
+            payload -> {
+                throw new PostFailedException("Expected");
+            },
+            byteBufferPool,
+            null,
+            1000L
+        );
+
+        dispatcher.dispatch(event (1));
+        dispatcher.dispatch(event (2));
+        dispatcher.flush();
+
+        assertEquals(0, dispatcher.getSentCount());
+        assertEquals(2, dispatcher.getDroppedCount());
+        assertEquals(2, byteBufferPool.getAvailableBatchSlots());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testLingerMillisMustBePositive() {
+        new BatchingDispatcher (payload -> null, byteBufferPool, null, 0L);
+    }
+}
@@ -0,0 +1,186 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import static com.coherentlogic.gama.client.core.dispatch.TimingAggregatingDispatcherTest.describe;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+
+/**
+ * Unit test for the {@link EventCoalescingDispatcher} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class EventCoalescingDispatcherTest {
+
+    private List<String> forwarded = null;
+
+    private EventCoalescingDispatcher dispatcher = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        forwarded = new ArrayList<String> ();
+
+        dispatcher = new EventCoalescingDispatcher (
+            queryBuilder -> forwarded.add(describe (queryBuilder)),
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            null,
+            3000L,
+            1000L,
+            0
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        forwarded = null;
+        dispatcher = null;
+    }
+
+    static QueryBuilder event (String clientId, String label) {
+        return new QueryBuilder ((RestTemplate) null)
+            .withV1()
+            .withTid("UA-1")
+            .withCID(clientId)
+            .withTAsEvent()
+            .withEc("video")
+            .withEa("play")
+            .withEl(label);
+    }
+
+    @Test
+    public void testNonEventHitsPassThrough() {
+
+        dispatcher.dispatch(new QueryBuilder ((RestTemplate) null).withTAsPageView());
+
+        assertEquals(1, forwarded.size());
+        assertEquals(0, dispatcher.getPendingCount());
+    }
+
+    /**
+     * Events are coalesced without waiting, while other hits are offered to a delegate which, here, is full.
+     */
+    @Test
+    public void testOfferUsesTheDelegatesOffer() {
+
+        dispatcher = new EventCoalescingDispatcher (
+            new Dispatcher () {
+
+                @Override
+                public void dispatch(QueryBuilder queryBuilder) {
+                    throw new AssertionError("The hit should have been offered.");
+                }
+
+                @Override
+                public boolean offer(QueryBuilder queryBuilder) {
+                    return false;
+                }
+            },
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            null,
+            3000L,
+            1000L,
+            0
+        );
+
+        assertTrue(dispatcher.offer(event ("c1", "intro")));
+        assertFalse(dispatcher.offer(new QueryBuilder ((RestTemplate) null).withTAsPageView()));
+        assertEquals(1, dispatcher.getPendingCount());
+    }
+
+    @Test
+    public void testIdenticalEventsAreMerged() {
+
+        dispatcher.dispatch(event ("c1", "intro").withEv(1));
+        dispatcher.dispatch(event ("c1", "intro").withEv(2));
+        dispatcher.dispatch(event ("c1", "intro").withEv(3));
+        dispatcher.dispatch(event ("c1", "outro"));
+        dispatcher.dispatch(event ("c2", "intro").withEv(4));
+
+        assertEquals(0, forwarded.size());
+        assertEquals(3, dispatcher.getPendingCount());
+
+        dispatcher.flush();
+
+        assertEquals(3, forwarded.size());
+        assertEquals(5, dispatcher.getCoalescedCount());
+        assertEquals(3, dispatcher.getMergedCount());
+
+        assertTrue(forwarded.contains("v=1&tid=UA-1&cid=c1&t=event&ec=video&ea=play&el=intro&ev=6"));
+        assertTrue(forwarded.contains("v=1&tid=UA-1&cid=c1&t=event&ec=video&ea=play&el=outro"));
+        assertTrue(forwarded.contains("v=1&tid=UA-1&cid=c2&t=event&ec=video&ea=play&el=intro&ev=4"));
+    }
+
+    @Test
+    public void testEventValueSaturates() {
+
+        dispatcher.dispatch(event ("c1", "intro").withEv(Integer.MAX_VALUE));
+        dispatcher.dispatch(event ("c1", "intro").withEv(Integer.MAX_VALUE));
+
+        dispatcher.flush();
+
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event&ec=video&ea=play&el=intro&ev=" + Integer.MAX_VALUE,
+            forwarded.get(0));
+    }
+
+    @Test
+    public void testEventsExpireWhenTheWindowEnds() {
+
+        dispatcher.dispatch(event ("c1", "intro").withEv(1));
+
+        dispatcher.advance();
+        dispatcher.advance();
+
+        dispatcher.dispatch(event ("c1", "intro").withEv(1));
+
+        assertEquals(0, forwarded.size());
+
+        dispatcher.advance();
+
+        assertEquals(1, forwarded.size());
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event&ec=video&ea=play&el=intro&ev=2", forwarded.get(0));
+
+        dispatcher.dispatch(event ("c1", "intro").withEv(5));
+
+        assertEquals(1, dispatcher.getPendingCount());
+
+        dispatcher.advance();
+        dispatcher.advance();
+        dispatcher.advance();
+
+        assertEquals(2, forwarded.size());
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event&ec=video&ea=play&el=intro&ev=5", forwarded.get(1));
+    }
+
+    @Test
+    public void testMergedCountAsCustomMetric() {
+
+        dispatcher = new EventCoalescingDispatcher (
+            queryBuilder -> forwarded.add(describe (queryBuilder)),
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            null,
+            3000L,
+            1000L,
+            7
+        );
+
+        dispatcher.dispatch(event ("c1", "intro"));
+        dispatcher.dispatch(event ("c1", "intro"));
+
+        dispatcher.close();
+
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event&ec=video&ea=play&el=intro&cm7=2", forwarded.get(0));
+    }
+}
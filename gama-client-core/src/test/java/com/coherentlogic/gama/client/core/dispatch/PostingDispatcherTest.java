@@ -0,0 +1,112 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit test for the {@link PostingDispatcher} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class PostingDispatcherTest {
+
+    private HttpServer server = null;
+
+    private List<String> received = null;
+
+    private String endpoint = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        received = new CopyOnWriteArrayList<String> ();
+
+        server = HttpServer.create(new InetSocketAddress ("127.0.0.1", 0), 0);
+
+        server.createContext("/collect", exchange -> {
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream ();
+
+            try (InputStream in = exchange.getRequestBody()) {
+
+                byte[] buffer = new byte[256];
+
+                for (int length; (length = in.read(buffer)) != -1; )
+                    body.write(buffer, 0, length);
+            }
+
+            received.add(new String (body.toByteArray(), StandardCharsets.UTF_8));
+
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+
+        server.start();
+
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/collect";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        server = null;
+        received = null;
+        endpoint = null;
+    }
+
+    Hit hit (String clientId) {
+        return new QueryBuilder ((RestTemplate) null, endpoint)
+            .withV1()
+            .withTid("UA-1")
+            .withCID(clientId)
+            .withTAsEvent()
+            .build();
+    }
+
+    /**
+     * The hit has no RestTemplate of its own, so the dispatcher must post it with its own.
+     */
+    @Test
+    public void testHitIsPostedToItsEndpoint() {
+
+        new PostingDispatcher ().dispatch(hit ("c1"));
+
+        assertEquals(1, received.size());
+        assertEquals("v=1&tid=UA-1&cid=c1&t=event", received.get(0));
+    }
+
+    @Test
+    public void testHitIsPostedThroughAStripedDispatcher() throws Exception {
+
+        StripedDispatcher stripedDispatcher = new StripedDispatcher (
+            new PostingDispatcher (),
+            new BoundedQueryBuilderPool (new RestTemplate (), 8),
+            2,
+            8
+        );
+
+        stripedDispatcher.dispatch(hit ("c1"));
+        stripedDispatcher.dispatch(hit ("c2"));
+        stripedDispatcher.close();
+
+        assertEquals(0, stripedDispatcher.getFailureCount());
+        assertEquals(2, received.size());
+    }
+}
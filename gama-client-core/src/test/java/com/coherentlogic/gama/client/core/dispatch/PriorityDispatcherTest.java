@@ -0,0 +1,189 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+
+/**
+ * Unit test for the {@link PriorityDispatcher} and {@link HitPriority} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class PriorityDispatcherTest {
+
+    private List<String> sent = null;
+
+    private CountDownLatch release = null;
+
+    private PriorityDispatcher dispatcher = null;
+
+    @Before
+    public void setUp() throws Exception {
+        sent = Collections.synchronizedList(new ArrayList<String> ());
+        release = new CountDownLatch (1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        release.countDown();
+
+        if (dispatcher != null)
+            dispatcher.close();
+
+        sent = null;
+        release = null;
+        dispatcher = null;
+    }
+
+    PriorityDispatcher newDispatcher (int totalCapacity, int[] weights) {
+        return new PriorityDispatcher (
+            queryBuilder -> {
+                try {
+                    release.await();
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                sent.add(queryBuilder.getParameter(QueryBuilder.T));
+            },
+            new BoundedQueryBuilderPool (new RestTemplate (), 16),
+            totalCapacity,
+            new int[] {totalCapacity, totalCapacity, totalCapacity},
+            weights,
+            Thread::new
+        );
+    }
+
+    static QueryBuilder hit (String hitType) {
+        return new QueryBuilder ((RestTemplate) null).withV1().withCID("c1").withT(hitType);
+    }
+
+    /**
+     * Dispatches a hit which the drain thread takes and then blocks on until release is counted down.
+     */
+    void block () throws InterruptedException {
+
+        dispatcher.dispatch(hit (QueryBuilder.TIMING));
+
+        while (0 < dispatcher.getQueuedCount(HitPriority.LOW))
+            Thread.sleep(1);
+    }
+
+    @Test
+    public void testHitPriority() {
+        assertEquals(HitPriority.HIGH, HitPriority.of(QueryBuilder.TRANSACTION, null));
+        assertEquals(HitPriority.HIGH, HitPriority.of(QueryBuilder.ITEM, null));
+        assertEquals(HitPriority.HIGH, HitPriority.of(QueryBuilder.EVENT, QueryBuilder.PURCHASE));
+        assertEquals(HitPriority.NORMAL, HitPriority.of(QueryBuilder.PAGE_VIEW, null));
+        assertEquals(HitPriority.NORMAL, HitPriority.of(QueryBuilder.EVENT, "checkout"));
+        assertEquals(HitPriority.LOW, HitPriority.of(QueryBuilder.EVENT, null));
+        assertEquals(HitPriority.LOW, HitPriority.of(null, null));
+    }
+
+    @Test
+    public void testWeightedDraining() throws InterruptedException {
+
+        dispatcher = newDispatcher (16, new int[] {2, 1, 1});
+
+        block ();
+
+        for (int ctr = 0; ctr < 2; ctr++) {
+            dispatcher.dispatch(hit (QueryBuilder.EVENT));
+            dispatcher.dispatch(hit (QueryBuilder.PAGE_VIEW));
+            dispatcher.dispatch(hit (QueryBuilder.TRANSACTION));
+            dispatcher.dispatch(hit (QueryBuilder.ITEM));
+        }
+
+        release.countDown();
+
+        assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(
+            Arrays.asList("timing", "transaction", "item", "pageview", "event", "transaction", "item", "pageview",
+                "event"),
+            sent
+        );
+    }
+
+    @Test
+    public void testLowestPriorityIsShedFirst() throws InterruptedException {
+
+        dispatcher = newDispatcher (4, PriorityDispatcher.DEFAULT_WEIGHTS);
+
+        block ();
+
+        for (int ctr = 0; ctr < 4; ctr++)
+            dispatcher.dispatch(hit (QueryBuilder.EVENT));
+
+        dispatcher.dispatch(hit (QueryBuilder.TRANSACTION));
+        dispatcher.dispatch(hit (QueryBuilder.PAGE_VIEW));
+        dispatcher.dispatch(hit (QueryBuilder.TRANSACTION));
+        dispatcher.dispatch(hit (QueryBuilder.TRANSACTION));
+
+        assertEquals(4, dispatcher.getShedCount(HitPriority.LOW));
+        assertEquals(0, dispatcher.getQueuedCount(HitPriority.LOW));
+
+        dispatcher.dispatch(hit (QueryBuilder.EVENT));
+        dispatcher.dispatch(hit (QueryBuilder.TRANSACTION));
+
+        assertEquals(5, dispatcher.getShedCount(HitPriority.LOW));
+        assertEquals(1, dispatcher.getShedCount(HitPriority.NORMAL));
+        assertEquals(0, dispatcher.getShedCount(HitPriority.HIGH));
+        assertEquals(4, dispatcher.getQueuedCount(HitPriority.HIGH));
+
+        dispatcher.dispatch(hit (QueryBuilder.TRANSACTION));
+
+        assertEquals(1, dispatcher.getShedCount(HitPriority.HIGH));
+
+        release.countDown();
+
+        assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(
+            Arrays.asList("timing", "transaction", "transaction", "transaction", "transaction"),
+            sent
+        );
+        assertEquals(4, dispatcher.getSentCount(HitPriority.HIGH));
+    }
+
+    @Test
+    public void testOfferReportsWhetherTheHitWasShed() throws InterruptedException {
+
+        dispatcher = newDispatcher (2, PriorityDispatcher.DEFAULT_WEIGHTS);
+
+        block ();
+
+        assertTrue(dispatcher.offer(hit (QueryBuilder.EVENT)));
+        assertTrue(dispatcher.offer(hit (QueryBuilder.EVENT)));
+        assertFalse(dispatcher.offer(hit (QueryBuilder.EVENT)));
+        assertTrue(dispatcher.offer(hit (QueryBuilder.TRANSACTION)));
+
+        assertEquals(2, dispatcher.getShedCount(HitPriority.LOW));
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testDispatchAfterClose() {
+
+        dispatcher = newDispatcher (4, PriorityDispatcher.DEFAULT_WEIGHTS);
+
+        dispatcher.close();
+
+        dispatcher.dispatch(hit (QueryBuilder.EVENT));
+    }
+}
@@ -0,0 +1,119 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+
+/**
+ * Unit test for the {@link SamplingDispatcher} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class SamplingDispatcherTest {
+
+    private List<String> forwarded = null;
+
+    private Dispatcher recorder = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        forwarded = new ArrayList<String> ();
+
+        recorder = queryBuilder -> forwarded.add(queryBuilder.getParameter(QueryBuilder.CID));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        forwarded = null;
+        recorder = null;
+    }
+
+    static QueryBuilder hit (String clientId) {
+        return new QueryBuilder ((RestTemplate) null).withCID(clientId);
+    }
+
+    @Test
+    public void testRateOfZeroDropsEverything() {
+
+        SamplingDispatcher dispatcher = new SamplingDispatcher (recorder, 0.0);
+
+        dispatcher.dispatch(hit ("a").withTAsPageView());
+        dispatcher.dispatch(hit ("b").withTAsEvent());
+
+        assertEquals(0, forwarded.size());
+        assertEquals(2, dispatcher.getSampledOutCount());
+        assertEquals(1, dispatcher.getSampledOutCount(QueryBuilder.PAGE_VIEW));
+        assertEquals(1, dispatcher.getSampledOutCount(QueryBuilder.EVENT));
+    }
+
+    @Test
+    public void testRevenueHitsAreNeverSampled() {
+
+        SamplingDispatcher dispatcher = new SamplingDispatcher (recorder, 0.0);
+
+        dispatcher.dispatch(hit ("a").withTAsTransaction());
+        dispatcher.dispatch(hit ("b").withTAsItem());
+        dispatcher.dispatch(hit ("c").withTAsEvent().withPaAsPurchase());
+        dispatcher.dispatch(hit ("d").withTAsEvent().withPaAsRefund());
+
+        assertEquals(4, forwarded.size());
+        assertEquals(0, dispatcher.getSampledOutCount());
+    }
+
+    @Test
+    public void testRatesByHitType() {
+
+        Map<String, Double> ratesByHitType = new HashMap<String, Double> ();
+
+        ratesByHitType.put(QueryBuilder.EVENT, 0.0);
+
+        SamplingDispatcher dispatcher = new SamplingDispatcher (recorder, 1.0, ratesByHitType);
+
+        dispatcher.dispatch(hit ("a").withTAsPageView());
+        dispatcher.dispatch(hit ("a").withTAsEvent());
+
+        assertEquals(1, forwarded.size());
+        assertEquals(1, dispatcher.getForwardedCount());
+    }
+
+    @Test
+    public void testWholeClientsAreSampled() {
+
+        SamplingDispatcher dispatcher = new SamplingDispatcher (recorder, 0.5);
+
+        int clients = 10000;
+
+        for (int ctr = 0; ctr < clients; ctr++) {
+
+            String clientId = "client-" + ctr;
+
+            boolean sampledIn = dispatcher.isSampledIn(hit (clientId).withTAsPageView());
+
+            for (int next = 0; next < 3; next++)
+                assertEquals(sampledIn, dispatcher.isSampledIn(hit (clientId).withTAsEvent()));
+        }
+
+        for (int ctr = 0; ctr < clients; ctr++)
+            dispatcher.dispatch(hit ("client-" + ctr).withTAsPageView());
+
+        assertTrue(4500 < forwarded.size() && forwarded.size() < 5500);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new SamplingDispatcher (recorder, 1.5);
+    }
+}
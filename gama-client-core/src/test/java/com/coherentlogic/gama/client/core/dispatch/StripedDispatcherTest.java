@@ -0,0 +1,274 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.hits.Hit;
+
+/**
+ * Unit test for the {@link StripedDispatcher} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class StripedDispatcherTest {
+
+    private Map<String, List<String>> sentByClient = null;
+
+    private StripedDispatcher dispatcher = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        sentByClient = new ConcurrentHashMap<String, List<String>> ();
+
+        dispatcher = new StripedDispatcher (
+            queryBuilder -> sentByClient
+                .computeIfAbsent(Dispatcher.clientKeyOf(queryBuilder),
+                    key -> Collections.synchronizedList(new ArrayList<String> ()))
+                .add(queryBuilder.getParameter(QueryBuilder.DP)),
+            new BoundedQueryBuilderPool (new RestTemplate (), 64),
+            4,
+            16
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dispatcher.close();
+        sentByClient = null;
+        dispatcher = null;
+    }
+
+    static QueryBuilder pageview (String clientId, int sequence) {
+        return new QueryBuilder ((RestTemplate) null)
+            .withV1()
+            .withTid("UA-1")
+            .withCID(clientId)
+            .withTAsPageView()
+            .withDp("/" + sequence);
+    }
+
+    @Test
+    public void testSameClientSameLane() {
+        assertEquals(dispatcher.laneOf("c1"), dispatcher.laneOf("c1"));
+        assertTrue(dispatcher.laneOf("c2") < dispatcher.getLaneCount());
+    }
+
+    @Test
+    public void testHitsOfOneClientStayInOrder() throws InterruptedException {
+
+        int clientCount = 8;
+        int hitCount = 500;
+
+        Thread[] producers = new Thread[clientCount];
+
+        for (int ctr = 0; ctr < clientCount; ctr++) {
+
+            String clientId = "client-" + ctr;
+
+            producers[ctr] = new Thread (() -> {
+
+                QueryBuilder reused = new QueryBuilder ((RestTemplate) null);
+
+                for (int sequence = 0; sequence < hitCount; sequence++) {
+                    dispatcher.dispatch(reused.withV1().withCID(clientId).withDp("/" + sequence));
+                    reused.reset();
+                }
+            });
+
+            producers[ctr].start();
+        }
+
+        for (Thread producer : producers)
+            producer.join();
+
+        assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(clientCount, sentByClient.size());
+
+        for (List<String> sent : sentByClient.values()) {
+
+            assertEquals(hitCount, sent.size());
+
+            for (int sequence = 0; sequence < hitCount; sequence++)
+                assertEquals("/" + sequence, sent.get(sequence));
+        }
+
+        long sentCount = 0;
+
+        for (int lane = 0; lane < dispatcher.getLaneCount(); lane++) {
+            sentCount += dispatcher.getSentCount(lane);
+            assertEquals(0, dispatcher.getLaneDepth(lane));
+        }
+
+        assertEquals(clientCount * hitCount, sentCount);
+    }
+
+    @Test
+    public void testLaneDepth() throws InterruptedException {
+
+        CountDownLatch release = new CountDownLatch (1);
+
+        dispatcher.close();
+
+        dispatcher = new StripedDispatcher (
+            queryBuilder -> {
+                try {
+                    release.await();
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            },
+            new BoundedQueryBuilderPool (new RestTemplate (), 64),
+            2,
+            16
+        );
+
+        for (int ctr = 0; ctr < 5; ctr++)
+            dispatcher.dispatch(pageview ("hot", ctr));
+
+        int lane = dispatcher.laneOf("hot");
+
+        assertEquals(5, dispatcher.getLaneDepth(lane));
+        assertEquals(0, dispatcher.getLaneDepth(1 - lane));
+
+        release.countDown();
+
+        assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(0, dispatcher.getLaneDepth(lane));
+        assertEquals(5, dispatcher.getPeakLaneDepth(lane));
+    }
+
+    @Test
+    public void testFailuresAreCounted() {
+
+        dispatcher.close();
+
+        dispatcher = new StripedDispatcher (
+            queryBuilder -> {
+                throw new IllegalStateException("Expected");
+            },
+            new BoundedQueryBuilderPool (new RestTemplate (), 64),
+            2,
+            16
+        );
+
+        dispatcher.dispatch(pageview ("c1", 1));
+        dispatcher.dispatch(pageview ("c1", 2));
+
+        dispatcher.close();
+
+        assertEquals(2, dispatcher.getFailureCount());
+    }
+
+    @Test
+    public void testHitsAreQueuedWithoutCopying() {
+
+        dispatcher.close();
+
+        List<Hit> sent = Collections.synchronizedList(new ArrayList<Hit> ());
+
+        dispatcher = new StripedDispatcher (
+            new Dispatcher () {
+
+                @Override
+                public void dispatch(QueryBuilder queryBuilder) {
+                    throw new IllegalStateException("Hits should not be copied into builders.");
+                }
+
+                @Override
+                public void dispatch(Hit hit) {
+                    sent.add(hit);
+                }
+            },
+            new BoundedQueryBuilderPool (new RestTemplate (), 64),
+            2,
+            16
+        );
+
+        Hit hit = pageview ("c1", 1).build();
+
+        dispatcher.dispatch(hit);
+
+        dispatcher.close();
+
+        assertEquals(1, sent.size());
+        assertSame(hit, sent.get(0));
+        assertEquals(0, dispatcher.getFailureCount());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testDispatchAfterClose() {
+
+        dispatcher.close();
+
+        dispatcher.dispatch(pageview ("c1", 1));
+    }
+
+    @Test
+    public void testHitsDispatchedWhileClosingAreSent() throws InterruptedException {
+
+        for (int round = 0; round < 20; round++) {
+
+            AtomicInteger sent = new AtomicInteger ();
+            AtomicInteger accepted = new AtomicInteger ();
+
+            StripedDispatcher closing = new StripedDispatcher (
+                queryBuilder -> sent.incrementAndGet(),
+                new BoundedQueryBuilderPool (new RestTemplate (), 64),
+                2,
+                4
+            );
+
+            Thread[] producers = new Thread[4];
+
+            for (int ctr = 0; ctr < producers.length; ctr++) {
+
+                String clientId = "c" + ctr;
+
+                producers[ctr] = new Thread (() -> {
+                    try {
+                        for (int sequence = 0; ; sequence++) {
+                            closing.dispatch(pageview (clientId, sequence));
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException closed) {
+                        // Expected once the dispatcher has been closed.
+                    }
+                });
+
+                producers[ctr].start();
+            }
+
+            Thread.sleep(2);
+
+            closing.close();
+
+            for (Thread producer : producers)
+                producer.join();
+
+            // Every hit which was accepted was sent, so nothing is left pending.
+            assertEquals(accepted.get(), sent.get());
+            assertTrue(closing.flush(0, TimeUnit.SECONDS));
+        }
+    }
+}
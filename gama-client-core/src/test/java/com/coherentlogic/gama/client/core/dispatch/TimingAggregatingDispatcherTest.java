@@ -0,0 +1,200 @@
+package com.coherentlogic.gama.client.core.dispatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+
+/**
+ * Unit test for the {@link TimingAggregatingDispatcher} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class TimingAggregatingDispatcherTest {
+
+    private List<String> forwarded = null;
+
+    private TimingAggregatingDispatcher dispatcher = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        forwarded = new ArrayList<String> ();
+
+        dispatcher = new TimingAggregatingDispatcher (
+            queryBuilder -> forwarded.add(describe (queryBuilder)),
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            null,
+            60000L
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        forwarded = null;
+        dispatcher = null;
+    }
+
+    /**
+     * Returns the parameters as name=value pairs, without any encoding.
+     */
+    public static String describe (QueryBuilder queryBuilder) {
+
+        StringBuilder result = new StringBuilder ();
+
+        for (int ctr = 0; ctr < queryBuilder.getParameterCount(); ctr++)
+            result
+                .append(ctr == 0 ? "" : "&")
+                .append(queryBuilder.getParameterName(ctr))
+                .append('=')
+                .append(queryBuilder.getParameterValue(ctr));
+
+        return result.toString();
+    }
+
+    static QueryBuilder timing (String variable, long time) {
+        return new QueryBuilder ((RestTemplate) null)
+            .withV1()
+            .withTid("UA-1")
+            .withCID("c1")
+            .withTAsTiming()
+            .withUtc("backend")
+            .withUtv(variable)
+            .withUtt(time)
+            .withCmX(1, 2);
+    }
+
+    @Test
+    public void testNonTimingHitsPassThrough() {
+
+        dispatcher.dispatch(new QueryBuilder ((RestTemplate) null).withTAsEvent());
+
+        assertEquals(1, forwarded.size());
+        assertEquals(0, dispatcher.getAggregatedCount());
+    }
+
+    /**
+     * Timing hits are absorbed without waiting, while other hits are offered to a delegate which, here, is full.
+     */
+    @Test
+    public void testOfferUsesTheDelegatesOffer() {
+
+        dispatcher = new TimingAggregatingDispatcher (
+            new Dispatcher () {
+
+                @Override
+                public void dispatch(QueryBuilder queryBuilder) {
+                    throw new AssertionError("The hit should have been offered.");
+                }
+
+                @Override
+                public boolean offer(QueryBuilder queryBuilder) {
+                    return false;
+                }
+            },
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            null,
+            60000L
+        );
+
+        assertTrue(dispatcher.offer(timing ("query", 5)));
+        assertFalse(dispatcher.offer(new QueryBuilder ((RestTemplate) null).withTAsEvent()));
+        assertEquals(1, dispatcher.getAggregatedCount());
+    }
+
+    @Test
+    public void testTimingHitsAreSummarized() {
+
+        for (int ctr = 1; ctr <= 10; ctr++)
+            dispatcher.dispatch(timing ("query", ctr));
+
+        dispatcher.dispatch(timing ("update", 7));
+
+        assertEquals(0, forwarded.size());
+
+        dispatcher.flush();
+
+        assertEquals(2, forwarded.size());
+        assertEquals(2, dispatcher.getSummaryCount());
+        assertEquals(11, dispatcher.getAggregatedCount());
+
+        assertTrue(forwarded.contains(
+            "v=1&tid=UA-1&cid=c1&t=timing&utc=backend&utv=query&utt=6&utl=n=10 p50=5 p90=9 p99=10&cm1=20"));
+
+        assertTrue(forwarded.contains(
+            "v=1&tid=UA-1&cid=c1&t=timing&utc=backend&utv=update&utt=7&utl=n=1 p50=7 p90=7 p99=7&cm1=2"));
+
+        dispatcher.flush();
+
+        assertEquals(2, forwarded.size());
+    }
+
+    @Test
+    public void testFractionalCustomMetricsAreSentInPlainNotation() {
+
+        dispatcher.dispatch(timing ("query", 3).withCmX(2, 0.00005));
+        dispatcher.dispatch(timing ("query", 4).withCmX(2, 0.0001));
+
+        dispatcher.flush();
+
+        assertEquals(1, forwarded.size());
+        assertTrue(forwarded.get(0), forwarded.get(0).contains("&cm2=0.00015"));
+    }
+
+    @Test
+    public void testPercentilesAsCustomMetrics() {
+
+        dispatcher = new TimingAggregatingDispatcher (
+            queryBuilder -> forwarded.add(describe (queryBuilder)),
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            null,
+            60000L,
+            new int[] {10, 11, 12, 13}
+        );
+
+        dispatcher.dispatch(timing ("query", 3).withUtl("label"));
+
+        dispatcher.close();
+
+        assertEquals(
+            "v=1&tid=UA-1&cid=c1&t=timing&utc=backend&utv=query&utt=3&utl=label&cm10=1&cm11=3&cm12=3&cm13=3&cm1=2",
+            forwarded.get(0)
+        );
+    }
+
+    @Test
+    public void testHistogramPrecision() {
+
+        for (long value : new long[] {0L, 15L, 16L, 100L, 12345L, 3600000L}) {
+
+            long estimate = TimingHistogram.valueOf(TimingHistogram.indexOf(value));
+
+            assertTrue(Math.abs(estimate - value) <= value / 8);
+        }
+    }
+
+    @Test
+    public void testTruncate() {
+
+        StringBuilder label = new StringBuilder ();
+
+        for (int ctr = 0; ctr < 600; ctr++)
+            label.append('x');
+
+        String result = TimingAggregatingDispatcher.Accumulator.truncate(label.toString(), "n=1");
+
+        assertEquals(TimingAggregatingDispatcher.MAX_LABEL_LENGTH_IN_BYTES, result.length());
+        assertTrue(result.endsWith(" n=1"));
+    }
+}
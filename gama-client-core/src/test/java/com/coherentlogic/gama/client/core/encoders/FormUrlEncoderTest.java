@@ -0,0 +1,213 @@
+package com.coherentlogic.gama.client.core.encoders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link FormUrlEncoder} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class FormUrlEncoderTest {
+
+    private ByteBuffer buffer = null;
+
+    @Before
+    public void setUp() throws Exception {
+        buffer = ByteBuffer.allocate(1024);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        buffer = null;
+    }
+
+    String encode (String value) {
+
+        FormUrlEncoder.encode(value, buffer).flip();
+
+        return StandardCharsets.US_ASCII.decode(buffer).toString();
+    }
+
+    void assertSameAsURLEncoder (String value) throws UnsupportedEncodingException {
+
+        String expected = URLEncoder.encode(value, "UTF-8");
+
+        assertEquals(expected, encode (value));
+        assertEquals(expected.length(), FormUrlEncoder.encodedLength(value));
+    }
+
+    @Test
+    public void testEncodeSafeCharacters() throws UnsupportedEncodingException {
+        assertSameAsURLEncoder("abcXYZ0189-_.*");
+    }
+
+    @Test
+    public void testEncodeSpace() throws UnsupportedEncodingException {
+        assertSameAsURLEncoder("Integration Test Started");
+    }
+
+    @Test
+    public void testEncodeReservedCharacters() throws UnsupportedEncodingException {
+        assertSameAsURLEncoder("http://example.com/a/b?c=d&e=f#g%h+i~j");
+    }
+
+    @Test
+    public void testEncodeTwoByteCharacters() throws UnsupportedEncodingException {
+        assertSameAsURLEncoder("Gr\u00FC\u00DFe \u00A3");
+    }
+
+    @Test
+    public void testEncodeThreeByteCharacters() throws UnsupportedEncodingException {
+        assertSameAsURLEncoder("\u65E5\u672C\u8A9E \u20AC");
+    }
+
+    @Test
+    public void testEncodeSurrogatePair() throws UnsupportedEncodingException {
+        assertSameAsURLEncoder("smile \uD83D\uDE00!");
+    }
+
+    @Test
+    public void testEncodeUnpairedSurrogate() {
+        assertEquals("a%3Fb", encode ("a\uD83Db"));
+    }
+
+    @Test
+    public void testEncodeParameter() {
+
+        FormUrlEncoder.encodeParameter("ec", "Integration Test", true, buffer);
+        FormUrlEncoder.encodeParameter("ev", "55", false, buffer);
+
+        buffer.flip();
+
+        assertEquals("ec=Integration+Test&ev=55", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    boolean isFormUrlEncoded (String value) {
+        return FormUrlEncoder.isFormUrlEncoded(StandardCharsets.ISO_8859_1.encode(value));
+    }
+
+    @Test
+    public void testIsFormUrlEncoded() {
+
+        assertTrue(isFormUrlEncoded ("v=1&dp=%2Fhome+page&el=a-b_c.d*e"));
+        assertTrue(isFormUrlEncoded (""));
+
+        assertFalse(isFormUrlEncoded ("dp=/home"));
+        assertFalse(isFormUrlEncoded ("dt=a b"));
+        assertFalse(isFormUrlEncoded ("dt=a%2"));
+        assertFalse(isFormUrlEncoded ("dt=a%zz"));
+        assertFalse(isFormUrlEncoded ("dt=\u00FC"));
+    }
+
+    @Test
+    public void testEncodeLong() {
+
+        long[] values = { 0L, 7L, 10L, 1234567890L, -1L, -98765L, Long.MAX_VALUE, Long.MIN_VALUE };
+
+        for (long value : values) {
+
+            buffer.clear();
+
+            FormUrlEncoder.encode(value, buffer).flip();
+
+            assertEquals(Long.toString(value), StandardCharsets.US_ASCII.decode(buffer).toString());
+        }
+    }
+
+    @Test(expected=BufferOverflowException.class)
+    public void testEncodeLongOverflow() {
+        FormUrlEncoder.encode(12345L, ByteBuffer.allocate(4));
+    }
+
+    @Test
+    public void testEncodeDecimal() {
+
+        long[] values = { 0L, 5L, 99L, 100L, 1547L, -1L, -1547L, 123456789L, Long.MAX_VALUE, Long.MIN_VALUE };
+
+        for (long value : values) {
+            for (int scale = 0; scale <= FormUrlEncoder.MAX_SCALE; scale++) {
+
+                buffer.clear();
+
+                FormUrlEncoder.encode(value, scale, buffer).flip();
+
+                assertTrue(buffer.remaining() <= FormUrlEncoder.MAX_DECIMAL_LENGTH);
+
+                assertEquals(
+                    BigDecimal.valueOf(value, scale).toPlainString(),
+                    StandardCharsets.US_ASCII.decode(buffer).toString()
+                );
+            }
+        }
+    }
+
+    /**
+     * Numbers are written digit by digit, so encoding one must not allocate anything; skipped on JVMs which cannot
+     * measure the bytes a thread allocates.
+     */
+    @Test
+    public void testEncodeNumbersWithoutAllocating() {
+
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported()
+            && allocations.isThreadAllocatedMemoryEnabled());
+
+        long threadId = Thread.currentThread().getId();
+
+        int iterations = 100000;
+
+        for (int pass = 0; pass < 2; pass++) {
+
+            // The first pass warms up the encoder and the measurement itself.
+            long before = allocations.getThreadAllocatedBytes(threadId);
+
+            for (int ctr = 0; ctr < iterations; ctr++) {
+                buffer.clear();
+                FormUrlEncoder.encode(ctr * 7919L, buffer);
+                FormUrlEncoder.encode(-ctr * 104729L, 2, buffer);
+            }
+
+            long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+            if (pass == 1)
+                assertTrue("Allocated " + allocated + " bytes for " + iterations + " iterations.",
+                    allocated < iterations);
+        }
+    }
+
+    @Test(expected=BufferOverflowException.class)
+    public void testEncodeDecimalOverflow() {
+        FormUrlEncoder.encode(5L, 2, ByteBuffer.allocate(3));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testEncodeDecimalWithNegativeScale() {
+        FormUrlEncoder.encode(5L, -1, buffer);
+    }
+
+    @Test(expected=BufferOverflowException.class)
+    public void testEncodeOverflow() {
+        FormUrlEncoder.encode("\u00FC\u00FC", ByteBuffer.allocate(5));
+    }
+}
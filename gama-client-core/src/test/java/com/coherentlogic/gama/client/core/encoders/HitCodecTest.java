@@ -0,0 +1,234 @@
+package com.coherentlogic.gama.client.core.encoders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.exceptions.MalformedHitException;
+
+/**
+ * Unit test for the {@link HitCodec} and {@link HitReader} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitCodecTest {
+
+    private QueryBuilder queryBuilder = null;
+
+    private ByteBuffer buffer = null;
+
+    @Before
+    public void setUp() throws Exception {
+        queryBuilder = new QueryBuilder ((RestTemplate) null);
+        buffer = ByteBuffer.allocate(8192);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queryBuilder = null;
+        buffer = null;
+    }
+
+    static String formUrlEncoded (QueryBuilder queryBuilder) {
+
+        ByteBuffer target = ByteBuffer.allocate(8192);
+
+        queryBuilder.encodeTo(target).flip();
+
+        return StandardCharsets.US_ASCII.decode(target).toString();
+    }
+
+    void assertRoundTrip () {
+
+        HitCodec.encode(queryBuilder, buffer).flip();
+
+        assertEquals(HitCodec.encodedLength(queryBuilder), buffer.remaining());
+
+        ByteBuffer target = ByteBuffer.allocate(8192);
+
+        HitCodec.toFormUrlEncoded(buffer.duplicate(), target).flip();
+
+        String expected = formUrlEncoded (queryBuilder);
+
+        assertEquals(expected, StandardCharsets.US_ASCII.decode(target).toString());
+
+        QueryBuilder decoded = HitCodec.decode(buffer, new QueryBuilder ((RestTemplate) null));
+
+        assertFalse(buffer.hasRemaining());
+        assertEquals(expected, formUrlEncoded (decoded));
+    }
+
+    @Test
+    public void testRoundTripKnownParameters() {
+
+        queryBuilder
+            .withParameter(QueryBuilder.V, "1")
+            .withParameter(QueryBuilder.TID, "UA-XXXX-Y")
+            .withParameter(QueryBuilder.CID, "35009a79-1a05-49d7-b876-2b884d0f825b")
+            .withParameter(QueryBuilder.T, "pageview")
+            .withParameter(QueryBuilder.DL, "http://example.com/a/b?c=d&e=f")
+            .withParameter(QueryBuilder.DT, "Gr\u00FC\u00DFe \u65E5\u672C\u8A9E \uD83D\uDE00");
+
+        assertRoundTrip ();
+    }
+
+    @Test
+    public void testRoundTripIndexedParameters() {
+
+        queryBuilder
+            .withParameter("pr1id", "P12345")
+            .withParameter("pr3cd12", "Member")
+            .withParameter("il10pi200cd3", "Sale")
+            .withParameter("cd200", "Sports")
+            .withParameter("promo2nm", "Summer Sale");
+
+        assertRoundTrip ();
+    }
+
+    @Test
+    public void testRoundTripUnknownParameters() {
+
+        queryBuilder
+            .withParameter("foo bar", "baz")
+            .withParameter("cd01", "leading zero")
+            .withParameter("cd1234567890", "too many digits")
+            .withParameter("pr1cd2cd3cd4", "too many indices")
+            .withParameter("ev", "");
+
+        assertRoundTrip ();
+    }
+
+    @Test
+    public void testRoundTripEmptyHit() {
+        assertRoundTrip ();
+    }
+
+    @Test
+    public void testKnownParametersAreWrittenById() {
+
+        queryBuilder.withParameter("pr3cd12", "x");
+
+        HitCodec.encode(queryBuilder, buffer).flip();
+
+        // version, count, id, 3, 12, value length, value
+        assertEquals(7, buffer.remaining());
+
+        HitReader hitReader = new HitReader ().reset(buffer);
+
+        assertEquals(1, hitReader.getParameterCount());
+        assertTrue(hitReader.next());
+        assertEquals(2, hitReader.getIndexCount());
+        assertEquals(3, hitReader.getIndex(0));
+        assertEquals(12, hitReader.getIndex(1));
+        assertEquals("pr3cd12", hitReader.getName());
+        assertEquals("x", hitReader.getValueAsString());
+        assertFalse(hitReader.next());
+    }
+
+    @Test
+    public void testReaderExposesValueWithoutCopying() {
+
+        queryBuilder.withParameter(QueryBuilder.EC, "Category");
+
+        HitCodec.encode(queryBuilder, buffer).flip();
+
+        HitReader hitReader = new HitReader ().reset(buffer);
+
+        assertTrue(hitReader.next());
+
+        ByteBuffer value = hitReader.getValue();
+
+        assertTrue(value.isReadOnly());
+        assertEquals("Category", StandardCharsets.UTF_8.decode(value).toString());
+    }
+
+    @Test
+    public void testReadHitsBackToBack() {
+
+        queryBuilder.withParameter(QueryBuilder.T, "event");
+
+        HitCodec.encode(queryBuilder, buffer);
+        HitCodec.encode(queryBuilder.withParameter(QueryBuilder.EA, "play"), buffer).flip();
+
+        HitReader hitReader = new HitReader ();
+
+        assertEquals(1, hitReader.reset(buffer).getParameterCount());
+
+        while (hitReader.next());
+
+        assertEquals(2, hitReader.reset(buffer).getParameterCount());
+
+        while (hitReader.next());
+
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test(expected=MalformedHitException.class)
+    public void testUnsupportedVersion() {
+
+        buffer.put((byte) 99).put((byte) 0).flip();
+
+        new HitReader ().reset(buffer);
+    }
+
+    @Test(expected=MalformedHitException.class)
+    public void testTruncatedHit() {
+
+        queryBuilder.withParameter(QueryBuilder.DL, "http://example.com/");
+
+        HitCodec.encode(queryBuilder, buffer).flip();
+
+        buffer.limit(buffer.limit() - 1);
+
+        HitReader hitReader = new HitReader ().reset(buffer);
+
+        hitReader.next();
+    }
+
+    @Test(expected=MalformedHitException.class)
+    public void testUnknownParameterId() {
+
+        buffer.put(HitCodec.FORMAT_VERSION).put((byte) 1).put((byte) 0x7F).put((byte) 0).flip();
+
+        new HitReader ().reset(buffer).next();
+    }
+
+    /**
+     * A five byte varint can decode to a negative int, which must not be accepted as an index.
+     */
+    @Test(expected=MalformedHitException.class)
+    public void testNegativeIndex() {
+
+        int id = 1;
+
+        while (ParameterTable.getIndexCount(id) == 0)
+            id++;
+
+        buffer.put(HitCodec.FORMAT_VERSION).put((byte) 1).put((byte) id)
+            .put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).put((byte) 0x0F)
+            .put((byte) 0)
+            .flip();
+
+        new HitReader ().reset(buffer).next();
+    }
+
+    @Test(expected=MalformedHitException.class)
+    public void testNegativeParameterCount() {
+
+        buffer.put(HitCodec.FORMAT_VERSION)
+            .put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).put((byte) 0x0F)
+            .flip();
+
+        new HitReader ().reset(buffer);
+    }
+}
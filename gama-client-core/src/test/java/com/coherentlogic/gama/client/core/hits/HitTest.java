@@ -0,0 +1,180 @@
+package com.coherentlogic.gama.client.core.hits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+
+/**
+ * Unit test for the {@link Hit} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitTest {
+
+    private QueryBuilder queryBuilder = null;
+
+    @Before
+    public void setUp() throws Exception {
+        queryBuilder = new QueryBuilder ((RestTemplate) null)
+            .withV1()
+            .withTid("UA-1")
+            .withCID("c1")
+            .withTAsEvent()
+            .withEc("video")
+            .withEa("play & pause");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queryBuilder = null;
+    }
+
+    static String decode (ByteBuffer buffer) {
+
+        byte[] bytes = new byte[buffer.remaining()];
+
+        buffer.get(bytes);
+
+        return new String (bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testEncodingMatchesTheBuilder() {
+
+        Hit hit = queryBuilder.build();
+
+        String expected = decode ((ByteBuffer) queryBuilder.encodeTo(ByteBuffer.allocate(256)).flip());
+
+        assertEquals(expected, hit.toFormUrlEncoded());
+        assertEquals(expected, decode ((ByteBuffer) hit.encodeTo(ByteBuffer.allocate(256)).flip()));
+        assertEquals(expected.length(), hit.getEncodedLength());
+        assertEquals(QueryBuilder.EVENT, hit.getHitType());
+        assertEquals("play & pause", hit.getParameter(QueryBuilder.EA));
+        assertNull(hit.getParameter(QueryBuilder.EL));
+    }
+
+    @Test
+    public void testHitIsUnaffectedByReset() {
+
+        Hit hit = queryBuilder.build();
+
+        String expected = hit.toFormUrlEncoded();
+
+        queryBuilder.reset().withV1().withTid("UA-2");
+
+        assertEquals(6, hit.getParameterCount());
+        assertEquals("UA-1", hit.getParameter(QueryBuilder.TID));
+        assertEquals(expected, hit.toFormUrlEncoded());
+    }
+
+    @Test
+    public void testAsByteBufferReturnsIndependentViews() {
+
+        Hit hit = queryBuilder.build();
+
+        ByteBuffer first = hit.asByteBuffer();
+
+        assertTrue(first.isReadOnly());
+
+        String expected = decode (first);
+
+        assertEquals(0, first.remaining());
+        assertEquals(expected, decode (hit.asByteBuffer()));
+    }
+
+    @Test
+    public void testToQueryBuilder() {
+
+        Hit hit = queryBuilder.build();
+
+        assertEquals(hit, hit.toQueryBuilder().build());
+    }
+
+    @Test
+    public void testEquals() {
+
+        Hit hit = queryBuilder.build();
+
+        assertEquals(hit, queryBuilder.build());
+        assertEquals(hit.hashCode(), queryBuilder.build().hashCode());
+        assertNotEquals(hit, queryBuilder.withEl("trailer").build());
+    }
+
+    @Test(expected=PayloadTooLargeException.class)
+    public void testEncodeToSmallBuffer() {
+        queryBuilder.build().encodeTo(ByteBuffer.allocate(8));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMismatchedNamesAndValues() {
+        new Hit (queryBuilder.build().getEndpoint(), new String[] {"v"}, new String[0]);
+    }
+
+    @Test
+    public void testConstructorCopiesTheArrays() {
+
+        String[] names = {QueryBuilder.V, QueryBuilder.TID};
+        String[] values = {"1", "UA-1"};
+
+        Hit hit = new Hit (queryBuilder.build().getEndpoint(), names, values);
+
+        String before = hit.toFormUrlEncoded();
+
+        names[1] = QueryBuilder.CID;
+        values[1] = "c2";
+
+        assertEquals("UA-1", hit.getParameter(QueryBuilder.TID));
+        assertNull(hit.getParameter(QueryBuilder.CID));
+        assertEquals(before, decode (hit.asByteBuffer()));
+    }
+
+    @Test
+    public void testBuildIsUnaffectedByReuse() {
+
+        Hit hit = queryBuilder.build();
+
+        queryBuilder.reset().withV1().withTid("UA-2");
+
+        assertEquals("UA-1", hit.getParameter(QueryBuilder.TID));
+        assertEquals(6, hit.getParameterCount());
+    }
+
+    @Test
+    public void testOversizedHit() {
+
+        char[] value = new char[QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES];
+
+        Arrays.fill(value, 'x');
+
+        Hit hit = queryBuilder.withParameter(QueryBuilder.EL, new String (value)).build();
+
+        try {
+            hit.asByteBuffer();
+            fail("The hit should have been rejected.");
+        } catch (PayloadTooLargeException expected) {
+            // The bytes must not have been cached, so the hit is rejected every time.
+        }
+
+        try {
+            hit.encodeTo(ByteBuffer.allocate(2 * QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES));
+            fail("The hit should have been rejected.");
+        } catch (PayloadTooLargeException expected) {
+            assertTrue(hit.toString().contains("exceeding"));
+        }
+    }
+}
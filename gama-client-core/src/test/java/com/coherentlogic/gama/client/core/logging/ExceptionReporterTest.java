@@ -0,0 +1,169 @@
+package com.coherentlogic.gama.client.core.logging;
+
+import static com.coherentlogic.gama.client.core.dispatch.TimingAggregatingDispatcherTest.describe;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.util.Utf8;
+
+/**
+ * Unit test for the {@link ExceptionReporter} and {@link Log4jExceptionAppender} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ExceptionReporterTest {
+
+    private List<String> dispatched = null;
+
+    private AtomicLong now = null;
+
+    private ExceptionReporter exceptionReporter = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dispatched = new ArrayList<String> ();
+        now = new AtomicLong (1000L);
+
+        exceptionReporter = new ExceptionReporter (
+            "UA-1",
+            "c1",
+            queryBuilder -> dispatched.add(describe (queryBuilder)),
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            null,
+            2,
+            60000L,
+            1,
+            3,
+            now::get
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        exceptionReporter.close();
+        dispatched = null;
+        now = null;
+        exceptionReporter = null;
+    }
+
+    static Throwable newThrowable (int line, String message) {
+
+        IllegalStateException result = new IllegalStateException(message);
+
+        result.setStackTrace(new StackTraceElement[] {
+            new StackTraceElement ("com.example.Service", "handle", "Service.java", line)
+        });
+
+        return result;
+    }
+
+    @Test
+    public void testFingerprintIgnoresTheMessage() {
+
+        assertEquals(
+            ExceptionReporter.fingerprint(newThrowable (10, "id 1")),
+            ExceptionReporter.fingerprint(newThrowable (10, "id 2"))
+        );
+
+        assertTrue(
+            ExceptionReporter.fingerprint(newThrowable (10, "id 1"))
+                != ExceptionReporter.fingerprint(newThrowable (11, "id 1"))
+        );
+    }
+
+    @Test
+    public void testDescribe() {
+
+        Throwable throwable = new RuntimeException ("wrapper", newThrowable (10, "Boom"));
+
+        assertEquals("IllegalStateException: Boom at com.example.Service.handle:10",
+            ExceptionReporter.describe("ignored", throwable));
+
+        assertEquals("Logged", ExceptionReporter.describe("Logged", null));
+    }
+
+    @Test
+    public void testDescriptionIsTruncated() {
+
+        StringBuilder message = new StringBuilder ();
+
+        for (int ctr = 0; ctr < 100; ctr++)
+            message.append('\u00E9');
+
+        String result = ExceptionReporter.describe(message.toString(), null);
+
+        assertEquals(75, result.length());
+        assertEquals(ExceptionReporter.MAX_DESCRIPTION_LENGTH_IN_BYTES, Utf8.length(result));
+    }
+
+    @Test
+    public void testReport() {
+
+        assertTrue(exceptionReporter.report("logger", "message", newThrowable (10, "Boom"), true));
+
+        assertEquals(
+            "v=1&tid=UA-1&cid=c1&t=exception&exd=IllegalStateException: Boom at com.example.Service.handle:10&exf=1",
+            dispatched.get(0)
+        );
+    }
+
+    @Test
+    public void testRateLimits() {
+
+        assertTrue(exceptionReporter.report("logger", null, newThrowable (10, "a"), false));
+        assertFalse(exceptionReporter.report("logger", null, newThrowable (10, "b"), false));
+        assertTrue(exceptionReporter.report("logger", null, newThrowable (11, "c"), false));
+        assertTrue(exceptionReporter.report("logger", "no throwable", null, false));
+        assertFalse(exceptionReporter.report("logger", null, newThrowable (12, "d"), false));
+
+        assertEquals(3, exceptionReporter.getReportedCount());
+        assertEquals(2, exceptionReporter.getSuppressedCount());
+        assertEquals(2, exceptionReporter.getFingerprintCount());
+
+        now.addAndGet(60000L);
+
+        assertTrue(exceptionReporter.report("logger", null, newThrowable (10, "e"), false));
+        assertEquals(4, dispatched.size());
+    }
+
+    @Test
+    public void testPatternFingerprintsTheFormattedMessage() {
+
+        assertTrue(exceptionReporter.report("logger", "Order {} failed", "Order 1 failed", null, false));
+        assertFalse(exceptionReporter.report("logger", "Order {} failed", "Order 2 failed", null, false));
+
+        assertEquals("v=1&tid=UA-1&cid=c1&t=exception&exd=Order 1 failed&exf=0", dispatched.get(0));
+        assertEquals(1, exceptionReporter.getFingerprintCount());
+    }
+
+    @Test
+    public void testLog4jExceptionAppender() {
+
+        Log4jExceptionAppender appender = new Log4jExceptionAppender (exceptionReporter);
+
+        appender.activateOptions();
+
+        appender.doAppend(new LoggingEvent ("com.example.Service", Level.WARN, "warning", null));
+        appender.doAppend(new LoggingEvent ("com.coherentlogic.gama.client.core.dispatch.StripedDispatcher",
+            Level.ERROR, "own", null));
+        appender.doAppend(new LoggingEvent ("com.example.Service", Level.ERROR, "failed", newThrowable (10, "Boom")));
+
+        assertEquals(1, dispatched.size());
+        assertTrue(dispatched.get(0).endsWith("&exf=0"));
+    }
+}
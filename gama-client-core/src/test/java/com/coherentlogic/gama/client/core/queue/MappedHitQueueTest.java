@@ -0,0 +1,307 @@
+package com.coherentlogic.gama.client.core.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.encoders.HitCodec;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * Unit test for the {@link MappedHitQueue} and {@link HitQueueSender} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class MappedHitQueueTest {
+
+    static final int CAPACITY = 4096;
+
+    private Path file = null;
+
+    private MappedHitQueue queue = null;
+
+    private QueryBuilder queryBuilder = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        file = Files.createTempFile("hits", ".queue");
+
+        Files.delete(file);
+
+        queue = new MappedHitQueue (file, CAPACITY);
+
+        queryBuilder = new QueryBuilder ();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        queue.close();
+
+        Files.deleteIfExists(file);
+
+        queue = null;
+        queryBuilder = null;
+        file = null;
+    }
+
+    QueryBuilder newHit (String label) {
+        return queryBuilder.reset().withV("1").withTid("UA-12345-1").withCID("555").withTAsEvent()
+            .withParameter(QueryBuilder.EL, label);
+    }
+
+    static String labelOf (ByteBuffer hit) {
+        return HitCodec.decode(hit.duplicate(), new QueryBuilder ()).getParameter(QueryBuilder.EL);
+    }
+
+    static String encode (QueryBuilder queryBuilder) {
+
+        ByteBuffer target = ByteBuffer.allocate(QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES);
+
+        queryBuilder.encodeTo(target).flip();
+
+        return StandardCharsets.US_ASCII.decode(target).toString();
+    }
+
+    @Test
+    public void testOfferAndPoll() {
+
+        assertNull(queue.poll());
+
+        assertTrue(queue.offer(newHit ("a")));
+        assertTrue(queue.offer(newHit ("b")));
+
+        assertEquals("a", labelOf (queue.poll()));
+        assertEquals("b", labelOf (queue.poll()));
+        assertNull(queue.poll());
+
+        assertTrue(0 < queue.getUsedBytes());
+
+        queue.commit();
+
+        assertEquals(0L, queue.getUsedBytes());
+        assertEquals(2L, queue.getOfferedCount());
+    }
+
+    @Test
+    public void testRejectsWhenFull() {
+
+        int count = 0;
+
+        while (queue.offer(newHit ("label-" + count)))
+            count++;
+
+        assertTrue(0 < count);
+        assertEquals(1L, queue.getRejectedCount());
+
+        queue.poll();
+        queue.commit();
+
+        assertTrue(queue.offer(newHit ("more")));
+    }
+
+    @Test
+    public void testWrapsAround() {
+
+        for (int ctr = 0; ctr < 1000; ctr++) {
+
+            assertTrue(queue.offer(newHit ("label-" + ctr)));
+
+            assertEquals("label-" + ctr, labelOf (queue.poll()));
+
+            queue.commit();
+        }
+
+        assertNull(queue.poll());
+    }
+
+    /**
+     * A hit which does not fit before the end of the ring must still be accepted by an empty queue, even when it
+     * takes up most of the ring, rather than waiting for a head which never moves.
+     */
+    @Test
+    public void testLargeHitWrapsAroundAnEmptyQueue() throws IOException {
+
+        StringBuilder label = new StringBuilder ();
+
+        while (label.length() < 200)
+            label.append("large-");
+
+        int small = MappedHitQueue.align(MappedHitQueue.LENGTH_SIZE + HitCodec.encodedLength(newHit ("a")));
+        int large = MappedHitQueue.align(
+            MappedHitQueue.LENGTH_SIZE + HitCodec.encodedLength(newHit (label.toString())));
+
+        Path smallFile = Files.createTempFile("hits", ".queue");
+
+        Files.delete(smallFile);
+
+        try (MappedHitQueue smallQueue = new MappedHitQueue (smallFile, large + small - MappedHitQueue.ALIGNMENT)) {
+
+            assertTrue(smallQueue.offer(newHit ("a")));
+            assertEquals("a", labelOf (smallQueue.poll()));
+            smallQueue.commit();
+
+            for (int ctr = 0; ctr < 3; ctr++) {
+
+                assertTrue(smallQueue.offer(newHit (label.toString())));
+                assertEquals(label.toString(), labelOf (smallQueue.poll()));
+                assertNull(smallQueue.poll());
+
+                smallQueue.commit();
+
+                assertEquals(0L, smallQueue.getUsedBytes());
+            }
+
+            assertEquals(0L, smallQueue.getRejectedCount());
+        } finally {
+            Files.deleteIfExists(smallFile);
+        }
+    }
+
+    @Test
+    public void testUncommittedHitsAreRedelivered() throws IOException {
+
+        queue.offer(newHit ("a"));
+        queue.offer(newHit ("b"));
+
+        long position = queue.getReadPosition();
+
+        queue.poll();
+        queue.poll();
+
+        queue.commit(position);
+
+        queue.close();
+
+        queue = new MappedHitQueue (file, CAPACITY);
+
+        assertEquals("a", labelOf (queue.poll()));
+        assertEquals("b", labelOf (queue.poll()));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCommitAheadOfReadPosition() {
+        queue.commit(queue.getReadPosition() + 1);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testSingleConsumer() throws IOException {
+
+        queue.poll();
+
+        try (MappedHitQueue other = new MappedHitQueue (file, CAPACITY)) {
+            other.poll();
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testCapacityMismatch() throws IOException {
+        new MappedHitQueue (file, CAPACITY * 2).close();
+    }
+
+    @Test
+    public void testSenderBatchesHits() throws InterruptedException {
+
+        List<String> payloads = Collections.synchronizedList(new ArrayList<String> ());
+
+        for (int ctr = 0; ctr < 25; ctr++)
+            queue.offer(newHit ("label-" + ctr));
+
+        HitQueueSender sender = new HitQueueSender (
+            queue,
+            payload -> {
+                payloads.add(StandardCharsets.US_ASCII.decode(payload).toString());
+                return "";
+            },
+            new ByteBufferPool (0, 1),
+            0.0,
+            0,
+            0L
+        );
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (sender.getSentCount() < 25 && System.nanoTime() < deadline)
+            TimeUnit.MILLISECONDS.sleep(10);
+
+        sender.close();
+
+        assertEquals(25L, sender.getSentCount());
+        assertEquals(2, payloads.size());
+        assertEquals(20, payloads.get(0).split("\n").length);
+        assertEquals(5, payloads.get(1).split("\n").length);
+        assertTrue(payloads.get(1).startsWith(encode (newHit ("label-20"))));
+        assertEquals(0L, sender.getDroppedCount());
+        assertEquals(0L, queue.getUsedBytes());
+    }
+
+    /**
+     * The sender must stop once closed even though a producer never lets the queue become empty.
+     */
+    @Test
+    public void testCloseReturnsWhileProducersKeepAppending() throws InterruptedException {
+
+        AtomicBoolean producing = new AtomicBoolean (true);
+
+        Thread producer = new Thread (() -> {
+
+            QueryBuilder hit = new QueryBuilder ().withV("1").withTid("UA-12345-1").withCID("555").withTAsEvent();
+
+            while (producing.get())
+                queue.offer(hit);
+        });
+
+        producer.start();
+
+        // Each batch takes a little while to send, so the producer keeps the queue from ever becoming empty.
+        Transport slowTransport = payload -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(1);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return "";
+        };
+
+        HitQueueSender sender = new HitQueueSender (queue, slowTransport, new ByteBufferPool (0, 1), 0.0, 0, 0L);
+
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+            while (sender.getSentCount() < 100 && System.nanoTime() < deadline)
+                TimeUnit.MILLISECONDS.sleep(10);
+
+            Thread closer = new Thread (sender::close);
+
+            closer.start();
+            closer.join(TimeUnit.SECONDS.toMillis(10));
+
+            assertFalse("The sender did not stop.", closer.isAlive());
+            assertTrue(100 <= sender.getSentCount());
+
+        } finally {
+            producing.set(false);
+            producer.join();
+        }
+    }
+}
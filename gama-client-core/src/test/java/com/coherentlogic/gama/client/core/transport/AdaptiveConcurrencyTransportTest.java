@@ -0,0 +1,190 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link AdaptiveConcurrencyTransport} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class AdaptiveConcurrencyTransportTest {
+
+    static final Transport NO_OP = payload -> "";
+
+    private AtomicLong clock = null;
+
+    @Before
+    public void setUp() throws Exception {
+        clock = new AtomicLong (1000000L);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        clock = null;
+    }
+
+    AdaptiveConcurrencyTransport newTransport (Transport delegate, int initialLimit, int minLimit, int maxLimit) {
+        return new AdaptiveConcurrencyTransport (delegate, initialLimit, minLimit, maxLimit, 2.0, 0.5, clock::get);
+    }
+
+    @Test
+    public void testLimitIncreasesWhileInUse() {
+
+        AdaptiveConcurrencyTransport transport = newTransport (NO_OP, 2, 1, 3);
+
+        for (int ctr = 0; ctr < 10; ctr++) {
+            transport.acquire();
+            transport.acquire();
+            transport.release(100L, false);
+            transport.release(100L, false);
+        }
+
+        assertEquals(3, transport.getLimit());
+        assertEquals(0, transport.getInFlight());
+        assertEquals(100L, transport.getMinRtt(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testLimitDoesNotIncreaseWhenIdle() {
+
+        AdaptiveConcurrencyTransport transport = newTransport (NO_OP, 4, 1, 10);
+
+        for (int ctr = 0; ctr < 100; ctr++) {
+            transport.acquire();
+            transport.release(100L, false);
+        }
+
+        assertEquals(4, transport.getLimit());
+    }
+
+    @Test
+    public void testLimitDecreasesOnFailureOncePerRoundTrip() {
+
+        AdaptiveConcurrencyTransport transport = newTransport (NO_OP, 8, 1, 10);
+
+        clock.addAndGet(1000L);
+
+        transport.acquire();
+        transport.release(100L, true);
+
+        assertEquals(4, transport.getLimit());
+
+        // A second failure within the same round trip is the result of the same congestion.
+        transport.acquire();
+        transport.release(100L, true);
+
+        assertEquals(4, transport.getLimit());
+
+        clock.addAndGet(100L);
+
+        transport.acquire();
+        transport.release(100L, true);
+
+        assertEquals(2, transport.getLimit());
+        assertEquals(2L, transport.getDecreaseCount());
+        assertEquals(-1L, transport.getMinRtt(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testLimitDecreasesOnLatency() {
+
+        AdaptiveConcurrencyTransport transport = newTransport (NO_OP, 8, 1, 10);
+
+        transport.acquire();
+        transport.release(100L, false);
+
+        clock.addAndGet(1000L);
+
+        transport.acquire();
+        transport.release(200L, false);
+
+        assertEquals(8, transport.getLimit());
+
+        transport.acquire();
+        transport.release(201L, false);
+
+        assertEquals(4, transport.getLimit());
+    }
+
+    @Test
+    public void testLimitNeverFallsBelowMinLimit() {
+
+        AdaptiveConcurrencyTransport transport = newTransport (NO_OP, 2, 2, 10);
+
+        for (int ctr = 0; ctr < 10; ctr++) {
+            clock.addAndGet(1000L);
+            transport.acquire();
+            transport.release(100L, true);
+        }
+
+        assertEquals(2, transport.getLimit());
+    }
+
+    @Test
+    public void testSendWaitsForTheLimit() throws Exception {
+
+        CountDownLatch sending = new CountDownLatch (1);
+        CountDownLatch proceed = new CountDownLatch (1);
+        AtomicInteger sentCount = new AtomicInteger ();
+
+        AdaptiveConcurrencyTransport transport = new AdaptiveConcurrencyTransport (
+            payload -> {
+                sending.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                sentCount.incrementAndGet();
+                return "";
+            },
+            1,
+            1,
+            1
+        );
+
+        Thread first = new Thread (() -> transport.send(ByteBuffer.allocate(0)));
+        Thread second = new Thread (() -> transport.send(ByteBuffer.allocate(0)));
+
+        first.start();
+
+        assertTrue(sending.await(10, TimeUnit.SECONDS));
+
+        second.start();
+
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        assertEquals(1, transport.getInFlight());
+        assertEquals(0, sentCount.get());
+
+        proceed.countDown();
+
+        first.join(10000L);
+        second.join(10000L);
+
+        assertEquals(2, sentCount.get());
+        assertEquals(0, transport.getInFlight());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInitialLimitAboveMaxLimit() {
+        newTransport (NO_OP, 11, 1, 10);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroMinLimit() {
+        newTransport (NO_OP, 1, 0, 10);
+    }
+}
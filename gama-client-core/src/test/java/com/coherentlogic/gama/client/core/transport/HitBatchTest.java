@@ -0,0 +1,135 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.encoders.HitCodec;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+
+/**
+ * Unit test for the {@link HitBatch} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitBatchTest {
+
+    private ByteBufferPool byteBufferPool = null;
+
+    private HitBatch hitBatch = null;
+
+    private QueryBuilder queryBuilder = null;
+
+    @Before
+    public void setUp() throws Exception {
+        byteBufferPool = new ByteBufferPool (0, 1);
+        hitBatch = new HitBatch (byteBufferPool);
+        queryBuilder = new QueryBuilder ();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        hitBatch.close();
+        hitBatch = null;
+        byteBufferPool = null;
+        queryBuilder = null;
+    }
+
+    QueryBuilder newHit (String label) {
+        return queryBuilder.reset().withV("1").withTid("UA-12345-1").withCID("555").withTAsEvent().withParameter(QueryBuilder.EL, label);
+    }
+
+    @Test
+    public void testDrain() {
+
+        assertTrue(hitBatch.isEmpty());
+        assertTrue(hitBatch.add(newHit ("a")));
+        assertTrue(hitBatch.add(newHit ("b c")));
+        assertEquals(2, hitBatch.getHitCount());
+
+        PooledByteBuffer payload = hitBatch.drain();
+
+        assertEquals(
+            "v=1&tid=UA-12345-1&cid=555&t=event&el=a\nv=1&tid=UA-12345-1&cid=555&t=event&el=b+c",
+            StandardCharsets.US_ASCII.decode(payload.getByteBuffer()).toString());
+
+        payload.release();
+
+        assertTrue(hitBatch.isEmpty());
+        assertEquals(1, byteBufferPool.getAvailableBatchSlots());
+    }
+
+    @Test
+    public void testMaxHits() {
+
+        for (int ctr = 0; ctr < HitBatch.MAX_HITS; ctr++)
+            assertTrue(hitBatch.add(newHit ("hit " + ctr)));
+
+        assertFalse(hitBatch.add(newHit ("one too many")));
+        assertEquals(HitBatch.MAX_HITS, hitBatch.getHitCount());
+    }
+
+    @Test
+    public void testMaxPayloadSize() {
+
+        StringBuilder label = new StringBuilder ();
+
+        while (label.length() < 6000)
+            label.append('x');
+
+        assertTrue(hitBatch.add(newHit (label.toString())));
+        assertTrue(hitBatch.add(newHit (label.toString())));
+        assertFalse(hitBatch.add(newHit (label.toString())));
+
+        PooledByteBuffer payload = hitBatch.drain();
+
+        assertTrue(payload.getByteBuffer().remaining() <= HitBatch.MAX_PAYLOAD_SIZE_IN_BYTES);
+
+        payload.release();
+
+        assertTrue(hitBatch.add(newHit (label.toString())));
+    }
+
+    @Test
+    public void testAddBinary() {
+
+        ByteBuffer hits = ByteBuffer.allocate(1024);
+
+        HitCodec.encode(newHit ("a"), hits);
+        HitCodec.encode(newHit ("b c"), hits).flip();
+
+        assertTrue(hitBatch.addBinary(hits));
+        assertTrue(hitBatch.addBinary(hits));
+        assertFalse(hits.hasRemaining());
+
+        PooledByteBuffer payload = hitBatch.drain();
+
+        assertEquals(
+            "v=1&tid=UA-12345-1&cid=555&t=event&el=a\nv=1&tid=UA-12345-1&cid=555&t=event&el=b+c",
+            StandardCharsets.US_ASCII.decode(payload.getByteBuffer()).toString());
+
+        payload.release();
+    }
+
+    @Test(expected=PayloadTooLargeException.class)
+    public void testHitTooLarge() {
+
+        StringBuilder label = new StringBuilder ();
+
+        while (label.length() <= QueryBuilder.MAX_PAYLOAD_SIZE_IN_BYTES)
+            label.append('x');
+
+        hitBatch.add(newHit (label.toString()));
+    }
+}
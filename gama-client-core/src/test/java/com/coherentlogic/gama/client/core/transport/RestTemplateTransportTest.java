@@ -0,0 +1,142 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit test for the {@link RestTemplateTransport} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class RestTemplateTransportTest {
+
+    static final String HIT = "v=1&tid=UA-12345-1&cid=555&t=event";
+
+    static final String GIF = "GIF89a";
+
+    private HttpServer server = null;
+
+    private volatile int status = 200;
+
+    private volatile String received = null;
+
+    private RestTemplateTransport transport = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = HttpServer.create(new InetSocketAddress ("127.0.0.1", 0), 0);
+
+        server.createContext("/collect", exchange -> {
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream ();
+
+            try (InputStream in = exchange.getRequestBody()) {
+
+                byte[] buffer = new byte[256];
+
+                for (int length; (length = in.read(buffer)) != -1; )
+                    body.write(buffer, 0, length);
+            }
+
+            received = new String (body.toByteArray(), StandardCharsets.UTF_8);
+
+            byte[] response = GIF.getBytes(StandardCharsets.US_ASCII);
+
+            exchange.sendResponseHeaders(status, response.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+
+        server.start();
+
+        transport = new RestTemplateTransport (
+            new RestTemplate (),
+            URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/collect")
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        server = null;
+        transport = null;
+    }
+
+    ByteBuffer payload () {
+        return ByteBuffer.wrap(HIT.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testSend() {
+
+        assertEquals(GIF, transport.send(payload ()));
+        assertEquals(HIT, received);
+    }
+
+    @Test
+    public void testSendDiscardsTheBody() {
+
+        RestTemplateTransport discardingTransport = new RestTemplateTransport (
+            transport.getRestTemplate(),
+            transport.getEndpoint(),
+            ResponseBodyMode.DISCARD
+        );
+
+        assertNull(discardingTransport.send(payload ()));
+        assertEquals(HIT, received);
+    }
+
+    @Test
+    public void testExchangeDiscardsTheBody() {
+
+        SendReceipt sendReceipt = transport.exchange(payload (), ResponseBodyMode.DISCARD, 1000L);
+
+        assertEquals(HIT, received);
+        assertEquals(200, sendReceipt.getStatus());
+        assertEquals(HIT.length(), sendReceipt.getBytesSent());
+        assertEquals(transport.getEndpoint(), sendReceipt.getEndpoint());
+        assertEquals(1L, sendReceipt.getEncodeDuration(TimeUnit.MICROSECONDS));
+        assertTrue(0L < sendReceipt.getSendDuration(TimeUnit.NANOSECONDS));
+        assertTrue(sendReceipt.getSendDuration(TimeUnit.NANOSECONDS) < sendReceipt.getTotalDuration(TimeUnit.NANOSECONDS));
+        assertNull(sendReceipt.getBody());
+    }
+
+    @Test
+    public void testExchangeBuffersTheBody() {
+
+        SendReceipt sendReceipt = transport.exchange(payload (), ResponseBodyMode.BUFFER);
+
+        assertEquals(GIF, sendReceipt.getBody());
+        assertEquals(0L, sendReceipt.getEncodeDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test(expected=PostFailedException.class)
+    public void testExchangeFailsWhenTheStatusIsNotOK() {
+
+        status = 409;
+
+        transport.exchange(payload (), ResponseBodyMode.DISCARD);
+    }
+}
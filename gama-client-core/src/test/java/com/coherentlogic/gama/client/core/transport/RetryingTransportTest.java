@@ -0,0 +1,137 @@
+package com.coherentlogic.gama.client.core.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
+
+/**
+ * Unit test for the {@link RetryingTransport} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class RetryingTransportTest {
+
+    private List<String> attempts = null;
+
+    @Before
+    public void setUp() throws Exception {
+        attempts = new ArrayList<String> ();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        attempts = null;
+    }
+
+    /**
+     * Returns a transport which records and consumes every payload, and fails the first failureCount attempts.
+     */
+    Transport failing (int failureCount) {
+        return payload -> {
+
+            byte[] bytes = new byte[payload.remaining()];
+
+            payload.get(bytes);
+
+            attempts.add(new String (bytes, StandardCharsets.UTF_8));
+
+            if (attempts.size() <= failureCount)
+                throw new PostFailedException("Expected");
+
+            return "";
+        };
+    }
+
+    static ByteBuffer payload () {
+        return ByteBuffer.wrap("v=1&t=event".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRetriesUntilSent() {
+
+        RetryingTransport transport = new RetryingTransport (failing (2), 3, 1L);
+
+        transport.send(payload ());
+
+        assertEquals(3, attempts.size());
+        assertEquals(2, transport.getRetryCount());
+
+        for (String next : attempts)
+            assertEquals("v=1&t=event", next);
+    }
+
+    @Test
+    public void testFailureIsThrownOnceMaxRetriesHaveFailed() {
+
+        RetryingTransport transport = new RetryingTransport (failing (Integer.MAX_VALUE), 2, 1L);
+
+        try {
+            transport.send(payload ());
+            fail("The send should have failed.");
+        } catch (PostFailedException postFailedException) {
+            assertEquals("Expected", postFailedException.getMessage());
+        }
+
+        assertEquals(3, attempts.size());
+    }
+
+    @Test
+    public void testCancelledSendIsNotRetried() {
+
+        AtomicBoolean cancelled = new AtomicBoolean (true);
+
+        RetryingTransport transport = new RetryingTransport (failing (Integer.MAX_VALUE), 5, 1L, cancelled::get);
+
+        try {
+            transport.send(payload ());
+            fail("The send should have failed.");
+        } catch (PostFailedException postFailedException) {
+            assertEquals(1, attempts.size());
+        }
+    }
+
+    @Test
+    public void testInterruptedWhileWaitingToRetry() {
+
+        RetryingTransport transport = new RetryingTransport (failing (Integer.MAX_VALUE), 5, 1000L);
+
+        Thread.currentThread().interrupt();
+
+        try {
+            transport.send(payload ());
+            fail("The send should have failed.");
+        } catch (PostFailedException postFailedException) {
+            assertTrue(Thread.interrupted());
+            assertEquals(1, attempts.size());
+        }
+    }
+
+    @Test
+    public void testBackoffDoublesUpToTheCap() {
+
+        RetryingTransport transport = new RetryingTransport (failing (0), 100, 10L);
+
+        assertEquals(10L, transport.getBackoffMillis(0));
+        assertEquals(20L, transport.getBackoffMillis(1));
+        assertEquals(40L, transport.getBackoffMillis(2));
+        assertEquals(10L << RetryingTransport.MAX_BACKOFF_SHIFT, transport.getBackoffMillis(99));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeMaxRetries() {
+        new RetryingTransport (failing (0), -1, 10L);
+    }
+}
@@ -0,0 +1,200 @@
+package com.coherentlogic.gama.client.core.web;
+
+import static com.coherentlogic.gama.client.core.dispatch.TimingAggregatingDispatcherTest.describe;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.dispatch.StripedDispatcher;
+
+/**
+ * Unit test for the {@link PageviewFilter} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class PageviewFilterTest {
+
+    private List<String> dispatched = null;
+
+    private Map<String, String> headers = null;
+
+    private Cookie[] cookies = null;
+
+    private PageviewFilter pageviewFilter = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dispatched = new ArrayList<String> ();
+        headers = new HashMap<String, String> ();
+        cookies = null;
+
+        pageviewFilter = new PageviewFilter (
+            "UA-1",
+            queryBuilder -> dispatched.add(describe (queryBuilder)),
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            true
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pageviewFilter.destroy();
+        dispatched = null;
+        headers = null;
+        pageviewFilter = null;
+    }
+
+    /**
+     * Returns a request for http://www.example.com/shop/cart?item=1 from 10.0.0.1, with the headers and cookies set by
+     * the test.
+     */
+    HttpServletRequest newRequest () {
+        return (HttpServletRequest) Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            (proxy, method, arguments) -> {
+                switch (method.getName()) {
+                    case "getHeader": return headers.get(arguments[0]);
+                    case "getCookies": return cookies;
+                    case "getRequestURL": return new StringBuffer ("http://www.example.com/shop/cart");
+                    case "getRequestURI": return "/shop/cart";
+                    case "getQueryString": return "item=1";
+                    case "getServerName": return "www.example.com";
+                    case "getRemoteAddr": return "10.0.0.1";
+                    case "getLocale": return Locale.CANADA_FRENCH;
+                    case "isAsyncStarted": return false;
+                    default: throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    @Test
+    public void testPageview() throws Exception {
+
+        cookies = new Cookie[] {new Cookie ("_ga", "GA1.2.1234567890.1500000000")};
+
+        headers.put(PageviewFilter.REFERER, "http://www.example.com/");
+        headers.put(PageviewFilter.USER_AGENT, "Mozilla/5.0");
+        headers.put(PageviewFilter.ACCEPT_LANGUAGE, "fr-CA");
+        headers.put(PageviewFilter.X_FORWARDED_FOR, "192.168.1.1, 10.0.0.1");
+
+        pageviewFilter.doFilter(newRequest (), null, (request, response) -> {});
+
+        assertEquals(1, dispatched.size());
+        assertEquals(1, pageviewFilter.getSentCount());
+
+        String pageview = dispatched.get(0);
+
+        assertTrue(pageview, pageview.startsWith("v=1&tid=UA-1&cid=1234567890.1500000000&t=pageview"
+            + "&dl=http://www.example.com/shop/cart?item=1&dh=www.example.com&dp=/shop/cart?item=1"
+            + "&dr=http://www.example.com/&ua=Mozilla/5.0&uip=192.168.1.1&ul=fr-ca&srt="));
+    }
+
+    @Test
+    public void testPageviewWithoutOptionalHeaders() throws Exception {
+
+        pageviewFilter.doFilter(newRequest (), null, (request, response) -> {});
+
+        String pageview = dispatched.get(0);
+
+        assertTrue(pageview, pageview.matches(
+            "v=1&tid=UA-1&cid=[0-9a-f-]{36}&t=pageview&dl=[^&]+&dh=www.example.com&dp=[^&]+&uip=10.0.0.1&srt=\\d+"));
+    }
+
+    @Test
+    public void testFailuresDoNotReachTheRequest() throws Exception {
+
+        pageviewFilter = new PageviewFilter (
+            "UA-1",
+            queryBuilder -> {
+                throw new IllegalStateException("Expected");
+            },
+            new BoundedQueryBuilderPool (new RestTemplate (), 4),
+            false
+        );
+
+        pageviewFilter.doFilter(newRequest (), null, (request, response) -> {});
+
+        assertEquals(0, pageviewFilter.getSentCount());
+        assertEquals(1, pageviewFilter.getFailedCount());
+    }
+
+    @Test(expected=ServletException.class)
+    public void testInitWithoutTrackingId() throws ServletException {
+        new PageviewFilter ().init(
+            (FilterConfig) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {FilterConfig.class},
+                (proxy, method, arguments) -> null
+            )
+        );
+    }
+
+    /**
+     * Fills the only lane of a striped dispatcher whose delegate never returns and checks that requests are neither
+     * held up nor failed; the page views which do not fit are dropped and counted.
+     */
+    @Test
+    public void testPageviewsAreDroppedWhenTheLanesAreFull() throws Exception {
+
+        CountDownLatch blocked = new CountDownLatch (1);
+
+        BoundedQueryBuilderPool queryBuilderPool = new BoundedQueryBuilderPool (new RestTemplate (), 4);
+
+        StripedDispatcher stripedDispatcher = new StripedDispatcher (
+            queryBuilder -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            },
+            queryBuilderPool,
+            1,
+            1
+        );
+
+        pageviewFilter = new PageviewFilter ("UA-1", stripedDispatcher, queryBuilderPool, false);
+
+        try {
+            long start = System.nanoTime();
+
+            for (int ctr = 0; ctr < 100; ctr++)
+                pageviewFilter.doFilter(newRequest (), null, (request, response) -> {});
+
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue("elapsedMillis: " + elapsedMillis, elapsedMillis < 5000);
+
+            assertEquals(0, pageviewFilter.getFailedCount());
+            assertEquals(100, pageviewFilter.getSentCount() + pageviewFilter.getDroppedCount());
+            assertTrue(98 <= pageviewFilter.getDroppedCount());
+            assertEquals(pageviewFilter.getDroppedCount(), stripedDispatcher.getDroppedCount());
+        } finally {
+            blocked.countDown();
+            stripedDispatcher.close();
+        }
+    }
+}
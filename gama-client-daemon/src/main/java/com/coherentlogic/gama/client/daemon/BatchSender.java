@@ -0,0 +1,229 @@
+package com.coherentlogic.gama.client.daemon;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.transport.RateLimiter;
+import com.coherentlogic.gama.client.core.transport.RetryingTransport;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * Sends batch payloads, which are handed over by {@link #submit(PooledByteBuffer, int)}, on a fixed number of threads.
+ * Each batch waits for the rate limiter and is retried with exponential backoff (see {@link RetryingTransport}); a
+ * batch which still cannot be sent once the retries have been used up is dropped, as is a batch submitted while every
+ * sender is busy and the queue of waiting batches is full, so that a Measurement API outage never blocks the caller.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class BatchSender implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchSender.class);
+
+    static final Batch END = new Batch (null, 0);
+
+    private final Transport transport;
+
+    private final RateLimiter rateLimiter;
+
+    private final BlockingQueue<Batch> batches;
+
+    private final List<Thread> senders = new ArrayList<Thread> ();
+
+    private final AtomicLong sentCount = new AtomicLong ();
+
+    private final AtomicLong droppedCount = new AtomicLong ();
+
+    private final AtomicLong requestCount = new AtomicLong ();
+
+    private volatile boolean closed = false;
+
+    /**
+     * The number of threads inside submit; {@link #close()} waits for it to reach zero before queueing {@link #END},
+     * so that no batch can be queued behind it and never released.
+     */
+    private final AtomicInteger submitting = new AtomicInteger ();
+
+    public BatchSender(Transport transport, DaemonConfiguration configuration) {
+        this(
+            transport,
+            configuration.getSenders(),
+            configuration.getMaxQueuedBatches(),
+            configuration.getHitsPerSecond(),
+            configuration.getMaxRetries(),
+            configuration.getRetryBackoffMillis()
+        );
+    }
+
+    /**
+     * @param senderCount The number of threads which send batches.
+     * @param maxQueuedBatches The number of batches which may wait for a sender.
+     * @param hitsPerSecond The rate hits are sent at, or zero for no limit.
+     * @param maxRetries The number of times a batch is retried before it is dropped.
+     * @param retryBackoffMillis The delay before the first retry, which doubles for every subsequent retry.
+     */
+    public BatchSender(
+        Transport transport,
+        int senderCount,
+        int maxQueuedBatches,
+        double hitsPerSecond,
+        int maxRetries,
+        long retryBackoffMillis
+    ) {
+        Utils.assertNotNull("transport", transport);
+
+        if (senderCount < 1 || maxQueuedBatches < 1)
+            throw new IllegalArgumentException("The senderCount and maxQueuedBatches must be greater than zero "
+                + "(senderCount: " + senderCount + ", maxQueuedBatches: " + maxQueuedBatches + ")");
+
+        // Once closed, a failed batch is dropped rather than retried so that close does not wait out the backoff.
+        this.transport = new RetryingTransport (transport, maxRetries, retryBackoffMillis, () -> closed);
+        this.rateLimiter = new RateLimiter (hitsPerSecond);
+        this.batches = new ArrayBlockingQueue<Batch> (maxQueuedBatches);
+
+        for (int ctr = 0; ctr < senderCount; ctr++) {
+
+            Thread sender = new Thread (this::run, "gama-daemon-sender-" + ctr);
+
+            senders.add(sender);
+
+            sender.start();
+        }
+    }
+
+    /**
+     * Queues the payload, which must be flipped, to be sent; the payload is released once it has been sent or
+     * dropped.
+     *
+     * @return false if the payload was dropped because the queue is full or this sender has been closed.
+     */
+    public boolean submit (PooledByteBuffer payload, int hitCount) {
+
+        Utils.assertNotNull("payload", payload);
+
+        // Counted before closed is read, so either close sees this thread and waits for it, or this thread sees
+        // that the sender was closed.
+        submitting.incrementAndGet();
+
+        try {
+            if (closed || !batches.offer(new Batch (payload, hitCount))) {
+
+                droppedCount.addAndGet(hitCount);
+
+                payload.release();
+
+                return false;
+            }
+
+            return true;
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    void run () {
+        try {
+            Batch batch;
+
+            while ((batch = batches.take()) != END) {
+                try {
+                    send (batch);
+                } finally {
+                    batch.payload.release();
+                }
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void send (Batch batch) throws InterruptedException {
+
+        rateLimiter.acquire(batch.hitCount);
+
+        try {
+            transport.send(batch.payload.getByteBuffer());
+
+            requestCount.incrementAndGet();
+            sentCount.addAndGet(batch.hitCount);
+
+        } catch (RuntimeException runtimeException) {
+
+            if (Thread.interrupted())
+                throw new InterruptedException ();
+
+            droppedCount.addAndGet(batch.hitCount);
+            log.error("A batch of " + batch.hitCount + " hits was dropped.", runtimeException);
+        }
+    }
+
+    /**
+     * Returns the number of hits which have been sent.
+     */
+    public long getSentCount () {
+        return sentCount.get();
+    }
+
+    /**
+     * Returns the number of hits which were dropped because the queue was full or their batch could not be sent.
+     */
+    public long getDroppedCount () {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the number of batch requests which have been sent.
+     */
+    public long getRequestCount () {
+        return requestCount.get();
+    }
+
+    /**
+     * Stops accepting batches and waits for the senders to send the batches which have already been queued, including
+     * those of threads which were inside submit when this method was called; failed batches are no longer retried.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+
+        // submit never blocks, so this wait is short.
+        while (0 < submitting.get())
+            Thread.yield();
+
+        try {
+            for (int ctr = 0; ctr < senders.size(); ctr++)
+                batches.put(END);
+
+            for (Thread sender : senders)
+                sender.join();
+
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class Batch {
+
+        final PooledByteBuffer payload;
+
+        final int hitCount;
+
+        Batch(PooledByteBuffer payload, int hitCount) {
+            this.payload = payload;
+            this.hitCount = hitCount;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.coherentlogic.gama.client.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+
+/**
+ * The settings of a {@link HitDaemon}, read from a properties file such as:
+ *
+ * <pre>
+ * # The address datagrams are received on; keep this on the loopback interface unless the network is trusted.
+ * bind.address=127.0.0.1
+ * bind.port=8199
+ *
+ * # How long a partly filled batch waits for more hits before it is sent.
+ * lingerMillis=50
+ *
+ * senders=2
+ * maxQueuedBatches=1024
+ * hitsPerSecond=200
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class DaemonConfiguration {
+
+    public static final String BIND_ADDRESS = "bind.address",
+        BIND_PORT = "bind.port",
+        LINGER_MILLIS = "lingerMillis",
+        SENDERS = "senders",
+        MAX_QUEUED_BATCHES = "maxQueuedBatches",
+        HITS_PER_SECOND = "hitsPerSecond",
+        URI = "uri",
+        MAX_RETRIES = "maxRetries",
+        RETRY_BACKOFF_MILLIS = "retryBackoffMillis";
+
+    public static final int DEFAULT_PORT = 8199;
+
+    private final Properties properties;
+
+    public DaemonConfiguration(Properties properties) {
+
+        Utils.assertNotNull("properties", properties);
+
+        this.properties = properties;
+
+        if (getPort () < 0 || 0xFFFF < getPort ())
+            throw new IllegalArgumentException("The " + BIND_PORT + " must be between 0 and 65535 (port: "
+                + getPort () + ")");
+
+        if (getSenders () < 1)
+            throw new IllegalArgumentException("The " + SENDERS + " must be greater than zero (senders: "
+                + getSenders () + ")");
+
+        if (getMaxQueuedBatches () < 1)
+            throw new IllegalArgumentException("The " + MAX_QUEUED_BATCHES + " must be greater than zero "
+                + "(maxQueuedBatches: " + getMaxQueuedBatches () + ")");
+
+        if (getLingerMillis () < 1)
+            throw new IllegalArgumentException("The " + LINGER_MILLIS + " must be greater than zero (lingerMillis: "
+                + getLingerMillis () + ")");
+    }
+
+    public static DaemonConfiguration load (Path path) throws IOException {
+
+        Properties properties = new Properties ();
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            properties.load(inputStream);
+        }
+
+        return new DaemonConfiguration (properties);
+    }
+
+    public String getBindAddress () {
+        return properties.getProperty(BIND_ADDRESS, "127.0.0.1");
+    }
+
+    /**
+     * Returns the port datagrams are received on, or zero for any free port.
+     */
+    public int getPort () {
+        return (int) getLong (BIND_PORT, DEFAULT_PORT);
+    }
+
+    public InetSocketAddress getSocketAddress () {
+        return new InetSocketAddress (getBindAddress (), getPort ());
+    }
+
+    public long getLingerMillis () {
+        return getLong (LINGER_MILLIS, 50);
+    }
+
+    /**
+     * Returns the number of threads which send batches.
+     */
+    public int getSenders () {
+        return (int) getLong (SENDERS, 2);
+    }
+
+    /**
+     * Returns the number of batches which may wait for a sender; batches are dropped once this has been reached.
+     */
+    public int getMaxQueuedBatches () {
+        return (int) getLong (MAX_QUEUED_BATCHES, 1024);
+    }
+
+    /**
+     * Returns the maximum number of hits sent per second, or zero for no limit.
+     */
+    public double getHitsPerSecond () {
+        return Double.parseDouble(properties.getProperty(HITS_PER_SECOND, "0"));
+    }
+
+    public String getUri () {
+        return properties.getProperty(URI, HitBatch.GOOGLE_ANALYTICS_BATCH_URL);
+    }
+
+    public int getMaxRetries () {
+        return (int) getLong (MAX_RETRIES, 3);
+    }
+
+    public long getRetryBackoffMillis () {
+        return getLong (RETRY_BACKOFF_MILLIS, 500);
+    }
+
+    long getLong (String name, long defaultValue) {
+
+        String result = properties.getProperty(name);
+
+        return result == null ? defaultValue : Long.parseLong(result.trim());
+    }
+}
@@ -0,0 +1,320 @@
+package com.coherentlogic.gama.client.daemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.encoders.FormUrlEncoder;
+import com.coherentlogic.gama.client.core.encoders.HitCodec;
+import com.coherentlogic.gama.client.core.encoders.HitReader;
+import com.coherentlogic.gama.client.core.exceptions.MalformedHitException;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+
+/**
+ * Receives hits as UDP datagrams on its own thread and packs them into batches for the {@link BatchSender}. A datagram
+ * holds either:
+ *
+ * <ul>
+ * <li>one or more form-urlencoded hits separated by new lines, exactly as they would be posted to the Measurement
+ * API, for example: <code>echo "v=1&amp;tid=UA-12345-1&amp;cid=555&amp;t=event&amp;ec=job&amp;ea=done" | nc -u -w0
+ * 127.0.0.1 8199</code>, or</li>
+ * <li>one or more hits back to back in the binary form written by {@link HitCodec}, which always starts with
+ * {@link HitCodec#FORMAT_VERSION} and so cannot be mistaken for a form-urlencoded hit.</li>
+ * </ul>
+ *
+ * Datagrams are read into a single direct buffer and parsed in place; form-urlencoded hits are checked and then copied
+ * straight into the batch payload, and binary hits are converted to form-urlencoded ones without creating Strings. A
+ * batch is handed over once it is full or once its first hit has waited lingerMillis. Hits which are not well-formed
+ * are dropped and counted.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class DatagramHitReceiver implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DatagramHitReceiver.class);
+
+    /**
+     * The largest payload a UDP datagram can carry.
+     */
+    static final int MAX_DATAGRAM_SIZE = 65507;
+
+    static final byte NEW_LINE = '\n', CARRIAGE_RETURN = '\r';
+
+    private final DatagramChannel channel;
+
+    private final Selector selector;
+
+    private final BatchSender batchSender;
+
+    private final long lingerNanos;
+
+    private final ByteBuffer datagram = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+
+    private final HitBatch hitBatch;
+
+    private final HitReader hitReader = new HitReader ();
+
+    private final AtomicLong receivedCount = new AtomicLong ();
+
+    private final AtomicLong invalidCount = new AtomicLong ();
+
+    private final Thread receiverThread;
+
+    private long batchStartNanos = 0L;
+
+    private volatile boolean closed = false;
+
+    public DatagramHitReceiver(
+        SocketAddress socketAddress,
+        BatchSender batchSender,
+        ByteBufferPool byteBufferPool,
+        long lingerMillis
+    ) throws IOException {
+
+        Utils.assertNotNull("socketAddress", socketAddress);
+        Utils.assertNotNull("batchSender", batchSender);
+        Utils.assertNotNull("byteBufferPool", byteBufferPool);
+
+        if (lingerMillis <= 0)
+            throw new IllegalArgumentException("The lingerMillis must be greater than zero (lingerMillis: "
+                + lingerMillis + ")");
+
+        this.batchSender = batchSender;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.hitBatch = new HitBatch (byteBufferPool);
+
+        this.channel = DatagramChannel.open();
+
+        try {
+            channel.configureBlocking(false);
+            channel.bind(socketAddress);
+
+            this.selector = Selector.open();
+
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+
+        this.receiverThread = new Thread (this::run, "gama-daemon-receiver");
+
+        receiverThread.start();
+    }
+
+    /**
+     * Returns the port datagrams are received on, which is useful when binding to port zero.
+     */
+    public int getPort () throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    void run () {
+        try {
+            while (!closed) {
+
+                long timeoutMillis = 0L;
+
+                if (!hitBatch.isEmpty()) {
+
+                    long remainingNanos = lingerNanos - (System.nanoTime() - batchStartNanos);
+
+                    if (remainingNanos <= 0) {
+                        handOver ();
+                        continue;
+                    }
+
+                    timeoutMillis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+                }
+
+                selector.select(timeoutMillis);
+
+                selector.selectedKeys().clear();
+
+                while (receive ())
+                    ;
+            }
+
+            if (!hitBatch.isEmpty())
+                handOver ();
+
+        } catch (IOException | RuntimeException exception) {
+            if (!closed)
+                log.error("The receiver stopped.", exception);
+        } finally {
+            hitBatch.close();
+        }
+    }
+
+    /**
+     * Reads and processes one datagram, or returns false if none is waiting.
+     */
+    boolean receive () throws IOException {
+
+        datagram.clear();
+
+        if (channel.receive(datagram) == null)
+            return false;
+
+        datagram.flip();
+
+        process (datagram);
+
+        return true;
+    }
+
+    void process (ByteBuffer source) {
+
+        if (!source.hasRemaining())
+            return;
+
+        if (source.get(source.position()) == HitCodec.FORMAT_VERSION)
+            processBinary (source);
+        else
+            processFormUrlEncoded (source);
+    }
+
+    void processBinary (ByteBuffer source) {
+
+        while (source.hasRemaining()) {
+
+            receivedCount.incrementAndGet();
+
+            try {
+                if (!add (source, true))
+                    skip (source);
+            } catch (MalformedHitException malformedHitException) {
+                // The rest of the datagram cannot be parsed.
+                invalidCount.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips over a binary hit which could not be added to the batch.
+     */
+    void skip (ByteBuffer source) {
+
+        hitReader.reset(source);
+
+        while (hitReader.next())
+            ;
+    }
+
+    void processFormUrlEncoded (ByteBuffer source) {
+
+        int limit = source.limit();
+        int start = source.position();
+
+        for (int index = start; index <= limit; index++) {
+
+            if (index < limit && source.get(index) != NEW_LINE)
+                continue;
+
+            int end = index;
+
+            if (start < end && source.get(end - 1) == CARRIAGE_RETURN)
+                end--;
+
+            if (start < end) {
+
+                receivedCount.incrementAndGet();
+
+                ByteBuffer hit = source.duplicate();
+
+                hit.limit(end);
+                hit.position(start);
+
+                if (FormUrlEncoder.isFormUrlEncoded(hit))
+                    add (hit, false);
+                else
+                    invalidCount.incrementAndGet();
+            }
+
+            start = index + 1;
+        }
+    }
+
+    /**
+     * Adds the hit to the batch, handing the batch over first if it is full; returns false, after counting the hit
+     * as invalid, if the hit is too large.
+     */
+    boolean add (ByteBuffer hit, boolean binary) {
+        try {
+            if (!(binary ? hitBatch.addBinary(hit) : hitBatch.addEncoded(hit))) {
+
+                handOver ();
+
+                if (!(binary ? hitBatch.addBinary(hit) : hitBatch.addEncoded(hit)))
+                    throw new IllegalStateException("The hit could not be added to an empty batch.");
+            }
+        } catch (PayloadTooLargeException payloadTooLargeException) {
+            invalidCount.incrementAndGet();
+            return false;
+        }
+
+        if (hitBatch.getHitCount() == 1)
+            batchStartNanos = System.nanoTime();
+
+        if (hitBatch.getHitCount() == HitBatch.MAX_HITS)
+            handOver ();
+
+        return true;
+    }
+
+    void handOver () {
+
+        int hitCount = hitBatch.getHitCount();
+
+        batchSender.submit(hitBatch.drain(), hitCount);
+    }
+
+    /**
+     * Returns the number of hits which have been received.
+     */
+    public long getReceivedCount () {
+        return receivedCount.get();
+    }
+
+    /**
+     * Returns the number of hits which were dropped because they were not well-formed or were too large.
+     */
+    public long getInvalidCount () {
+        return invalidCount.get();
+    }
+
+    /**
+     * Stops receiving and hands over the partly filled batch, if any.
+     */
+    @Override
+    public void close() throws IOException {
+
+        closed = true;
+
+        selector.wakeup();
+
+        try {
+            receiverThread.join();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+
+        selector.close();
+        channel.close();
+    }
+}
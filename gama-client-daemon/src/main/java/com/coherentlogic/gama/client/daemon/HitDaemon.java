@@ -0,0 +1,123 @@
+package com.coherentlogic.gama.client.daemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.transport.ResponseBodyMode;
+import com.coherentlogic.gama.client.core.transport.RestTemplateTransport;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * A standalone process which accepts hits from local workloads as UDP datagrams (see {@link DatagramHitReceiver}) and
+ * sends them to the Measurement API in batches (see {@link BatchSender}), so an emitter only pays for a local
+ * datagram write and needs neither this client nor an HTTP connection of its own:
+ *
+ * <pre>
+ * java -jar gama-client-daemon.jar [daemon.properties]
+ * </pre>
+ *
+ * The daemon runs until it is stopped, at which point the hits which have already been received are sent.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitDaemon implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HitDaemon.class);
+
+    static final String USAGE = "Usage: HitDaemon [<configuration.properties>]";
+
+    private final BatchSender batchSender;
+
+    private final DatagramHitReceiver datagramHitReceiver;
+
+    public HitDaemon(DaemonConfiguration configuration, Transport transport) throws IOException {
+
+        Utils.assertNotNull("configuration", configuration);
+        Utils.assertNotNull("transport", transport);
+
+        this.batchSender = new BatchSender (transport, configuration);
+
+        // One batch is being filled and one is being sent by each sender, in addition to the batches which are queued.
+        ByteBufferPool byteBufferPool =
+            new ByteBufferPool (0, configuration.getMaxQueuedBatches() + configuration.getSenders() + 1);
+
+        try {
+            this.datagramHitReceiver = new DatagramHitReceiver (
+                configuration.getSocketAddress(),
+                batchSender,
+                byteBufferPool,
+                configuration.getLingerMillis()
+            );
+        } catch (IOException | RuntimeException exception) {
+            batchSender.close();
+            throw exception;
+        }
+    }
+
+    public BatchSender getBatchSender () {
+        return batchSender;
+    }
+
+    public DatagramHitReceiver getDatagramHitReceiver () {
+        return datagramHitReceiver;
+    }
+
+    /**
+     * Stops receiving hits and waits for the hits which have been received to be sent.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            datagramHitReceiver.close();
+        } finally {
+            batchSender.close();
+        }
+    }
+
+    public static void main (String[] args) throws Exception {
+
+        if (1 < args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        DaemonConfiguration configuration = args.length == 0
+            ? new DaemonConfiguration (new Properties ())
+            : DaemonConfiguration.load(Paths.get(args[0]));
+
+        Transport transport = new RestTemplateTransport (
+            new RestTemplate (),
+            URI.create(configuration.getUri()),
+            ResponseBodyMode.DISCARD
+        );
+
+        HitDaemon hitDaemon = new HitDaemon (configuration, transport);
+
+        log.info("Receiving hits on udp://" + configuration.getBindAddress() + ":"
+            + hitDaemon.getDatagramHitReceiver().getPort() + ".");
+
+        // The receiver and sender threads keep the process running until it is stopped.
+        Runtime.getRuntime().addShutdownHook(new Thread (() -> {
+            try {
+                hitDaemon.close();
+            } catch (IOException ioException) {
+                log.error("The daemon did not stop cleanly.", ioException);
+            } finally {
+                log.info("Received " + hitDaemon.getDatagramHitReceiver().getReceivedCount() + " hits, sent "
+                    + hitDaemon.getBatchSender().getSentCount() + " in " + hitDaemon.getBatchSender().getRequestCount()
+                    + " requests, dropped " + hitDaemon.getBatchSender().getDroppedCount() + ", rejected "
+                    + hitDaemon.getDatagramHitReceiver().getInvalidCount() + " invalid hits.");
+            }
+        }, "gama-daemon-shutdown"));
+    }
+}
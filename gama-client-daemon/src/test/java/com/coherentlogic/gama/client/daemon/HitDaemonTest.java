@@ -0,0 +1,216 @@
+package com.coherentlogic.gama.client.daemon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.encoders.HitCodec;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+
+/**
+ * Unit test for the {@link HitDaemon}, {@link DatagramHitReceiver} and {@link BatchSender} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitDaemonTest {
+
+    static final String HIT = "v=1&tid=UA-12345-1&cid=555&t=event&ec=job&ea=done";
+
+    private List<String> payloads = null;
+
+    private HitDaemon hitDaemon = null;
+
+    private DatagramChannel client = null;
+
+    private InetSocketAddress daemonAddress = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        payloads = Collections.synchronizedList(new ArrayList<String> ());
+
+        Properties properties = new Properties ();
+
+        properties.setProperty(DaemonConfiguration.BIND_PORT, "0");
+        properties.setProperty(DaemonConfiguration.LINGER_MILLIS, "20");
+        properties.setProperty(DaemonConfiguration.SENDERS, "1");
+
+        hitDaemon = new HitDaemon (
+            new DaemonConfiguration (properties),
+            payload -> {
+                payloads.add(StandardCharsets.US_ASCII.decode(payload).toString());
+                return "";
+            }
+        );
+
+        daemonAddress = new InetSocketAddress ("127.0.0.1", hitDaemon.getDatagramHitReceiver().getPort());
+
+        client = DatagramChannel.open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        client.close();
+        hitDaemon.close();
+
+        client = null;
+        hitDaemon = null;
+        payloads = null;
+    }
+
+    void send (ByteBuffer datagram) throws Exception {
+        client.send(datagram, daemonAddress);
+    }
+
+    void send (String datagram) throws Exception {
+        send (StandardCharsets.US_ASCII.encode(datagram));
+    }
+
+    void awaitReceived (long count) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (hitDaemon.getDatagramHitReceiver().getReceivedCount() < count && System.nanoTime() < deadline)
+            TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    void awaitSent (long count) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (hitDaemon.getBatchSender().getSentCount() < count && System.nanoTime() < deadline)
+            TimeUnit.MILLISECONDS.sleep(10);
+    }
+
+    @Test
+    public void testFormUrlEncodedHitsAreBatched() throws Exception {
+
+        send (HIT);
+        send (HIT + "\r\n" + HIT + "\n");
+
+        awaitSent (3);
+
+        assertEquals(3L, hitDaemon.getBatchSender().getSentCount());
+        assertEquals(HIT + "\n" + HIT + "\n" + HIT, String.join("\n", payloads));
+    }
+
+    @Test
+    public void testFullBatchIsSentImmediately() throws Exception {
+
+        StringBuilder datagram = new StringBuilder ();
+
+        for (int ctr = 0; ctr < HitBatch.MAX_HITS + 1; ctr++)
+            datagram.append(HIT).append('\n');
+
+        send (datagram.toString());
+
+        awaitSent (HitBatch.MAX_HITS + 1);
+
+        assertEquals(2, payloads.size());
+        assertEquals(HitBatch.MAX_HITS, payloads.get(0).split("\n").length);
+        assertEquals(2L, hitDaemon.getBatchSender().getRequestCount());
+    }
+
+    @Test
+    public void testBinaryHits() throws Exception {
+
+        QueryBuilder queryBuilder = new QueryBuilder ()
+            .withV("1")
+            .withTid("UA-12345-1")
+            .withCID("555")
+            .withTAsEvent()
+            .withParameter(QueryBuilder.EL, "a b");
+
+        ByteBuffer datagram = ByteBuffer.allocate(1024);
+
+        HitCodec.encode(queryBuilder, datagram);
+        HitCodec.encode(queryBuilder, datagram).flip();
+
+        send (datagram);
+
+        awaitSent (2);
+
+        String expected = "v=1&tid=UA-12345-1&cid=555&t=event&el=a+b";
+
+        assertEquals(expected + "\n" + expected, String.join("\n", payloads));
+    }
+
+    @Test
+    public void testInvalidHitsAreDropped() throws Exception {
+
+        send ("v=1&dp=/not encoded\n" + HIT + "\nv=1&dp=%2");
+
+        awaitReceived (3);
+        awaitSent (1);
+
+        assertEquals(2L, hitDaemon.getDatagramHitReceiver().getInvalidCount());
+        assertEquals(Collections.singletonList(HIT), payloads);
+    }
+
+    @Test
+    public void testBatchesSubmittedWhileClosingAreReleased() throws InterruptedException {
+
+        for (int round = 0; round < 20; round++) {
+
+            ByteBufferPool byteBufferPool = new ByteBufferPool (0, 16);
+
+            BatchSender batchSender = new BatchSender (payload -> "", 1, 4, 0, 0, 0L);
+
+            AtomicLong submitted = new AtomicLong ();
+
+            AtomicBoolean stopped = new AtomicBoolean ();
+
+            Thread[] producers = new Thread[4];
+
+            for (int ctr = 0; ctr < producers.length; ctr++) {
+
+                producers[ctr] = new Thread (() -> {
+                    while (!stopped.get()) {
+
+                        PooledByteBuffer payload = byteBufferPool.acquireBatchBuffer();
+
+                        payload.getByteBuffer().put((byte) 'x').flip();
+
+                        batchSender.submit(payload, 1);
+
+                        submitted.incrementAndGet();
+                    }
+                });
+
+                producers[ctr].start();
+            }
+
+            Thread.sleep(2);
+
+            batchSender.close();
+
+            stopped.set(true);
+
+            for (Thread producer : producers)
+                producer.join();
+
+            // Every batch was either sent or dropped, and its buffer returned to the pool.
+            assertEquals(submitted.get(), batchSender.getSentCount() + batchSender.getDroppedCount());
+            assertEquals(16, byteBufferPool.getAvailableBatchSlots());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.coherentlogic.gama.client.hits;
+
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * The parameters which every hit has; a client id is required, and the user id (uid) may be sent in addition.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+interface CommonHitSpec {
+
+    @Parameter(value="tid", required=true)
+    String trackingId ();
+
+    @Parameter(value="cid", required=true)
+    String clientId ();
+
+    @Parameter("uid")
+    String userId ();
+
+    @Parameter(value="ds", maxBytes=100)
+    String dataSource ();
+
+    @Parameter(value="qt", nonNegative=true)
+    long queueTime ();
+
+    @Parameter("aip")
+    boolean anonymizeIp ();
+
+    @Parameter("ni")
+    boolean nonInteraction ();
+
+    @Parameter(value="dl", maxBytes=2048)
+    String documentLocation ();
+
+    @Parameter(value="dh", maxBytes=100)
+    String documentHostName ();
+
+    @Parameter(value="dp", maxBytes=2048)
+    String documentPath ();
+
+    @Parameter(value="dt", maxBytes=1500)
+    String documentTitle ();
+
+    @Parameter(value="an", maxBytes=100)
+    String applicationName ();
+
+    @Parameter(value="av", maxBytes=100)
+    String applicationVersion ();
+}
@@ -0,0 +1,26 @@
+package com.coherentlogic.gama.client.hits;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link EventHit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="EventHit", hitType="event")
+interface EventHitSpec extends CommonHitSpec {
+
+    @Parameter(value="ec", required=true, maxBytes=150)
+    String category ();
+
+    @Parameter(value="ea", required=true, maxBytes=500)
+    String action ();
+
+    @Parameter(value="el", maxBytes=500)
+    String label ();
+
+    @Parameter(value="ev", nonNegative=true)
+    long value ();
+}
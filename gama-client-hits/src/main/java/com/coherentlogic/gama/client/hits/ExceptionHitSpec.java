@@ -0,0 +1,20 @@
+package com.coherentlogic.gama.client.hits;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link ExceptionHit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="ExceptionHit", hitType="exception")
+interface ExceptionHitSpec extends CommonHitSpec {
+
+    @Parameter(value="exd", maxBytes=150)
+    String description ();
+
+    @Parameter("exf")
+    boolean fatal ();
+}
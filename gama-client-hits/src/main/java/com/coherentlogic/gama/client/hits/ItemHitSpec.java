@@ -0,0 +1,37 @@
+package com.coherentlogic.gama.client.hits;
+
+import java.math.BigDecimal;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link ItemHit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="ItemHit", hitType="item")
+interface ItemHitSpec extends CommonHitSpec {
+
+    @Parameter(value="ti", required=true, maxBytes=500)
+    String transactionId ();
+
+    @Parameter(value="in", required=true, maxBytes=500)
+    String name ();
+
+    @Parameter("ip")
+    BigDecimal price ();
+
+    @Parameter(value="iq", nonNegative=true)
+    long quantity ();
+
+    @Parameter(value="ic", maxBytes=500)
+    String code ();
+
+    @Parameter(value="iv", maxBytes=500)
+    String category ();
+
+    @Parameter(value="cu", maxBytes=10)
+    String currencyCode ();
+}
@@ -0,0 +1,15 @@
+package com.coherentlogic.gama.client.hits;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link PageviewHit}; the page is identified by the document location (dl), or by the document host name
+ * (dh) and path (dp), all of which are optional.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="PageviewHit", hitType="pageview")
+interface PageviewHitSpec extends CommonHitSpec {
+}
@@ -0,0 +1,17 @@
+package com.coherentlogic.gama.client.hits;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link ScreenviewHit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="ScreenviewHit", hitType="screenview")
+interface ScreenviewHitSpec extends CommonHitSpec {
+
+    @Parameter(value="cd", required=true, maxBytes=2048)
+    String screenName ();
+}
@@ -0,0 +1,23 @@
+package com.coherentlogic.gama.client.hits;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link SocialHit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="SocialHit", hitType="social")
+interface SocialHitSpec extends CommonHitSpec {
+
+    @Parameter(value="sn", required=true, maxBytes=50)
+    String network ();
+
+    @Parameter(value="sa", required=true, maxBytes=50)
+    String action ();
+
+    @Parameter(value="st", required=true, maxBytes=2048)
+    String target ();
+}
@@ -0,0 +1,26 @@
+package com.coherentlogic.gama.client.hits;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link TimingHit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="TimingHit", hitType="timing")
+interface TimingHitSpec extends CommonHitSpec {
+
+    @Parameter(value="utc", required=true, maxBytes=150)
+    String category ();
+
+    @Parameter(value="utv", required=true, maxBytes=500)
+    String variable ();
+
+    @Parameter(value="utt", required=true, nonNegative=true)
+    long time ();
+
+    @Parameter(value="utl", maxBytes=500)
+    String label ();
+}
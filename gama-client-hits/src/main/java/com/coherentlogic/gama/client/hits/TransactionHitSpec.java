@@ -0,0 +1,34 @@
+package com.coherentlogic.gama.client.hits;
+
+import java.math.BigDecimal;
+
+import com.coherentlogic.gama.client.processor.HitSpec;
+import com.coherentlogic.gama.client.processor.Parameter;
+
+/**
+ * Specifies the {@link TransactionHit}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@HitSpec(name="TransactionHit", hitType="transaction")
+interface TransactionHitSpec extends CommonHitSpec {
+
+    @Parameter(value="ti", required=true, maxBytes=500)
+    String transactionId ();
+
+    @Parameter(value="ta", maxBytes=500)
+    String affiliation ();
+
+    @Parameter("tr")
+    BigDecimal revenue ();
+
+    @Parameter("ts")
+    BigDecimal shipping ();
+
+    @Parameter("tt")
+    BigDecimal tax ();
+
+    @Parameter(value="cu", maxBytes=10)
+    String currencyCode ();
+}
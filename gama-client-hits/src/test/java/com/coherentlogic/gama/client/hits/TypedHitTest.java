@@ -0,0 +1,136 @@
+package com.coherentlogic.gama.client.hits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.core.exceptions.MaxLengthInBytesExceededException;
+import com.coherentlogic.gama.client.core.exceptions.NegativeValueException;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+
+/**
+ * Unit test for the classes generated from the hit specifications.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class TypedHitTest {
+
+    static final String TID = "UA-12345-1", CID = "555";
+
+    private ByteBuffer buffer = null;
+
+    @Before
+    public void setUp() throws Exception {
+        buffer = ByteBuffer.allocate(8192);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        buffer = null;
+    }
+
+    @Test
+    public void testEventHit() {
+
+        EventHit eventHit = EventHit.of(TID, CID, "video", "play")
+            .withLabel("holiday & more")
+            .withValue(42L)
+            .withNonInteraction(true);
+
+        assertEquals(
+            "v=1&t=event&tid=UA-12345-1&cid=555&ni=1&ec=video&ea=play&el=holiday+%26+more&ev=42",
+            eventHit.toFormUrlEncoded()
+        );
+        assertEquals("event", eventHit.getHitType());
+        assertEquals("video", eventHit.getCategory());
+        assertTrue(eventHit.hasValue());
+        assertFalse(eventHit.hasQueueTime());
+    }
+
+    @Test
+    public void testOptionalParametersAreOmitted() {
+
+        assertEquals("v=1&t=pageview&tid=UA-12345-1&cid=555", PageviewHit.of(TID, CID).toFormUrlEncoded());
+
+        assertEquals(
+            "v=1&t=exception&tid=UA-12345-1&cid=555&exf=0",
+            ExceptionHit.of(TID, CID).withFatal(false).toFormUrlEncoded()
+        );
+    }
+
+    @Test
+    public void testTransactionAndItemHits() {
+
+        assertEquals(
+            "v=1&t=transaction&tid=UA-12345-1&cid=555&ti=T-1&tr=1000.00&tt=0.5&cu=EUR",
+            TransactionHit.of(TID, CID, "T-1")
+                .withRevenue(new BigDecimal ("1E+3").setScale(2))
+                .withTax(new BigDecimal ("0.5"))
+                .withCurrencyCode("EUR")
+                .toFormUrlEncoded()
+        );
+
+        assertEquals(
+            "v=1&t=item&tid=UA-12345-1&cid=555&ti=T-1&in=Caf%C3%A9&ip=3.20&iq=2",
+            ItemHit.of(TID, CID, "T-1", "Café").withPrice(new BigDecimal ("3.20")).withQuantity(2).toFormUrlEncoded()
+        );
+    }
+
+    @Test
+    public void testTimingSocialAndScreenviewHits() {
+
+        assertEquals(
+            "v=1&t=timing&tid=UA-12345-1&cid=555&utc=db&utv=query&utt=125",
+            TimingHit.of(TID, CID, "db", "query", 125L).toFormUrlEncoded()
+        );
+
+        assertEquals(
+            "v=1&t=social&tid=UA-12345-1&cid=555&sn=network&sa=like&st=%2Fhome",
+            SocialHit.of(TID, CID, "network", "like", "/home").toFormUrlEncoded()
+        );
+
+        assertEquals(
+            "v=1&t=screenview&tid=UA-12345-1&cid=555&cd=Home",
+            ScreenviewHit.of(TID, CID, "Home").toFormUrlEncoded()
+        );
+    }
+
+    @Test
+    public void testEncodeToAppends() {
+
+        buffer.put((byte) '?');
+
+        EventHit.of(TID, CID, "a", "b").encodeTo(buffer);
+
+        assertEquals("?v=1&t=event&tid=UA-12345-1&cid=555&ec=a&ea=b".length(), buffer.position());
+    }
+
+    @Test(expected=MaxLengthInBytesExceededException.class)
+    public void testMaxBytes() {
+
+        StringBuilder category = new StringBuilder ();
+
+        for (int ctr = 0; ctr < 151; ctr++)
+            category.append('c');
+
+        EventHit.of(TID, CID, category.toString(), "b");
+    }
+
+    @Test(expected=NegativeValueException.class)
+    public void testNonNegative() {
+        EventHit.of(TID, CID, "a", "b").withValue(-1L);
+    }
+
+    @Test(expected=PayloadTooLargeException.class)
+    public void testPayloadTooLarge() {
+        EventHit.of(TID, CID, "a", "b").encodeTo(ByteBuffer.allocate(16));
+    }
+}
@@ -0,0 +1,93 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.transport.ResponseBodyMode;
+import com.coherentlogic.gama.client.core.transport.RestTemplateTransport;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * Command line entry point for the {@link BulkImporter}:
+ *
+ * <pre>
+ * java -jar gama-client-import.jar import.properties hits.csv [--checkpoint file] [--dry-run]
+ * </pre>
+ *
+ * The checkpoint file defaults to the input file name followed by ".checkpoint"; running the same command again after
+ * a failure resumes the import. With --dry-run every row is parsed, mapped and encoded but nothing is sent, which is a
+ * quick way to check a configuration against a large file.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class BulkImport {
+
+    static final String CHECKPOINT = "--checkpoint", DRY_RUN = "--dry-run", CHECKPOINT_SUFFIX = ".checkpoint";
+
+    static final String USAGE =
+        "Usage: BulkImport <configuration.properties> <input> [" + CHECKPOINT + " <file>] [" + DRY_RUN + "]";
+
+    public static void main (String[] args) throws Exception {
+
+        Path configurationFile = null;
+        Path input = null;
+        Path checkpointFile = null;
+        boolean dryRun = false;
+
+        for (int ctr = 0; ctr < args.length; ctr++) {
+
+            String next = args[ctr];
+
+            if (CHECKPOINT.equals(next) && ctr + 1 < args.length)
+                checkpointFile = Paths.get(args[++ctr]);
+            else if (DRY_RUN.equals(next))
+                dryRun = true;
+            else if (configurationFile == null)
+                configurationFile = Paths.get(next);
+            else if (input == null)
+                input = Paths.get(next);
+            else
+                exit (USAGE);
+        }
+
+        if (input == null)
+            exit (USAGE);
+
+        if (checkpointFile == null)
+            checkpointFile = Paths.get(input.toString() + CHECKPOINT_SUFFIX);
+
+        ImportConfiguration configuration = ImportConfiguration.load(configurationFile);
+
+        Transport transport = dryRun
+            ? (ByteBuffer payload) -> ""
+            : new RestTemplateTransport (
+                new RestTemplate (),
+                URI.create(configuration.getUri()),
+                ResponseBodyMode.DISCARD
+            );
+
+        BulkImporter bulkImporter = new BulkImporter (configuration, transport);
+
+        boolean completed = bulkImporter.run(input, dryRun ? null : checkpointFile);
+
+        System.out.println("Read: " + bulkImporter.getReadCount() + ", sent: " + bulkImporter.getSentCount()
+            + ", requests: " + bulkImporter.getRequestCount() + ", invalid: " + bulkImporter.getInvalidCount()
+            + (dryRun ? " (dry run)" : ""));
+
+        if (!completed) {
+            System.err.println("The import did not complete; run the same command again to resume from "
+                + checkpointFile + ".");
+            System.exit(1);
+        }
+    }
+
+    static void exit (String message) {
+        System.err.println(message);
+        System.exit(2);
+    }
+}
@@ -0,0 +1,385 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.buffers.PooledByteBuffer;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+import com.coherentlogic.gama.client.core.transport.RateLimiter;
+import com.coherentlogic.gama.client.core.transport.RetryingTransport;
+import com.coherentlogic.gama.client.core.transport.Transport;
+import com.coherentlogic.gama.client.importer.exceptions.InvalidRecordException;
+
+/**
+ * Sends the rows of a CSV or NDJSON file as hits. The file is memory-mapped and read on the calling thread, which hands
+ * chunks of up to batchSize rows to a pool of worker threads; each worker turns its chunk into one batch request
+ * (splitting it only when the encoded rows exceed the batch size limit), waits for the rate limiter, and sends it,
+ * retrying with exponential backoff (see {@link RetryingTransport}). Invalid rows are logged and counted but do not
+ * stop the import.
+ *
+ * Progress is checkpointed by byte offset (see {@link CheckpointTracker}), so an import which stopped -- because a send
+ * failed on every retry, or because the process died -- resumes after the last row which is known to have been sent.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class BulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+
+    /**
+     * The number of invalid rows which are logged individually.
+     */
+    static final int MAX_LOGGED_INVALID_ROWS = 100;
+
+    static final Chunk END = new Chunk (-1L, new String[0], new long[0], 0, -1L);
+
+    private final ImportConfiguration configuration;
+
+    private final Transport transport;
+
+    private final ByteBufferPool byteBufferPool;
+
+    private final LongSupplier clock;
+
+    private final HitMapper hitMapper;
+
+    private final RateLimiter rateLimiter;
+
+    private final AtomicLong readCount = new AtomicLong ();
+
+    private final AtomicLong sentCount = new AtomicLong ();
+
+    private final AtomicLong invalidCount = new AtomicLong ();
+
+    private final AtomicLong requestCount = new AtomicLong ();
+
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException> ();
+
+    public BulkImporter(ImportConfiguration configuration, Transport transport) {
+        this(configuration, transport, new ByteBufferPool (0, configuration.getThreads()), System::currentTimeMillis);
+    }
+
+    BulkImporter(
+        ImportConfiguration configuration,
+        Transport transport,
+        ByteBufferPool byteBufferPool,
+        LongSupplier clock
+    ) {
+        Utils.assertNotNull("configuration", configuration);
+        Utils.assertNotNull("transport", transport);
+        Utils.assertNotNull("byteBufferPool", byteBufferPool);
+        Utils.assertNotNull("clock", clock);
+
+        this.configuration = configuration;
+        // Once a worker has failed the import stops, so the other workers stop retrying too.
+        this.transport = new RetryingTransport (
+            transport,
+            configuration.getMaxRetries(),
+            configuration.getRetryBackoffMillis(),
+            () -> failure.get() != null
+        );
+        this.byteBufferPool = byteBufferPool;
+        this.clock = clock;
+        this.hitMapper = new HitMapper (configuration);
+        this.rateLimiter = new RateLimiter (configuration.getHitsPerSecond());
+    }
+
+    /**
+     * Imports the input, starting at the offset saved in the checkpoint file, if any.
+     *
+     * @param checkpointFile May be null, in which case the import starts at the beginning and is not checkpointed.
+     *
+     * @return true if every row was read and every valid row was sent; false if the import stopped early, in which
+     *  case the checkpoint file records where to resume.
+     */
+    public boolean run (Path input, Path checkpointFile) throws IOException, InterruptedException {
+
+        long offset = checkpointFile == null ? 0L : CheckpointTracker.readOffset(checkpointFile);
+
+        RecordParser recordParser;
+
+        try (MappedLineReader reader = new MappedLineReader (input, 0L)) {
+
+            String headerLine = null;
+
+            if (configuration.hasHeader()) {
+
+                if (!reader.next())
+                    throw new IOException("The input " + input + " has no header line.");
+
+                headerLine = reader.getLine();
+
+                offset = Math.max(offset, reader.getOffset());
+            }
+
+            recordParser = configuration.newRecordParser(headerLine);
+        }
+
+        CheckpointTracker checkpointTracker = new CheckpointTracker (checkpointFile, offset, 1000L);
+
+        int threads = configuration.getThreads();
+
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<Chunk> (threads * 2);
+
+        List<Thread> workers = new ArrayList<Thread> ();
+
+        for (int ctr = 0; ctr < threads; ctr++) {
+
+            Thread worker = new Thread (new Worker (chunks, recordParser, checkpointTracker), "gama-import-" + ctr);
+
+            workers.add(worker);
+
+            worker.start();
+        }
+
+        log.info("Importing " + input + " from offset " + offset + ".");
+
+        try {
+            read (input, offset, chunks);
+        } finally {
+            for (int ctr = 0; ctr < threads; ctr++)
+                while (!chunks.offer(END, 100, TimeUnit.MILLISECONDS) && isAnyAlive (workers))
+                    ;
+
+            for (Thread worker : workers)
+                worker.join();
+
+            checkpointTracker.save();
+        }
+
+        RuntimeException cause = failure.get();
+
+        if (cause != null)
+            log.error("The import stopped at offset " + checkpointTracker.getOffset() + ".", cause);
+        else
+            log.info("The import of " + input + " completed.");
+
+        log.info("Read " + readCount.get() + " rows, sent " + sentCount.get() + " hits in " + requestCount.get()
+            + " requests, rejected " + invalidCount.get() + " invalid rows.");
+
+        return cause == null;
+    }
+
+    static boolean isAnyAlive (List<Thread> threads) {
+
+        for (Thread thread : threads)
+            if (thread.isAlive())
+                return true;
+
+        return false;
+    }
+
+    void read (Path input, long offset, BlockingQueue<Chunk> chunks) throws IOException, InterruptedException {
+
+        int batchSize = configuration.getBatchSize();
+
+        long sequence = 0L;
+
+        try (MappedLineReader reader = new MappedLineReader (input, offset)) {
+
+            String[] lines = new String[batchSize];
+            long[] offsets = new long[batchSize];
+            int count = 0;
+
+            long lineOffset = reader.getOffset();
+
+            while (failure.get() == null && reader.next()) {
+
+                String line = reader.getLine();
+
+                if (!line.trim().isEmpty()) {
+                    lines[count] = line;
+                    offsets[count] = lineOffset;
+                    count++;
+                }
+
+                lineOffset = reader.getOffset();
+
+                if (count == batchSize) {
+
+                    put (chunks, new Chunk (sequence++, lines, offsets, count, lineOffset));
+
+                    lines = new String[batchSize];
+                    offsets = new long[batchSize];
+                    count = 0;
+                }
+            }
+
+            if (0 < count && failure.get() == null)
+                put (chunks, new Chunk (sequence, lines, offsets, count, lineOffset));
+        }
+    }
+
+    void put (BlockingQueue<Chunk> chunks, Chunk chunk) throws InterruptedException {
+
+        readCount.addAndGet(chunk.count);
+
+        while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS))
+            if (failure.get() != null)
+                return;
+    }
+
+    /**
+     * Returns the number of non-blank rows which have been read.
+     */
+    public long getReadCount () {
+        return readCount.get();
+    }
+
+    /**
+     * Returns the number of hits which have been sent.
+     */
+    public long getSentCount () {
+        return sentCount.get();
+    }
+
+    /**
+     * Returns the number of rows which were rejected because they could not be parsed or mapped to a valid hit.
+     */
+    public long getInvalidCount () {
+        return invalidCount.get();
+    }
+
+    /**
+     * Returns the number of batch requests which have been sent.
+     */
+    public long getRequestCount () {
+        return requestCount.get();
+    }
+
+    static class Chunk {
+
+        final long sequence;
+
+        final String[] lines;
+
+        final long[] offsets;
+
+        final int count;
+
+        final long endOffset;
+
+        Chunk(long sequence, String[] lines, long[] offsets, int count, long endOffset) {
+            this.sequence = sequence;
+            this.lines = lines;
+            this.offsets = offsets;
+            this.count = count;
+            this.endOffset = endOffset;
+        }
+    }
+
+    class Worker implements Runnable {
+
+        private final BlockingQueue<Chunk> chunks;
+
+        private final RecordParser recordParser;
+
+        private final CheckpointTracker checkpointTracker;
+
+        /**
+         * Used only to build hits, which are sent through the transport, so it needs no restTemplate.
+         */
+        private final QueryBuilder queryBuilder = new QueryBuilder ((RestTemplate) null);
+
+        private final HitBatch hitBatch = new HitBatch (byteBufferPool);
+
+        Worker(BlockingQueue<Chunk> chunks, RecordParser recordParser, CheckpointTracker checkpointTracker) {
+            this.chunks = chunks;
+            this.recordParser = recordParser;
+            this.checkpointTracker = checkpointTracker;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Chunk chunk;
+
+                while ((chunk = chunks.take()) != END && failure.get() == null) {
+
+                    send (chunk);
+
+                    checkpointTracker.complete(chunk.sequence, chunk.endOffset);
+                }
+            } catch (RuntimeException runtimeException) {
+                failure.compareAndSet(null, runtimeException);
+            } catch (IOException ioException) {
+                failure.compareAndSet(null, new IllegalStateException("The checkpoint could not be saved.",
+                    ioException));
+            } catch (InterruptedException interruptedException) {
+                failure.compareAndSet(null, new IllegalStateException("The import was interrupted.",
+                    interruptedException));
+            } finally {
+                hitBatch.close();
+            }
+        }
+
+        void send (Chunk chunk) throws InterruptedException {
+
+            long now = clock.getAsLong();
+
+            for (int ctr = 0; ctr < chunk.count; ctr++) {
+
+                queryBuilder.reset();
+
+                try {
+                    hitMapper.map(recordParser.parse(chunk.lines[ctr]), now, queryBuilder);
+
+                    if (!hitBatch.add(queryBuilder)) {
+                        flush ();
+                        hitBatch.add(queryBuilder);
+                    }
+                } catch (InvalidRecordException | PayloadTooLargeException exception) {
+
+                    if (invalidCount.incrementAndGet() <= MAX_LOGGED_INVALID_ROWS)
+                        log.warn("The row at offset " + chunk.offsets[ctr] + " is invalid: "
+                            + exception.getMessage());
+                }
+            }
+
+            if (!hitBatch.isEmpty())
+                flush ();
+        }
+
+        void flush () throws InterruptedException {
+
+            int hitCount = hitBatch.getHitCount();
+
+            // Only the hits which are sent count against the rate, so invalid rows do not slow the import down.
+            rateLimiter.acquire(hitCount);
+
+            PooledByteBuffer payload = hitBatch.drain();
+
+            try {
+                transport.send(payload.getByteBuffer());
+            } catch (RuntimeException runtimeException) {
+
+                if (Thread.interrupted())
+                    throw new InterruptedException ();
+
+                throw runtimeException;
+            } finally {
+                payload.release();
+            }
+
+            requestCount.incrementAndGet();
+            sentCount.addAndGet(hitCount);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+
+/**
+ * Records how far into the input an import has safely progressed. The input is handed out in numbered chunks which
+ * complete in any order; the checkpoint only moves past a chunk once every chunk before it has completed too, so that a
+ * resumed import neither skips rows nor -- apart from the chunks which were in flight -- sends them twice.
+ *
+ * The checkpoint file is replaced atomically, so a crash while saving leaves the previous checkpoint intact.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class CheckpointTracker {
+
+    static final String OFFSET = "offset";
+
+    private final Path file;
+
+    private final long minSaveIntervalMillis;
+
+    /**
+     * Held while saving, and while reading the offset to save, so that a slower save cannot overwrite a later offset.
+     */
+    private final Object saveLock = new Object ();
+
+    private final TreeMap<Long, Long> completedOffsetsBySequence = new TreeMap<Long, Long> ();
+
+    private long nextSequence = 0L;
+
+    private long offset;
+
+    private long lastSaveMillis = 0L;
+
+    /**
+     * @param file May be null, in which case nothing is saved.
+     * @param offset The offset the import starts from.
+     */
+    public CheckpointTracker(Path file, long offset, long minSaveIntervalMillis) {
+        this.file = file;
+        this.offset = offset;
+        this.minSaveIntervalMillis = minSaveIntervalMillis;
+    }
+
+    /**
+     * Returns the offset saved in the file, or zero if there is no such file.
+     */
+    public static long readOffset (Path file) throws IOException {
+
+        Utils.assertNotNull("file", file);
+
+        if (!Files.exists(file))
+            return 0L;
+
+        Properties properties = new Properties ();
+
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            properties.load(inputStream);
+        }
+
+        return Long.parseLong(properties.getProperty(OFFSET, "0"));
+    }
+
+    /**
+     * Marks the chunk as complete; sequences start at zero and must each be completed exactly once.
+     *
+     * @param endOffset The offset after the last row of the chunk.
+     */
+    public void complete (long sequence, long endOffset) throws IOException {
+
+        boolean save;
+
+        synchronized (this) {
+
+            completedOffsetsBySequence.put(sequence, endOffset);
+
+            long before = offset;
+
+            Long next;
+
+            while ((next = completedOffsetsBySequence.remove(nextSequence)) != null) {
+                offset = next;
+                nextSequence++;
+            }
+
+            long now = System.currentTimeMillis();
+
+            save = before != offset && minSaveIntervalMillis <= now - lastSaveMillis;
+
+            if (save)
+                lastSaveMillis = now;
+        }
+
+        if (save)
+            save ();
+    }
+
+    /**
+     * Returns the offset before which every row has been sent.
+     */
+    public synchronized long getOffset () {
+        return offset;
+    }
+
+    /**
+     * Writes the current offset to the file.
+     */
+    public void save () throws IOException {
+
+        if (file == null)
+            return;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        synchronized (saveLock) {
+
+            Properties properties = new Properties ();
+
+            properties.setProperty(OFFSET, Long.toString(getOffset ()));
+
+            try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                properties.store(outputStream, "GAMA bulk import checkpoint");
+            }
+
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.importer.exceptions.InvalidRecordException;
+
+/**
+ * Parses delimited lines whose columns are named by a header line. Fields may be quoted with double quotes, in which
+ * case they may contain the delimiter and doubled quotes; since the input is read line by line, quoted fields may not
+ * contain line breaks.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class CsvRecordParser implements RecordParser {
+
+    static final char QUOTE = '"';
+
+    private final char delimiter;
+
+    private final String[] columns;
+
+    public CsvRecordParser(char delimiter, String headerLine) {
+
+        Utils.assertNotNull("headerLine", headerLine);
+
+        this.delimiter = delimiter;
+
+        List<String> header = split (headerLine, delimiter);
+
+        this.columns = header.toArray(new String[header.size()]);
+
+        for (int ctr = 0; ctr < columns.length; ctr++)
+            columns[ctr] = columns[ctr].trim();
+    }
+
+    @Override
+    public Map<String, String> parse(String line) {
+
+        List<String> fields = split (line, delimiter);
+
+        if (fields.size() != columns.length)
+            throw new InvalidRecordException("Expected " + columns.length + " fields but found " + fields.size()
+                + ".");
+
+        Map<String, String> result = new HashMap<String, String> (columns.length * 2);
+
+        for (int ctr = 0; ctr < columns.length; ctr++)
+            result.put(columns[ctr], fields.get(ctr));
+
+        return result;
+    }
+
+    /**
+     * Splits the line into fields, removing the quotes from quoted fields.
+     *
+     * @throws InvalidRecordException if a quoted field is not terminated or is followed by anything but a delimiter.
+     */
+    static List<String> split (String line, char delimiter) {
+
+        List<String> result = new ArrayList<String> ();
+
+        StringBuilder field = new StringBuilder ();
+
+        int length = line.length();
+        int index = 0;
+
+        while (true) {
+
+            field.setLength(0);
+
+            if (index < length && line.charAt(index) == QUOTE) {
+
+                index++;
+
+                while (true) {
+
+                    if (length <= index)
+                        throw new InvalidRecordException("A quoted field is not terminated.");
+
+                    char next = line.charAt(index++);
+
+                    if (next == QUOTE) {
+                        if (index < length && line.charAt(index) == QUOTE) {
+                            field.append(QUOTE);
+                            index++;
+                        } else
+                            break;
+                    } else
+                        field.append(next);
+                }
+
+                if (index < length && line.charAt(index) != delimiter)
+                    throw new InvalidRecordException("A quoted field is followed by '" + line.charAt(index)
+                        + "' rather than the delimiter.");
+            } else {
+                while (index < length && line.charAt(index) != delimiter)
+                    field.append(line.charAt(index++));
+            }
+
+            result.add(field.toString());
+
+            if (length <= index)
+                return result;
+
+            index++;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.util.Map;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.importer.exceptions.InvalidRecordException;
+
+/**
+ * Fills a {@link QueryBuilder} from one record of the input using the constants and column mappings of an
+ * {@link ImportConfiguration}, computes the queue time from the record's timestamp, and checks that the result is a hit
+ * the Measurement Protocol will accept.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitMapper {
+
+    private final String[] constantNames;
+
+    private final String[] constantValues;
+
+    private final String[] columns;
+
+    private final String[] columnParameters;
+
+    private final String timestampColumn;
+
+    private final TimestampParser timestampParser;
+
+    private final long maxQueueTimeMillis;
+
+    public HitMapper(ImportConfiguration configuration) {
+
+        Utils.assertNotNull("configuration", configuration);
+
+        Map<String, String> constants = configuration.getConstants();
+        Map<String, String> columnMappings = configuration.getColumns();
+
+        this.constantNames = constants.keySet().toArray(new String[constants.size()]);
+        this.constantValues = constants.values().toArray(new String[constants.size()]);
+        this.columns = columnMappings.keySet().toArray(new String[columnMappings.size()]);
+        this.columnParameters = columnMappings.values().toArray(new String[columnMappings.size()]);
+        this.timestampColumn = configuration.getTimestampColumn();
+        this.timestampParser = timestampColumn == null
+            ? null
+            : new TimestampParser (configuration.getTimestampFormat(), configuration.getTimestampZone());
+        this.maxQueueTimeMillis = configuration.getMaxQueueTimeMillis();
+    }
+
+    /**
+     * Adds the parameters for the record to the target, which should be empty.
+     *
+     * @param now The time, in epoch milliseconds, the hit will be sent at.
+     *
+     * @throws InvalidRecordException if the record does not produce a valid hit.
+     */
+    public QueryBuilder map (Map<String, String> record, long now, QueryBuilder target) {
+
+        for (int ctr = 0; ctr < constantNames.length; ctr++)
+            target.withParameter(constantNames[ctr], constantValues[ctr]);
+
+        for (int ctr = 0; ctr < columns.length; ctr++) {
+
+            String value = record.get(columns[ctr]);
+
+            if (value != null && !value.isEmpty())
+                target.withParameter(columnParameters[ctr], value);
+        }
+
+        if (timestampColumn != null) {
+
+            String timestamp = record.get(timestampColumn);
+
+            if (timestamp == null || timestamp.isEmpty())
+                throw new InvalidRecordException("The timestamp column " + timestampColumn + " is empty.");
+
+            long queueTimeMillis = now - timestampParser.toEpochMillis(timestamp);
+
+            if (maxQueueTimeMillis < queueTimeMillis)
+                throw new InvalidRecordException("The queue time of " + queueTimeMillis + " milliseconds exceeds the "
+                    + "maximum of " + maxQueueTimeMillis + " milliseconds.");
+
+            if (0 < queueTimeMillis)
+                target.withQt(queueTimeMillis);
+        }
+
+        validate (target);
+
+        return target;
+    }
+
+    static void validate (QueryBuilder queryBuilder) {
+
+        for (String required : new String[] {QueryBuilder.V, QueryBuilder.TID, QueryBuilder.T})
+            if (queryBuilder.getParameter(required) == null)
+                throw new InvalidRecordException("The required parameter " + required + " is missing.");
+
+        if (queryBuilder.getParameter(QueryBuilder.CID) == null && queryBuilder.getParameter(QueryBuilder.UID) == null)
+            throw new InvalidRecordException("Either the cid or the uid parameter is required.");
+    }
+}
@@ -0,0 +1,244 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+
+/**
+ * The settings of a bulk import, read from a properties file such as:
+ *
+ * <pre>
+ * format=csv
+ * csv.delimiter=,
+ *
+ * # Parameters which are the same for every hit.
+ * constant.v=1
+ * constant.tid=UA-12345-1
+ * constant.t=transaction
+ *
+ * # Input columns and the parameters they map to.
+ * column.client_id=cid
+ * column.order_id=ti
+ * column.revenue=tr
+ *
+ * # The column holding the time of the hit, from which the queue time (qt) is computed; the format is one of
+ * # epochMillis, epochSeconds, iso or a java.time.format.DateTimeFormatter pattern, read in timestamp.zone.
+ * timestamp.column=created_at
+ * timestamp.format=iso
+ *
+ * threads=4
+ * hitsPerSecond=200
+ * </pre>
+ *
+ * The Measurement Protocol may not process hits whose queue time exceeds four hours, so rows older than
+ * maxQueueTimeMillis (four hours by default) are rejected as invalid.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class ImportConfiguration {
+
+    public static final String FORMAT = "format",
+        CSV = "csv",
+        NDJSON = "ndjson",
+        CSV_DELIMITER = "csv.delimiter",
+        CONSTANT_PREFIX = "constant.",
+        COLUMN_PREFIX = "column.",
+        TIMESTAMP_COLUMN = "timestamp.column",
+        TIMESTAMP_FORMAT = "timestamp.format",
+        TIMESTAMP_ZONE = "timestamp.zone",
+        MAX_QUEUE_TIME_MILLIS = "maxQueueTimeMillis",
+        BATCH_SIZE = "batchSize",
+        THREADS = "threads",
+        HITS_PER_SECOND = "hitsPerSecond",
+        URI = "uri",
+        MAX_RETRIES = "maxRetries",
+        RETRY_BACKOFF_MILLIS = "retryBackoffMillis";
+
+    /**
+     * Constants are added in this order, ahead of any other constant, so the protocol version leads every hit.
+     */
+    static final List<String> LEADING_PARAMETERS = Arrays.asList(
+        QueryBuilder.V, QueryBuilder.TID, QueryBuilder.CID, QueryBuilder.UID, QueryBuilder.T);
+
+    private final Properties properties;
+
+    public ImportConfiguration(Properties properties) {
+
+        Utils.assertNotNull("properties", properties);
+
+        this.properties = properties;
+
+        String format = getFormat ();
+
+        if (!CSV.equals(format) && !NDJSON.equals(format))
+            throw new IllegalArgumentException("The " + FORMAT + " must be " + CSV + " or " + NDJSON + " (format: "
+                + format + ")");
+
+        if (getBatchSize () < 1 || HitBatch.MAX_HITS < getBatchSize ())
+            throw new IllegalArgumentException("The " + BATCH_SIZE + " must be between 1 and " + HitBatch.MAX_HITS
+                + " (batchSize: " + getBatchSize () + ")");
+
+        if (getThreads () < 1)
+            throw new IllegalArgumentException("The " + THREADS + " must be greater than zero (threads: "
+                + getThreads () + ")");
+    }
+
+    public static ImportConfiguration load (Path path) throws IOException {
+
+        Properties properties = new Properties ();
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            properties.load(inputStream);
+        }
+
+        return new ImportConfiguration (properties);
+    }
+
+    public String getFormat () {
+        return properties.getProperty(FORMAT, CSV);
+    }
+
+    public char getCsvDelimiter () {
+
+        String result = properties.getProperty(CSV_DELIMITER, ",");
+
+        return "\\t".equals(result) ? '\t' : result.charAt(0);
+    }
+
+    /**
+     * Returns the parameters set on every hit, ordered with the {@link #LEADING_PARAMETERS} first.
+     */
+    public Map<String, String> getConstants () {
+
+        List<String> names = new ArrayList<String> ();
+
+        for (String name : properties.stringPropertyNames())
+            if (name.startsWith(CONSTANT_PREFIX))
+                names.add(name.substring(CONSTANT_PREFIX.length()));
+
+        names.sort((left, right) -> {
+
+            int leftRank = rankOf (left);
+            int rightRank = rankOf (right);
+
+            return leftRank != rightRank ? Integer.compare(leftRank, rightRank) : left.compareTo(right);
+        });
+
+        Map<String, String> result = new LinkedHashMap<String, String> ();
+
+        for (String name : names)
+            result.put(name, properties.getProperty(CONSTANT_PREFIX + name));
+
+        return result;
+    }
+
+    static int rankOf (String parameterName) {
+
+        int result = LEADING_PARAMETERS.indexOf(parameterName);
+
+        return result < 0 ? LEADING_PARAMETERS.size() : result;
+    }
+
+    /**
+     * Returns the parameter names keyed by the input column they are read from, ordered by column name.
+     */
+    public Map<String, String> getColumns () {
+
+        List<String> columns = new ArrayList<String> ();
+
+        for (String name : properties.stringPropertyNames())
+            if (name.startsWith(COLUMN_PREFIX))
+                columns.add(name.substring(COLUMN_PREFIX.length()));
+
+        columns.sort(null);
+
+        Map<String, String> result = new LinkedHashMap<String, String> ();
+
+        for (String column : columns)
+            result.put(column, properties.getProperty(COLUMN_PREFIX + column));
+
+        return result;
+    }
+
+    /**
+     * Returns the column holding the time of the hit, or null when queue times are not computed.
+     */
+    public String getTimestampColumn () {
+        return properties.getProperty(TIMESTAMP_COLUMN);
+    }
+
+    public String getTimestampFormat () {
+        return properties.getProperty(TIMESTAMP_FORMAT, TimestampParser.ISO);
+    }
+
+    public String getTimestampZone () {
+        return properties.getProperty(TIMESTAMP_ZONE, "UTC");
+    }
+
+    public long getMaxQueueTimeMillis () {
+        return getLong (MAX_QUEUE_TIME_MILLIS, TimeUnit.HOURS.toMillis(4));
+    }
+
+    /**
+     * Returns the number of rows sent per batch request.
+     */
+    public int getBatchSize () {
+        return (int) getLong (BATCH_SIZE, HitBatch.MAX_HITS);
+    }
+
+    public int getThreads () {
+        return (int) getLong (THREADS, 4);
+    }
+
+    /**
+     * Returns the maximum number of hits sent per second, or zero for no limit.
+     */
+    public double getHitsPerSecond () {
+        return Double.parseDouble(properties.getProperty(HITS_PER_SECOND, "0"));
+    }
+
+    public String getUri () {
+        return properties.getProperty(URI, HitBatch.GOOGLE_ANALYTICS_BATCH_URL);
+    }
+
+    public int getMaxRetries () {
+        return (int) getLong (MAX_RETRIES, 3);
+    }
+
+    public long getRetryBackoffMillis () {
+        return getLong (RETRY_BACKOFF_MILLIS, 500);
+    }
+
+    long getLong (String name, long defaultValue) {
+
+        String result = properties.getProperty(name);
+
+        return result == null ? defaultValue : Long.parseLong(result.trim());
+    }
+
+    /**
+     * Returns the parser for the input format; the headerLine is required for CSV input.
+     */
+    public RecordParser newRecordParser (String headerLine) {
+        return CSV.equals(getFormat ())
+            ? new CsvRecordParser (getCsvDelimiter (), headerLine)
+            : new NdjsonRecordParser ();
+    }
+
+    public boolean hasHeader () {
+        return CSV.equals(getFormat ());
+    }
+}
@@ -0,0 +1,150 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads UTF-8 lines from a file by memory-mapping it one region at a time, so that files of any size can be read
+ * without copying them through an input stream, and reports the byte offset after each line so that a reader can later
+ * resume from exactly that point.
+ *
+ * Lines end with \n or \r\n; a line which straddles two regions is read by mapping the next region from the start of
+ * that line. A single line may not be longer than the region size.
+ *
+ * This class is not thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class MappedLineReader implements Closeable {
+
+    public static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final int regionSize;
+
+    private MappedByteBuffer region = null;
+
+    private long regionStart = 0L;
+
+    private long offset;
+
+    private byte[] lineBytes = new byte[256];
+
+    private String line = null;
+
+    public MappedLineReader(Path path, long startOffset) throws IOException {
+        this(path, startOffset, DEFAULT_REGION_SIZE);
+    }
+
+    public MappedLineReader(Path path, long startOffset, int regionSize) throws IOException {
+
+        if (startOffset < 0 || regionSize <= 0)
+            throw new IllegalArgumentException("The startOffset cannot be negative and the regionSize must be greater "
+                + "than zero (startOffset: " + startOffset + ", regionSize: " + regionSize + ")");
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = regionSize;
+        this.offset = Math.min(startOffset, size);
+    }
+
+    /**
+     * Advances to the next line and returns true, or returns false at the end of the file.
+     *
+     * @throws IOException if a line is longer than the region size.
+     */
+    public boolean next () throws IOException {
+
+        line = null;
+
+        if (size <= offset)
+            return false;
+
+        while (true) {
+
+            if (region == null || regionStart + region.limit() <= offset)
+                map (offset);
+
+            int start = (int) (offset - regionStart);
+            int limit = region.limit();
+
+            for (int index = start; index < limit; index++) {
+                if (region.get(index) == '\n') {
+
+                    line = decode (start, index);
+                    offset = regionStart + index + 1;
+
+                    return true;
+                }
+            }
+
+            if (regionStart + limit == size) {
+
+                line = decode (start, limit);
+                offset = size;
+
+                return true;
+            }
+
+            if (start == 0)
+                throw new IOException("The line at offset " + offset + " is longer than the region size ("
+                    + regionSize + " bytes).");
+
+            map (offset);
+        }
+    }
+
+    private void map (long start) throws IOException {
+        regionStart = start;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+    }
+
+    private String decode (int start, int end) {
+
+        if (start < end && region.get(end - 1) == '\r')
+            end--;
+
+        int length = end - start;
+
+        if (lineBytes.length < length)
+            lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+
+        for (int index = 0; index < length; index++)
+            lineBytes[index] = region.get(start + index);
+
+        return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the current line, without its line terminator.
+     */
+    public String getLine () {
+        return line;
+    }
+
+    /**
+     * Returns the offset of the byte after the current line, which is where reading resumes.
+     */
+    public long getOffset () {
+        return offset;
+    }
+
+    public long getSize () {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,204 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.coherentlogic.gama.client.importer.exceptions.InvalidRecordException;
+
+/**
+ * Parses lines which each hold one flat JSON object, such as {"cid": "35009a79", "tr": 15.47, "fresh": true}. Values
+ * are returned as text: strings are unescaped, numbers and booleans are returned as written, and null values are left
+ * out. Nested objects and arrays are rejected since they do not map to hit parameters.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class NdjsonRecordParser implements RecordParser {
+
+    @Override
+    public Map<String, String> parse(String line) {
+        return new Parser (line).parseObject();
+    }
+
+    static class Parser {
+
+        private final String text;
+
+        private int index = 0;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> parseObject () {
+
+            Map<String, String> result = new HashMap<String, String> ();
+
+            expect ('{');
+
+            if (peek () == '}') {
+                index++;
+                return endOfLine (result);
+            }
+
+            while (true) {
+
+                String name = parseString ();
+
+                expect (':');
+
+                String value = parseValue ();
+
+                if (value != null)
+                    result.put(name, value);
+
+                char next = nextToken ();
+
+                if (next == '}')
+                    return endOfLine (result);
+
+                if (next != ',')
+                    throw invalid ("Expected ',' or '}'");
+            }
+        }
+
+        Map<String, String> endOfLine (Map<String, String> result) {
+
+            skipWhitespace ();
+
+            if (index < text.length())
+                throw invalid ("Unexpected text after the object");
+
+            return result;
+        }
+
+        String parseValue () {
+
+            char next = peek ();
+
+            if (next == '"')
+                return parseString ();
+
+            if (next == '{' || next == '[')
+                throw invalid ("Nested objects and arrays are not supported");
+
+            int start = index;
+
+            while (index < text.length() && ",}] \t\r\n".indexOf(text.charAt(index)) < 0)
+                index++;
+
+            String result = text.substring(start, index);
+
+            if ("null".equals(result))
+                return null;
+
+            if (result.isEmpty()
+                || !("true".equals(result) || "false".equals(result) || isNumber (result)))
+                throw invalid ("Invalid value '" + result + "'");
+
+            return result;
+        }
+
+        static boolean isNumber (String value) {
+            return value.matches("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+        }
+
+        String parseString () {
+
+            expect ('"');
+
+            StringBuilder result = new StringBuilder ();
+
+            while (true) {
+
+                if (text.length() <= index)
+                    throw invalid ("Unterminated string");
+
+                char next = text.charAt(index++);
+
+                if (next == '"')
+                    return result.toString();
+
+                if (next != '\\') {
+                    result.append(next);
+                    continue;
+                }
+
+                if (text.length() <= index)
+                    throw invalid ("Unterminated escape");
+
+                char escaped = text.charAt(index++);
+
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        result.append(escaped);
+                        break;
+                    case 'b':
+                        result.append('\b');
+                        break;
+                    case 'f':
+                        result.append('\f');
+                        break;
+                    case 'n':
+                        result.append('\n');
+                        break;
+                    case 'r':
+                        result.append('\r');
+                        break;
+                    case 't':
+                        result.append('\t');
+                        break;
+                    case 'u':
+                        if (text.length() < index + 4)
+                            throw invalid ("Truncated unicode escape");
+                        try {
+                            result.append((char) Integer.parseInt(text.substring(index, index + 4), 16));
+                        } catch (NumberFormatException numberFormatException) {
+                            throw invalid ("Invalid unicode escape");
+                        }
+                        index += 4;
+                        break;
+                    default:
+                        throw invalid ("Invalid escape '\\" + escaped + "'");
+                }
+            }
+        }
+
+        void expect (char expected) {
+            if (nextToken () != expected)
+                throw invalid ("Expected '" + expected + "'");
+        }
+
+        char nextToken () {
+
+            char result = peek ();
+
+            index++;
+
+            return result;
+        }
+
+        char peek () {
+
+            skipWhitespace ();
+
+            if (text.length() <= index)
+                throw invalid ("Unexpected end of line");
+
+            return text.charAt(index);
+        }
+
+        void skipWhitespace () {
+            while (index < text.length() && Character.isWhitespace(text.charAt(index)))
+                index++;
+        }
+
+        InvalidRecordException invalid (String message) {
+            return new InvalidRecordException(message + " at column " + index + ".");
+        }
+    }
+}
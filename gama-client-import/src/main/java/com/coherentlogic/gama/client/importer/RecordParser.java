@@ -0,0 +1,19 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.util.Map;
+
+import com.coherentlogic.gama.client.importer.exceptions.InvalidRecordException;
+
+/**
+ * Turns one line of the input into a map of column names to values.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public interface RecordParser {
+
+    /**
+     * @throws InvalidRecordException if the line is malformed.
+     */
+    Map<String, String> parse (String line);
+}
@@ -0,0 +1,74 @@
+package com.coherentlogic.gama.client.importer;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+
+import com.coherentlogic.gama.client.importer.exceptions.InvalidRecordException;
+
+/**
+ * Converts the timestamps found in the input to epoch milliseconds.
+ *
+ * This class is thread-safe.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class TimestampParser {
+
+    /**
+     * ISO-8601 date-times with an offset or zone, such as 2017-05-01T10:15:30Z; local date-times are read in the zone.
+     */
+    public static final String ISO = "iso",
+        EPOCH_MILLIS = "epochMillis",
+        EPOCH_SECONDS = "epochSeconds";
+
+    private final String format;
+
+    private final ZoneId zone;
+
+    private final DateTimeFormatter formatter;
+
+    /**
+     * @param format {@link #ISO}, {@link #EPOCH_MILLIS}, {@link #EPOCH_SECONDS} or a {@link DateTimeFormatter} pattern.
+     */
+    public TimestampParser(String format, String zone) {
+
+        this.format = format;
+        this.zone = ZoneId.of(zone);
+
+        if (ISO.equals(format))
+            formatter = DateTimeFormatter.ISO_DATE_TIME;
+        else if (EPOCH_MILLIS.equals(format) || EPOCH_SECONDS.equals(format))
+            formatter = null;
+        else
+            formatter = DateTimeFormatter.ofPattern(format);
+    }
+
+    /**
+     * @throws InvalidRecordException if the value does not match the format.
+     */
+    public long toEpochMillis (String value) {
+
+        try {
+            if (EPOCH_MILLIS.equals(format))
+                return Long.parseLong(value.trim());
+
+            if (EPOCH_SECONDS.equals(format))
+                return Math.round(Double.parseDouble(value.trim()) * 1000.0);
+
+            TemporalAccessor parsed = formatter.parseBest(value.trim(), ZonedDateTime::from,
+                temporal -> LocalDateTime.from(temporal).atZone(zone));
+
+            return Instant.from(parsed).toEpochMilli();
+
+        } catch (NumberFormatException | DateTimeParseException exception) {
+            throw new InvalidRecordException("The timestamp '" + value + "' does not match the format " + format
+                + ".", exception);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.coherentlogic.gama.client.importer.exceptions;
+
+import org.springframework.core.NestedRuntimeException;
+
+/**
+ * An exception that is thrown when a row of the input cannot be parsed or does not map to a valid hit.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class InvalidRecordException extends NestedRuntimeException {
+
+    private static final long serialVersionUID = 6913702247051985530L;
+
+    public InvalidRecordException (String message) {
+        super (message);
+    }
+
+    public InvalidRecordException (String message, Throwable cause) {
+        super (message, cause);
+    }
+}
@@ -0,0 +1,181 @@
+package com.coherentlogic.gama.client.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.exceptions.PostFailedException;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * Unit test for the {@link BulkImporter} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class BulkImporterTest {
+
+    static final long NOW = 1500000000000L;
+
+    private Path input = null;
+
+    private Path checkpointFile = null;
+
+    private Properties properties = null;
+
+    private List<String> hits = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        input = Files.createTempFile("gama-import", ".csv");
+        checkpointFile = Files.createTempFile("gama-import", ".checkpoint");
+
+        Files.delete(checkpointFile);
+
+        properties = new Properties ();
+
+        properties.setProperty("constant.v", "1");
+        properties.setProperty("constant.tid", "UA-12345-1");
+        properties.setProperty("constant.t", "event");
+        properties.setProperty("constant.ec", "import");
+        properties.setProperty("column.client_id", "cid");
+        properties.setProperty("column.label", "el");
+        properties.setProperty("timestamp.column", "created_at");
+        properties.setProperty("timestamp.format", "epochMillis");
+        properties.setProperty("batchSize", "2");
+        properties.setProperty("maxRetries", "0");
+
+        hits = Collections.synchronizedList(new ArrayList<String> ());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(checkpointFile);
+
+        input = null;
+        checkpointFile = null;
+        properties = null;
+        hits = null;
+    }
+
+    void writeRows (int count) throws Exception {
+
+        StringBuilder content = new StringBuilder ("client_id,label,created_at\n");
+
+        for (int ctr = 0; ctr < count; ctr++)
+            content.append(ctr).append(",row ").append(ctr).append(',').append(NOW - 1000L).append('\n');
+
+        Files.write(input, content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records every hit, failing the request with the given number when failAt is not negative.
+     */
+    Transport newRecordingTransport (int failAt) {
+
+        int[] requestCount = {0};
+
+        return (ByteBuffer payload) -> {
+
+            synchronized (requestCount) {
+                if (requestCount[0]++ == failAt)
+                    throw new PostFailedException("500 Internal Server Error");
+            }
+
+            for (String hit : StandardCharsets.US_ASCII.decode(payload).toString().split("\n"))
+                hits.add(hit);
+
+            return "";
+        };
+    }
+
+    BulkImporter newBulkImporter (int threads, Transport transport) {
+
+        properties.setProperty("threads", Integer.toString(threads));
+
+        return new BulkImporter (new ImportConfiguration (properties), transport, new ByteBufferPool (0, 4),
+            () -> NOW);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+
+        writeRows (25);
+
+        BulkImporter bulkImporter = newBulkImporter (4, newRecordingTransport (-1));
+
+        assertTrue(bulkImporter.run(input, checkpointFile));
+
+        assertEquals(25L, bulkImporter.getReadCount());
+        assertEquals(25L, bulkImporter.getSentCount());
+        assertEquals(13L, bulkImporter.getRequestCount());
+        assertEquals(0L, bulkImporter.getInvalidCount());
+        assertEquals(25, hits.size());
+
+        assertTrue(hits.contains("v=1&tid=UA-12345-1&t=event&ec=import&cid=7&el=row+7&qt=1000"));
+
+        assertEquals(Files.size(input), CheckpointTracker.readOffset(checkpointFile));
+    }
+
+    @Test
+    public void testInvalidRowsAreSkipped() throws Exception {
+
+        Files.write(input, ("client_id,label,created_at\n"
+            + "1,fresh," + (NOW - 1000L) + "\n"
+            + "2,too old," + (NOW - 5L * 60L * 60L * 1000L) + "\n"
+            + ",no client id," + NOW + "\n"
+            + "\n"
+            + "3,future," + (NOW + 1000L) + "\n").getBytes(StandardCharsets.UTF_8));
+
+        BulkImporter bulkImporter = newBulkImporter (1, newRecordingTransport (-1));
+
+        assertTrue(bulkImporter.run(input, null));
+
+        assertEquals(4L, bulkImporter.getReadCount());
+        assertEquals(2L, bulkImporter.getSentCount());
+        assertEquals(2L, bulkImporter.getInvalidCount());
+        assertEquals("v=1&tid=UA-12345-1&t=event&ec=import&cid=3&el=future", hits.get(1));
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+
+        writeRows (6);
+
+        BulkImporter failing = newBulkImporter (1, newRecordingTransport (1));
+
+        assertFalse(failing.run(input, checkpointFile));
+        assertEquals(2, hits.size());
+
+        long offset = CheckpointTracker.readOffset(checkpointFile);
+
+        assertTrue(0L < offset);
+
+        BulkImporter resumed = newBulkImporter (1, newRecordingTransport (-1));
+
+        assertTrue(resumed.run(input, checkpointFile));
+
+        assertEquals(4L, resumed.getSentCount());
+        assertEquals(6, hits.size());
+
+        for (int ctr = 0; ctr < 6; ctr++)
+            assertTrue(hits.get(ctr).contains("&cid=" + ctr + "&"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.coherentlogic.gama.client.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coherentlogic.gama.client.importer.exceptions.InvalidRecordException;
+
+/**
+ * Unit test for the {@link CsvRecordParser} and {@link NdjsonRecordParser} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class CsvRecordParserTest {
+
+    private CsvRecordParser csvRecordParser = null;
+
+    @Before
+    public void setUp() throws Exception {
+        csvRecordParser = new CsvRecordParser (',', "client_id,order_id,revenue");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        csvRecordParser = null;
+    }
+
+    @Test
+    public void testParse() {
+
+        Map<String, String> record = csvRecordParser.parse("555,T-1,12.50");
+
+        assertEquals("555", record.get("client_id"));
+        assertEquals("T-1", record.get("order_id"));
+        assertEquals("12.50", record.get("revenue"));
+    }
+
+    @Test
+    public void testParseQuotedFields() {
+
+        Map<String, String> record = csvRecordParser.parse("555,\"T-1, \"\"gift\"\"\",");
+
+        assertEquals("T-1, \"gift\"", record.get("order_id"));
+        assertEquals("", record.get("revenue"));
+    }
+
+    @Test(expected=InvalidRecordException.class)
+    public void testParseTooManyFields() {
+        csvRecordParser.parse("555,T-1,12.50,extra");
+    }
+
+    @Test
+    public void testParseNdjson() {
+
+        Map<String, String> record = new NdjsonRecordParser ().parse(
+            "{\"client_id\": \"555\", \"revenue\": 12.5, \"gift\": true, \"coupon\": null, \"note\": \"a\\\"b\\u00E9\"}");
+
+        assertEquals("555", record.get("client_id"));
+        assertEquals("12.5", record.get("revenue"));
+        assertEquals("true", record.get("gift"));
+        assertNull(record.get("coupon"));
+        assertEquals("a\"b\u00E9", record.get("note"));
+    }
+
+    @Test(expected=InvalidRecordException.class)
+    public void testParseNestedNdjson() {
+        new NdjsonRecordParser ().parse("{\"items\": [1, 2]}");
+    }
+}
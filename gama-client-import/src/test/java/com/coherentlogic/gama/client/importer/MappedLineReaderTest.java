@@ -0,0 +1,113 @@
+package com.coherentlogic.gama.client.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link MappedLineReader} class.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class MappedLineReaderTest {
+
+    private Path file = null;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("gama-import", ".csv");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        file = null;
+    }
+
+    List<String> readAll (long startOffset, int regionSize) throws IOException {
+
+        List<String> result = new ArrayList<String> ();
+
+        try (MappedLineReader reader = new MappedLineReader (file, startOffset, regionSize)) {
+            while (reader.next())
+                result.add(reader.getLine());
+        }
+
+        return result;
+    }
+
+    void write (String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLinesSpanningRegions() throws IOException {
+
+        write ("first line\r\nsecond\n\nthird, with \u00E9\nlast without a new line");
+
+        List<String> expected = new ArrayList<String> ();
+
+        expected.add("first line");
+        expected.add("second");
+        expected.add("");
+        expected.add("third, with \u00E9");
+        expected.add("last without a new line");
+
+        assertEquals(expected, readAll (0L, MappedLineReader.DEFAULT_REGION_SIZE));
+        assertEquals(expected, readAll (0L, 24));
+        assertEquals(expected, readAll (0L, 30));
+    }
+
+    @Test
+    public void testOffsetsResumeAfterTheLine() throws IOException {
+
+        write ("a,b\n1,2\n3,4\n");
+
+        long offset;
+
+        try (MappedLineReader reader = new MappedLineReader (file, 0L, 5)) {
+
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertEquals("1,2", reader.getLine());
+
+            offset = reader.getOffset();
+        }
+
+        assertEquals(8L, offset);
+
+        List<String> remaining = readAll (offset, 5);
+
+        assertEquals(1, remaining.size());
+        assertEquals("3,4", remaining.get(0));
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+
+        try (MappedLineReader reader = new MappedLineReader (file, 0L)) {
+            assertFalse(reader.next());
+            assertEquals(0L, reader.getSize());
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testLineLongerThanTheRegion() throws IOException {
+
+        write ("short\nthis line is too long\n");
+
+        readAll (0L, 8);
+    }
+}
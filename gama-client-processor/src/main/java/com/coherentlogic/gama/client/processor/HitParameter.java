@@ -0,0 +1,92 @@
+package com.coherentlogic.gama.client.processor;
+
+import java.util.Locale;
+
+/**
+ * One parameter of a {@link HitSpec}, as read by the {@link HitSpecProcessor}.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+class HitParameter {
+
+    static final String STRING = "java.lang.String", BIG_DECIMAL = "java.math.BigDecimal", INT = "int",
+        LONG = "long", BOOLEAN = "boolean";
+
+    private final String propertyName;
+
+    private final String typeName;
+
+    private final String parameterName;
+
+    private final boolean required;
+
+    private final int maxBytes;
+
+    private final boolean nonNegative;
+
+    HitParameter(
+        String propertyName,
+        String typeName,
+        String parameterName,
+        boolean required,
+        int maxBytes,
+        boolean nonNegative
+    ) {
+        this.propertyName = propertyName;
+        this.typeName = typeName;
+        this.parameterName = parameterName;
+        this.required = required;
+        this.maxBytes = maxBytes;
+        this.nonNegative = nonNegative;
+    }
+
+    /**
+     * Returns the name of the field, factory argument and, capitalized, of the setter and getter.
+     */
+    String getPropertyName () {
+        return propertyName;
+    }
+
+    String getCapitalizedName () {
+        return Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+    }
+
+    /**
+     * Returns the name of the constant which holds the encoded "&amp;name=" prefix.
+     */
+    String getConstantName () {
+        return parameterName.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "_");
+    }
+
+    String getTypeName () {
+        return typeName;
+    }
+
+    /**
+     * Returns the type as it is written in the generated source.
+     */
+    String getSimpleTypeName () {
+        return typeName.substring(typeName.lastIndexOf('.') + 1);
+    }
+
+    String getParameterName () {
+        return parameterName;
+    }
+
+    boolean isRequired () {
+        return required;
+    }
+
+    int getMaxBytes () {
+        return maxBytes;
+    }
+
+    boolean isNonNegative () {
+        return nonNegative;
+    }
+
+    boolean isPrimitive () {
+        return INT.equals(typeName) || LONG.equals(typeName) || BOOLEAN.equals(typeName);
+    }
+}
@@ -0,0 +1,371 @@
+package com.coherentlogic.gama.client.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the source of the class generated for a {@link HitSpec}. The generated class:
+ *
+ * <ul>
+ * <li>takes the required parameters as arguments of its static factory method, of, so that leaving one out is a
+ * compile error;</li>
+ * <li>has a with method for every optional parameter, which checks the value once, when it is set;</li>
+ * <li>keeps every parameter in a typed field, and holds the encoded "&amp;name=" prefix of every parameter in a
+ * constant, so that encoding writes the fields out in a fixed order with no lookups, and numbers are written without
+ * being converted to Strings first.</li>
+ * </ul>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+class HitSourceWriter {
+
+    private final String packageName;
+
+    private final String className;
+
+    private final String hitType;
+
+    private final String specName;
+
+    private final List<HitParameter> parameters;
+
+    private final List<HitParameter> requiredParameters = new ArrayList<HitParameter> ();
+
+    private final StringBuilder source = new StringBuilder ();
+
+    HitSourceWriter(
+        String packageName,
+        String className,
+        String hitType,
+        String specName,
+        List<HitParameter> parameters
+    ) {
+        this.packageName = packageName;
+        this.className = className;
+        this.hitType = hitType;
+        this.specName = specName;
+        this.parameters = parameters;
+
+        for (HitParameter parameter : parameters)
+            if (parameter.isRequired())
+                requiredParameters.add(parameter);
+    }
+
+    String write () {
+
+        writeHeader ();
+        writeConstants ();
+        writeFields ();
+        writeConstructor ();
+        writeFactoryMethod ();
+
+        for (HitParameter parameter : parameters) {
+
+            if (!parameter.isRequired())
+                writeSetter (parameter);
+
+            writeGetter (parameter);
+
+            if (needsCheck (parameter))
+                writeCheck (parameter);
+        }
+
+        writeEncodeTo ();
+        writeFooter ();
+
+        return source.toString();
+    }
+
+    void writeHeader () {
+
+        line ("package " + packageName + ";");
+        line ();
+
+        if (uses (HitParameter.BIG_DECIMAL))
+            line ("import java.math.BigDecimal;");
+
+        line ("import java.nio.BufferOverflowException;");
+        line ("import java.nio.ByteBuffer;");
+        line ("import java.nio.charset.StandardCharsets;");
+        line ();
+        line ("import com.coherentlogic.coherent.data.model.core.util.Utils;");
+        line ("import com.coherentlogic.gama.client.core.encoders.FormUrlEncoder;");
+        line ("import com.coherentlogic.gama.client.core.exceptions.MaxLengthInBytesExceededException;");
+        line ("import com.coherentlogic.gama.client.core.exceptions.NegativeValueException;");
+        line ("import com.coherentlogic.gama.client.core.exceptions.PayloadTooLargeException;");
+        line ("import com.coherentlogic.gama.client.core.hits.TypedHit;");
+        line ("import com.coherentlogic.gama.client.core.util.Utf8;");
+        line ();
+        line ("/**");
+        line (" * A hit of type " + hitType + ", generated from {@link " + specName + "}");
+        line (" * by the HitSpecProcessor; do not edit.");
+        line (" *");
+        line (" * This class is not thread-safe.");
+        line (" */");
+        line ("public final class " + className + " implements TypedHit {");
+        line ();
+    }
+
+    void writeConstants () {
+
+        line ("    public static final String HIT_TYPE = \"" + hitType + "\";");
+        line ();
+        line ("    private static final byte[] PREFIX = ascii (\"v=1&t=" + hitType + "\");");
+
+        for (HitParameter parameter : parameters) {
+            line ();
+            line ("    private static final byte[] " + parameter.getConstantName() + " = ascii (\"&"
+                + parameter.getParameterName() + "=\");");
+        }
+
+        line ();
+    }
+
+    void writeFields () {
+
+        for (HitParameter parameter : parameters) {
+
+            if (parameter.isRequired())
+                line ("    private final " + parameter.getSimpleTypeName() + " " + parameter.getPropertyName() + ";");
+            else
+                line ("    private " + parameter.getSimpleTypeName() + " " + parameter.getPropertyName() + ";");
+
+            line ();
+
+            if (!parameter.isRequired() && parameter.isPrimitive()) {
+                line ("    private boolean " + parameter.getPropertyName() + "Set = false;");
+                line ();
+            }
+        }
+    }
+
+    void writeConstructor () {
+
+        line ("    private " + className + " (" + requiredArguments () + ") {");
+
+        for (HitParameter parameter : requiredParameters)
+            line ("        this." + parameter.getPropertyName() + " = " + parameter.getPropertyName() + ";");
+
+        line ("    }");
+        line ();
+    }
+
+    void writeFactoryMethod () {
+
+        line ("    /**");
+        line ("     * Creates a hit with the parameters which every " + hitType + " hit requires.");
+        line ("     */");
+        line ("    public static " + className + " of (" + requiredArguments () + ") {");
+
+        if (requiredParameters.isEmpty()) {
+            line ("        return new " + className + " ();");
+        } else {
+
+            line ("        return new " + className + " (");
+
+            for (int ctr = 0; ctr < requiredParameters.size(); ctr++) {
+
+                HitParameter parameter = requiredParameters.get(ctr);
+
+                String separator = ctr < requiredParameters.size() - 1 ? "," : "";
+
+                if (needsCheck (parameter))
+                    line ("            check" + parameter.getCapitalizedName() + " (" + parameter.getPropertyName() + ")"
+                        + separator);
+                else
+                    line ("            " + parameter.getPropertyName() + separator);
+            }
+
+            line ("        );");
+        }
+
+        line ("    }");
+        line ();
+    }
+
+    void writeSetter (HitParameter parameter) {
+
+        String name = parameter.getPropertyName();
+
+        line ("    public " + className + " with" + parameter.getCapitalizedName() + " (" + parameter.getSimpleTypeName()
+            + " " + name + ") {");
+        line ();
+
+        if (needsCheck (parameter))
+            line ("        this." + name + " = check" + parameter.getCapitalizedName() + " (" + name + ");");
+        else
+            line ("        this." + name + " = " + name + ";");
+
+        if (parameter.isPrimitive())
+            line ("        this." + name + "Set = true;");
+
+        line ();
+        line ("        return this;");
+        line ("    }");
+        line ();
+    }
+
+    void writeGetter (HitParameter parameter) {
+
+        String prefix = HitParameter.BOOLEAN.equals(parameter.getTypeName()) ? "is" : "get";
+
+        if (!parameter.isRequired()) {
+            line ("    /**");
+            line ("     * Returns the " + parameter.getParameterName() + " parameter, or "
+                + (parameter.isPrimitive() ? "its default value" : "null") + " if it has not been set.");
+            line ("     */");
+        }
+
+        line ("    public " + parameter.getSimpleTypeName() + " " + prefix + parameter.getCapitalizedName() + " () {");
+        line ("        return " + parameter.getPropertyName() + ";");
+        line ("    }");
+        line ();
+
+        if (!parameter.isRequired() && parameter.isPrimitive()) {
+            line ("    public boolean has" + parameter.getCapitalizedName() + " () {");
+            line ("        return " + parameter.getPropertyName() + "Set;");
+            line ("    }");
+            line ();
+        }
+    }
+
+    boolean needsCheck (HitParameter parameter) {
+        return !parameter.isPrimitive() || parameter.isNonNegative();
+    }
+
+    void writeCheck (HitParameter parameter) {
+
+        String type = parameter.getSimpleTypeName();
+        String name = parameter.getPropertyName();
+
+        line ("    static " + type + " check" + parameter.getCapitalizedName() + " (" + type + " " + name + ") {");
+        line ();
+
+        if (!parameter.isPrimitive())
+            line ("        Utils.assertNotNull(\"" + name + "\", " + name + ");");
+
+        if (0 < parameter.getMaxBytes()) {
+            line ();
+            line ("        if (" + parameter.getMaxBytes() + " < Utf8.length(" + name + "))");
+            line ("            throw new MaxLengthInBytesExceededException(\"" + name + "\", " + name + ", "
+                + parameter.getMaxBytes() + ");");
+        }
+
+        if (parameter.isNonNegative()) {
+
+            line ();
+
+            if (HitParameter.BIG_DECIMAL.equals(parameter.getTypeName()))
+                line ("        if (" + name + ".signum() < 0)");
+            else
+                line ("        if (" + name + " < 0)");
+
+            line ("            throw new NegativeValueException(\"" + name + "\", " + name + ");");
+        }
+
+        line ();
+        line ("        return " + name + ";");
+        line ("    }");
+        line ();
+    }
+
+    void writeEncodeTo () {
+
+        line ("    @Override");
+        line ("    public String getHitType () {");
+        line ("        return HIT_TYPE;");
+        line ("    }");
+        line ();
+        line ("    @Override");
+        line ("    public ByteBuffer encodeTo (ByteBuffer target) {");
+        line ();
+        line ("        try {");
+        line ("            target.put(PREFIX);");
+
+        for (HitParameter parameter : parameters) {
+
+            // Fields are qualified so that a parameter named target does not hide the argument.
+            String name = "this." + parameter.getPropertyName();
+
+            String indent = "            ";
+
+            line ();
+
+            if (!parameter.isRequired()) {
+
+                line (indent + "if (" + (parameter.isPrimitive() ? name + "Set" : name + " != null") + ") {");
+
+                indent = indent + "    ";
+            }
+
+            line (indent + "target.put(" + parameter.getConstantName() + ");");
+
+            switch (parameter.getTypeName()) {
+                case HitParameter.BOOLEAN:
+                    line (indent + "target.put(" + name + " ? (byte) '1' : (byte) '0');");
+                    break;
+                case HitParameter.BIG_DECIMAL:
+                    line (indent + "FormUrlEncoder.encode(" + name + ".toPlainString(), target);");
+                    break;
+                default:
+                    line (indent + "FormUrlEncoder.encode(" + name + ", target);");
+            }
+
+            if (!parameter.isRequired())
+                line ("            }");
+        }
+
+        line ("        } catch (BufferOverflowException bufferOverflowException) {");
+        line ("            throw new PayloadTooLargeException(target.capacity(), bufferOverflowException);");
+        line ("        }");
+        line ();
+        line ("        return target;");
+        line ("    }");
+        line ();
+    }
+
+    void writeFooter () {
+        line ("    @Override");
+        line ("    public String toString () {");
+        line ("        return \"" + className + " [\" + toFormUrlEncoded() + \"]\";");
+        line ("    }");
+        line ();
+        line ("    private static byte[] ascii (String value) {");
+        line ("        return value.getBytes(StandardCharsets.US_ASCII);");
+        line ("    }");
+        line ("}");
+    }
+
+    String requiredArguments () {
+
+        StringBuilder result = new StringBuilder ();
+
+        for (HitParameter parameter : requiredParameters) {
+
+            if (0 < result.length())
+                result.append(", ");
+
+            result.append(parameter.getSimpleTypeName()).append(' ').append(parameter.getPropertyName());
+        }
+
+        return result.toString();
+    }
+
+    boolean uses (String typeName) {
+
+        for (HitParameter parameter : parameters)
+            if (typeName.equals(parameter.getTypeName()))
+                return true;
+
+        return false;
+    }
+
+    void line () {
+        source.append('\n');
+    }
+
+    void line (String value) {
+        source.append(value).append('\n');
+    }
+}
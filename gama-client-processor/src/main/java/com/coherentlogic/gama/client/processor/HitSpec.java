@@ -0,0 +1,41 @@
+package com.coherentlogic.gama.client.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface as the specification of one hit type; the {@link HitSpecProcessor} generates a typed builder for
+ * it, named {@link #name()}, in the same package. The methods of the interface, and of the interfaces it extends, which
+ * are annotated with {@link Parameter} are the parameters of the hit, for example:
+ *
+ * <pre>
+ * &#64;HitSpec(name="EventHit", hitType="event")
+ * interface EventHitSpec extends CommonHitSpec {
+ *
+ *     &#64;Parameter(value="ec", required=true, maxBytes=150)
+ *     String category ();
+ *
+ *     &#64;Parameter(value="ev", nonNegative=true)
+ *     long value ();
+ * }
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface HitSpec {
+
+    /**
+     * The simple name of the generated class.
+     */
+    String name ();
+
+    /**
+     * The value of the hit type (t) parameter.
+     */
+    String hitType ();
+}
@@ -0,0 +1,166 @@
+package com.coherentlogic.gama.client.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a typed builder for every interface annotated with {@link HitSpec}; see {@link HitSourceWriter} for what
+ * the generated class looks like. Parameters are collected from the interfaces the specification extends first, then
+ * from the specification itself, in declaration order, which is also the order in which they are encoded.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@SupportedAnnotationTypes({
+    "com.coherentlogic.gama.client.processor.HitSpec",
+    "com.coherentlogic.gama.client.processor.Parameter"
+})
+public class HitSpecProcessor extends AbstractProcessor {
+
+    static final Set<String> SUPPORTED_TYPES = new HashSet<String> (Arrays.asList(
+        HitParameter.STRING,
+        HitParameter.BIG_DECIMAL,
+        HitParameter.INT,
+        HitParameter.LONG,
+        HitParameter.BOOLEAN
+    ));
+
+    static final Set<String> NUMERIC_TYPES = new HashSet<String> (Arrays.asList(
+        HitParameter.BIG_DECIMAL,
+        HitParameter.INT,
+        HitParameter.LONG
+    ));
+
+    /**
+     * The version (v) and hit type (t) parameters are written by every generated class.
+     */
+    static final Set<String> RESERVED_PARAMETERS = new HashSet<String> (Arrays.asList("v", "t"));
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(HitSpec.class)) {
+
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error (element, "@HitSpec can only be applied to an interface.");
+                continue;
+            }
+
+            TypeElement spec = (TypeElement) element;
+
+            List<HitParameter> parameters = new ArrayList<HitParameter> ();
+
+            if (collect (spec, parameters, new HashSet<String> ()))
+                generate (spec, parameters);
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the parameters of the type and of the interfaces it extends to the result; returns false, after reporting
+     * an error, if any parameter is invalid.
+     */
+    boolean collect (TypeElement type, List<HitParameter> result, Set<String> parameterNames) {
+
+        boolean valid = true;
+
+        for (TypeMirror superinterface : type.getInterfaces())
+            valid &= collect ((TypeElement) processingEnv.getTypeUtils().asElement(superinterface), result,
+                parameterNames);
+
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+
+            Parameter parameter = method.getAnnotation(Parameter.class);
+
+            if (parameter == null)
+                continue;
+
+            String typeName = method.getReturnType().toString();
+
+            String message = null;
+
+            if (!SUPPORTED_TYPES.contains(typeName))
+                message = "The type " + typeName + " is not supported; use one of " + SUPPORTED_TYPES + ".";
+            else if (!method.getParameters().isEmpty())
+                message = "A parameter method cannot take arguments.";
+            else if (RESERVED_PARAMETERS.contains(parameter.value()))
+                message = "The parameter " + parameter.value() + " is written by every hit.";
+            else if (!parameterNames.add(parameter.value()))
+                message = "The parameter " + parameter.value() + " is declared more than once.";
+            else if (0 < parameter.maxBytes() && !HitParameter.STRING.equals(typeName))
+                message = "maxBytes only applies to String parameters.";
+            else if (parameter.nonNegative() && !NUMERIC_TYPES.contains(typeName))
+                message = "nonNegative only applies to numeric parameters.";
+
+            if (message != null) {
+                error (method, message);
+                valid = false;
+                continue;
+            }
+
+            result.add(new HitParameter (
+                method.getSimpleName().toString(),
+                typeName,
+                parameter.value(),
+                parameter.required(),
+                parameter.maxBytes(),
+                parameter.nonNegative()
+            ));
+        }
+
+        return valid;
+    }
+
+    void generate (TypeElement spec, List<HitParameter> parameters) {
+
+        HitSpec hitSpec = spec.getAnnotation(HitSpec.class);
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(spec).getQualifiedName().toString();
+
+        HitSourceWriter hitSourceWriter = new HitSourceWriter (
+            packageName,
+            hitSpec.name(),
+            hitSpec.hitType(),
+            spec.getSimpleName().toString(),
+            parameters
+        );
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + hitSpec.name(), spec);
+
+            try (Writer writer = file.openWriter()) {
+                writer.write(hitSourceWriter.write());
+            }
+        } catch (IOException ioException) {
+            error (spec, "The class " + hitSpec.name() + " could not be generated: " + ioException.getMessage());
+        }
+    }
+
+    void error (Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
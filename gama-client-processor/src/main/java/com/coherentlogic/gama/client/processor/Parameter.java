@@ -0,0 +1,39 @@
+package com.coherentlogic.gama.client.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a Measurement Protocol parameter of a {@link HitSpec}. The method's name becomes the name of the generated
+ * setter (with) or factory argument, and its return type, which must be one of String, int, long, boolean or
+ * BigDecimal, becomes the type of the value.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Parameter {
+
+    /**
+     * The name of the parameter as it is sent, for example "ec".
+     */
+    String value ();
+
+    /**
+     * Required parameters are arguments of the generated factory method, so a hit cannot be created without them.
+     */
+    boolean required () default false;
+
+    /**
+     * The maximum length of a String value in UTF-8 bytes, or zero for no limit.
+     */
+    int maxBytes () default 0;
+
+    /**
+     * Whether a numeric value must not be negative.
+     */
+    boolean nonNegative () default false;
+}
@@ -0,0 +1,135 @@
+package com.coherentlogic.gama.client.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link HitSpecProcessor} class; specifications are compiled in memory with only the processor
+ * running, so the generated classes are not compiled.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class HitSpecProcessorTest {
+
+    static final String HEADER = "package example;\n"
+        + "import com.coherentlogic.gama.client.processor.HitSpec;\n"
+        + "import com.coherentlogic.gama.client.processor.Parameter;\n";
+
+    /**
+     * Runs the processor over the source and returns the error messages.
+     */
+    List<String> process (String source) throws IOException {
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject> ();
+
+        JavaFileObject file = new SimpleJavaFileObject (URI.create("string:///example/Spec.java"),
+            JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return HEADER + source;
+            }
+        };
+
+        JavaCompiler.CompilationTask task = compiler.getTask(
+            null,
+            null,
+            diagnostics,
+            Arrays.asList("-proc:only", "-s", Files.createTempDirectory("hits").toString()),
+            null,
+            Collections.singletonList(file)
+        );
+
+        task.setProcessors(Collections.singletonList(new HitSpecProcessor ()));
+
+        task.call();
+
+        List<String> result = new ArrayList<String> ();
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                result.add(diagnostic.getMessage(null));
+
+        return result;
+    }
+
+    @Test
+    public void testValidSpec() throws IOException {
+
+        List<String> errors = process (
+            "@HitSpec(name=\"SpecHit\", hitType=\"event\")\n"
+            + "interface Spec {\n"
+            + "    @Parameter(value=\"ec\", required=true, maxBytes=150) String category ();\n"
+            + "    @Parameter(value=\"ev\", nonNegative=true) long value ();\n"
+            + "}\n"
+        );
+
+        assertEquals(Collections.emptyList(), errors);
+    }
+
+    @Test
+    public void testUnsupportedType() throws IOException {
+
+        List<String> errors = process (
+            "@HitSpec(name=\"SpecHit\", hitType=\"event\")\n"
+            + "interface Spec {\n"
+            + "    @Parameter(\"ev\") Double value ();\n"
+            + "}\n"
+        );
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).startsWith("The type java.lang.Double is not supported"));
+    }
+
+    @Test
+    public void testDuplicateAndReservedParameters() throws IOException {
+
+        List<String> errors = process (
+            "interface Common {\n"
+            + "    @Parameter(\"ec\") String category ();\n"
+            + "}\n"
+            + "@HitSpec(name=\"SpecHit\", hitType=\"event\")\n"
+            + "interface Spec extends Common {\n"
+            + "    @Parameter(\"ec\") String otherCategory ();\n"
+            + "    @Parameter(\"t\") String hitType ();\n"
+            + "    @Parameter(value=\"ni\", maxBytes=1) boolean nonInteraction ();\n"
+            + "}\n"
+        );
+
+        assertEquals(3, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("declared more than once"));
+        assertTrue(errors.get(1), errors.get(1).contains("written by every hit"));
+        assertTrue(errors.get(2), errors.get(2).contains("maxBytes"));
+    }
+
+    @Test
+    public void testClassIsRejected() throws IOException {
+
+        List<String> errors = process (
+            "@HitSpec(name=\"SpecHit\", hitType=\"event\")\n"
+            + "class Spec {\n"
+            + "}\n"
+        );
+
+        assertEquals(1, errors.size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.coherentlogic.gama.client.autoconfigure;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.transport.AdaptiveConcurrencyTransport;
+import com.coherentlogic.gama.client.core.transport.ResponseBodyMode;
+import com.coherentlogic.gama.client.core.transport.RestTemplateTransport;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * Creates one transport, one asynchronous dispatch pipeline and one {@link QueryBuilderFactory} for the application,
+ * so that every hit shares the same connections and threads instead of each caller creating its own RestTemplate.
+ *
+ * The configuration applies once gama.tracking-id has been set; every bean backs off when the application defines its
+ * own.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@Configuration
+@ConditionalOnClass(RestTemplate.class)
+@ConditionalOnProperty(prefix="gama", name="tracking-id")
+@EnableConfigurationProperties(GamaProperties.class)
+public class GamaAutoConfiguration {
+
+    public static final String GAMA_REST_TEMPLATE = "gamaRestTemplate";
+
+    @Bean(name=GAMA_REST_TEMPLATE)
+    @ConditionalOnMissingBean(name=GAMA_REST_TEMPLATE)
+    public RestTemplate gamaRestTemplate (GamaProperties properties) {
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory ();
+
+        requestFactory.setConnectTimeout(properties.getHttp().getConnectTimeoutMillis());
+        requestFactory.setReadTimeout(properties.getHttp().getReadTimeoutMillis());
+
+        return new RestTemplate (requestFactory);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public Transport gamaTransport (
+        GamaProperties properties,
+        @Qualifier(GAMA_REST_TEMPLATE) RestTemplate restTemplate
+    ) {
+        String uri = properties.getBatching().isEnabled() ? properties.getBatching().getUri() : properties.getUri();
+
+        Transport transport = new RestTemplateTransport (restTemplate, URI.create(uri), ResponseBodyMode.DISCARD);
+
+        GamaProperties.Concurrency concurrency = properties.getConcurrency();
+
+        return concurrency.isEnabled()
+            ? new AdaptiveConcurrencyTransport (
+                transport,
+                concurrency.getInitialLimit(),
+                concurrency.getMinLimit(),
+                concurrency.getMaxLimit()
+            )
+            : transport;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ByteBufferPool gamaByteBufferPool (GamaProperties properties) {
+        return new ByteBufferPool (properties.getBuffers().getHitSlots(), properties.getBuffers().getBatchSlots());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public QueryBuilderPool gamaQueryBuilderPool (
+        GamaProperties properties,
+        @Qualifier(GAMA_REST_TEMPLATE) RestTemplate restTemplate
+    ) {
+        return new BoundedQueryBuilderPool (
+            restTemplate,
+            properties.getUri(),
+            properties.getQueryBuilderPoolCapacity()
+        );
+    }
+
+    @Bean(destroyMethod="close")
+    @ConditionalOnMissingBean
+    public GamaPipeline gamaPipeline (
+        GamaProperties properties,
+        Transport transport,
+        ByteBufferPool byteBufferPool,
+        QueryBuilderPool queryBuilderPool
+    ) {
+        return new GamaPipeline (properties, transport, byteBufferPool, queryBuilderPool);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public QueryBuilderFactory gamaQueryBuilderFactory (
+        GamaProperties properties,
+        QueryBuilderPool queryBuilderPool,
+        GamaPipeline pipeline
+    ) {
+        return new QueryBuilderFactory (
+            queryBuilderPool,
+            pipeline,
+            properties.getTrackingId(),
+            properties.getApplicationName(),
+            properties.getApplicationVersion()
+        );
+    }
+
+    /**
+     * Publishes the pipeline's counters when Micrometer is present.
+     */
+    @Configuration
+    @ConditionalOnClass(name="io.micrometer.core.instrument.binder.MeterBinder")
+    static class GamaMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public GamaMetrics gamaMetrics (GamaPipeline pipeline) {
+            return new GamaMetrics (pipeline);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.coherentlogic.gama.client.autoconfigure;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.dispatch.BatchingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.EventCoalescingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.SamplingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.StripedDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.TimingAggregatingDispatcher;
+import com.coherentlogic.gama.client.core.transport.AdaptiveConcurrencyTransport;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds the counters of the {@link GamaPipeline} stages to a Micrometer registry. Lane depths are tagged with the lane
+ * number, so a lane which is consistently deeper than the others points at a hot client.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class GamaMetrics implements MeterBinder {
+
+    private final GamaPipeline pipeline;
+
+    public GamaMetrics(GamaPipeline pipeline) {
+
+        Utils.assertNotNull("pipeline", pipeline);
+
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        StripedDispatcher stripedDispatcher = pipeline.getStripedDispatcher();
+
+        for (int ctr = 0; ctr < stripedDispatcher.getLaneCount(); ctr++) {
+
+            int lane = ctr;
+
+            Gauge.builder("gama.dispatch.lane.depth", stripedDispatcher, dispatcher -> dispatcher.getLaneDepth(lane))
+                .tag("lane", Integer.toString(lane))
+                .register(registry);
+
+            FunctionCounter.builder("gama.dispatch.sent", stripedDispatcher,
+                dispatcher -> dispatcher.getSentCount(lane))
+                .tag("lane", Integer.toString(lane))
+                .register(registry);
+        }
+
+        FunctionCounter.builder("gama.dispatch.failures", stripedDispatcher, StripedDispatcher::getFailureCount)
+            .register(registry);
+
+        FunctionCounter.builder("gama.buffers.misses", pipeline.getByteBufferPool(), pool -> pool.getMissCount())
+            .register(registry);
+
+        SamplingDispatcher samplingDispatcher = pipeline.getSamplingDispatcher();
+
+        if (samplingDispatcher != null)
+            FunctionCounter.builder("gama.sampling.sampled.out", samplingDispatcher,
+                dispatcher -> dispatcher.getSampledOutCount())
+                .register(registry);
+
+        TimingAggregatingDispatcher timingAggregatingDispatcher = pipeline.getTimingAggregatingDispatcher();
+
+        if (timingAggregatingDispatcher != null)
+            FunctionCounter.builder("gama.aggregation.timings.aggregated", timingAggregatingDispatcher,
+                TimingAggregatingDispatcher::getAggregatedCount)
+                .register(registry);
+
+        EventCoalescingDispatcher eventCoalescingDispatcher = pipeline.getEventCoalescingDispatcher();
+
+        if (eventCoalescingDispatcher != null)
+            FunctionCounter.builder("gama.aggregation.events.coalesced", eventCoalescingDispatcher,
+                EventCoalescingDispatcher::getCoalescedCount)
+                .register(registry);
+
+        BatchingDispatcher batchingDispatcher = pipeline.getBatchingDispatcher();
+
+        if (batchingDispatcher != null) {
+
+            FunctionCounter.builder("gama.batching.batches", batchingDispatcher, BatchingDispatcher::getBatchCount)
+                .register(registry);
+
+            FunctionCounter.builder("gama.batching.dropped", batchingDispatcher, BatchingDispatcher::getDroppedCount)
+                .register(registry);
+        }
+
+        if (pipeline.getTransport() instanceof AdaptiveConcurrencyTransport) {
+
+            AdaptiveConcurrencyTransport transport = (AdaptiveConcurrencyTransport) pipeline.getTransport();
+
+            Gauge.builder("gama.concurrency.limit", transport, AdaptiveConcurrencyTransport::getLimit)
+                .register(registry);
+
+            Gauge.builder("gama.concurrency.in.flight", transport, AdaptiveConcurrencyTransport::getInFlight)
+                .register(registry);
+
+            FunctionCounter.builder("gama.concurrency.decreases", transport,
+                AdaptiveConcurrencyTransport::getDecreaseCount)
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.coherentlogic.gama.client.autoconfigure;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.dispatch.BatchingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.Dispatcher;
+import com.coherentlogic.gama.client.core.dispatch.EventCoalescingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.SamplingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.StripedDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.TimingAggregatingDispatcher;
+import com.coherentlogic.gama.client.core.dispatch.TransportDispatcher;
+import com.coherentlogic.gama.client.core.hits.Hit;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * The asynchronous {@link Dispatcher} shared by the application, assembled from the stages the {@link GamaProperties}
+ * enable:
+ *
+ * <pre>
+ * [sampling] -&gt; [timing aggregation] -&gt; [event coalescing] -&gt; striped lanes -&gt; [batching] -&gt; transport
+ * </pre>
+ *
+ * Without batching every hit is sent as its own request; with it the transport must point at the batch endpoint.
+ *
+ * Closing the pipeline flushes the aggregating stages, waits for the lanes to hand over what remains and then sends
+ * the last batch.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class GamaPipeline implements Dispatcher, Closeable {
+
+    private final Dispatcher head;
+
+    private final SamplingDispatcher samplingDispatcher;
+
+    private final TimingAggregatingDispatcher timingAggregatingDispatcher;
+
+    private final EventCoalescingDispatcher eventCoalescingDispatcher;
+
+    private final StripedDispatcher stripedDispatcher;
+
+    private final BatchingDispatcher batchingDispatcher;
+
+    private final ByteBufferPool byteBufferPool;
+
+    private final Transport transport;
+
+    private final ScheduledExecutorService scheduler;
+
+    public GamaPipeline(
+        GamaProperties properties,
+        Transport transport,
+        ByteBufferPool byteBufferPool,
+        QueryBuilderPool queryBuilderPool
+    ) {
+        Utils.assertNotNull("properties", properties);
+        Utils.assertNotNull("transport", transport);
+        Utils.assertNotNull("byteBufferPool", byteBufferPool);
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+
+        GamaProperties.Aggregation aggregation = properties.getAggregation();
+        GamaProperties.Batching batching = properties.getBatching();
+
+        this.byteBufferPool = byteBufferPool;
+        this.transport = transport;
+
+        this.scheduler = 0 < aggregation.getTimingWindowMillis() || 0 < aggregation.getEventWindowMillis()
+            || batching.isEnabled()
+            ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread result = new Thread (runnable, "gama-scheduler");
+                result.setDaemon(true);
+                return result;
+            })
+            : null;
+
+        this.batchingDispatcher = batching.isEnabled()
+            ? new BatchingDispatcher (transport, byteBufferPool, scheduler, batching.getLingerMillis())
+            : null;
+
+        this.stripedDispatcher = new StripedDispatcher (
+            batchingDispatcher != null ? batchingDispatcher : new TransportDispatcher (transport, byteBufferPool),
+            queryBuilderPool,
+            properties.getDispatch().getLaneCount(),
+            properties.getDispatch().getLaneCapacity()
+        );
+
+        Dispatcher next = stripedDispatcher;
+
+        if (0 < aggregation.getEventWindowMillis()) {
+            eventCoalescingDispatcher = new EventCoalescingDispatcher (next, queryBuilderPool, scheduler,
+                aggregation.getEventWindowMillis(), aggregation.getEventTickMillis(), 0);
+            next = eventCoalescingDispatcher;
+        } else
+            eventCoalescingDispatcher = null;
+
+        if (0 < aggregation.getTimingWindowMillis()) {
+            timingAggregatingDispatcher = new TimingAggregatingDispatcher (next, queryBuilderPool, scheduler,
+                aggregation.getTimingWindowMillis());
+            next = timingAggregatingDispatcher;
+        } else
+            timingAggregatingDispatcher = null;
+
+        if (properties.getSampling().isEnabled()) {
+            samplingDispatcher = new SamplingDispatcher (next, properties.getSampling().getRate(),
+                properties.getSampling().getRates());
+            next = samplingDispatcher;
+        } else
+            samplingDispatcher = null;
+
+        this.head = next;
+    }
+
+    @Override
+    public void dispatch(QueryBuilder queryBuilder) {
+        head.dispatch(queryBuilder);
+    }
+
+    @Override
+    public void dispatch(Hit hit) {
+        head.dispatch(hit);
+    }
+
+    /**
+     * Offers the hit to the first stage, so that it is dropped rather than waiting when a lane is full.
+     */
+    @Override
+    public boolean offer(QueryBuilder queryBuilder) {
+        return head.offer(queryBuilder);
+    }
+
+    /**
+     * Returns the sampling stage, or null when sampling is disabled.
+     */
+    public SamplingDispatcher getSamplingDispatcher() {
+        return samplingDispatcher;
+    }
+
+    /**
+     * Returns the timing aggregation stage, or null when it is disabled.
+     */
+    public TimingAggregatingDispatcher getTimingAggregatingDispatcher() {
+        return timingAggregatingDispatcher;
+    }
+
+    /**
+     * Returns the event coalescing stage, or null when it is disabled.
+     */
+    public EventCoalescingDispatcher getEventCoalescingDispatcher() {
+        return eventCoalescingDispatcher;
+    }
+
+    /**
+     * Returns the batching stage, or null when batching is disabled.
+     */
+    public BatchingDispatcher getBatchingDispatcher() {
+        return batchingDispatcher;
+    }
+
+    public StripedDispatcher getStripedDispatcher() {
+        return stripedDispatcher;
+    }
+
+    public ByteBufferPool getByteBufferPool() {
+        return byteBufferPool;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    @Override
+    public void close() {
+
+        if (scheduler != null)
+            scheduler.shutdown();
+
+        if (timingAggregatingDispatcher != null)
+            timingAggregatingDispatcher.close();
+
+        if (eventCoalescingDispatcher != null)
+            eventCoalescingDispatcher.close();
+
+        stripedDispatcher.close();
+
+        if (batchingDispatcher != null)
+            batchingDispatcher.close();
+
+        if (scheduler != null) {
+            try {
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
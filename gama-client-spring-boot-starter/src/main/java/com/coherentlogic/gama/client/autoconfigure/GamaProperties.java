@@ -0,0 +1,389 @@
+package com.coherentlogic.gama.client.autoconfigure;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.transport.HitBatch;
+
+/**
+ * The gama.* properties which configure the {@link GamaAutoConfiguration}; for example:
+ *
+ * <pre>
+ * gama.tracking-id=UA-12345-1
+ * gama.application-name=orders
+ * gama.application-version=1.4.2
+ * gama.sampling.rate=0.25
+ * gama.sampling.rates.pageview=0.1
+ * gama.aggregation.timing-window-millis=60000
+ * gama.batching.enabled=true
+ * gama.concurrency.enabled=true
+ * gama.concurrency.max-limit=32
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+@ConfigurationProperties(prefix="gama")
+public class GamaProperties {
+
+    /**
+     * The tracking id (tid) set on every builder handed out by the {@link QueryBuilderFactory}.
+     */
+    private String trackingId;
+
+    /**
+     * The application name (an) set on every builder; optional.
+     */
+    private String applicationName;
+
+    /**
+     * The application version (av) set on every builder; optional.
+     */
+    private String applicationVersion;
+
+    /**
+     * The Measurement Protocol endpoint.
+     */
+    private String uri = QueryBuilder.GOOGLE_ANALYTICS_URL;
+
+    /**
+     * The number of idle builders kept for reuse.
+     */
+    private int queryBuilderPoolCapacity = 256;
+
+    private final Http http = new Http ();
+
+    private final Sampling sampling = new Sampling ();
+
+    private final Dispatch dispatch = new Dispatch ();
+
+    private final Aggregation aggregation = new Aggregation ();
+
+    private final Batching batching = new Batching ();
+
+    private final Buffers buffers = new Buffers ();
+
+    private final Concurrency concurrency = new Concurrency ();
+
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public void setTrackingId(String trackingId) {
+        this.trackingId = trackingId;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    public String getApplicationVersion() {
+        return applicationVersion;
+    }
+
+    public void setApplicationVersion(String applicationVersion) {
+        this.applicationVersion = applicationVersion;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public int getQueryBuilderPoolCapacity() {
+        return queryBuilderPoolCapacity;
+    }
+
+    public void setQueryBuilderPoolCapacity(int queryBuilderPoolCapacity) {
+        this.queryBuilderPoolCapacity = queryBuilderPoolCapacity;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public Dispatch getDispatch() {
+        return dispatch;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public Batching getBatching() {
+        return batching;
+    }
+
+    public Buffers getBuffers() {
+        return buffers;
+    }
+
+    public Concurrency getConcurrency() {
+        return concurrency;
+    }
+
+    public static class Http {
+
+        private int connectTimeoutMillis = 2000;
+
+        private int readTimeoutMillis = 5000;
+
+        public int getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+        }
+
+        public int getReadTimeoutMillis() {
+            return readTimeoutMillis;
+        }
+
+        public void setReadTimeoutMillis(int readTimeoutMillis) {
+            this.readTimeoutMillis = readTimeoutMillis;
+        }
+    }
+
+    public static class Sampling {
+
+        /**
+         * The fraction of clients whose hits are sent; 1.0 disables sampling.
+         */
+        private double rate = 1.0;
+
+        /**
+         * The fraction of clients whose hits are sent, keyed by hit type.
+         */
+        private Map<String, Double> rates = new HashMap<String, Double> ();
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public Map<String, Double> getRates() {
+            return rates;
+        }
+
+        public void setRates(Map<String, Double> rates) {
+            this.rates = rates;
+        }
+
+        boolean isEnabled () {
+            return rate < 1.0 || !rates.isEmpty();
+        }
+    }
+
+    public static class Dispatch {
+
+        /**
+         * The number of threads which send hits; hits of one client are always sent by the same thread.
+         */
+        private int laneCount = 2;
+
+        /**
+         * The number of hits which may wait per lane before dispatching blocks.
+         */
+        private int laneCapacity = 1024;
+
+        public int getLaneCount() {
+            return laneCount;
+        }
+
+        public void setLaneCount(int laneCount) {
+            this.laneCount = laneCount;
+        }
+
+        public int getLaneCapacity() {
+            return laneCapacity;
+        }
+
+        public void setLaneCapacity(int laneCapacity) {
+            this.laneCapacity = laneCapacity;
+        }
+    }
+
+    /**
+     * Stages which reduce the number of hits by summarizing timings and merging identical events; the hits which
+     * remain are still sent one per request unless {@link Batching} is enabled.
+     */
+    public static class Aggregation {
+
+        /**
+         * The window over which timing hits are summarized; zero disables aggregation.
+         */
+        private long timingWindowMillis = 0L;
+
+        /**
+         * The window over which identical events are merged; zero disables coalescing.
+         */
+        private long eventWindowMillis = 0L;
+
+        /**
+         * The resolution with which event windows end.
+         */
+        private long eventTickMillis = 1000L;
+
+        public long getTimingWindowMillis() {
+            return timingWindowMillis;
+        }
+
+        public void setTimingWindowMillis(long timingWindowMillis) {
+            this.timingWindowMillis = timingWindowMillis;
+        }
+
+        public long getEventWindowMillis() {
+            return eventWindowMillis;
+        }
+
+        public void setEventWindowMillis(long eventWindowMillis) {
+            this.eventWindowMillis = eventWindowMillis;
+        }
+
+        public long getEventTickMillis() {
+            return eventTickMillis;
+        }
+
+        public void setEventTickMillis(long eventTickMillis) {
+            this.eventTickMillis = eventTickMillis;
+        }
+    }
+
+    /**
+     * Sends up to {@link HitBatch#MAX_HITS} hits per request to the batch endpoint; see
+     * {@link com.coherentlogic.gama.client.core.dispatch.BatchingDispatcher}.
+     */
+    public static class Batching {
+
+        private boolean enabled = false;
+
+        /**
+         * The Measurement Protocol batch endpoint, which is used instead of the uri when batching is enabled.
+         */
+        private String uri = HitBatch.GOOGLE_ANALYTICS_BATCH_URL;
+
+        /**
+         * How long a batch which is not full waits for more hits before it is sent.
+         */
+        private long lingerMillis = 100L;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public void setUri(String uri) {
+            this.uri = uri;
+        }
+
+        public long getLingerMillis() {
+            return lingerMillis;
+        }
+
+        public void setLingerMillis(long lingerMillis) {
+            this.lingerMillis = lingerMillis;
+        }
+    }
+
+    public static class Buffers {
+
+        /**
+         * The number of pooled buffers for encoding single hits.
+         */
+        private int hitSlots = 256;
+
+        /**
+         * The number of pooled buffers for encoding batches.
+         */
+        private int batchSlots = 16;
+
+        public int getHitSlots() {
+            return hitSlots;
+        }
+
+        public void setHitSlots(int hitSlots) {
+            this.hitSlots = hitSlots;
+        }
+
+        public int getBatchSlots() {
+            return batchSlots;
+        }
+
+        public void setBatchSlots(int batchSlots) {
+            this.batchSlots = batchSlots;
+        }
+    }
+
+    /**
+     * Adapts the number of requests in flight to the latency and errors of the collector; see
+     * {@link com.coherentlogic.gama.client.core.transport.AdaptiveConcurrencyTransport}. The limit can only be reached
+     * when there are at least as many dispatch lanes as maxLimit.
+     */
+    public static class Concurrency {
+
+        private boolean enabled = false;
+
+        private int initialLimit = 4;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 32;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.coherentlogic.gama.client.autoconfigure;
+
+import com.coherentlogic.coherent.data.model.core.util.Utils;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.dispatch.Dispatcher;
+
+/**
+ * Hands out builders which already carry the protocol version and the tracking id, application name and application
+ * version from the {@link GamaProperties}, and sends them through the shared {@link Dispatcher}. Each builder is used
+ * by one thread at a time; the factory itself is thread-safe.
+ *
+ * <pre>
+ * QueryBuilder queryBuilder = queryBuilderFactory.newQueryBuilder();
+ *
+ * queryBuilderFactory.send(queryBuilder.withCID(clientId).withTAsPageView().withDp("/home"));
+ * </pre>
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class QueryBuilderFactory {
+
+    private final QueryBuilderPool queryBuilderPool;
+
+    private final Dispatcher dispatcher;
+
+    private final String trackingId;
+
+    private final String applicationName;
+
+    private final String applicationVersion;
+
+    /**
+     * @param applicationName May be null.
+     * @param applicationVersion May be null.
+     */
+    public QueryBuilderFactory(
+        QueryBuilderPool queryBuilderPool,
+        Dispatcher dispatcher,
+        String trackingId,
+        String applicationName,
+        String applicationVersion
+    ) {
+        Utils.assertNotNull("queryBuilderPool", queryBuilderPool);
+        Utils.assertNotNull("dispatcher", dispatcher);
+        Utils.assertNotNull("trackingId", trackingId);
+
+        this.queryBuilderPool = queryBuilderPool;
+        this.dispatcher = dispatcher;
+        this.trackingId = trackingId;
+        this.applicationName = applicationName;
+        this.applicationVersion = applicationVersion;
+    }
+
+    /**
+     * Returns a builder with the defaults already set; pass it to {@link #send(QueryBuilder)} or, when the hit is
+     * abandoned, {@link #discard(QueryBuilder)}.
+     */
+    public QueryBuilder newQueryBuilder () {
+
+        QueryBuilder result = queryBuilderPool.acquire().withV1().withTid(trackingId);
+
+        if (applicationName != null)
+            result.withAn(applicationName);
+
+        if (applicationVersion != null)
+            result.withAv(applicationVersion);
+
+        return result;
+    }
+
+    /**
+     * Hands the hit to the dispatcher and returns the builder to the pool; the builder must not be used afterwards.
+     */
+    public void send (QueryBuilder queryBuilder) {
+        try {
+            dispatcher.dispatch(queryBuilder);
+        } finally {
+            queryBuilderPool.release(queryBuilder);
+        }
+    }
+
+    /**
+     * Returns the builder to the pool without sending it.
+     */
+    public void discard (QueryBuilder queryBuilder) {
+        queryBuilderPool.release(queryBuilder);
+    }
+}
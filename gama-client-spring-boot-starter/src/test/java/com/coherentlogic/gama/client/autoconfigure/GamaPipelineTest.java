@@ -0,0 +1,205 @@
+package com.coherentlogic.gama.client.autoconfigure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.coherentlogic.gama.client.core.buffers.ByteBufferPool;
+import com.coherentlogic.gama.client.core.builders.BoundedQueryBuilderPool;
+import com.coherentlogic.gama.client.core.builders.QueryBuilder;
+import com.coherentlogic.gama.client.core.builders.QueryBuilderPool;
+import com.coherentlogic.gama.client.core.transport.Transport;
+
+/**
+ * Unit test for the {@link GamaPipeline} and {@link QueryBuilderFactory} classes.
+ *
+ * @author <a href="https://www.linkedin.com/in/thomasfuller">Thomas P. Fuller</a>
+ * @author <a href="mailto:support@coherentlogic.com">Support</a>
+ */
+public class GamaPipelineTest {
+
+    private List<String> sent = null;
+
+    private GamaProperties properties = null;
+
+    private QueryBuilderPool queryBuilderPool = null;
+
+    private GamaPipeline pipeline = null;
+
+    @Before
+    public void setUp() throws Exception {
+
+        sent = new CopyOnWriteArrayList<String> ();
+
+        properties = new GamaProperties ();
+
+        properties.setTrackingId("UA-1");
+        properties.setApplicationName("orders");
+        properties.setApplicationVersion("1.0");
+
+        queryBuilderPool = new BoundedQueryBuilderPool (new RestTemplate (), 8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        if (pipeline != null)
+            pipeline.close();
+
+        sent = null;
+        properties = null;
+        queryBuilderPool = null;
+        pipeline = null;
+    }
+
+    GamaPipeline newPipeline () {
+
+        Transport transport = payload -> {
+            sent.add(StandardCharsets.US_ASCII.decode(payload).toString());
+            return "";
+        };
+
+        return new GamaPipeline (properties, transport, new ByteBufferPool (4, 0), queryBuilderPool);
+    }
+
+    @Test
+    public void testDefaultPipeline() {
+
+        pipeline = newPipeline ();
+
+        assertNull(pipeline.getSamplingDispatcher());
+        assertNull(pipeline.getTimingAggregatingDispatcher());
+        assertNull(pipeline.getEventCoalescingDispatcher());
+        assertNull(pipeline.getBatchingDispatcher());
+
+        QueryBuilderFactory queryBuilderFactory =
+            new QueryBuilderFactory (queryBuilderPool, pipeline, "UA-1", "orders", "1.0");
+
+        queryBuilderFactory.send(queryBuilderFactory.newQueryBuilder().withCID("c1").withTAsPageView().withDp("/"));
+
+        pipeline.close();
+
+        assertEquals(Collections.singletonList("v=1&tid=UA-1&an=orders&av=1.0&cid=c1&t=pageview&dp=%2F"), sent);
+    }
+
+    @Test
+    public void testAggregationAndSampling() {
+
+        properties.getSampling().setRate(0.0);
+        properties.getSampling().getRates().put("event", 1.0);
+        properties.getAggregation().setEventWindowMillis(60000L);
+        properties.getAggregation().setTimingWindowMillis(60000L);
+
+        pipeline = newPipeline ();
+
+        assertNotNull(pipeline.getSamplingDispatcher());
+        assertNotNull(pipeline.getTimingAggregatingDispatcher());
+        assertNotNull(pipeline.getEventCoalescingDispatcher());
+
+        QueryBuilderFactory queryBuilderFactory =
+            new QueryBuilderFactory (queryBuilderPool, pipeline, "UA-1", null, null);
+
+        for (int ctr = 0; ctr < 3; ctr++)
+            queryBuilderFactory.send(queryBuilderFactory.newQueryBuilder()
+                .withCID("c1").withTAsEvent().withEc("video").withEa("play").withEv(1));
+
+        queryBuilderFactory.send(queryBuilderFactory.newQueryBuilder().withCID("c1").withTAsPageView());
+
+        pipeline.close();
+
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0), sent.get(0).endsWith("&ev=3"));
+        assertEquals(1, pipeline.getSamplingDispatcher().getSampledOutCount());
+    }
+
+    @Test
+    public void testBatching() {
+
+        properties.getBatching().setEnabled(true);
+        properties.getBatching().setLingerMillis(60000L);
+
+        pipeline = newPipeline ();
+
+        assertNotNull(pipeline.getBatchingDispatcher());
+        assertNull(pipeline.getTimingAggregatingDispatcher());
+        assertNull(pipeline.getEventCoalescingDispatcher());
+
+        QueryBuilderFactory queryBuilderFactory =
+            new QueryBuilderFactory (queryBuilderPool, pipeline, "UA-1", null, null);
+
+        for (int ctr = 0; ctr < 3; ctr++)
+            queryBuilderFactory.send(queryBuilderFactory.newQueryBuilder().withCID("c1").withTAsPageView()
+                .withDp("/" + ctr));
+
+        pipeline.close();
+
+        assertEquals(Collections.singletonList(
+            "v=1&tid=UA-1&cid=c1&t=pageview&dp=%2F0\n"
+                + "v=1&tid=UA-1&cid=c1&t=pageview&dp=%2F1\n"
+                + "v=1&tid=UA-1&cid=c1&t=pageview&dp=%2F2"), sent);
+        assertEquals(3, pipeline.getBatchingDispatcher().getSentCount());
+    }
+
+    /**
+     * Offering a hit, as PageviewFilter does, must drop it rather than wait when the lane is full, whichever stages
+     * are in front of the lane.
+     */
+    @Test
+    public void testOfferDoesNotWaitForAFullLane() throws InterruptedException {
+
+        properties.getAggregation().setEventWindowMillis(60000L);
+        properties.getAggregation().setTimingWindowMillis(60000L);
+        properties.getDispatch().setLaneCount(1);
+        properties.getDispatch().setLaneCapacity(1);
+
+        CountDownLatch release = new CountDownLatch (1);
+
+        Transport transport = payload -> {
+            try {
+                release.await();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return "";
+        };
+
+        pipeline = new GamaPipeline (properties, transport, new ByteBufferPool (4, 0), queryBuilderPool);
+
+        QueryBuilderFactory queryBuilderFactory =
+            new QueryBuilderFactory (queryBuilderPool, pipeline, "UA-1", null, null);
+
+        int dropped = 0;
+
+        long start = System.nanoTime();
+
+        for (int ctr = 0; ctr < 10; ctr++) {
+
+            QueryBuilder queryBuilder = queryBuilderFactory.newQueryBuilder().withCID("c1").withTAsPageView();
+
+            if (!pipeline.offer(queryBuilder))
+                dropped++;
+
+            queryBuilderFactory.discard(queryBuilder);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        release.countDown();
+
+        assertTrue("The offers took " + elapsedMillis + " milliseconds.", elapsedMillis < 5000L);
+        assertTrue("Only " + dropped + " hits were dropped.", 8 <= dropped);
+    }
+}